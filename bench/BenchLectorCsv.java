@@ -0,0 +1,105 @@
+import repository.LectorCsv;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Compara la lectura de un CSV de préstamos con el método anterior ({@code split} con
+ * expresión regular y quitado de comillas) y con {@link LectorCsv}.
+ *
+ * <p>Genera un CSV temporal con el formato de {@code usuarios.csv} (títulos con comas y
+ * comillas escapadas incluidos), filtra las filas de un correo con cada método, comprueba
+ * que ambos obtienen lo mismo y muestra el tiempo de cada ronda.</p>
+ *
+ * <pre>
+ * javac -d out $(find src -name '*.java') bench/BenchLectorCsv.java
+ * java -cp out BenchLectorCsv [filas] [rondas]
+ * </pre>
+ */
+public class BenchLectorCsv {
+
+    private static final Pattern SEPARADOR = Pattern.compile(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+
+    public static void main(String[] args) throws IOException {
+        int filas = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Path csv = Files.createTempFile("bench-prestamos", ".csv");
+        try {
+            generar(csv, filas);
+            String correo = "usuario7@correo.com";
+            System.out.printf("CSV de %,d filas (%,d bytes), filtrando %s%n", filas, Files.size(csv), correo);
+
+            for (int r = 1; r <= rondas; r++) {
+                long t0 = System.nanoTime();
+                List<String> conSplit = conSplit(csv, correo);
+                long t1 = System.nanoTime();
+                List<String> conLector = conLectorCsv(csv, correo);
+                long t2 = System.nanoTime();
+                if (!conSplit.equals(conLector)) {
+                    throw new IllegalStateException("Los resultados no coinciden");
+                }
+                System.out.printf("Ronda %d: split %.1f ms, LectorCsv %.1f ms (%d filas)%n",
+                        r, (t1 - t0) / 1e6, (t2 - t1) / 1e6, conLector.size());
+            }
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    private static void generar(Path csv, int filas) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            w.write("loanId,bookId,titulo,estado,fechaVencimiento,portada,correo");
+            w.newLine();
+            for (int i = 0; i < filas; i++) {
+                String titulo = i % 4 == 0 ? "\"Redes, teoría y \"\"práctica\"\" " + i + "\"" : "Libro " + i;
+                w.write(i + "," + (i % 25 + 1) + "," + titulo + ",ACTIVO,2026-11-" + (i % 28 + 1)
+                        + ",src/recursos/imagenes/portada" + (i % 25) + ".png,usuario" + (i % 50) + "@correo.com");
+                w.newLine();
+            }
+        }
+    }
+
+    /** Lectura anterior de {@code PrestamoRepositorio.cargarPrestamosPorCorreo}. */
+    private static List<String> conSplit(Path csv, String correo) throws IOException {
+        List<String> out = new ArrayList<>();
+        try (BufferedReader br = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String linea = br.readLine();
+            while ((linea = br.readLine()) != null) {
+                if (linea.isBlank()) continue;
+                String[] cols = SEPARADOR.split(linea, -1);
+                if (cols.length < 7) continue;
+                for (int i = 0; i < cols.length; i++) cols[i] = quitarComillas(cols[i].trim());
+                if (!cols[6].equalsIgnoreCase(correo)) continue;
+                out.add(Integer.parseInt(cols[0]) + "|" + cols[2]);
+            }
+        }
+        return out;
+    }
+
+    private static List<String> conLectorCsv(Path csv, String correo) throws IOException {
+        List<String> out = new ArrayList<>();
+        LectorCsv.leer(csv, ',', true, fila -> {
+            if (fila.columnas() < 7 || !fila.igualIgnorandoMayusculas(6, correo)) return;
+            out.add(fila.entero(0) + "|" + fila.campo(2));
+        });
+        return out;
+    }
+
+    /**
+     * Como el antiguo {@code unquote}, pero deshaciendo también las comillas dobladas para que
+     * el resultado sea comparable con el de {@link LectorCsv}.
+     */
+    private static String quitarComillas(String s) {
+        if (s.length() >= 2 && s.startsWith("\"") && s.endsWith("\"")) {
+            return s.substring(1, s.length() - 1).replace("\"\"", "\"");
+        }
+        return s;
+    }
+}
@@ -0,0 +1,110 @@
+import Registro.MotorValidacion;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Compara la validación por tecla del registro con el método anterior ({@code String.matches}
+ * y {@code Pattern.matches}, que compilan la expresión en cada llamada) y con
+ * {@link MotorValidacion}.
+ *
+ * <p>Simula que se escribe cada contraseña y cada correo carácter a carácter: en cada tecla
+ * se evalúan los cuatro requisitos de la contraseña (como hacía {@code ControladorRegistro},
+ * creando una {@link String} desde el {@code char[]} del campo) y el formato del correo. Cada
+ * ronda comprueba que ambos métodos dan el mismo resultado y muestra el tiempo de cada uno.</p>
+ *
+ * <pre>
+ * javac -d out $(find src -name '*.java') bench/BenchMotorValidacion.java
+ * java -cp out BenchMotorValidacion [textos] [rondas]
+ * </pre>
+ */
+public class BenchMotorValidacion {
+
+    private static final String EMAIL_REGEX = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$";
+    private static final String CARACTERES = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789!#$%&*-_.";
+
+    public static void main(String[] args) {
+        int textos = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        char[][] contrasenas = generarContrasenas(textos);
+        String[] correos = generarCorreos(textos);
+        long teclas = 0;
+        for (char[] c : contrasenas) teclas += c.length;
+        for (String c : correos) teclas += c.length();
+        System.out.printf("%,d contraseñas y %,d correos (%,d teclas)%n", textos, textos, teclas);
+
+        for (int r = 1; r <= rondas; r++) {
+            long t0 = System.nanoTime();
+            long conRegex = conRegex(contrasenas, correos);
+            long t1 = System.nanoTime();
+            long conMotor = conMotor(contrasenas, correos);
+            long t2 = System.nanoTime();
+            if (conRegex != conMotor) {
+                throw new IllegalStateException("Los resultados no coinciden");
+            }
+            System.out.printf("Ronda %d: regex %.1f ms, MotorValidacion %.1f ms (%.0f ns/tecla frente a %.0f)%n",
+                    r, (t1 - t0) / 1e6, (t2 - t1) / 1e6, (double) (t1 - t0) / teclas, (double) (t2 - t1) / teclas);
+        }
+    }
+
+    private static char[][] generarContrasenas(int cantidad) {
+        Random azar = new Random(42);
+        char[][] out = new char[cantidad][];
+        for (int i = 0; i < cantidad; i++) {
+            char[] c = new char[6 + azar.nextInt(10)];
+            for (int j = 0; j < c.length; j++) c[j] = CARACTERES.charAt(azar.nextInt(CARACTERES.length()));
+            out[i] = c;
+        }
+        return out;
+    }
+
+    private static String[] generarCorreos(int cantidad) {
+        String[] out = new String[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            out[i] = i % 10 == 0 ? "usuario " + i + "@unmsm.edu.pe" : "usuario." + i + "@unmsm.edu.pe";
+        }
+        return out;
+    }
+
+    /**
+     * Validación anterior de {@code ModeloRegistro} y {@code ModeloLogin}. Devuelve una suma de
+     * comprobación de los resultados para comparar con {@link #conMotor}.
+     */
+    private static long conRegex(char[][] contrasenas, String[] correos) {
+        long suma = 0;
+        for (char[] contrasena : contrasenas) {
+            for (int n = 1; n <= contrasena.length; n++) {
+                String texto = new String(Arrays.copyOf(contrasena, n));
+                int progreso = 0;
+                if (texto.matches(".*[A-Za-z].*")) progreso += 25;
+                if (texto.matches(".*\\d.*")) progreso += 25;
+                if (texto.matches(".*[^A-Za-z0-9].*")) progreso += 25;
+                if (texto.length() >= 8) progreso += 25;
+                suma += progreso;
+            }
+        }
+        for (String correo : correos) {
+            for (int n = 1; n <= correo.length(); n++) {
+                if (Pattern.matches(EMAIL_REGEX, correo.substring(0, n))) suma++;
+            }
+        }
+        return suma;
+    }
+
+    private static long conMotor(char[][] contrasenas, String[] correos) {
+        long suma = 0;
+        for (char[] contrasena : contrasenas) {
+            for (int n = 1; n <= contrasena.length; n++) {
+                // El campo de contraseña devuelve un arreglo nuevo en cada tecla
+                suma += MotorValidacion.evaluarContrasena(Arrays.copyOf(contrasena, n)).getProgreso();
+            }
+        }
+        for (String correo : correos) {
+            for (int n = 1; n <= correo.length(); n++) {
+                if (MotorValidacion.correoValido(correo.substring(0, n))) suma++;
+            }
+        }
+        return suma;
+    }
+}
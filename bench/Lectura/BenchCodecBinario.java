@@ -0,0 +1,89 @@
+package Lectura;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compara el tamaño y el tiempo de escritura y lectura de los marcadores con la serialización
+ * de Java (formato anterior de {@code marcadores.dat}) y con {@link CodecBinario}.
+ *
+ * <p>Está en el paquete {@code Lectura} para usar el mismo esquema que {@link ModeloLectura}.
+ * Trabaja en memoria para no medir el disco; cada ronda comprueba que ambos formatos leen los
+ * mismos marcadores.</p>
+ *
+ * <pre>
+ * javac -d out $(find src bench -name '*.java')
+ * java -cp out Lectura.BenchCodecBinario [marcadores] [rondas]
+ * </pre>
+ */
+public class BenchCodecBinario {
+
+    public static void main(String[] args) throws Exception {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<ModeloLectura.Marcador> marcadores = generar(cantidad);
+        System.out.printf("%,d marcadores%n", cantidad);
+
+        for (int r = 1; r <= rondas; r++) {
+            long t0 = System.nanoTime();
+            byte[] java = serializar(marcadores);
+            long t1 = System.nanoTime();
+            List<ModeloLectura.Marcador> leidosJava = deserializar(java);
+            long t2 = System.nanoTime();
+            ByteArrayOutputStream salida = new ByteArrayOutputStream();
+            CodecBinario.escribir(salida, CodecBinario.TIPO_MARCADORES, marcadores, ModeloLectura.ESQUEMA_MARCADOR);
+            byte[] codec = salida.toByteArray();
+            long t3 = System.nanoTime();
+            List<ModeloLectura.Marcador> leidosCodec = CodecBinario.leer(new ByteArrayInputStream(codec),
+                    CodecBinario.TIPO_MARCADORES, ModeloLectura.ESQUEMA_MARCADOR);
+            long t4 = System.nanoTime();
+            comprobar(marcadores, leidosJava);
+            comprobar(marcadores, leidosCodec);
+
+            System.out.printf("Ronda %d: serialización %,d bytes, escritura %.1f ms, lectura %.1f ms | "
+                            + "codec %,d bytes, escritura %.1f ms, lectura %.1f ms%n",
+                    r, java.length, (t1 - t0) / 1e6, (t2 - t1) / 1e6,
+                    codec.length, (t3 - t2) / 1e6, (t4 - t3) / 1e6);
+        }
+    }
+
+    private static List<ModeloLectura.Marcador> generar(int cantidad) {
+        List<ModeloLectura.Marcador> out = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            out.add(new ModeloLectura.Marcador("usuario" + (i % 1000), String.valueOf(i % 25 + 1),
+                    i % 400 + 1, i % 3 == 0 ? "Nota del capítulo " + (i % 40) : null));
+        }
+        return out;
+    }
+
+    private static byte[] serializar(List<ModeloLectura.Marcador> marcadores) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(salida)) {
+            oos.writeObject(new ArrayList<>(marcadores));
+        }
+        return salida.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ModeloLectura.Marcador> deserializar(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (List<ModeloLectura.Marcador>) ois.readObject();
+        }
+    }
+
+    private static void comprobar(List<ModeloLectura.Marcador> esperados, List<ModeloLectura.Marcador> leidos) {
+        if (leidos.size() != esperados.size()) throw new IllegalStateException("Cantidad distinta");
+        for (int i = 0; i < leidos.size(); i++) {
+            ModeloLectura.Marcador a = esperados.get(i), b = leidos.get(i);
+            if (!a.getId().equals(b.getId()) || a.getPagina() != b.getPagina()
+                    || !a.getDescripcion().equals(b.getDescripcion()) || !a.getFechaCreacion().equals(b.getFechaCreacion())) {
+                throw new IllegalStateException("Marcador distinto en la posición " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package Auth;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio de autenticación con caché de credenciales y protección ante fuerza bruta.
+ *
+ * <p>Mantiene en memoria el contenido de la base de usuarios (se recarga solo si cambia
+ * la fecha de modificación del archivo), limita los intentos mediante cubetas de tokens
+ * por cuenta y por cliente, y bloquea temporalmente las cuentas con demasiados fallos
+ * consecutivos. Los contadores se guardan en mapas acotados (LRU) para que un ataque con
+ * correos aleatorios no haga crecer la memoria sin límite.</p>
+ */
+public class ServicioAutenticacion {
+
+    /**
+     * Estados posibles tras un intento de autenticación.
+     */
+    public enum EstadoAutenticacion { EXITO, CREDENCIALES_INVALIDAS, CUENTA_BLOQUEADA, LIMITE_EXCEDIDO }
+
+    /**
+     * Resultado de un intento de autenticación.
+     */
+    public static class Resultado {
+        private final EstadoAutenticacion estado;
+        private final String nombre;
+        private final long segundosEspera;
+
+        Resultado(EstadoAutenticacion estado, String nombre, long segundosEspera) {
+            this.estado = estado;
+            this.nombre = nombre;
+            this.segundosEspera = segundosEspera;
+        }
+
+        public EstadoAutenticacion getEstado() { return estado; }
+        /** @return nombre del usuario autenticado, o cadena vacía si falló */
+        public String getNombre() { return nombre; }
+        /** @return segundos que debe esperar el usuario antes de reintentar (0 si no aplica) */
+        public long getSegundosEspera() { return segundosEspera; }
+        public boolean esExitoso() { return estado == EstadoAutenticacion.EXITO; }
+
+        /**
+         * Resultado de credenciales inválidas que no consume intentos (p.ej. datos mal formados).
+         * @return resultado fallido
+         */
+        public static Resultado fallido() {
+            return new Resultado(EstadoAutenticacion.CREDENCIALES_INVALIDAS, "", 0);
+        }
+    }
+
+    /** Intentos máximos en ráfaga por cuenta. */
+    private static final int CAPACIDAD_CUENTA = 5;
+    /** Milisegundos para recuperar un token de cuenta. */
+    private static final long RECARGA_CUENTA_MS = 30_000;
+    /** Intentos máximos en ráfaga por cliente (kiosco, equipo). */
+    private static final int CAPACIDAD_CLIENTE = 20;
+    /** Milisegundos para recuperar un token de cliente. */
+    private static final long RECARGA_CLIENTE_MS = 3_000;
+    /** Fallos consecutivos que provocan el bloqueo de la cuenta. */
+    private static final int FALLOS_PARA_BLOQUEO = 5;
+    /** Duración del bloqueo de cuenta. */
+    private static final long DURACION_BLOQUEO_MS = TimeUnit.MINUTES.toMillis(5);
+    /** Número máximo de entradas en cada mapa de contadores. */
+    private static final int MAX_ENTRADAS = 10_000;
+
+    private static ServicioAutenticacion instancia;
+
+    private final Map<String, CubetaTokens> cubetasCuenta = new MapaAcotado<>(MAX_ENTRADAS);
+    private final Map<String, CubetaTokens> cubetasCliente = new MapaAcotado<>(MAX_ENTRADAS);
+    private final Map<String, ContadorFallos> fallos = new MapaAcotado<>(MAX_ENTRADAS);
+
+    /** correo -> campos de la línea (nombre, correo, contraseña, ...) */
+    private Map<String, String[]> credenciales = new HashMap<>();
+    private FileTime versionCredenciales;
+
+    private ServicioAutenticacion() {
+    }
+
+    /**
+     * Obtiene la instancia única del servicio.
+     * @return instancia de {@code ServicioAutenticacion}
+     */
+    public static synchronized ServicioAutenticacion obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new ServicioAutenticacion();
+        }
+        return instancia;
+    }
+
+    /**
+     * Autentica un usuario aplicando limitación de intentos y bloqueo de cuenta.
+     *
+     * @param correo correo institucional
+     * @param password contraseña ingresada
+     * @param idCliente identificador del cliente que realiza el intento (equipo, kiosco)
+     * @return {@link Resultado} con el estado del intento
+     */
+    public synchronized Resultado autenticar(String correo, String password, String idCliente) {
+        long ahora = ahoraMs();
+        String cuenta = correo == null ? "" : correo.trim().toLowerCase();
+        String cliente = idCliente == null ? "" : idCliente;
+
+        CubetaTokens cubetaCliente = cubetasCliente.computeIfAbsent(cliente,
+                k -> new CubetaTokens(CAPACIDAD_CLIENTE, RECARGA_CLIENTE_MS, ahora));
+        if (!cubetaCliente.consumir(ahora)) {
+            return new Resultado(EstadoAutenticacion.LIMITE_EXCEDIDO, "", cubetaCliente.segundosHastaToken(ahora));
+        }
+
+        ContadorFallos contador = fallos.get(cuenta);
+        if (contador != null && contador.bloqueadoHasta > ahora) {
+            return new Resultado(EstadoAutenticacion.CUENTA_BLOQUEADA, "",
+                    TimeUnit.MILLISECONDS.toSeconds(contador.bloqueadoHasta - ahora) + 1);
+        }
+
+        CubetaTokens cubetaCuenta = cubetasCuenta.computeIfAbsent(cuenta,
+                k -> new CubetaTokens(CAPACIDAD_CUENTA, RECARGA_CUENTA_MS, ahora));
+        if (!cubetaCuenta.consumir(ahora)) {
+            return new Resultado(EstadoAutenticacion.LIMITE_EXCEDIDO, "", cubetaCuenta.segundosHastaToken(ahora));
+        }
+
+        String[] campos = obtenerCredenciales().get(correo);
+        if (campos != null && campos.length >= 3 && password != null
+                && iguales(campos[2], password)) {
+            fallos.remove(cuenta);
+            return new Resultado(EstadoAutenticacion.EXITO, campos[0], 0);
+        }
+
+        if (contador == null) {
+            contador = new ContadorFallos();
+            fallos.put(cuenta, contador);
+        }
+        contador.consecutivos++;
+        if (contador.consecutivos >= FALLOS_PARA_BLOQUEO) {
+            contador.consecutivos = 0;
+            contador.bloqueadoHasta = ahora + DURACION_BLOQUEO_MS;
+            return new Resultado(EstadoAutenticacion.CUENTA_BLOQUEADA, "",
+                    TimeUnit.MILLISECONDS.toSeconds(DURACION_BLOQUEO_MS));
+        }
+        return new Resultado(EstadoAutenticacion.CREDENCIALES_INVALIDAS, "", 0);
+    }
+
+    /**
+     * Registra (write-through) una credencial recién creada para que esté disponible
+     * sin volver a leer el archivo.
+     *
+     * @param nombre nombre del usuario
+     * @param correo correo del usuario
+     * @param contrasena contraseña del usuario
+     */
+    public synchronized void registrarCredencial(String nombre, String correo, String contrasena) {
+        obtenerCredenciales();
+        credenciales.put(correo.trim(), new String[]{nombre.trim(), correo.trim(), contrasena.trim()});
+    }
+
+    /**
+     * Descarta la caché de credenciales; se recargará en el siguiente intento.
+     */
+    public synchronized void invalidarCredenciales() {
+        versionCredenciales = null;
+    }
+
+    /**
+     * Devuelve el mapa de credenciales, recargándolo solo si el archivo cambió.
+     */
+    private Map<String, String[]> obtenerCredenciales() {
+        Path ruta = Path.of(SessionManager.obtenerRutaUsuarios());
+        FileTime modificado;
+        try {
+            modificado = Files.getLastModifiedTime(ruta);
+        } catch (IOException e) {
+            return credenciales;
+        }
+        if (modificado.equals(versionCredenciales)) {
+            return credenciales;
+        }
+
+        Map<String, String[]> nuevas = new HashMap<>();
+        // Decodificación tolerante, como FileReader: un byte que no sea UTF-8 (archivos escritos
+        // con el juego de caracteres de la plataforma) se sustituye y no impide cargar el resto
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(Files.newInputStream(ruta), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                String[] campos = linea.split(" ");
+                if (campos.length >= 3) {
+                    nuevas.put(campos[1], campos);
+                }
+            }
+            credenciales = nuevas;
+            versionCredenciales = modificado;
+        } catch (IOException e) {
+            System.err.println("No se pudo leer el archivo");
+        }
+        return credenciales;
+    }
+
+    /**
+     * Compara dos cadenas en tiempo constante para no filtrar información por tiempos.
+     */
+    private static boolean iguales(String a, String b) {
+        return MessageDigest.isEqual(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long ahoraMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // ESTRUCTURAS AUXILIARES
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Cubeta de tokens: admite ráfagas de hasta {@code capacidad} intentos y
+     * recupera un token cada {@code recargaMs} milisegundos.
+     */
+    private static class CubetaTokens {
+        private final int capacidad;
+        private final long recargaMs;
+        private double tokens;
+        private long ultimaRecarga;
+
+        CubetaTokens(int capacidad, long recargaMs, long ahora) {
+            this.capacidad = capacidad;
+            this.recargaMs = recargaMs;
+            this.tokens = capacidad;
+            this.ultimaRecarga = ahora;
+        }
+
+        boolean consumir(long ahora) {
+            recargar(ahora);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        long segundosHastaToken(long ahora) {
+            recargar(ahora);
+            double faltante = Math.max(0, 1 - tokens);
+            return (long) Math.ceil(faltante * recargaMs / 1000.0);
+        }
+
+        private void recargar(long ahora) {
+            long transcurrido = ahora - ultimaRecarga;
+            if (transcurrido > 0) {
+                tokens = Math.min(capacidad, tokens + (double) transcurrido / recargaMs);
+                ultimaRecarga = ahora;
+            }
+        }
+    }
+
+    /**
+     * Fallos consecutivos de una cuenta y fin del bloqueo vigente.
+     */
+    private static class ContadorFallos {
+        private int consecutivos;
+        private long bloqueadoHasta;
+    }
+
+    /**
+     * Mapa LRU con número máximo de entradas: descarta la menos usada al llenarse.
+     */
+    private static class MapaAcotado<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+        private final int maximo;
+
+        MapaAcotado(int maximo) {
+            super(16, 0.75f, true);
+            this.maximo = maximo;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> mayor) {
+            return size() > maximo;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package Auth;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Sesión de un usuario autenticado.
+ *
+ * <p>Cada sesión se identifica por un token aleatorio y registra el momento del último
+ * acceso, que {@link SessionManager} usa para expirar sesiones inactivas. Es el contexto
+ * que se pasa a los controladores para que una misma instancia de la aplicación
+ * atienda a varios usuarios a la vez (p.ej. kioscos que comparten un proceso).</p>
+ */
+public class Sesion {
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    private final String token;
+    private final String usuario;
+    private final long creada;
+    private volatile long ultimoAcceso;
+
+    /**
+     * Crea una sesión nueva con un token aleatorio para el usuario indicado.
+     *
+     * @param usuario id del usuario autenticado
+     */
+    Sesion(String usuario) {
+        byte[] bytes = new byte[24];
+        ALEATORIO.nextBytes(bytes);
+        this.token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        this.usuario = usuario;
+        this.creada = System.currentTimeMillis();
+        this.ultimoAcceso = creada;
+    }
+
+    /** @return token que identifica la sesión */
+    public String getToken() { return token; }
+    /** @return id del usuario dueño de la sesión */
+    public String getUsuario() { return usuario; }
+    /** @return instante de creación (milisegundos epoch) */
+    public long getCreada() { return creada; }
+    /** @return instante del último acceso (milisegundos epoch) */
+    public long getUltimoAcceso() { return ultimoAcceso; }
+
+    /**
+     * Marca la sesión como usada en este momento.
+     */
+    void tocar() {
+        ultimoAcceso = System.currentTimeMillis();
+    }
+
+    /**
+     * Indica si la sesión superó el tiempo máximo de inactividad.
+     *
+     * @param ahora instante actual en milisegundos epoch
+     * @param inactividadMaximaMs inactividad permitida en milisegundos
+     * @return {@code true} si la sesión debe expirar
+     */
+    boolean estaExpirada(long ahora, long inactividadMaximaMs) {
+        return ahora - ultimoAcceso > inactividadMaximaMs;
+    }
+}
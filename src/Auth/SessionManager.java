@@ -2,26 +2,57 @@ package Auth;
 
 import Catalogo.ControladorPrestamo;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Manejador de sesión (stub) usado para pruebas locales.
+ * Manejador de sesiones.
  *
- * En la versión final este componente debe conectarse con el módulo de
- * autenticación para devolver el usuario real. Por ahora expone métodos
- * sencillos para consultar la sesión actual.
+ * Mantiene una tabla concurrente de sesiones identificadas por token, con expiración
+ * por inactividad, de modo que un mismo proceso pueda atender a varios usuarios a la vez.
+ * Conserva además la "sesión actual" de la interfaz de escritorio para los métodos
+ * sencillos de consulta usados por las vistas.
  */
 public class SessionManager {
 
-    private static String user;
+    /** Inactividad máxima de una sesión antes de expirar (minutos, configurable). */
+    private static final long INACTIVIDAD_MAXIMA_MS =
+            TimeUnit.MINUTES.toMillis(Long.getLong("lybsys.sesion.inactividadMinutos", 30));
+
+    /** token -> sesión */
+    private static final Map<String, Sesion> sesiones = new ConcurrentHashMap<>();
+
+    /** Tarea periódica que purga las sesiones inactivas. */
+    private static final ScheduledExecutorService purgador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "purga-sesiones");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    static {
+        purgador.scheduleWithFixedDelay(SessionManager::purgarSesionesInactivas, 1, 1, TimeUnit.MINUTES);
+    }
+
+    private static volatile Sesion sesionActual;
+    /** Archivo de usuarios, en UTF-8 (se lee de forma tolerante por si lo escribió una versión anterior). */
     private static String rutaUsuarios = "datos\\usuarios.txt";
 
     /**
-     * Agrega el id del usuario actualmente logueado.
+     * Agrega el id del usuario actualmente logueado en la interfaz de escritorio,
+     * abriendo una sesión nueva para él. La sesión de escritorio anterior, si la hay,
+     * se cierra para que no quede registrada hasta la purga.
      * 
-     * @return id del usuario logueado o {@code null}
+     * @param s id del usuario logueado
      */
     public static void agregarUsuarioActual(String s) {
-        user = s;
+        Sesion anterior = sesionActual;
+        if (anterior != null) cerrarSesion(anterior.getToken());
+        sesionActual = iniciarSesion(s);
         ControladorPrestamo.establecerUsuarioActual(s);
         System.out.println("SesionActual: " + s);
     }
@@ -32,7 +63,79 @@ public class SessionManager {
      * @return id del usuario logueado o {@code null}
      */
     public static String obtenerUsuarioActual() {
-        return user;
+        Sesion actual = sesionActual;
+        return actual == null ? null : actual.getUsuario();
+    }
+
+    /**
+     * Devuelve la sesión de la interfaz de escritorio, o {@code null} si no hay sesión.
+     *
+     * @return sesión actual o {@code null}
+     */
+    public static Sesion obtenerSesionActual() {
+        return sesionActual;
+    }
+
+    /**
+     * Abre una sesión nueva para el usuario y la registra en la tabla de sesiones.
+     *
+     * @param usuario id del usuario autenticado
+     * @return sesión creada, con su token
+     */
+    public static Sesion iniciarSesion(String usuario) {
+        Sesion sesion = new Sesion(usuario);
+        sesiones.put(sesion.getToken(), sesion);
+        return sesion;
+    }
+
+    /**
+     * Busca una sesión vigente por su token y actualiza su último acceso.
+     * Si la sesión expiró por inactividad, se elimina.
+     *
+     * @param token token de la sesión
+     * @return Optional con la sesión si existe y no expiró
+     */
+    public static Optional<Sesion> obtenerSesion(String token) {
+        if (token == null) return Optional.empty();
+        Sesion sesion = sesiones.get(token);
+        if (sesion == null) return Optional.empty();
+        if (sesion.estaExpirada(System.currentTimeMillis(), INACTIVIDAD_MAXIMA_MS)) {
+            sesiones.remove(token, sesion);
+            return Optional.empty();
+        }
+        sesion.tocar();
+        return Optional.of(sesion);
+    }
+
+    /**
+     * Cierra la sesión indicada.
+     *
+     * @param token token de la sesión
+     */
+    public static void cerrarSesion(String token) {
+        if (token == null) return;
+        Sesion cerrada = sesiones.remove(token);
+        if (cerrada != null && cerrada == sesionActual) {
+            sesionActual = null;
+        }
+    }
+
+    /**
+     * Número de sesiones registradas (incluye las que aún no se purgaron).
+     *
+     * @return cantidad de sesiones
+     */
+    public static int contarSesiones() {
+        return sesiones.size();
+    }
+
+    /**
+     * Elimina las sesiones que superaron el tiempo máximo de inactividad.
+     * La sesión de escritorio no expira mientras la ventana siga abierta.
+     */
+    public static void purgarSesionesInactivas() {
+        long ahora = System.currentTimeMillis();
+        sesiones.values().removeIf(s -> s != sesionActual && s.estaExpirada(ahora, INACTIVIDAD_MAXIMA_MS));
     }
 
     /**
@@ -53,21 +156,30 @@ public class SessionManager {
      * @param contrasena la contraseña del usuario
      */
     public static void escribirUsuarios(String nombre, String usuario, String contrasena, String avatar) {
-        try (BufferedWriter escritor = new BufferedWriter(new FileWriter(rutaUsuarios, true))){
+        try (BufferedWriter escritor = new BufferedWriter(new FileWriter(rutaUsuarios, StandardCharsets.UTF_8, true))){
             escritor.write(nombre.trim() + " " + usuario.trim() + " " + contrasena.trim());
             escritor.newLine();
+            ServicioAutenticacion.obtenerInstancia().registrarCredencial(nombre, usuario, contrasena);
         } catch (IOException e) {
             System.err.println("No se pudo escribir en el archivo");
         }
     }
 
+    /**
+     * Devuelve la ruta del archivo de usuarios (usada por {@link ServicioAutenticacion}).
+     * @return ruta del archivo de usuarios
+     */
+    static String obtenerRutaUsuarios() {
+        return rutaUsuarios;
+    }
+
     /**
      * Busca el usuario dentro de la base de datos.
      * @param correo filtra por correo
      * @return {@code String} nombre de usuario, correo y contraseña
      */
     public static String buscarUsuarioCorreo(String correo) {
-        try (BufferedReader lector = new BufferedReader(new FileReader(rutaUsuarios))) {
+        try (BufferedReader lector = new BufferedReader(new FileReader(rutaUsuarios, StandardCharsets.UTF_8))) {
             String linea;
             while ((linea = lector.readLine()) != null) {
                 String[] campos = linea.split(" ");
@@ -87,7 +199,7 @@ public class SessionManager {
      * @return {@code String} nombre de usuario, correo y contraseña
      */
     public static String buscarUsuarioNombre(String nombre) {
-        try (BufferedReader lector = new BufferedReader(new FileReader(rutaUsuarios))) {
+        try (BufferedReader lector = new BufferedReader(new FileReader(rutaUsuarios, StandardCharsets.UTF_8))) {
             String linea;
             while ((linea = lector.readLine()) != null) {
                 String[] campos = linea.split(" ");
@@ -107,7 +219,7 @@ public class SessionManager {
      * @return {@code true} si encontró la coincidencia exacta
      */
     public static boolean buscarCoincidencia(String palabra) {
-        try (BufferedReader lector = new BufferedReader(new FileReader(rutaUsuarios))) {
+        try (BufferedReader lector = new BufferedReader(new FileReader(rutaUsuarios, StandardCharsets.UTF_8))) {
             String linea;
             while ((linea = lector.readLine()) != null) {
                 String[] campos = linea.split(" ");
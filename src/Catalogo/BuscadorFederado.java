@@ -0,0 +1,458 @@
+package Catalogo;
+
+import Lectura.IndexadorTexto;
+import Lectura.ModeloLectura;
+import recursos.HilosVirtuales;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.ToIntFunction;
+
+/**
+ * Búsqueda en todo el catálogo que combina los metadatos de los libros con el texto de sus PDF.
+ *
+ * <p>Cada consulta se separa en términos con las mismas reglas que el índice de texto
+ * (minúsculas y sin tildes) y se evalúa en paralelo sobre dos fuentes:</p>
+ * <ul>
+ *   <li><b>Metadatos</b>: título, autores, categoría y descripción del {@link ControladorCatalogo},
+ *       con más peso para el título y los autores.</li>
+ *   <li><b>Contenido</b>: el índice de texto que {@link IndexadorTexto} guarda para cada libro en
+ *       formato PDF. De cada libro solo se conserva en memoria la frecuencia de sus términos y su
+ *       longitud, y se vuelve a leer únicamente si el PDF cambia, así que buscar en miles de
+ *       libros no obliga a tener sus textos cargados.</li>
+ * </ul>
+ *
+ * <p>Los ids del catálogo y los de {@link ModeloLectura} son independientes (el libro "1" del
+ * catálogo no es el PDF "1" del lector), así que cada libro del catálogo se asocia con su PDF por
+ * ISBN. Ambas fuentes se puntúan con BM25 y la del PDF se suma a la del libro asociado; los PDF
+ * que contienen la consulta pero no corresponden a ningún libro del catálogo se devuelven aparte
+ * ({@link PaginaResultados#getFueraDelCatalogo()}). Los fragmentos por página solo se extraen para
+ * los resultados devueltos. Los PDF que aún no tienen índice se ponen en cola en el indexador y
+ * aparecen en las búsquedas siguientes.</p>
+ */
+public class BuscadorFederado {
+
+    /** Parámetros de BM25: saturación de la frecuencia y normalización por longitud. */
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /** Peso de cada campo de los metadatos (un término en el título cuenta como tres). */
+    private static final int PESO_TITULO = 3;
+    private static final int PESO_AUTORES = 2;
+    private static final int PESO_CATEGORIA = 1;
+    private static final int PESO_DESCRIPCION = 1;
+    /** Peso de la puntuación de metadatos frente a la de contenido. */
+    private static final double PESO_METADATOS = 1.5;
+
+    /** Páginas con fragmento que se devuelven por libro. */
+    private static final int PAGINAS_POR_RESULTADO = 3;
+
+    /**
+     * Libro encontrado, con su puntuación y las páginas donde aparece la consulta.
+     */
+    public static class Resultado {
+        private final String libroId;
+        private final String idPdf;
+        private final String titulo;
+        private final Libro libro;
+        private final double puntuacionMetadatos;
+        private final double puntuacionContenido;
+        private List<IndexadorTexto.Coincidencia> paginas = Collections.emptyList();
+
+        Resultado(String libroId, String idPdf, String titulo, Libro libro,
+                  double puntuacionMetadatos, double puntuacionContenido) {
+            this.libroId = libroId;
+            this.idPdf = idPdf;
+            this.titulo = titulo;
+            this.libro = libro;
+            this.puntuacionMetadatos = puntuacionMetadatos;
+            this.puntuacionContenido = puntuacionContenido;
+        }
+
+        /** @return id del libro en el catálogo, o {@code null} si el PDF no está en el catálogo */
+        public String getLibroId() { return libroId; }
+        /** @return id del PDF en {@link ModeloLectura}, o {@code null} si el libro no tiene PDF asociado */
+        public String getIdPdf() { return idPdf; }
+        public String getTitulo() { return titulo; }
+        /** @return libro del catálogo, o {@code null} si el PDF no está en el catálogo */
+        public Libro getLibro() { return libro; }
+        public double getPuntuacion() { return PESO_METADATOS * puntuacionMetadatos + puntuacionContenido; }
+        public double getPuntuacionMetadatos() { return puntuacionMetadatos; }
+        public double getPuntuacionContenido() { return puntuacionContenido; }
+        /** @return páginas del PDF con más apariciones, con su fragmento (vacía si no hay texto) */
+        public List<IndexadorTexto.Coincidencia> getPaginas() { return paginas; }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%.2f)", titulo, getPuntuacion());
+        }
+    }
+
+    /**
+     * Página de resultados de una búsqueda.
+     */
+    public static class PaginaResultados {
+        private final List<Resultado> resultados;
+        private final List<Resultado> fueraDelCatalogo;
+        private final int total;
+        private final int pagina;
+        private final int tamPagina;
+
+        PaginaResultados(List<Resultado> resultados, List<Resultado> fueraDelCatalogo, int total, int pagina, int tamPagina) {
+            this.resultados = resultados;
+            this.fueraDelCatalogo = fueraDelCatalogo;
+            this.total = total;
+            this.pagina = pagina;
+            this.tamPagina = tamPagina;
+        }
+
+        /** @return libros del catálogo de la página */
+        public List<Resultado> getResultados() { return resultados; }
+        /**
+         * @return PDF del lector sin libro en el catálogo que contienen la consulta (como mucho
+         *         un tamaño de página); no cuentan en el total ni en la paginación
+         */
+        public List<Resultado> getFueraDelCatalogo() { return fueraDelCatalogo; }
+        /** @return libros del catálogo encontrados en total */
+        public int getTotal() { return total; }
+        /** @return página actual (base 1) */
+        public int getPagina() { return pagina; }
+        /** @return número total de páginas (>= 1) */
+        public int getTotalPaginas() { return Math.max(1, (total + tamPagina - 1) / tamPagina); }
+    }
+
+    /**
+     * Frecuencias de términos de un documento (metadatos o texto de un PDF).
+     */
+    private static final class Documento {
+        /** Id del libro del catálogo o del PDF, según la fuente. */
+        final String id;
+        /** Veces que aparece cada término en el documento. */
+        final ToIntFunction<String> frecuencias;
+        final int longitud;
+
+        Documento(String id, ToIntFunction<String> frecuencias, int longitud) {
+            this.id = id;
+            this.frecuencias = frecuencias;
+            this.longitud = longitud;
+        }
+    }
+
+    /**
+     * Estadísticas del texto de un PDF para una versión concreta del archivo.
+     */
+    private static final class Contenido {
+        final long version;
+        final long tamano;
+        final IndexadorTexto.Estadisticas estadisticas;
+
+        Contenido(long version, long tamano, IndexadorTexto.Estadisticas estadisticas) {
+            this.version = version;
+            this.tamano = tamano;
+            this.estadisticas = estadisticas;
+        }
+    }
+
+    private final ControladorCatalogo catalogo;
+    private final IndexadorTexto indexador;
+    private final ExecutorService ejecutor = HilosVirtuales.crearEjecutor("busqueda-federada");
+    /** Estadísticas de contenido por id de PDF. */
+    private final Map<String, Contenido> contenidos = new ConcurrentHashMap<>();
+
+    /**
+     * @param catalogo catálogo cuyos metadatos se buscan
+     */
+    public BuscadorFederado(ControladorCatalogo catalogo) {
+        this(catalogo, IndexadorTexto.obtenerInstancia());
+    }
+
+    /**
+     * @param catalogo catálogo cuyos metadatos se buscan
+     * @param indexador indexador del texto de los PDF
+     */
+    public BuscadorFederado(ControladorCatalogo catalogo, IndexadorTexto indexador) {
+        this.catalogo = catalogo;
+        this.indexador = indexador;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // BÚSQUEDA
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Busca en los metadatos y en el texto de los PDF.
+     * @param consulta palabras buscadas (no se exige que formen frase)
+     * @param pagina número de página (base 1)
+     * @param tamPagina resultados por página
+     * @return libros del catálogo de la página, ordenados por puntuación, y aparte los PDF
+     *         encontrados que no están en el catálogo
+     */
+    public PaginaResultados buscar(String consulta, int pagina, int tamPagina) {
+        List<String> terminos = terminos(consulta);
+        pagina = Math.max(1, pagina);
+        if (terminos.isEmpty()) {
+            return new PaginaResultados(Collections.emptyList(), Collections.emptyList(), 0, pagina, tamPagina);
+        }
+
+        List<ModeloLectura.Libro> pdfs = librosPdf();
+        List<Resultado> enCatalogo = new ArrayList<>();
+        List<Resultado> fuera = new ArrayList<>();
+        for (Resultado r : puntuar(terminos, pdfs)) {
+            (r.libro != null ? enCatalogo : fuera).add(r);
+        }
+
+        int desde = Math.min((pagina - 1) * tamPagina, enCatalogo.size());
+        List<Resultado> visibles = new ArrayList<>(enCatalogo.subList(desde, Math.min(desde + tamPagina, enCatalogo.size())));
+        List<Resultado> fueraVisibles = new ArrayList<>(fuera.subList(0, Math.min(tamPagina, fuera.size())));
+        List<Resultado> conFragmentos = new ArrayList<>(visibles);
+        conFragmentos.addAll(fueraVisibles);
+        agregarFragmentos(conFragmentos, pdfs, terminos);
+        return new PaginaResultados(visibles, fueraVisibles, enCatalogo.size(), pagina, tamPagina);
+    }
+
+    /**
+     * Busca solo los PDF del lector que contienen la consulta y no corresponden a ningún libro
+     * del catálogo, con sus fragmentos.
+     * @param consulta palabras buscadas
+     * @param maximo resultados como máximo
+     * @return resultados ordenados por puntuación
+     */
+    public List<Resultado> buscarFueraDelCatalogo(String consulta, int maximo) {
+        List<String> terminos = terminos(consulta);
+        if (terminos.isEmpty()) return Collections.emptyList();
+        List<ModeloLectura.Libro> pdfs = librosPdf();
+        List<Resultado> fuera = new ArrayList<>();
+        for (Resultado r : puntuar(terminos, pdfs)) {
+            if (r.libro == null && fuera.size() < maximo) fuera.add(r);
+        }
+        agregarFragmentos(fuera, pdfs, terminos);
+        return fuera;
+    }
+
+    /**
+     * Libros del catálogo que responden a la consulta por sus metadatos o por el texto de su
+     * PDF, sin fragmentos.
+     * @param consulta palabras buscadas
+     * @return libros ordenados por puntuación
+     */
+    public List<Libro> librosPorRelevancia(String consulta) {
+        List<String> terminos = terminos(consulta);
+        if (terminos.isEmpty()) return Collections.emptyList();
+        List<Libro> libros = new ArrayList<>();
+        for (Resultado r : puntuar(terminos, librosPdf())) {
+            if (r.libro != null) libros.add(r.libro);
+        }
+        return libros;
+    }
+
+    private static List<String> terminos(String consulta) {
+        return new ArrayList<>(new LinkedHashSet<>(IndexadorTexto.terminos(consulta)));
+    }
+
+    /**
+     * Puntúa en paralelo los metadatos y el contenido y los fusiona: la puntuación de cada PDF
+     * se suma a la del libro del catálogo asociado, y los PDF sin libro forman resultados propios.
+     * @return todos los resultados, ordenados por puntuación
+     */
+    private List<Resultado> puntuar(List<String> terminos, List<ModeloLectura.Libro> pdfs) {
+        List<Libro> librosCatalogo = catalogo.getTodosLosLibros();
+
+        CompletableFuture<Map<String, Double>> metadatos =
+                CompletableFuture.supplyAsync(() -> puntuarMetadatos(librosCatalogo, terminos), ejecutor);
+        CompletableFuture<Map<String, Double>> contenido = documentosContenido(pdfs)
+                .thenApply(documentos -> bm25(documentos, terminos));
+        Map<String, Double> porMetadatos = metadatos.join();
+        Map<String, Double> porContenido = contenido.join();
+
+        Map<String, ModeloLectura.Libro> pdfPorLibro = asociarPdf(librosCatalogo, pdfs);
+        Set<String> pdfsAsociados = new HashSet<>();
+        List<Resultado> resultados = new ArrayList<>();
+        for (Libro libro : librosCatalogo) {
+            ModeloLectura.Libro pdf = pdfPorLibro.get(libro.getId());
+            String idPdf = pdf != null ? pdf.getId() : null;
+            if (idPdf != null) pdfsAsociados.add(idPdf);
+            double puntuacionMetadatos = porMetadatos.getOrDefault(libro.getId(), 0.0);
+            double puntuacionContenido = idPdf != null ? porContenido.getOrDefault(idPdf, 0.0) : 0.0;
+            if (puntuacionMetadatos > 0 || puntuacionContenido > 0) {
+                resultados.add(new Resultado(libro.getId(), idPdf, libro.getTitulo(), libro,
+                        puntuacionMetadatos, puntuacionContenido));
+            }
+        }
+        for (ModeloLectura.Libro pdf : pdfs) {
+            Double puntuacionContenido = porContenido.get(pdf.getId());
+            if (puntuacionContenido == null || pdfsAsociados.contains(pdf.getId())) continue;
+            resultados.add(new Resultado(null, pdf.getId(), pdf.getTitulo(), null, 0, puntuacionContenido));
+        }
+        resultados.sort((a, b) -> Double.compare(b.getPuntuacion(), a.getPuntuacion()));
+        return resultados;
+    }
+
+    /**
+     * Busca en paralelo las páginas con fragmento de los resultados que tienen contenido.
+     */
+    private void agregarFragmentos(List<Resultado> resultados, List<ModeloLectura.Libro> pdfs, List<String> terminos) {
+        Map<String, String> rutas = new HashMap<>();
+        for (ModeloLectura.Libro l : pdfs) rutas.put(l.getId(), l.getRutaArchivo());
+        List<CompletableFuture<Void>> tareas = new ArrayList<>();
+        for (Resultado r : resultados) {
+            String ruta = r.idPdf != null ? rutas.get(r.idPdf) : null;
+            if (ruta == null || r.puntuacionContenido == 0) continue;
+            tareas.add(CompletableFuture.runAsync(() ->
+                    r.paginas = indexador.paginasCon(r.idPdf, ruta, terminos, PAGINAS_POR_RESULTADO), ejecutor));
+        }
+        CompletableFuture.allOf(tareas.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // FUENTES
+    // ───────────────────────────────────────────────────────────────
+
+    private static List<ModeloLectura.Libro> librosPdf() {
+        List<ModeloLectura.Libro> pdfs = new ArrayList<>();
+        for (ModeloLectura.Libro l : ModeloLectura.cargarLibros()) {
+            if ("PDF".equalsIgnoreCase(l.getFormato()) && l.getRutaArchivo() != null) pdfs.add(l);
+        }
+        return pdfs;
+    }
+
+    /**
+     * Asocia cada libro del catálogo con el PDF del lector que tiene su mismo ISBN.
+     * @return PDF por id de libro del catálogo (solo los libros que tienen uno)
+     */
+    private static Map<String, ModeloLectura.Libro> asociarPdf(List<Libro> libros, List<ModeloLectura.Libro> pdfs) {
+        Map<String, ModeloLectura.Libro> porIsbn = new HashMap<>();
+        for (ModeloLectura.Libro pdf : pdfs) {
+            String isbn = normalizarIsbn(pdf.getIsbn());
+            if (!isbn.isEmpty()) porIsbn.putIfAbsent(isbn, pdf);
+        }
+        Map<String, ModeloLectura.Libro> pdfPorLibro = new HashMap<>();
+        if (porIsbn.isEmpty()) return pdfPorLibro;
+        for (Libro libro : libros) {
+            ModeloLectura.Libro pdf = porIsbn.get(normalizarIsbn(libro.getIsbn()));
+            if (pdf != null) pdfPorLibro.put(libro.getId(), pdf);
+        }
+        return pdfPorLibro;
+    }
+
+    /**
+     * @return ISBN solo con letras y dígitos, en mayúsculas ("978-0596009205" → "9780596009205")
+     */
+    static String normalizarIsbn(String isbn) {
+        if (isbn == null) return "";
+        StringBuilder sb = new StringBuilder(isbn.length());
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (Character.isLetterOrDigit(c)) sb.append(Character.toUpperCase(c));
+        }
+        return sb.toString();
+    }
+
+    private static Map<String, Double> puntuarMetadatos(List<Libro> libros, List<String> terminos) {
+        List<Documento> documentos = new ArrayList<>(libros.size());
+        for (Libro l : libros) {
+            Map<String, Integer> frecuencias = new HashMap<>();
+            int longitud = contar(frecuencias, l.getTitulo(), PESO_TITULO)
+                    + contar(frecuencias, l.getAutores(), PESO_AUTORES)
+                    + contar(frecuencias, l.getCategoria(), PESO_CATEGORIA)
+                    + contar(frecuencias, l.getDescripcion(), PESO_DESCRIPCION);
+            documentos.add(new Documento(l.getId(), t -> frecuencias.getOrDefault(t, 0), longitud));
+        }
+        return bm25(documentos, terminos);
+    }
+
+    /**
+     * Suma los términos de un campo con su peso.
+     * @return longitud ponderada del campo
+     */
+    private static int contar(Map<String, Integer> frecuencias, String texto, int peso) {
+        List<String> terminos = IndexadorTexto.terminos(texto);
+        for (String t : terminos) frecuencias.merge(t, peso, Integer::sum);
+        return terminos.size() * peso;
+    }
+
+    /**
+     * Obtiene en paralelo las estadísticas de texto de cada PDF, releyendo solo las de los
+     * archivos que cambiaron. Los PDF sin índice se ponen en cola para indexarlos.
+     */
+    private CompletableFuture<List<Documento>> documentosContenido(List<ModeloLectura.Libro> pdfs) {
+        List<CompletableFuture<Documento>> tareas = new ArrayList<>(pdfs.size());
+        for (ModeloLectura.Libro l : pdfs) {
+            tareas.add(CompletableFuture.supplyAsync(() -> documentoContenido(l), ejecutor));
+        }
+        return CompletableFuture.allOf(tareas.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<Documento> documentos = new ArrayList<>(tareas.size());
+            for (CompletableFuture<Documento> t : tareas) {
+                Documento d = t.join();
+                if (d != null) documentos.add(d);
+            }
+            return documentos;
+        });
+    }
+
+    private Documento documentoContenido(ModeloLectura.Libro libro) {
+        BasicFileAttributes atributos;
+        try {
+            atributos = Files.readAttributes(Path.of(libro.getRutaArchivo()), BasicFileAttributes.class);
+        } catch (Exception e) {
+            contenidos.remove(libro.getId());
+            return null;
+        }
+        long version = atributos.lastModifiedTime().toMillis();
+        Contenido contenido = contenidos.get(libro.getId());
+        if (contenido == null || contenido.version != version || contenido.tamano != atributos.size()) {
+            IndexadorTexto.Estadisticas estadisticas = indexador.estadisticas(libro.getId(), libro.getRutaArchivo());
+            if (estadisticas == null) {
+                contenidos.remove(libro.getId());
+                indexador.indexar(libro.getId(), libro.getRutaArchivo());
+                return null;
+            }
+            contenido = new Contenido(version, atributos.size(), estadisticas);
+            contenidos.put(libro.getId(), contenido);
+        }
+        IndexadorTexto.Estadisticas e = contenido.estadisticas;
+        return new Documento(libro.getId(), e::getFrecuencia, e.getLongitud());
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // PUNTUACIÓN
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Puntúa una colección de documentos con BM25.
+     * @return puntuación por id de documento, solo para los documentos con algún término
+     */
+    private static Map<String, Double> bm25(List<Documento> documentos, List<String> terminos) {
+        Map<String, Double> puntuaciones = new HashMap<>();
+        if (documentos.isEmpty()) return puntuaciones;
+        double longitudMedia = 0;
+        for (Documento d : documentos) longitudMedia += d.longitud;
+        longitudMedia = Math.max(1, longitudMedia / documentos.size());
+
+        int n = documentos.size();
+        for (String termino : terminos) {
+            int conTermino = 0;
+            for (Documento d : documentos) if (d.frecuencias.applyAsInt(termino) > 0) conTermino++;
+            if (conTermino == 0) continue;
+            double idf = Math.log(1 + (n - conTermino + 0.5) / (conTermino + 0.5));
+            for (Documento d : documentos) {
+                int tf = d.frecuencias.applyAsInt(termino);
+                if (tf == 0) continue;
+                double norma = K1 * (1 - B + B * d.longitud / longitudMedia);
+                puntuaciones.merge(d.id, idf * tf * (K1 + 1) / (tf + norma), Double::sum);
+            }
+        }
+        return puntuaciones;
+    }
+}
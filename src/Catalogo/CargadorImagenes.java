@@ -0,0 +1,61 @@
+package Catalogo;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Decodificación de imágenes a un tamaño aproximado al que se van a mostrar.
+ *
+ * <p>Primero se leen solo las dimensiones de la cabecera y después se decodifica con
+ * submuestreo ({@link ImageReadParam#setSourceSubsampling}): el lector descarta filas y
+ * columnas al decodificar, así que una portada escaneada a alta resolución no se llega a
+ * cargar entera en memoria. El factor se elige para que la imagen decodificada siga siendo al
+ * menos el doble del tamaño pedido, de modo que el escalado final conserve la calidad.</p>
+ */
+final class CargadorImagenes {
+
+    private CargadorImagenes() {
+    }
+
+    /**
+     * Lee una imagen submuestreada para un tamaño de destino.
+     * @param ruta archivo de imagen
+     * @param ancho ancho al que se mostrará
+     * @param alto alto al que se mostrará
+     * @return imagen decodificada (de al menos el doble del tamaño pedido si el original lo
+     *         permite), o {@code null} si ningún lector reconoce el formato
+     * @throws IOException si falla la lectura
+     */
+    static BufferedImage leer(Path ruta, int ancho, int alto) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(ruta.toFile())) {
+            if (entrada == null) return null;
+            Iterator<ImageReader> lectores = ImageIO.getImageReaders(entrada);
+            if (!lectores.hasNext()) return null;
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(entrada, true, true);
+                ImageReadParam parametros = lector.getDefaultReadParam();
+                int factor = factorSubmuestreo(lector.getWidth(0), lector.getHeight(0), ancho, alto);
+                if (factor > 1) parametros.setSourceSubsampling(factor, factor, 0, 0);
+                return lector.read(0, parametros);
+            } finally {
+                lector.dispose();
+            }
+        }
+    }
+
+    /**
+     * @return mayor factor entero que deja la imagen en al menos el doble del tamaño de
+     *         destino en ambas dimensiones (1 si no hay que submuestrear)
+     */
+    static int factorSubmuestreo(int anchoOriginal, int altoOriginal, int ancho, int alto) {
+        int factor = Math.min(anchoOriginal / (2 * ancho), altoOriginal / (2 * alto));
+        return Math.max(1, factor);
+    }
+}
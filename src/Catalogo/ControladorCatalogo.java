@@ -1,5 +1,7 @@
 package Catalogo;
 
+import repository.BitacoraPrestamos;
+
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -15,12 +17,40 @@ public class ControladorCatalogo {
     private List<Libro> ultimoResultado = new ArrayList<>();
     private int paginaActual = 1;
     private int tamPagina = 10; // Ajustado a 10 por consistencia con la extensión
+    private BuscadorFederado buscador;
 
     /**
      * Crea el controlador y carga los datos iniciales para pruebas.
+     * Las copias disponibles se calculan a partir de la bitácora de préstamos.
      */
     public ControladorCatalogo() {
         cargarDatos();
+        for (Libro libro : libros) {
+            sincronizar(libro);
+        }
+    }
+
+    /**
+     * Calcula las copias disponibles de cada libro como el total de copias menos sus
+     * préstamos activos en la {@link BitacoraPrestamos}, que los conserva entre ejecuciones.
+     */
+    public void sincronizarInventario() {
+        for (Libro libro : libros) {
+            sincronizar(libro);
+        }
+    }
+
+    /**
+     * Recalcula con la bitácora de préstamos las copias disponibles de un libro.
+     * @param id identificador del libro
+     */
+    public void sincronizarInventario(String id) {
+        obtenerPorId(id).ifPresent(this::sincronizar);
+    }
+
+    private void sincronizar(Libro libro) {
+        int activos = BitacoraPrestamos.obtenerInstancia().contarActivos(libro.getId());
+        libro.setCopiasDisponibles(Math.max(0, libro.getTotalCopias() - activos));
     }
     
     private void cargarDatos() {
@@ -149,22 +179,65 @@ public class ControladorCatalogo {
         return new ArrayList<>(libros);
     }
 
+    /**
+     * Obtiene el buscador que combina los metadatos del catálogo con el texto de los PDF.
+     * Se crea la primera vez que se pide.
+     * @return buscador federado sobre este catálogo
+     */
+    public synchronized BuscadorFederado getBuscador() {
+        if (buscador == null) buscador = new BuscadorFederado(this);
+        return buscador;
+    }
+
     /**
      * Realiza la búsqueda de libros y devuelve resultados paginados.
-     * @param consultaTitulo texto a buscar en el título (nullable)
+     * @param consultaTitulo texto a buscar (nullable); ver {@link #filtrar}
      * @param categoria categoría a filtrar ("Todos" para no filtrar)
      * @param soloDisponibles si true, filtra solo libros con copias disponibles
      * @param pagina número de página (base 1)
      * @return lista paginada de resultados
      */
     public List<Libro> buscar(String consultaTitulo, String categoria, boolean soloDisponibles, int pagina) {
+        return paginar(filtrar(consultaTitulo, categoria, soloDisponibles), pagina);
+    }
+
+    /**
+     * Guarda el resultado de {@link #filtrar} como la última búsqueda y devuelve una de sus
+     * páginas. Permite filtrar en segundo plano y paginar después en el hilo de la vista.
+     * @param filtrados resultado completo de la búsqueda
+     * @param pagina número de página (base 1)
+     * @return lista paginada de resultados
+     */
+    public List<Libro> paginar(List<Libro> filtrados, int pagina) {
         paginaActual = Math.max(1, pagina);
+        ultimoResultado = filtrados;
 
-        Stream<Libro> stream = libros.stream();
+        // Paginación
+        int desde = (paginaActual - 1) * tamPagina;
+        if (desde >= filtrados.size()) return Collections.emptyList();
+
+        int hasta = Math.min(desde + tamPagina, filtrados.size());
+        return filtrados.subList(desde, hasta);
+    }
+
+    /**
+     * Filtra el catálogo sin modificar el estado de paginación del controlador,
+     * por lo que puede invocarse de forma concurrente (p.ej. desde el servidor HTTP).
+     * Con consulta, salen primero los libros que la contienen en sus metadatos o en el texto de
+     * su PDF, por relevancia ({@link BuscadorFederado}), y después los que solo la contienen
+     * dentro del título. Lee los índices de texto de los PDF, así que conviene llamarlo fuera del EDT.
+     * @param consultaTitulo texto a buscar (nullable)
+     * @param categoria categoría a filtrar ("Todos" para no filtrar)
+     * @param soloDisponibles si true, filtra solo libros con copias disponibles
+     * @return lista completa de libros que cumplen los filtros
+     */
+    public List<Libro> filtrar(String consultaTitulo, String categoria, boolean soloDisponibles) {
+        Stream<Libro> stream;
 
         if (consultaTitulo != null && !consultaTitulo.trim().isEmpty()) {
-            String t = consultaTitulo.trim().toLowerCase();
-            stream = stream.filter(l -> l.getTitulo().toLowerCase().contains(t));
+            stream = porConsulta(consultaTitulo.trim()).stream();
+        } else {
+            stream = libros.stream();
         }
 
         if (categoria != null && !categoria.equalsIgnoreCase("Todos") && !categoria.isEmpty()) {
@@ -176,15 +249,24 @@ public class ControladorCatalogo {
             stream = stream.filter(Libro::isDisponible);
         }
 
-        List<Libro> filtrados = stream.collect(Collectors.toList());
-        ultimoResultado = filtrados;
-
-        // Paginación
-        int desde = (paginaActual - 1) * tamPagina;
-        if (desde >= filtrados.size()) return Collections.emptyList();
+        return stream.collect(Collectors.toList());
+    }
 
-        int hasta = Math.min(desde + tamPagina, filtrados.size());
-        return filtrados.subList(desde, hasta);
+    /**
+     * Libros que responden a una consulta: primero los que encuentra el {@link BuscadorFederado}
+     * en sus metadatos o en el texto de su PDF, por relevancia, y después los que solo contienen
+     * la consulta dentro del título (p.ej. una palabra a medio escribir).
+     */
+    private List<Libro> porConsulta(String consulta) {
+        Map<String, Libro> encontrados = new LinkedHashMap<>();
+        for (Libro l : getBuscador().librosPorRelevancia(consulta)) {
+            encontrados.put(l.getId(), l);
+        }
+        String t = consulta.toLowerCase();
+        for (Libro l : libros) {
+            if (l.getTitulo().toLowerCase().contains(t)) encontrados.putIfAbsent(l.getId(), l);
+        }
+        return new ArrayList<>(encontrados.values());
     }
 
     /**
@@ -1,30 +1,47 @@
 package Catalogo;
 
+import java.io.UncheckedIOException;
 import java.util.*;
 import Lectura.VistaLectura;
 import Perfil.io.PrestamoRepositorio;
+import repository.BitacoraPrestamos;
+import repository.ProgramadorVencimientos;
 
 /**
- * Controlador simplificado para gestionar préstamos y colas de espera (simulación en memoria).
- * Implementa un singleton y mantiene un mapa de préstamos por usuario y contadores de cola por libro.
+ * Controlador simplificado para gestionar préstamos y colas de espera.
+ * Implementa un singleton; los préstamos y las colas se guardan en la {@link BitacoraPrestamos}
+ * compartida y el inventario de copias en los libros del catálogo.
+ * Las operaciones tienen variantes que reciben el id del usuario de la sesión, de modo que
+ * la misma instancia puede atender a varias sesiones concurrentes; las variantes sin usuario
+ * operan sobre el usuario de la interfaz de escritorio.
  */
 public class ControladorPrestamo {
     private static ControladorPrestamo instancia;
-    private Map<String, List<String>> prestamosPorUsuario = new HashMap<>(); // idUsuario -> lista de idLibros
-    private Map<String, Integer> colaPrestamo = new HashMap<>(); // idLibro -> cantidad de usuarios en cola
-    private static String idUsuarioActual;
+    private final BitacoraPrestamos bitacora;
+    /** Catálogo cuyo inventario recibe las copias de los préstamos vencidos. */
+    private ControladorCatalogo inventario;
+    private static volatile String idUsuarioActual;
 
     private ControladorPrestamo() {
-        // Datos iniciales simulados
-        prestamosPorUsuario.put("usuario1", new ArrayList<>(Arrays.asList("1", "2")));
-        prestamosPorUsuario.put("usuario2", new ArrayList<>(Arrays.asList("4", "5")));
+        bitacora = BitacoraPrestamos.obtenerInstancia();
+        // Datos de demostración, solo en desarrollo (-Dlybsys.prestamos.demo=true) y con la bitácora vacía
+        if (Boolean.getBoolean("lybsys.prestamos.demo") && bitacora.estaVacia()) {
+            try {
+                for (String idLibro : Arrays.asList("1", "2")) bitacora.registrarPrestamo("usuario1", idLibro, BitacoraPrestamos.vencimientoPorDefecto());
+                for (String idLibro : Arrays.asList("4", "5")) bitacora.registrarPrestamo("usuario2", idLibro, BitacoraPrestamos.vencimientoPorDefecto());
+            } catch (UncheckedIOException e) {
+                System.err.println("⚠️  No se pudieron registrar los préstamos iniciales: " + e.getMessage());
+            }
+        }
+        // El programador arranca al registrar el inventario (atenderVencimientos)
+        ProgramadorVencimientos.obtenerInstancia().agregarOyente(this::atenderVencidos);
     }
 
     /**
      * Obtiene la instancia singleton del controlador de préstamos.
      * @return instancia única de `ControladorPrestamo`
      */
-    public static ControladorPrestamo obtenerInstancia() {
+    public static synchronized ControladorPrestamo obtenerInstancia() {
         if (instancia == null) {
             instancia = new ControladorPrestamo();
         }
@@ -52,7 +69,17 @@ public class ControladorPrestamo {
      * @return lista de IDs de libros
      */
     public List<String> obtenerPrestamosUsuarioActual() {
-        return prestamosPorUsuario.getOrDefault(idUsuarioActual, new ArrayList<>());
+        return obtenerPrestamos(idUsuarioActual);
+    }
+
+    /**
+     * Obtiene los IDs de los libros prestados por el usuario indicado.
+     * @param idUsuario id del usuario de la sesión
+     * @return lista de IDs de libros
+     */
+    public List<String> obtenerPrestamos(String idUsuario) {
+        if (idUsuario == null) return new ArrayList<>();
+        return bitacora.librosActivos(idUsuario);
     }
 
     /**
@@ -61,7 +88,17 @@ public class ControladorPrestamo {
      * @return true si el usuario ya tiene el libro, false en caso contrario
      */
     public boolean usuarioTieneLibro(String idLibro) {
-        return obtenerPrestamosUsuarioActual().contains(idLibro);
+        return usuarioTieneLibro(idUsuarioActual, idLibro);
+    }
+
+    /**
+     * Verifica si el usuario indicado ya tiene prestado el libro.
+     * @param idUsuario id del usuario de la sesión
+     * @param idLibro id del libro
+     * @return true si el usuario ya tiene el libro, false en caso contrario
+     */
+    public boolean usuarioTieneLibro(String idUsuario, String idLibro) {
+        return idUsuario != null && bitacora.tienePrestamoActivo(idUsuario, idLibro);
     }
 
     /**
@@ -71,18 +108,28 @@ public class ControladorPrestamo {
      * @return true si el préstamo fue exitoso, false si no
      */
     public boolean pedirPrestamo(String idLibro, ControladorCatalogo controladorCatalogo) {
-        if (usuarioTieneLibro(idLibro)) {
+        return pedirPrestamo(idUsuarioActual, idLibro, controladorCatalogo);
+    }
+
+    /**
+     * Intenta prestar el libro al usuario indicado.
+     * @param idUsuario id del usuario de la sesión
+     * @param idLibro id del libro
+     * @param controladorCatalogo controlador de catálogo para buscar el libro
+     * @return true si el préstamo fue exitoso, false si no
+     * @throws UncheckedIOException si no se puede escribir en la bitácora
+     */
+    public synchronized boolean pedirPrestamo(String idUsuario, String idLibro, ControladorCatalogo controladorCatalogo) {
+        if (idUsuario == null || usuarioTieneLibro(idUsuario, idLibro)) {
             return false; // Ya lo tiene
         }
 
         Optional<Libro> libro = controladorCatalogo.obtenerPorId(idLibro);
         if (libro.isPresent() && libro.get().getCopiasDisponibles() > 0) {
+            // Primero la bitácora: si no se puede escribir, el inventario no cambia.
+            // Si el usuario estaba en la cola, el préstamo lo saca de ella
+            bitacora.registrarPrestamo(idUsuario, idLibro, BitacoraPrestamos.vencimientoPorDefecto());
             libro.get().setCopiasDisponibles(libro.get().getCopiasDisponibles() - 1);
-
-            prestamosPorUsuario.putIfAbsent(idUsuarioActual, new ArrayList<>());
-            prestamosPorUsuario.get(idUsuarioActual).add(idLibro);
-
-            colaPrestamo.remove(idLibro); // Remover de la cola si estaba
             return true;
         }
         return false;
@@ -95,38 +142,103 @@ public class ControladorPrestamo {
      * @return true si la devolución fue procesada, false en caso contrario
      */
     public boolean devolverLibro(String idLibro, ControladorCatalogo controladorCatalogo) {
-        if (!usuarioTieneLibro(idLibro)) {
+        return devolverLibro(idUsuarioActual, idLibro, controladorCatalogo);
+    }
+
+    /**
+     * Devuelve un libro prestado por el usuario indicado.
+     * @param idUsuario id del usuario de la sesión
+     * @param idLibro id del libro
+     * @param controladorCatalogo controlador de catálogo para actualizar inventario
+     * @return true si la devolución fue procesada, false en caso contrario
+     * @throws UncheckedIOException si no se puede escribir en la bitácora
+     */
+    public synchronized boolean devolverLibro(String idUsuario, String idLibro, ControladorCatalogo controladorCatalogo) {
+        if (!usuarioTieneLibro(idUsuario, idLibro)) {
             return false;
         }
 
         Optional<Libro> libro = controladorCatalogo.obtenerPorId(idLibro);
         if (libro.isPresent()) {
+            bitacora.registrarDevolucion(idUsuario, idLibro);
             libro.get().setCopiasDisponibles(libro.get().getCopiasDisponibles() + 1);
-            prestamosPorUsuario.get(idUsuarioActual).remove(idLibro);
+            promoverCola(idLibro, controladorCatalogo);
             return true;
         }
         return false;
     }
 
+    /**
+     * Registra el catálogo cuyo inventario recibe las copias de los préstamos vencidos, que
+     * se prestan a los primeros de la cola, y arranca el programador de vencimientos. Hay un
+     * único inventario (el último registrado), de modo que cada copia vencida se devuelve una
+     * sola vez. Sus copias disponibles se recalculan con la bitácora al registrarlo.
+     * @param controladorCatalogo catálogo con el inventario a mantener
+     */
+    public void atenderVencimientos(ControladorCatalogo controladorCatalogo) {
+        synchronized (this) {
+            inventario = controladorCatalogo;
+            controladorCatalogo.sincronizarInventario();
+        }
+        // Se inicia después de registrar el inventario para no perder los primeros vencidos
+        ProgramadorVencimientos.obtenerInstancia().iniciar();
+    }
+
+    /**
+     * Devuelve al inventario la copia de cada préstamo vencido del lote y la presta al primero
+     * de su cola. Las copias se recalculan con la bitácora (que ya tiene el préstamo como
+     * vencido) en lugar de sumarse, así que una copia nunca se cuenta dos veces aunque el
+     * inventario se haya registrado mientras se procesaba el lote.
+     */
+    private synchronized void atenderVencidos(List<BitacoraPrestamos.Registro> lote) {
+        if (inventario == null) return;
+        for (BitacoraPrestamos.Registro r : lote) {
+            inventario.sincronizarInventario(r.getIdLibro());
+            promoverCola(r.getIdLibro(), inventario);
+        }
+    }
+
+    /**
+     * Presta una copia recién liberada al primer usuario de la cola del libro, si lo hay.
+     */
+    private void promoverCola(String idLibro, ControladorCatalogo controladorCatalogo) {
+        try {
+            String siguiente = bitacora.primeroEnCola(idLibro);
+            // pedirPrestamo saca al usuario de la cola
+            if (siguiente != null) pedirPrestamo(siguiente, idLibro, controladorCatalogo);
+        } catch (UncheckedIOException e) {
+            // El usuario sigue en la cola y la copia queda disponible
+            System.err.println("⚠️  No se pudo prestar el libro " + idLibro + " al siguiente de la cola: " + e.getMessage());
+        }
+    }
+
     /**
      * Añade el usuario actual a la cola de espera del libro.
      * @param idLibro id del libro
      */
     public void agregarACola(String idLibro) {
-        if (!usuarioTieneLibro(idLibro)) {
-            int enCola = colaPrestamo.getOrDefault(idLibro, 0);
-            colaPrestamo.put(idLibro, enCola + 1);
+        agregarACola(idUsuarioActual, idLibro);
+    }
+
+    /**
+     * Añade el usuario indicado a la cola de espera del libro.
+     * @param idUsuario id del usuario de la sesión
+     * @param idLibro id del libro
+     */
+    public void agregarACola(String idUsuario, String idLibro) {
+        if (idUsuario != null) {
+            bitacora.ponerEnCola(idUsuario, idLibro);
         }
     }
 
     /**
-     * Obtiene la posición estimada en la cola para el libro indicado.
-     * Nota: implementación simulada.
+     * Obtiene la posición del usuario actual en la cola del libro indicado.
      * @param idLibro id del libro
-     * @return posición en cola (simulada)
+     * @return posición en cola (base 1), o el tamaño de la cola si el usuario no está en ella
      */
     public int obtenerPosicionCola(String idLibro) {
-        return colaPrestamo.getOrDefault(idLibro, 0);
+        int posicion = idUsuarioActual == null ? 0 : bitacora.posicionEnCola(idUsuarioActual, idLibro);
+        return posicion > 0 ? posicion : bitacora.contarEnCola(idLibro);
     }
 
     /**
@@ -136,7 +248,18 @@ public class ControladorPrestamo {
      * @return estado del libro para el usuario actual
      */
     public EstadoLibro obtenerEstadoLibro(String idLibro, ControladorCatalogo controladorCatalogo) {
-        if (usuarioTieneLibro(idLibro)) {
+        return obtenerEstadoLibro(idUsuarioActual, idLibro, controladorCatalogo);
+    }
+
+    /**
+     * Obtiene el estado del libro para el usuario indicado.
+     * @param idUsuario id del usuario de la sesión
+     * @param idLibro id del libro
+     * @param controladorCatalogo controlador de catálogo para consultar existencias
+     * @return estado del libro para el usuario
+     */
+    public EstadoLibro obtenerEstadoLibro(String idUsuario, String idLibro, ControladorCatalogo controladorCatalogo) {
+        if (usuarioTieneLibro(idUsuario, idLibro)) {
             return EstadoLibro.YA_TIENE;
         }
 
@@ -147,7 +270,7 @@ public class ControladorPrestamo {
 
         if (libro.get().getCopiasDisponibles() > 0) {
             return EstadoLibro.DISPONIBLE;
-        } else if (colaPrestamo.getOrDefault(idLibro, 0) > 0) {
+        } else if (bitacora.contarEnCola(idLibro) > 0) {
             return EstadoLibro.EN_COLA;
         } else {
             return EstadoLibro.SIN_COPIAS;
@@ -0,0 +1,307 @@
+package Catalogo;
+
+import recursos.HilosVirtuales;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Miniaturas de las portadas del catálogo.
+ *
+ * <p>Cada portada se decodifica una sola vez: al pedir una miniatura que no está en caché se
+ * lee la imagen original (submuestreada con {@link CargadorImagenes}) y se generan de una vez todos los {@link #TAMANOS} que usan las
+ * vistas (tarjeta del catálogo y vista de detalle). El escalado se hace por reducciones
+ * sucesivas a la mitad con interpolación bilineal, que da una calidad similar a
+ * {@code SCALE_SMOOTH} a una fracción de su coste.</p>
+ *
+ * <p>Las miniaturas se guardan en una caché LRU en memoria limitada por bytes (propiedad
+ * {@code lybsys.miniaturas.memoriaMB}, 32 MB por defecto) y en disco, en
+ * {@value #DIRECTORIO_POR_DEFECTO}, con un nombre derivado de la ruta de la portada, su fecha
+ * de modificación y el tamaño. Si la portada cambia, su clave cambia y las miniaturas
+ * anteriores se borran al guardar las nuevas.</p>
+ *
+ * <p>Las vistas piden las miniaturas con {@link #obtenerEnSegundoPlano}, que decodifica en un
+ * grupo de hilos acotado; {@link #obtenerEnMemoria} permite mostrar sin espera las que ya
+ * están en memoria.</p>
+ */
+public class ServicioMiniaturas {
+
+    /** Miniatura de las tarjetas del catálogo. */
+    public static final int ANCHO_TARJETA = 80, ALTO_TARJETA = 120;
+    /** Portada de la vista de detalle. */
+    public static final int ANCHO_DETALLE = 190, ALTO_DETALLE = 290;
+    private static final int[][] TAMANOS = {
+        {ANCHO_TARJETA, ALTO_TARJETA},
+        {ANCHO_DETALLE, ALTO_DETALLE}
+    };
+
+    public static final String DIRECTORIO_POR_DEFECTO = "datos/miniaturas";
+
+    private static ServicioMiniaturas instancia;
+
+    private final Path directorio;
+    private final long limiteBytes;
+    private long bytesEnMemoria;
+    private final LinkedHashMap<String, ImageIcon> memoria = new LinkedHashMap<>(64, 0.75f, true);
+    /** Decodificar y escalar usa CPU: se limita a la mitad de los núcleos. */
+    private final ExecutorService ejecutor = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), HilosVirtuales.hilosDaemon("miniaturas"));
+
+    /**
+     * @param directorio directorio de la caché en disco
+     * @param limiteBytes tamaño máximo de la caché en memoria
+     */
+    public ServicioMiniaturas(Path directorio, long limiteBytes) {
+        this.directorio = directorio;
+        this.limiteBytes = limiteBytes;
+    }
+
+    /**
+     * Obtiene el servicio compartido por las vistas del catálogo.
+     * @return instancia única
+     */
+    public static synchronized ServicioMiniaturas obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new ServicioMiniaturas(Path.of(DIRECTORIO_POR_DEFECTO),
+                    Long.getLong("lybsys.miniaturas.memoriaMB", 32L) << 20);
+        }
+        return instancia;
+    }
+
+    /**
+     * Obtiene la miniatura de una portada.
+     * @param rutaPortada ruta de la imagen original
+     * @param ancho ancho de la miniatura
+     * @param alto alto de la miniatura
+     * @return miniatura, o {@code null} si no hay portada o no se pudo leer
+     */
+    public ImageIcon obtener(String rutaPortada, int ancho, int alto) {
+        if (rutaPortada == null || rutaPortada.isEmpty()) return null;
+        Path origen;
+        BasicFileAttributes atributos;
+        try {
+            origen = Path.of(rutaPortada);
+            atributos = Files.readAttributes(origen, BasicFileAttributes.class);
+        } catch (IOException | InvalidPathException e) {
+            return null;
+        }
+        String version = atributos.lastModifiedTime().toMillis() + "-" + atributos.size();
+
+        ImageIcon icono = buscarEnMemoria(clave(rutaPortada, version, ancho, alto));
+        if (icono != null) return icono;
+
+        // En disco, la ruta se reduce a una huella para usarla como nombre de archivo
+        String base = huella(origen.toAbsolutePath().normalize().toString());
+
+        BufferedImage enDisco = leerDeDisco(archivo(base, version, ancho, alto));
+        if (enDisco != null) return guardarEnMemoria(clave(rutaPortada, version, ancho, alto), enDisco);
+
+        // Se decodifica submuestreada para el mayor de los tamaños que se van a generar
+        int anchoMaximo = ancho, altoMaximo = alto;
+        for (int[] tamano : TAMANOS) {
+            anchoMaximo = Math.max(anchoMaximo, tamano[0]);
+            altoMaximo = Math.max(altoMaximo, tamano[1]);
+        }
+        BufferedImage original;
+        try {
+            original = CargadorImagenes.leer(origen, anchoMaximo, altoMaximo);
+        } catch (IOException e) {
+            System.err.println("No se pudo leer la portada " + rutaPortada + ": " + e.getMessage());
+            return null;
+        }
+        if (original == null) return null;
+
+        limpiarVersionesAnteriores(base, version);
+        boolean estandar = false;
+        for (int[] tamano : TAMANOS) {
+            BufferedImage escalada = escalar(original, tamano[0], tamano[1]);
+            guardarEnDisco(archivo(base, version, tamano[0], tamano[1]), escalada);
+            ImageIcon generado = guardarEnMemoria(clave(rutaPortada, version, tamano[0], tamano[1]), escalada);
+            if (tamano[0] == ancho && tamano[1] == alto) {
+                icono = generado;
+                estandar = true;
+            }
+        }
+        if (!estandar) {
+            BufferedImage escalada = escalar(original, ancho, alto);
+            guardarEnDisco(archivo(base, version, ancho, alto), escalada);
+            icono = guardarEnMemoria(clave(rutaPortada, version, ancho, alto), escalada);
+        }
+        return icono;
+    }
+
+    /**
+     * Obtiene una miniatura solo si ya está en memoria, sin leer el disco ni decodificar.
+     * @param rutaPortada ruta de la imagen original
+     * @param ancho ancho de la miniatura
+     * @param alto alto de la miniatura
+     * @return miniatura, o {@code null} si no está en memoria
+     */
+    public ImageIcon obtenerEnMemoria(String rutaPortada, int ancho, int alto) {
+        if (rutaPortada == null || rutaPortada.isEmpty()) return null;
+        try {
+            BasicFileAttributes atributos = Files.readAttributes(Path.of(rutaPortada), BasicFileAttributes.class);
+            String version = atributos.lastModifiedTime().toMillis() + "-" + atributos.size();
+            return buscarEnMemoria(clave(rutaPortada, version, ancho, alto));
+        } catch (IOException | InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Obtiene una miniatura en segundo plano. Si el futuro se cancela antes de que empiece
+     * la carga, la portada no se llega a leer.
+     * @param rutaPortada ruta de la imagen original
+     * @param ancho ancho de la miniatura
+     * @param alto alto de la miniatura
+     * @return futuro con la miniatura, o con {@code null} si no se pudo leer
+     */
+    public CompletableFuture<ImageIcon> obtenerEnSegundoPlano(String rutaPortada, int ancho, int alto) {
+        return CompletableFuture.supplyAsync(() -> obtener(rutaPortada, ancho, alto), ejecutor);
+    }
+
+    /**
+     * Vacía la caché en memoria (la de disco se conserva).
+     */
+    public synchronized void vaciarMemoria() {
+        memoria.clear();
+        bytesEnMemoria = 0;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // ESCALADO
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Escala una imagen reduciéndola a la mitad con interpolación bilineal hasta acercarse
+     * al tamaño final, y da el último paso con el mismo filtro.
+     */
+    static BufferedImage escalar(BufferedImage original, int ancho, int alto) {
+        int tipo = original.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage actual = original;
+        int w = original.getWidth(), h = original.getHeight();
+        do {
+            w = w / 2 >= ancho ? w / 2 : ancho;
+            h = h / 2 >= alto ? h / 2 : alto;
+            BufferedImage paso = new BufferedImage(w, h, tipo);
+            Graphics2D g = paso.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(actual, 0, 0, w, h, null);
+            g.dispose();
+            actual = paso;
+        } while (w != ancho || h != alto);
+        return actual;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // CACHÉ EN MEMORIA
+    // ───────────────────────────────────────────────────────────────
+
+    private synchronized ImageIcon buscarEnMemoria(String clave) {
+        return memoria.get(clave);
+    }
+
+    private synchronized ImageIcon guardarEnMemoria(String clave, BufferedImage imagen) {
+        ImageIcon icono = new ImageIcon(imagen);
+        ImageIcon anterior = memoria.put(clave, icono);
+        if (anterior != null) bytesEnMemoria -= bytes(anterior);
+        bytesEnMemoria += bytes(icono);
+        Iterator<Map.Entry<String, ImageIcon>> it = memoria.entrySet().iterator();
+        while (bytesEnMemoria > limiteBytes && it.hasNext()) {
+            Map.Entry<String, ImageIcon> masAntigua = it.next();
+            if (masAntigua.getValue() == icono) continue;
+            bytesEnMemoria -= bytes(masAntigua.getValue());
+            it.remove();
+        }
+        return icono;
+    }
+
+    private static long bytes(ImageIcon icono) {
+        return 4L * icono.getIconWidth() * icono.getIconHeight();
+    }
+
+    private static String clave(String origen, String version, int ancho, int alto) {
+        return origen + "_" + version + "_" + ancho + "x" + alto;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // CACHÉ EN DISCO
+    // ───────────────────────────────────────────────────────────────
+
+    private Path archivo(String base, String version, int ancho, int alto) {
+        return directorio.resolve(clave(base, version, ancho, alto) + ".png");
+    }
+
+    private static BufferedImage leerDeDisco(Path archivo) {
+        if (!Files.isRegularFile(archivo)) return null;
+        try {
+            return ImageIO.read(archivo.toFile());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void guardarEnDisco(Path archivo, BufferedImage imagen) {
+        try {
+            Files.createDirectories(directorio);
+            Path temporal = Files.createTempFile(directorio, "miniatura", ".tmp");
+            try {
+                ImageIO.write(imagen, "png", temporal.toFile());
+                Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar la miniatura " + archivo + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Borra las miniaturas en disco de versiones anteriores de la misma portada.
+     */
+    private void limpiarVersionesAnteriores(String base, String version) {
+        if (!Files.isDirectory(directorio)) return;
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, base + "_*.png")) {
+            for (Path p : archivos) {
+                if (!p.getFileName().toString().startsWith(base + "_" + version + "_")) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudieron limpiar miniaturas antiguas: " + e.getMessage());
+        }
+    }
+
+    private static String huella(String texto) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(texto.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(20);
+            for (int i = 0; i < 10; i++) {
+                sb.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(texto.hashCode());
+        }
+    }
+}
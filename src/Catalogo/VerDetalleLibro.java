@@ -2,11 +2,13 @@ package Catalogo;
 
 import Perfil.io.PrestamoRepositorio;
 import Auth.SessionManager;
+import repository.BitacoraPrestamos;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import java.awt.*;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -76,14 +78,12 @@ public class VerDetalleLibro extends JPanel {
 
         boolean tieneImagen = false;
         if (libro.getRutaPortada() != null && !libro.getRutaPortada().isEmpty()) {
-            try {
-                ImageIcon icono = new ImageIcon(libro.getRutaPortada());
-                if (icono.getImageLoadStatus() == MediaTracker.COMPLETE) {
-                    Image imagen = icono.getImage().getScaledInstance(190, 290, Image.SCALE_SMOOTH);
-                    etiquetaPortada.setIcon(new ImageIcon(imagen));
-                    tieneImagen = true;
-                }
-            } catch (Exception e) {}
+            ImageIcon icono = ServicioMiniaturas.obtenerInstancia().obtener(libro.getRutaPortada(),
+                    ServicioMiniaturas.ANCHO_DETALLE, ServicioMiniaturas.ALTO_DETALLE);
+            if (icono != null) {
+                etiquetaPortada.setIcon(icono);
+                tieneImagen = true;
+            }
         }
 
         if (!tieneImagen) {
@@ -242,7 +242,12 @@ public class VerDetalleLibro extends JPanel {
                 boton.setBackground(new Color(220, 53, 69));
                 boton.setForeground(Color.WHITE);
                 boton.addActionListener(e -> {
-                    controladorPrestamo.agregarACola(libro.getId());
+                    try {
+                        controladorPrestamo.agregarACola(libro.getId());
+                    } catch (UncheckedIOException ex) {
+                        JOptionPane.showMessageDialog(this, "No se pudo registrar en la cola: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
                     JOptionPane.showMessageDialog(this, "Te has unido a la cola de espera.");
                     actualizarVista();
                 });
@@ -267,11 +272,20 @@ public class VerDetalleLibro extends JPanel {
             controladorPrestamo.abrirLibro(libro.getId());
             JOptionPane.showMessageDialog(this, "Abriendo libro...", "Lector", JOptionPane.INFORMATION_MESSAGE);
         } else if (estado == ControladorPrestamo.EstadoLibro.DISPONIBLE) {
-            if (controladorPrestamo.pedirPrestamo(libro.getId(), controladorCatalogo)) {
+            boolean prestado;
+            try {
+                prestado = controladorPrestamo.pedirPrestamo(libro.getId(), controladorCatalogo);
+            } catch (UncheckedIOException ex) {
+                JOptionPane.showMessageDialog(this, "No se pudo registrar el préstamo: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (prestado) {
                 JOptionPane.showMessageDialog(this, "Préstamo realizado exitosamente.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
                 String[] s = SessionManager.buscarUsuarioNombre(SessionManager.obtenerUsuarioActual()).split(" ");
-                PrestamoRepositorio.agregarPrestamo("datos\\usuarios.csv", 1, Integer.parseInt(libro.getId()), libro.getTitulo(),
-                estado.toString(), "2025-12-10", libro.getRutaPortada(), s[1]);
+                BitacoraPrestamos.Registro registro = BitacoraPrestamos.obtenerInstancia()
+                        .obtener(SessionManager.obtenerUsuarioActual(), libro.getId());
+                PrestamoRepositorio.agregarPrestamo("datos\\usuarios.csv", registro.getId(), Integer.parseInt(libro.getId()), libro.getTitulo(),
+                PrestamoRepositorio.textoEstado(registro.getEstado()), registro.getFechaVencimiento(), libro.getRutaPortada(), s[1]);
                 actualizarVista();
             } else {
                 JOptionPane.showMessageDialog(this, "Error al realizar el préstamo.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -1,13 +1,26 @@
 package Catalogo;
 
 import javax.swing.*;
+import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 
+import Lectura.IndexadorTexto;
+import Resena.AgregadoCalificaciones;
+import Resena.RepositorioResenas;
 import Resena.VistaResenas;
+import repository.EjecutorRepositorios;
 
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Vista del catálogo con diseño moderno y conexión a la nueva vista de detalle (VerDetalleLibro).
@@ -19,9 +32,25 @@ public class vistaCatalogo extends JPanel {
     private JComboBox<String> cbCategoria;
     private JCheckBox chkDisponibles;
     private JButton btnBuscar;
+    /** PDF del lector que contienen la búsqueda pero no están en el catálogo. */
+    private JLabel lblFueraDelCatalogo;
     private JPanel panelResultados;
+    private JList<Libro> listaResultados;
+    private ModeloResultados modeloResultados;
+    private TarjetaLibro renderizador;
 
     private ControladorCatalogo controladorCatalogo;
+    private final RepositorioResenas repositorioResenas = new RepositorioResenas(RepositorioResenas.RUTA_POR_DEFECTO);
+    /** Calificaciones de los libros mostrados, por id de libro. */
+    private final Map<String, AgregadoCalificaciones> calificaciones = new HashMap<>();
+    /** Portadas ya cargadas de los libros mostrados, por ruta. */
+    private final Map<String, ImageIcon> portadas = new HashMap<>();
+    /** Cargas de portadas pendientes, por ruta; se cancelan en cada búsqueda. */
+    private final Map<String, CompletableFuture<ImageIcon>> cargasPortadas = new HashMap<>();
+    /** Aumenta con cada búsqueda para descartar portadas que lleguen tarde. */
+    private int generacionResultados;
+    /** Aumenta con cada búsqueda para descartar las respuestas que lleguen tarde. */
+    private int generacionBusqueda;
 
     // Colores y fuentes consistentes
     private final Font FUENTE_TITULO = new Font("Segoe UI", Font.BOLD, 14);
@@ -29,8 +58,21 @@ public class vistaCatalogo extends JPanel {
     private final Color COLOR_FONDO = new Color(250, 250, 250);
     private final Color COLOR_AZUL = new Color(0, 122, 255);
 
+    // Dimensiones de las tarjetas de resultados
+    private static final int ANCHO_TARJETA = 300;
+    private static final int ALTO_TARJETA = 140;
+    private static final int ESPACIO = 15;
+    private static final int MARGEN = 8;
+    private static final String TARJETA_LISTA = "lista";
+    private static final String TARJETA_VACIO = "vacio";
+    /** Marca las portadas que no se pudieron leer. */
+    private static final ImageIcon SIN_PORTADA = new ImageIcon();
+    /** PDF fuera del catálogo que se mencionan bajo los filtros. */
+    private static final int MAX_FUERA_DEL_CATALOGO = 5;
+
     public vistaCatalogo() {
         controladorCatalogo = new ControladorCatalogo(); 
+        ControladorPrestamo.obtenerInstancia().atenderVencimientos(controladorCatalogo);
         initComponents();
         // Cargar todos los libros al inicio
         mostrarLibros(controladorCatalogo.getTodosLosLibros());
@@ -71,28 +113,116 @@ public class vistaCatalogo extends JPanel {
         panelFiltros.add(chkDisponibles);
         panelFiltros.add(btnBuscar);
 
-        add(panelFiltros, BorderLayout.NORTH);
+        lblFueraDelCatalogo = new JLabel();
+        lblFueraDelCatalogo.setFont(FUENTE_NORMAL);
+        lblFueraDelCatalogo.setForeground(new Color(90, 90, 90));
+        lblFueraDelCatalogo.setBorder(new EmptyBorder(0, 15, 10, 15));
+        lblFueraDelCatalogo.setVisible(false);
 
-        // --- PANEL DE RESULTADOS (CENTRO) ---
-        panelResultados = new JPanel();
-        panelResultados.setBackground(COLOR_FONDO);
-        // GridLayout: 0 filas (infinitas), 2 columnas, espacio H, espacio V
-        panelResultados.setLayout(new GridLayout(0, 2, 15, 15)); 
-        panelResultados.setBorder(new EmptyBorder(15, 15, 15, 15));
+        JPanel panelSuperior = new JPanel(new BorderLayout());
+        panelSuperior.setBackground(Color.WHITE);
+        panelSuperior.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, new Color(220, 220, 220)));
+        panelFiltros.setBorder(null);
+        panelSuperior.add(panelFiltros, BorderLayout.CENTER);
+        panelSuperior.add(lblFueraDelCatalogo, BorderLayout.SOUTH);
 
-        JScrollPane scroll = new JScrollPane(panelResultados);
+        add(panelSuperior, BorderLayout.NORTH);
+
+        // --- PANEL DE RESULTADOS (CENTRO) ---
+        // Lista virtualizada: un único renderizador pinta solo las tarjetas visibles
+        modeloResultados = new ModeloResultados();
+        listaResultados = new JList<>(modeloResultados);
+        listaResultados.setLayoutOrientation(JList.HORIZONTAL_WRAP);
+        listaResultados.setVisibleRowCount(-1);
+        listaResultados.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        listaResultados.setBackground(COLOR_FONDO);
+        listaResultados.setBorder(new EmptyBorder(MARGEN, MARGEN, MARGEN, MARGEN));
+        // Tamaño fijo de celda: la lista no mide cada elemento para calcular su tamaño
+        listaResultados.setFixedCellWidth(ANCHO_TARJETA + ESPACIO);
+        listaResultados.setFixedCellHeight(ALTO_TARJETA + ESPACIO);
+        renderizador = new TarjetaLibro();
+        listaResultados.setCellRenderer(renderizador);
+        instalarEventosLista();
+
+        JLabel lblVacio = new JLabel("<html><center><h3 style='color:#666'>✖️ No se encontraron libros</h3><p>Intenta cambiar los filtros de búsqueda</p></center></html>", SwingConstants.CENTER);
+        lblVacio.setFont(new Font("Segoe UI Emoji", Font.PLAIN, 16));
+
+        JScrollPane scroll = new JScrollPane(listaResultados);
         scroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
         scroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
         scroll.getVerticalScrollBar().setUnitIncrement(16);
         scroll.setBorder(null);
+        // Dos columnas que ocupan todo el ancho, como la rejilla anterior
+        scroll.getViewport().addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                int ancho = (scroll.getViewport().getWidth() - 2 * MARGEN) / 2;
+                listaResultados.setFixedCellWidth(Math.max(ANCHO_TARJETA + ESPACIO, ancho));
+            }
+        });
 
-        add(scroll, BorderLayout.CENTER);
+        panelResultados = new JPanel(new CardLayout());
+        panelResultados.setBackground(COLOR_FONDO);
+        panelResultados.add(scroll, TARJETA_LISTA);
+        panelResultados.add(lblVacio, TARJETA_VACIO);
+
+        add(panelResultados, BorderLayout.CENTER);
 
         // Eventos
         btnBuscar.addActionListener(e -> buscarLibros());
         txtTitulo.addActionListener(e -> buscarLibros());
     }
 
+    /**
+     * Abre el detalle con doble clic, con Enter o al pulsar el botón pintado en la tarjeta.
+     */
+    private void instalarEventosLista() {
+        MouseAdapter raton = new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int indice = indiceEn(e.getPoint());
+                if (indice < 0) return;
+                if (e.getClickCount() == 2 || enBotonDetalle(indice, e.getPoint())) {
+                    abrirDetalleLibro(modeloResultados.getElementAt(indice));
+                }
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                int indice = indiceEn(e.getPoint());
+                listaResultados.setCursor(indice >= 0 && enBotonDetalle(indice, e.getPoint())
+                        ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR) : Cursor.getDefaultCursor());
+            }
+        };
+        listaResultados.addMouseListener(raton);
+        listaResultados.addMouseMotionListener(raton);
+        listaResultados.getInputMap().put(KeyStroke.getKeyStroke("ENTER"), "verDetalle");
+        listaResultados.getActionMap().put("verDetalle", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                Libro libro = listaResultados.getSelectedValue();
+                if (libro != null) abrirDetalleLibro(libro);
+            }
+        });
+    }
+
+    /**
+     * @return índice de la tarjeta bajo el punto, o -1 si el punto no cae sobre ninguna
+     */
+    private int indiceEn(Point punto) {
+        int indice = listaResultados.locationToIndex(punto);
+        if (indice < 0) return -1;
+        Rectangle celda = listaResultados.getCellBounds(indice, indice);
+        return celda != null && celda.contains(punto) ? indice : -1;
+    }
+
+    private boolean enBotonDetalle(int indice, Point punto) {
+        Rectangle celda = listaResultados.getCellBounds(indice, indice);
+        Rectangle boton = renderizador.areaBoton(celda.width, celda.height);
+        boton.translate(celda.x, celda.y);
+        return boton.contains(punto);
+    }
+
     public void crearBusqueda(JTextField t) {
         txtTitulo.setText(t.getText().trim());
         buscarLibros();
@@ -107,143 +237,283 @@ public class vistaCatalogo extends JPanel {
         
         boolean soloDisponibles = chkDisponibles.isSelected();
 
-        List<Libro> resultados = controladorCatalogo.buscar(
-                tituloFiltro,
-                categoriaFiltro,
-                soloDisponibles,
-                1 // Siempre vuelve a la página 1 en una búsqueda nueva
-        );
+        // La búsqueda lee los índices de texto de los PDF: se hace fuera del EDT
+        int generacion = ++generacionBusqueda;
+        EjecutorRepositorios.enEdt(EjecutorRepositorios.enviarLectura(IndexadorTexto.DIRECTORIO_POR_DEFECTO,
+                () -> controladorCatalogo.filtrar(tituloFiltro, categoriaFiltro, soloDisponibles)), filtrados -> {
+            if (generacion != generacionBusqueda) return;
+            // Siempre vuelve a la página 1 en una búsqueda nueva
+            mostrarLibros(controladorCatalogo.paginar(filtrados, 1));
+        }, e -> System.err.println("⚠️  No se pudo buscar en el catálogo: " + e.getMessage()));
+
+        lblFueraDelCatalogo.setVisible(false);
+        if (tituloFiltro.isBlank()) return;
+        EjecutorRepositorios.enEdt(EjecutorRepositorios.enviarLectura(IndexadorTexto.DIRECTORIO_POR_DEFECTO,
+                () -> controladorCatalogo.getBuscador().buscarFueraDelCatalogo(tituloFiltro, MAX_FUERA_DEL_CATALOGO)),
+                fuera -> {
+                    if (generacion == generacionBusqueda) mostrarFueraDelCatalogo(fuera);
+                }, e -> System.err.println("⚠️  No se pudo buscar en el texto de los PDF: " + e.getMessage()));
+    }
 
-        mostrarLibros(resultados);
+    /**
+     * Menciona bajo los filtros los PDF del lector que contienen la búsqueda pero no
+     * corresponden a ningún libro del catálogo, con las páginas donde aparece.
+     */
+    private void mostrarFueraDelCatalogo(List<BuscadorFederado.Resultado> fuera) {
+        if (fuera.isEmpty()) {
+            lblFueraDelCatalogo.setVisible(false);
+            return;
+        }
+        StringBuilder texto = new StringBuilder("También aparece en el texto de: ");
+        for (int i = 0; i < fuera.size(); i++) {
+            BuscadorFederado.Resultado r = fuera.get(i);
+            if (i > 0) texto.append(", ");
+            texto.append(r.getTitulo());
+            List<IndexadorTexto.Coincidencia> paginas = r.getPaginas();
+            if (!paginas.isEmpty()) {
+                texto.append(paginas.size() == 1 ? " (pág. " : " (págs. ");
+                for (int j = 0; j < paginas.size(); j++) {
+                    if (j > 0) texto.append(", ");
+                    texto.append(paginas.get(j).getPagina());
+                }
+                texto.append(')');
+            }
+        }
+        lblFueraDelCatalogo.setText(texto.toString());
+        lblFueraDelCatalogo.setVisible(true);
     }
 
     private void mostrarLibros(List<Libro> lista) {
-        panelResultados.removeAll();
-
-        if (lista.isEmpty()) {
-            JPanel panelVacio = new JPanel(new BorderLayout());
-            panelVacio.setBackground(COLOR_FONDO);
-            // Mensaje centrado y estilizado para no resultados
-            JLabel lbl = new JLabel("<html><center><h3 style='color:#666'>✖️ No se encontraron libros</h3><p>Intenta cambiar los filtros de búsqueda</p></center></html>", SwingConstants.CENTER);
-            lbl.setFont(new Font("Segoe UI Emoji", Font.PLAIN, 16));
-            
-            // Usar BorderLayout temporalmente para centrar el mensaje
-            panelResultados.setLayout(new BorderLayout()); 
-            panelResultados.add(lbl, BorderLayout.CENTER);
-            
-        } else {
-            // Restaurar layout de rejilla (GridLayout) para mostrar tarjetas
-            panelResultados.setLayout(new GridLayout(0, 2, 15, 15)); 
-            
-            for (Libro libro : lista) {
-                panelResultados.add(crearTarjetaLibro(libro));
-            }
+        cancelarCargasPortadas();
+        calificaciones.clear();
+        modeloResultados.establecer(lista);
+        listaResultados.clearSelection();
+        listaResultados.ensureIndexIsVisible(0);
+
+        ((CardLayout) panelResultados.getLayout()).show(panelResultados, lista.isEmpty() ? TARJETA_VACIO : TARJETA_LISTA);
+        if (!lista.isEmpty()) cargarCalificaciones(lista);
+    }
+
+    /**
+     * Consulta en segundo plano el agregado de calificaciones de cada libro mostrado
+     * y lo pinta en su tarjeta.
+     */
+    private void cargarCalificaciones(List<Libro> lista) {
+        List<String> ids = new ArrayList<>();
+        for (Libro libro : lista) ids.add(libro.getId());
+        int generacion = generacionResultados;
+        EjecutorRepositorios.enEdt(EjecutorRepositorios.enviarLectura(RepositorioResenas.RUTA_POR_DEFECTO, () -> {
+            Map<String, AgregadoCalificaciones> agregados = new HashMap<>();
+            for (String id : ids) agregados.put(id, repositorioResenas.obtenerAgregado(id));
+            return agregados;
+        }), agregados -> {
+            if (generacion != generacionResultados) return;
+            calificaciones.putAll(agregados);
+            listaResultados.repaint();
+        }, e -> System.err.println("No se pudieron cargar las calificaciones: " + e.getMessage()));
+    }
+
+    /**
+     * Cancela las cargas de portadas de los resultados anteriores. Las que aún no empezaron
+     * ya no se decodifican, y las que terminen después se descartan.
+     */
+    private void cancelarCargasPortadas() {
+        generacionResultados++;
+        for (CompletableFuture<ImageIcon> carga : cargasPortadas.values()) carga.cancel(false);
+        cargasPortadas.clear();
+        portadas.clear();
+    }
+
+    /**
+     * Devuelve la portada de una tarjeta si ya está disponible y, si no, pide su carga en
+     * segundo plano (una sola vez por portada); al llegar se vuelve a pintar la lista.
+     * Solo se llama al pintar, así que solo se cargan las portadas de las tarjetas visibles.
+     *
+     * @return portada, {@link #SIN_PORTADA} si no se pudo leer, o {@code null} si se está cargando
+     */
+    private ImageIcon portada(String rutaPortada) {
+        ImageIcon icono = portadas.get(rutaPortada);
+        if (icono != null || cargasPortadas.containsKey(rutaPortada)) return icono;
+
+        ServicioMiniaturas miniaturas = ServicioMiniaturas.obtenerInstancia();
+        icono = miniaturas.obtenerEnMemoria(rutaPortada,
+                ServicioMiniaturas.ANCHO_TARJETA, ServicioMiniaturas.ALTO_TARJETA);
+        if (icono != null) {
+            portadas.put(rutaPortada, icono);
+            return icono;
         }
 
-        panelResultados.revalidate();
-        panelResultados.repaint();
+        int generacion = generacionResultados;
+        CompletableFuture<ImageIcon> carga = miniaturas.obtenerEnSegundoPlano(rutaPortada,
+                ServicioMiniaturas.ANCHO_TARJETA, ServicioMiniaturas.ALTO_TARJETA);
+        cargasPortadas.put(rutaPortada, carga);
+        carga.whenComplete((cargada, ex) -> SwingUtilities.invokeLater(() -> {
+            if (generacion != generacionResultados || carga.isCancelled()) return;
+            cargasPortadas.remove(rutaPortada);
+            portadas.put(rutaPortada, cargada != null ? cargada : SIN_PORTADA);
+            listaResultados.repaint();
+        }));
+        return null;
     }
 
     /**
-     * Crea una tarjeta visual elegante para un libro individual.
+     * Resultados de la búsqueda actual. Se reemplazan de una vez, con un solo evento.
      */
-    private JPanel crearTarjetaLibro(Libro libro) {
-        JPanel tarjeta = new JPanel(new BorderLayout(10, 0));
-        tarjeta.setBackground(Color.WHITE);
-        tarjeta.setBorder(BorderFactory.createCompoundBorder(
-            // Borde que simula una sombra suave
-            new LineBorder(new Color(220, 220, 220), 1),
-            new EmptyBorder(10, 10, 10, 10)
-        ));
-        tarjeta.setPreferredSize(new Dimension(300, 140)); // Altura fija para uniformidad
-
-        // 1. Miniatura de Portada (Izquierda)
-        JLabel lblPortada = new JLabel();
-        lblPortada.setPreferredSize(new Dimension(80, 120));
-        lblPortada.setOpaque(true);
-        lblPortada.setBackground(new Color(240, 240, 240));
-        lblPortada.setHorizontalAlignment(SwingConstants.CENTER);
-        
-        // Carga de imagen (similar a la vista detalle)
-        boolean tieneImagen = false;
-        if (libro.getRutaPortada() != null && !libro.getRutaPortada().isEmpty()) {
-            try {
-                ImageIcon icon = new ImageIcon(libro.getRutaPortada());
-                if (icon.getImageLoadStatus() == MediaTracker.COMPLETE) {
-                    Image img = icon.getImage().getScaledInstance(80, 120, Image.SCALE_SMOOTH);
-                    lblPortada.setIcon(new ImageIcon(img));
-                    tieneImagen = true;
-                }
-            } catch (Exception e) {}
+    private static class ModeloResultados extends AbstractListModel<Libro> {
+        private List<Libro> libros = new ArrayList<>();
+
+        void establecer(List<Libro> nuevos) {
+            int anteriores = libros.size();
+            libros = new ArrayList<>(nuevos);
+            if (anteriores > 0) fireIntervalRemoved(this, 0, anteriores - 1);
+            if (!libros.isEmpty()) fireIntervalAdded(this, 0, libros.size() - 1);
         }
-        if (!tieneImagen) {
-            lblPortada.setText("No img");
-            lblPortada.setFont(new Font("Segoe UI", Font.PLAIN, 10));
+
+        @Override
+        public int getSize() {
+            return libros.size();
         }
-        tarjeta.add(lblPortada, BorderLayout.WEST);
 
+        @Override
+        public Libro getElementAt(int indice) {
+            return libros.get(indice);
+        }
+    }
 
-        // 2. Información (Centro)
-        JPanel panelInfo = new JPanel();
-        panelInfo.setLayout(new BoxLayout(panelInfo, BoxLayout.Y_AXIS));
-        panelInfo.setBackground(Color.WHITE);
-        panelInfo.setBorder(new EmptyBorder(0, 5, 0, 5));
+    /**
+     * Tarjeta visual de un libro. Es un único componente que la lista reutiliza para pintar
+     * todas las tarjetas visibles: cada llamada solo cambia sus textos e iconos.
+     */
+    private class TarjetaLibro extends JPanel implements ListCellRenderer<Libro> {
+        private final JPanel tarjeta = new JPanel(new BorderLayout(10, 0));
+        private final JLabel lblPortada = new JLabel();
+        private final JLabel lblTitulo = new JLabel();
+        private final JLabel lblAutor = new JLabel();
+        private final JLabel lblCat = new JLabel();
+        private final JLabel lblCalificacion = new JLabel(" ");
+        private final JLabel lblEstado = new JLabel();
+        private final JButton btnVer = new JButton("Ver Detalle");
+        private final Border bordeNormal = BorderFactory.createCompoundBorder(
+            // Borde que simula una sombra suave
+            new LineBorder(new Color(220, 220, 220), 1),
+            new EmptyBorder(10, 10, 10, 10)
+        );
+        private final Border bordeSeleccion = BorderFactory.createCompoundBorder(
+            new LineBorder(COLOR_AZUL, 1),
+            new EmptyBorder(10, 10, 10, 10)
+        );
 
-        JLabel lblTitulo = new JLabel("<html><b>" + libro.getTitulo() + "</b></html>");
-        lblTitulo.setFont(FUENTE_TITULO);
-        lblTitulo.setForeground(new Color(33, 37, 41));
-        
-        JLabel lblAutor = new JLabel(libro.getAutores());
-        lblAutor.setFont(FUENTE_NORMAL);
-        lblAutor.setForeground(Color.GRAY);
-
-        JLabel lblCat = new JLabel("📂 " + libro.getCategoria());
-        lblCat.setFont(new Font("Segoe UI Emoji", Font.PLAIN, 11));
-        lblCat.setForeground(new Color(0, 102, 204));
-
-        panelInfo.add(lblTitulo);
-        panelInfo.add(Box.createVerticalStrut(4));
-        panelInfo.add(lblAutor);
-        panelInfo.add(Box.createVerticalStrut(4));
-        panelInfo.add(lblCat);
-        
-        // Espacio flexible
-        panelInfo.add(Box.createVerticalGlue());
-
-        // Etiqueta de estado
-        JLabel lblEstado = new JLabel();
-        lblEstado.setFont(new Font("Segoe UI Emoji", Font.BOLD, 11));
-        if (libro.getCopiasDisponibles() > 0) {
-            lblEstado.setText("✅ Disponible");
-            lblEstado.setForeground(new Color(40, 167, 69));
-        } else {
-            lblEstado.setText("❌ Agotado");
-            lblEstado.setForeground(new Color(220, 53, 69));
+        TarjetaLibro() {
+            super(new BorderLayout());
+            setOpaque(false);
+            // La mitad del espacio entre tarjetas a cada lado
+            setBorder(new EmptyBorder(ESPACIO / 2, ESPACIO / 2, ESPACIO - ESPACIO / 2, ESPACIO - ESPACIO / 2));
+            tarjeta.setBackground(Color.WHITE);
+
+            // 1. Miniatura de Portada (Izquierda)
+            lblPortada.setPreferredSize(new Dimension(ServicioMiniaturas.ANCHO_TARJETA, ServicioMiniaturas.ALTO_TARJETA));
+            lblPortada.setOpaque(true);
+            lblPortada.setBackground(new Color(240, 240, 240));
+            lblPortada.setHorizontalAlignment(SwingConstants.CENTER);
+            lblPortada.setFont(new Font("Segoe UI", Font.PLAIN, 10));
+            tarjeta.add(lblPortada, BorderLayout.WEST);
+
+            // 2. Información (Centro)
+            JPanel panelInfo = new JPanel();
+            panelInfo.setLayout(new BoxLayout(panelInfo, BoxLayout.Y_AXIS));
+            panelInfo.setBackground(Color.WHITE);
+            panelInfo.setBorder(new EmptyBorder(0, 5, 0, 5));
+
+            lblTitulo.setFont(FUENTE_TITULO);
+            lblTitulo.setForeground(new Color(33, 37, 41));
+            lblAutor.setFont(FUENTE_NORMAL);
+            lblAutor.setForeground(Color.GRAY);
+            lblCat.setFont(new Font("Segoe UI Emoji", Font.PLAIN, 11));
+            lblCat.setForeground(new Color(0, 102, 204));
+            lblCalificacion.setFont(new Font("Segoe UI Symbol", Font.PLAIN, 11));
+            lblCalificacion.setForeground(new Color(230, 150, 0));
+            lblEstado.setFont(new Font("Segoe UI Emoji", Font.BOLD, 11));
+
+            panelInfo.add(lblTitulo);
+            panelInfo.add(Box.createVerticalStrut(4));
+            panelInfo.add(lblAutor);
+            panelInfo.add(Box.createVerticalStrut(4));
+            panelInfo.add(lblCat);
+            panelInfo.add(Box.createVerticalStrut(4));
+            panelInfo.add(lblCalificacion);
+            // Espacio flexible
+            panelInfo.add(Box.createVerticalGlue());
+            panelInfo.add(lblEstado);
+            tarjeta.add(panelInfo, BorderLayout.CENTER);
+
+            // 3. Botón (Sur / Abajo): se pinta en la tarjeta; el clic lo atiende la lista
+            JPanel panelBoton = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+            panelBoton.setBackground(Color.WHITE);
+            btnVer.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+            btnVer.setBackground(new Color(240, 245, 255));
+            btnVer.setForeground(COLOR_AZUL);
+            btnVer.setBorder(BorderFactory.createLineBorder(new Color(200, 220, 255)));
+            btnVer.setPreferredSize(new Dimension(100, 30));
+            btnVer.setFocusPainted(false);
+            panelBoton.add(btnVer);
+            tarjeta.add(panelBoton, BorderLayout.SOUTH);
+
+            add(tarjeta, BorderLayout.CENTER);
         }
-        panelInfo.add(lblEstado);
 
-        tarjeta.add(panelInfo, BorderLayout.CENTER);
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Libro> lista, Libro libro,
+                                                      int indice, boolean seleccionado, boolean conFoco) {
+            tarjeta.setBorder(seleccionado ? bordeSeleccion : bordeNormal);
+
+            String ruta = libro.getRutaPortada();
+            ImageIcon icono = ruta == null || ruta.isEmpty() ? SIN_PORTADA : portada(ruta);
+            if (icono == null) {
+                lblPortada.setIcon(null);
+                lblPortada.setText("...");
+            } else if (icono == SIN_PORTADA) {
+                lblPortada.setIcon(null);
+                lblPortada.setText("No img");
+            } else {
+                lblPortada.setIcon(icono);
+                lblPortada.setText(null);
+            }
 
+            lblTitulo.setText(libro.getTitulo());
+            lblAutor.setText(libro.getAutores());
+            lblCat.setText("📂 " + libro.getCategoria());
+
+            AgregadoCalificaciones agregado = calificaciones.get(libro.getId());
+            lblCalificacion.setText(agregado == null ? " "
+                    : agregado.getCantidad() == 0 ? "☆ Sin reseñas"
+                    : String.format("★ %.1f (%d)", agregado.getPromedio(), agregado.getCantidad()));
+
+            // Etiqueta de estado
+            if (libro.getCopiasDisponibles() > 0) {
+                lblEstado.setText("✅ Disponible");
+                lblEstado.setForeground(new Color(40, 167, 69));
+            } else {
+                lblEstado.setText("❌ Agotado");
+                lblEstado.setForeground(new Color(220, 53, 69));
+            }
+            return this;
+        }
 
-        // 3. Botón (Sur / Abajo)
-        JPanel panelBoton = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
-        panelBoton.setBackground(Color.WHITE);
-        
-        JButton btnVer = new JButton("Ver Detalle");
-        btnVer.setFont(new Font("Segoe UI", Font.PLAIN, 12));
-        btnVer.setBackground(new Color(240, 245, 255));
-        btnVer.setForeground(COLOR_AZUL);
-        btnVer.setBorder(BorderFactory.createLineBorder(new Color(200, 220, 255)));
-        btnVer.setPreferredSize(new Dimension(100, 30));
-        btnVer.setFocusPainted(false);
-        btnVer.setCursor(new Cursor(Cursor.HAND_CURSOR));
-
-        btnVer.addActionListener(e -> abrirDetalleLibro(libro));
-        
-        panelBoton.add(btnVer);
-        tarjeta.add(panelBoton, BorderLayout.SOUTH);
+        /**
+         * @return área del botón "Ver Detalle" dentro de una tarjeta del tamaño indicado
+         */
+        Rectangle areaBoton(int ancho, int alto) {
+            setBounds(0, 0, ancho, alto);
+            distribuir(this);
+            return SwingUtilities.convertRectangle(btnVer.getParent(), btnVer.getBounds(), this);
+        }
 
-        return tarjeta;
+        private void distribuir(Container c) {
+            c.doLayout();
+            for (Component hijo : c.getComponents()) {
+                if (hijo instanceof Container) distribuir((Container) hijo);
+            }
+        }
     }
 
     /**
@@ -5,12 +5,12 @@ import javax.swing.*;
 
 import Auth.SessionManager;
 
-import java.util.List;
 import java.awt.*;
 import Catalogo.*;
 import Perfil.*;
 import Perfil.io.PrestamoRepositorio;
-import Perfil.perfil_modelo.Prestamo;
+import repository.BitacoraPrestamos;
+import repository.EjecutorRepositorios;
 import Perfil.perfil_modelo.Usuario;
 
 /**
@@ -237,19 +237,20 @@ public class barraLateral extends JFrame {
 
     /**
      * Agrega los datos de perfil a la clase Usuario.
+     * La lectura de usuarios y préstamos se hace en segundo plano y la vista se
+     * actualiza en el hilo de eventos.
      */
     private void cargarPerfil() {
-        try {
-            String nombreUsuario = SessionManager.obtenerUsuarioActual();
+        String nombreUsuario = SessionManager.obtenerUsuarioActual();
 
-            if (nombreUsuario == null || nombreUsuario.isEmpty()) {
-                JOptionPane.showMessageDialog(this, "No hay usuario en sesión.");
-                return;
-            }
-            
-            // Buscar en tu base de usuarios TXT
-            String linea = SessionManager.buscarUsuarioNombre(nombreUsuario);
+        if (nombreUsuario == null || nombreUsuario.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No hay usuario en sesión.");
+            return;
+        }
 
+        // Buscar en tu base de usuarios TXT
+        EjecutorRepositorios.enEdt(EjecutorRepositorios.enviarLectura("datos\\usuarios.txt",
+                () -> SessionManager.buscarUsuarioNombre(nombreUsuario)), linea -> {
             if (linea == null) {
                 JOptionPane.showMessageDialog(this, "El usuario no fue encontrado.");
                 return;
@@ -259,19 +260,20 @@ public class barraLateral extends JFrame {
             String[] campos = linea.split(" ");
             String nombre = campos[0];
             String correoUsuario = campos[1];
-            String avatar = campos[3];
+            String avatar = campos.length > 3 ? campos[3] : null;
 
             // Cargar usuario en la vista
             Usuario usuario = new Usuario(nombre, correoUsuario, avatar);
             vistaPerfil.setUsuario(usuario);
 
             // Cargar préstamos
-            List<Prestamo> prestamos = PrestamoRepositorio.cargarPrestamosPorCorreo("datos\\usuarios.csv", correoUsuario);
-
-            vistaPerfil.mostrarPrestamos(prestamos);
+            EjecutorRepositorios.enEdt(EjecutorRepositorios.enviarLectura(BitacoraPrestamos.RUTA_POR_DEFECTO,
+                    () -> PrestamoRepositorio.cargarPrestamosPorCorreo("datos\\usuarios.csv", correoUsuario, nombreUsuario)),
+                    vistaPerfil::mostrarPrestamos, this::errorPerfil);
+        }, this::errorPerfil);
+    }
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error cargando perfil:\n" + e.getMessage());
-        }
-    }     
+    private void errorPerfil(Throwable e) {
+        JOptionPane.showMessageDialog(this, "Error cargando perfil:\n" + e.getMessage());
+    }
 }
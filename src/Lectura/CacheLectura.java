@@ -0,0 +1,157 @@
+package Lectura;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria de uno de los archivos de datos del módulo de lectura.
+ *
+ * <p>El archivo se carga la primera vez que se consulta y los registros se indexan por una
+ * clave (id del libro, o usuario + libro), de modo que las consultas repetidas no vuelven a
+ * leer el disco. Las modificaciones se aplican sobre la caché y se escriben inmediatamente
+ * (write-through). Antes de cada consulta se compara la fecha de modificación y el tamaño
+ * del archivo con los de la última carga o escritura, y si otro proceso lo cambió se vuelve
+ * a cargar.</p>
+ *
+ * <p>Los objetos devueltos son los de la caché: para cambiarlos hay que hacerlo dentro de
+ * {@link #modificar(Predicate)}.</p>
+ *
+ * @param <T> tipo de los registros
+ */
+final class CacheLectura<T> {
+
+    private final Path ruta;
+    private final Function<T, String> clave;
+    private final Supplier<List<T>> cargador;
+    private final Predicate<List<T>> guardador;
+
+    private List<T> registros;
+    private final Map<String, List<T>> indice = new HashMap<>();
+    private FileTime version;
+    private long tamano = -1;
+
+    /**
+     * @param archivo ruta del archivo
+     * @param clave clave de indexación de cada registro
+     * @param cargador lee el archivo completo
+     * @param guardador escribe el archivo completo; devuelve {@code true} si tuvo éxito
+     */
+    CacheLectura(String archivo, Function<T, String> clave, Supplier<List<T>> cargador, Predicate<List<T>> guardador) {
+        this.ruta = Path.of(archivo);
+        this.clave = clave;
+        this.cargador = cargador;
+        this.guardador = guardador;
+    }
+
+    /**
+     * @return copia de todos los registros
+     */
+    synchronized List<T> todos() {
+        asegurarVigente();
+        return new ArrayList<>(registros);
+    }
+
+    /**
+     * @param k clave buscada
+     * @return registros con esa clave, en el orden del archivo (lista de solo lectura)
+     */
+    synchronized List<T> buscar(String k) {
+        asegurarVigente();
+        List<T> lista = indice.get(k);
+        return lista == null ? Collections.emptyList() : Collections.unmodifiableList(lista);
+    }
+
+    /**
+     * @param k clave buscada
+     * @return primer registro con esa clave, o {@code null}
+     */
+    synchronized T primero(String k) {
+        asegurarVigente();
+        List<T> lista = indice.get(k);
+        return lista == null || lista.isEmpty() ? null : lista.get(0);
+    }
+
+    /**
+     * Aplica un cambio a los registros y, si hubo cambios, lo escribe en el archivo.
+     * @param cambio modificación sobre la lista de registros; devuelve {@code false} si no cambió nada
+     * @return {@code false} si falló la escritura (la caché se descarta y se recarga en la siguiente consulta)
+     */
+    synchronized boolean modificar(Predicate<List<T>> cambio) {
+        asegurarVigente();
+        if (!cambio.test(registros)) return true;
+        return guardar();
+    }
+
+    /**
+     * Reemplaza todos los registros y los escribe en el archivo.
+     * @param nuevos registros nuevos
+     * @return {@code true} si se guardó
+     */
+    synchronized boolean reemplazar(List<T> nuevos) {
+        registros = new ArrayList<>(nuevos);
+        return guardar();
+    }
+
+    private boolean guardar() {
+        indexar();
+        if (!guardador.test(registros)) {
+            registros = null;
+            return false;
+        }
+        sellar();
+        return true;
+    }
+
+    private void asegurarVigente() {
+        if (registros != null) {
+            BasicFileAttributes atributos = atributos();
+            if (atributos == null ? version == null
+                    : atributos.lastModifiedTime().equals(version) && atributos.size() == tamano) {
+                return;
+            }
+        }
+        sellar();
+        registros = new ArrayList<>(cargador.get());
+        indexar();
+    }
+
+    /**
+     * Anota la fecha y el tamaño actuales del archivo. Se toman antes de leer, para que un
+     * cambio durante la lectura provoque otra carga.
+     */
+    private void sellar() {
+        BasicFileAttributes atributos = atributos();
+        version = atributos == null ? null : atributos.lastModifiedTime();
+        tamano = atributos == null ? -1 : atributos.size();
+    }
+
+    private BasicFileAttributes atributos() {
+        try {
+            return Files.readAttributes(ruta, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("⚠️  No se pudo consultar " + ruta + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void indexar() {
+        indice.clear();
+        for (T r : registros) {
+            indice.computeIfAbsent(clave.apply(r), k -> new ArrayList<>(1)).add(r);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package Lectura;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
+import org.apache.pdfbox.io.RandomAccessStreamCache;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Apertura de documentos PDF sin cargarlos en el heap.
+ *
+ * <p>El archivo se lee con un {@link RandomAccessReadMemoryMappedFile}: el sistema operativo
+ * pagina el contenido bajo demanda, fuera del heap, y varias aperturas del mismo libro
+ * comparten la caché de disco. Si no se puede mapear (archivos de más de 2 GB, sistemas de
+ * archivos que no lo admiten o propiedad {@code lybsys.pdf.mapear=false}) se usa un
+ * {@link RandomAccessReadBufferedFile}, que mantiene en memoria solo un pequeño conjunto de
+ * bloques del archivo.</p>
+ *
+ * <p>Los flujos que PDFBox necesita guardar mientras el documento está abierto usan memoria
+ * hasta el presupuesto por documento (propiedad {@code lybsys.pdf.memoriaMB},
+ * {@value #MEMORIA_MB_POR_DEFECTO} MB por defecto) y a partir de ahí un archivo temporal.</p>
+ */
+final class CargadorPdf {
+
+    private static final long MEMORIA_MB_POR_DEFECTO = 16;
+    /** Un {@code MappedByteBuffer} no puede pasar de {@link Integer#MAX_VALUE} bytes. */
+    private static final long MAXIMO_MAPEABLE = Integer.MAX_VALUE;
+
+    private CargadorPdf() {
+    }
+
+    /**
+     * Abre un PDF. El documento cierra el archivo al cerrarse.
+     * @param pdf ruta del PDF
+     * @return documento abierto
+     * @throws IOException si el archivo no se puede leer o no es un PDF válido
+     */
+    static PDDocument abrir(Path pdf) throws IOException {
+        RandomAccessRead origen = abrirOrigen(pdf);
+        try {
+            return Loader.loadPDF(origen, cacheDeFlujos());
+        } catch (IOException | RuntimeException e) {
+            origen.close();
+            throw e;
+        }
+    }
+
+    private static RandomAccessRead abrirOrigen(Path pdf) throws IOException {
+        if (Boolean.parseBoolean(System.getProperty("lybsys.pdf.mapear", "true"))
+                && Files.size(pdf) <= MAXIMO_MAPEABLE) {
+            try {
+                return new RandomAccessReadMemoryMappedFile(pdf);
+            } catch (IOException | UnsupportedOperationException e) {
+                System.err.println("⚠️  No se pudo mapear " + pdf + ", se lee por bloques: " + e.getMessage());
+            }
+        }
+        return new RandomAccessReadBufferedFile(pdf);
+    }
+
+    private static RandomAccessStreamCache.StreamCacheCreateFunction cacheDeFlujos() {
+        long presupuesto = Long.getLong("lybsys.pdf.memoriaMB", MEMORIA_MB_POR_DEFECTO) << 20;
+        return MemoryUsageSetting.setupMixed(presupuesto).streamCache;
+    }
+}
@@ -0,0 +1,268 @@
+package Lectura;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato binario versionado para los archivos de datos del módulo de lectura.
+ *
+ * <p>Sustituye a la serialización de Java: no guarda descriptores de clase, no depende de
+ * {@code serialVersionUID} y repite cada texto una sola vez. Estructura del archivo:</p>
+ * <pre>
+ * int     MAGIA ("LYBS")
+ * byte    versión del formato
+ * byte    tipo de contenido (libros, progreso, marcadores...)
+ * varint  número de textos, seguido de cada texto (varint longitud + bytes UTF-8)
+ * varint  número de registros, seguido de cada registro:
+ *         varint número de campos + un varint por campo
+ * </pre>
+ *
+ * <p>Todos los campos son varints: los textos se guardan como índice en la tabla (0 = null),
+ * los enteros en zigzag y los booleanos como 0/1. Como cada registro indica cuántos campos
+ * tiene, un lector antiguo ignora los campos que se añadan al final en el futuro y uno nuevo
+ * usa valores por defecto para los que falten; la versión solo cambia si se rompe ese esquema.</p>
+ */
+final class CodecBinario {
+
+    /** "LYBS" en ASCII. */
+    private static final int MAGIA = 0x4C594253;
+    private static final int VERSION = 1;
+
+    static final int TIPO_LIBROS = 1;
+    static final int TIPO_PROGRESO = 2;
+    static final int TIPO_MARCADORES = 3;
+
+    private CodecBinario() {
+    }
+
+    /**
+     * Describe cómo escribir y leer los campos de un tipo de registro.
+     * @param <T> tipo del registro
+     */
+    interface Esquema<T> {
+        void escribir(T valor, Escritor salida);
+        T leer(Lector entrada);
+    }
+
+    /**
+     * Destino de los campos de un registro.
+     */
+    static final class Escritor {
+        private final Map<String, Integer> tabla = new HashMap<>();
+        private final List<String> textos = new ArrayList<>();
+        private long[] campos = new long[16];
+        private int cantidad;
+
+        void texto(String s) {
+            if (s == null) {
+                campo(0);
+                return;
+            }
+            Integer indice = tabla.get(s);
+            if (indice == null) {
+                textos.add(s);
+                indice = textos.size();
+                tabla.put(s, indice);
+            }
+            campo(indice);
+        }
+
+        void entero(int v) {
+            campo((v << 1) ^ (v >> 31));
+        }
+
+        void booleano(boolean b) {
+            campo(b ? 1 : 0);
+        }
+
+        private void campo(long v) {
+            if (cantidad == campos.length) campos = Arrays.copyOf(campos, cantidad * 2);
+            campos[cantidad++] = v & 0xFFFFFFFFL;
+        }
+    }
+
+    /**
+     * Fuente de los campos de un registro. Los campos que no existan se leen como
+     * null, 0 o false.
+     */
+    static final class Lector {
+        private final String[] textos;
+        private long[] campos = new long[16];
+        private int cantidad;
+        private int posicion;
+
+        private Lector(String[] textos) {
+            this.textos = textos;
+        }
+
+        String texto() {
+            int indice = (int) siguiente();
+            if (indice == 0) return null;
+            if (indice > textos.length) throw new IllegalStateException("Índice de texto fuera de rango: " + indice);
+            return textos[indice - 1];
+        }
+
+        int entero() {
+            int v = (int) siguiente();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        boolean booleano() {
+            return siguiente() != 0;
+        }
+
+        private long siguiente() {
+            return posicion < cantidad ? campos[posicion++] : 0;
+        }
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // ARCHIVOS
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Indica si un archivo está en este formato (y no en el de serialización de Java).
+     * @param ruta archivo a comprobar
+     * @return {@code true} si empieza con la marca del formato
+     * @throws IOException si falla la lectura
+     */
+    static boolean esFormatoBinario(Path ruta) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(ruta))) {
+            return in.readInt() == MAGIA;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Escribe una lista de registros. El archivo se reemplaza de forma atómica.
+     * @param ruta destino
+     * @param tipo tipo de contenido ({@code TIPO_*})
+     * @param registros registros a guardar
+     * @param esquema esquema de los registros
+     * @throws IOException si falla la escritura
+     */
+    static <T> void escribir(Path ruta, int tipo, List<T> registros, Esquema<T> esquema) throws IOException {
+        Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporal))) {
+            escribir(out, tipo, registros, esquema);
+        }
+        Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Lee una lista de registros.
+     * @param ruta archivo a leer
+     * @param tipo tipo de contenido esperado ({@code TIPO_*})
+     * @param esquema esquema de los registros
+     * @return registros leídos
+     * @throws IOException si falla la lectura o el archivo no es válido
+     */
+    static <T> List<T> leer(Path ruta, int tipo, Esquema<T> esquema) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(ruta))) {
+            return leer(in, tipo, esquema);
+        }
+    }
+
+    static <T> void escribir(OutputStream destino, int tipo, List<T> registros, Esquema<T> esquema) throws IOException {
+        // Los registros se codifican primero para conocer la tabla de textos completa
+        Escritor escritor = new Escritor();
+        ByteArrayOutputStream cuerpo = new ByteArrayOutputStream(registros.size() * 8 + 16);
+        DataOutputStream datosCuerpo = new DataOutputStream(cuerpo);
+        escribirVarint(datosCuerpo, registros.size());
+        for (T r : registros) {
+            escritor.cantidad = 0;
+            esquema.escribir(r, escritor);
+            escribirVarint(datosCuerpo, escritor.cantidad);
+            for (int i = 0; i < escritor.cantidad; i++) escribirVarint(datosCuerpo, escritor.campos[i]);
+        }
+
+        DataOutputStream out = new DataOutputStream(destino);
+        out.writeInt(MAGIA);
+        out.writeByte(VERSION);
+        out.writeByte(tipo);
+        escribirVarint(out, escritor.textos.size());
+        for (String s : escritor.textos) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            escribirVarint(out, bytes.length);
+            out.write(bytes);
+        }
+        cuerpo.writeTo(out);
+        out.flush();
+    }
+
+    static <T> List<T> leer(InputStream origen, int tipo, Esquema<T> esquema) throws IOException {
+        DataInputStream in = new DataInputStream(origen);
+        if (in.readInt() != MAGIA) throw new IOException("El archivo no tiene el formato binario de LybSys");
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Versión de formato no soportada: " + version);
+        int tipoLeido = in.readUnsignedByte();
+        if (tipoLeido != tipo) throw new IOException("Tipo de contenido inesperado: " + tipoLeido);
+
+        String[] textos = new String[longitud(in)];
+        byte[] buffer = new byte[64];
+        for (int i = 0; i < textos.length; i++) {
+            int n = longitud(in);
+            if (n > buffer.length) buffer = new byte[Math.max(n, buffer.length * 2)];
+            in.readFully(buffer, 0, n);
+            textos[i] = new String(buffer, 0, n, StandardCharsets.UTF_8);
+        }
+
+        int cantidad = longitud(in);
+        List<T> registros = new ArrayList<>(Math.min(cantidad, 1 << 16));
+        Lector lector = new Lector(textos);
+        for (int r = 0; r < cantidad; r++) {
+            int campos = longitud(in);
+            if (campos > lector.campos.length) lector.campos = new long[Math.max(campos, lector.campos.length * 2)];
+            for (int i = 0; i < campos; i++) lector.campos[i] = leerVarint(in);
+            lector.cantidad = campos;
+            lector.posicion = 0;
+            registros.add(esquema.leer(lector));
+        }
+        return registros;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // VARINTS
+    // ───────────────────────────────────────────────────────────────
+
+    static void escribirVarint(DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static long leerVarint(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Varint demasiado largo");
+    }
+
+    static int longitud(DataInputStream in) throws IOException {
+        long v = leerVarint(in);
+        if (v > Integer.MAX_VALUE) throw new IOException("Longitud no válida: " + v);
+        return (int) v;
+    }
+}
@@ -2,6 +2,7 @@ package Lectura;
 
 import Lectura.ModeloLectura.*;
 import recursos.LecturaException;
+import repository.EjecutorRepositorios;
 import java.io.File;
 import java.util.List;
 import javax.swing.JOptionPane;
@@ -109,6 +110,9 @@ public class ControladorLectura {
             vista.setTitle("Lectura: " + libroActual.getTitulo());
             vista.setVisible(true);
 
+            // Indexar el texto en segundo plano para la búsqueda
+            IndexadorTexto.obtenerInstancia().indexar(bookId, libroActual.getRutaArchivo());
+
         } catch (LecturaException.LibroNoEncontradoException e) {
             mostrarError("Libro no encontrado", e.getMessage());
         } catch (LecturaException.ArchivoNoEncontradoException e) {
@@ -151,6 +155,29 @@ public class ControladorLectura {
         }
     }
 
+    /**
+     * Igual que {@link #guardarProgreso(int)}, pero escribe el archivo de progreso en
+     * segundo plano con {@link EjecutorRepositorios}; el progreso en memoria se actualiza
+     * en el momento para que {@link #cerrarVisor()} guarde la página correcta.
+     *
+     * @param paginaActual página donde se encuentra el usuario
+     */
+    public void guardarProgresoEnSegundoPlano(int paginaActual) {
+        if (progresoActual == null) return;
+
+        progresoActual.setPaginaActual(paginaActual);
+        String usuarioId = progresoActual.getUsuarioId();
+        String libroId = progresoActual.getLibroId();
+        EjecutorRepositorios.enviar(ModeloLectura.ARCHIVO_PROGRESO,
+                () -> ModeloLectura.guardarProgreso(usuarioId, libroId, paginaActual))
+                .whenComplete((guardado, e) -> {
+                    if (e != null) {
+                        Throwable causa = e.getCause() != null ? e.getCause() : e;
+                        System.err.println("No se pudo guardar el progreso: " + causa.getMessage());
+                    }
+                });
+    }
+
     /**
      * Agrega un nuevo marcador en la página actual del documento.
      *
@@ -263,6 +290,63 @@ public class ControladorLectura {
         }
     }
 
+    /**
+     * Navega al primer marcador posterior a la página actual.
+     *
+     * @param paginaActual página que se está mostrando
+     * @return {@code true} si había un marcador después de esa página
+     */
+    public boolean irASiguienteMarcador(int paginaActual) {
+        if (usuarioIdActual == null || libroIdActual == null) return false;
+        Marcador marcador = ModeloLectura.siguienteMarcador(usuarioIdActual, libroIdActual, paginaActual);
+        irAMarcador(marcador);
+        return marcador != null;
+    }
+
+    /**
+     * Navega al último marcador anterior a la página actual.
+     *
+     * @param paginaActual página que se está mostrando
+     * @return {@code true} si había un marcador antes de esa página
+     */
+    public boolean irAMarcadorAnterior(int paginaActual) {
+        if (usuarioIdActual == null || libroIdActual == null) return false;
+        Marcador marcador = ModeloLectura.anteriorMarcador(usuarioIdActual, libroIdActual, paginaActual);
+        irAMarcador(marcador);
+        return marcador != null;
+    }
+
+    /**
+     * Busca una palabra o frase dentro del libro actual.
+     *
+     * @param consulta texto a buscar (sin distinguir mayúsculas ni tildes)
+     * @return coincidencias por página, ordenadas; vacía si no hay o el libro aún se está indexando
+     */
+    public List<IndexadorTexto.Coincidencia> buscarEnLibro(String consulta) {
+        if (libroIdActual == null || consulta == null || consulta.isBlank()) {
+            return List.of();
+        }
+        return IndexadorTexto.obtenerInstancia().buscar(libroIdActual, consulta);
+    }
+
+    /**
+     * @return porcentaje del libro actual cuyo texto ya está indexado
+     */
+    public int porcentajeIndexado() {
+        return libroIdActual == null ? 0 : IndexadorTexto.obtenerInstancia().porcentajeIndexado(libroIdActual);
+    }
+
+    /**
+     * Navega a la página de una coincidencia de búsqueda.
+     *
+     * @param coincidencia coincidencia seleccionada
+     */
+    public void irACoincidencia(IndexadorTexto.Coincidencia coincidencia) {
+        if (coincidencia != null) {
+            vista.irAPagina(coincidencia.getPagina());
+        }
+    }
+
     /**
      * Valida que una página solicitada esté dentro del rango permitido.
      *
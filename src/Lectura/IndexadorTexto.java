@@ -0,0 +1,341 @@
+package Lectura;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import recursos.HilosVirtuales;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Indexa en segundo plano el texto de los libros PDF para buscar dentro de ellos.
+ *
+ * <p>Al abrir un libro se pide su índice: si hay uno guardado en
+ * {@value #DIRECTORIO_POR_DEFECTO} para la misma versión del PDF se usa directamente; si no,
+ * un único hilo de baja prioridad extrae el texto página a página con {@link PDFTextStripper}
+ * y construye un {@link IndiceTexto}, que se guarda al terminar. Las búsquedas se pueden
+ * hacer mientras tanto sobre las páginas ya indexadas.</p>
+ *
+ * <p>Para no competir con el visor, la vista avisa con {@link #inicioRenderizado()} y
+ * {@link #finRenderizado()} cuando dibuja una página: el indexador no extrae ninguna página
+ * mientras hay un renderizado en curso ni durante los {@value #PAUSA_TRAS_RENDERIZADO_MS} ms
+ * siguientes.</p>
+ */
+public class IndexadorTexto {
+
+    /**
+     * Página de un libro donde aparece el texto buscado.
+     */
+    public static class Coincidencia {
+        private final int pagina;
+        private final String fragmento;
+        private final int apariciones;
+
+        Coincidencia(int pagina, String fragmento, int apariciones) {
+            this.pagina = pagina;
+            this.fragmento = fragmento;
+            this.apariciones = apariciones;
+        }
+
+        /** @return número de página (desde 1) */
+        public int getPagina() { return pagina; }
+        /** @return texto alrededor de la primera aparición en la página */
+        public String getFragmento() { return fragmento; }
+        /** @return veces que aparece el texto en la página */
+        public int getApariciones() { return apariciones; }
+
+        @Override
+        public String toString() {
+            return "Pág. " + pagina + ": " + fragmento;
+        }
+    }
+
+    /**
+     * Estadísticas de términos de un libro indexado, para calcular relevancia.
+     */
+    public static class Estadisticas {
+        private final int longitud;
+        private final Map<String, Integer> frecuencias;
+
+        Estadisticas(int longitud, Map<String, Integer> frecuencias) {
+            this.longitud = longitud;
+            this.frecuencias = frecuencias;
+        }
+
+        /** @return número total de términos del libro */
+        public int getLongitud() { return longitud; }
+
+        /**
+         * @param termino término normalizado (ver {@link IndexadorTexto#terminos(String)})
+         * @return veces que aparece en el libro
+         */
+        public int getFrecuencia(String termino) {
+            return frecuencias.getOrDefault(termino, 0);
+        }
+    }
+
+    public static final String DIRECTORIO_POR_DEFECTO = "datos/indices_texto";
+    /** Tiempo sin renderizados que se espera antes de seguir indexando. */
+    private static final long PAUSA_TRAS_RENDERIZADO_MS = 500;
+
+    private static IndexadorTexto instancia;
+
+    private final Path directorio;
+    private final ExecutorService ejecutor;
+    /** Índices cargados o en construcción, por id de libro. */
+    private final Map<String, IndiceTexto> indices = new HashMap<>();
+    private final Set<String> enCola = new HashSet<>();
+
+    private final Object turno = new Object();
+    private int renderizados;
+    private long finUltimoRenderizado;
+
+    /**
+     * @param directorio directorio donde se guardan los índices
+     */
+    public IndexadorTexto(Path directorio) {
+        this.directorio = directorio;
+        ThreadFactory fabrica = HilosVirtuales.hilosDaemon("indexador-pdf");
+        this.ejecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = fabrica.newThread(r);
+            hilo.setPriority(Thread.MIN_PRIORITY);
+            return hilo;
+        });
+    }
+
+    /**
+     * Obtiene el indexador compartido.
+     * @return instancia única
+     */
+    public static synchronized IndexadorTexto obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new IndexadorTexto(Path.of(DIRECTORIO_POR_DEFECTO));
+        }
+        return instancia;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // INDEXACIÓN
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Prepara el índice de un libro: lo carga si ya existe para esa versión del PDF o pone
+     * el libro en cola para indexarlo.
+     * @param libroId id del libro
+     * @param rutaPdf ruta del PDF
+     */
+    public void indexar(String libroId, String rutaPdf) {
+        synchronized (this) {
+            if (enCola.contains(libroId)) return;
+            enCola.add(libroId);
+        }
+        ejecutor.execute(() -> {
+            try {
+                construir(libroId, Path.of(rutaPdf));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("⚠️  No se pudo indexar el libro " + libroId + ": " + e.getMessage());
+            } finally {
+                synchronized (this) {
+                    enCola.remove(libroId);
+                }
+            }
+        });
+    }
+
+    private void construir(String libroId, Path pdf) throws IOException {
+        BasicFileAttributes atributos = Files.readAttributes(pdf, BasicFileAttributes.class);
+        long version = atributos.lastModifiedTime().toMillis();
+        long tamano = atributos.size();
+
+        synchronized (this) {
+            IndiceTexto actual = indices.get(libroId);
+            if (actual != null && actual.estaCompleto() && actual.esVigente(version, tamano)) return;
+        }
+        Path archivo = archivoIndice(libroId);
+        IndiceTexto guardado = leerGuardado(archivo);
+        if (guardado != null && guardado.esVigente(version, tamano)) {
+            synchronized (this) {
+                indices.put(libroId, guardado);
+            }
+            return;
+        }
+
+        try (PDDocument documento = CargadorPdf.abrir(pdf)) {
+            IndiceTexto indice = new IndiceTexto(documento.getNumberOfPages(), version, tamano);
+            synchronized (this) {
+                indices.put(libroId, indice);
+            }
+            PDFTextStripper extractor = new PDFTextStripper();
+            extractor.setSortByPosition(true);
+            for (int pagina = 1; pagina <= indice.totalPaginas(); pagina++) {
+                esperarTurno();
+                extractor.setStartPage(pagina);
+                extractor.setEndPage(pagina);
+                String texto = extractor.getText(documento);
+                synchronized (this) {
+                    indice.agregarPagina(pagina, texto);
+                }
+            }
+            synchronized (this) {
+                indice.guardar(archivo);
+            }
+        }
+    }
+
+    private static IndiceTexto leerGuardado(Path archivo) {
+        try {
+            return IndiceTexto.leer(archivo);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("⚠️  Índice de texto no válido, se reconstruye: " + archivo);
+            return null;
+        }
+    }
+
+    private Path archivoIndice(String libroId) {
+        return directorio.resolve(libroId.replaceAll("[^A-Za-z0-9_.-]", "_") + ".idx");
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // BÚSQUEDA
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Busca una palabra o frase (sin distinguir mayúsculas ni tildes) en un libro.
+     * @param libroId id del libro
+     * @param consulta texto buscado
+     * @return una coincidencia por página, ordenadas por página; vacía si el libro no se ha
+     *         indexado todavía
+     */
+    public synchronized List<Coincidencia> buscar(String libroId, String consulta) {
+        IndiceTexto indice = indices.get(libroId);
+        if (indice == null || consulta == null) return new ArrayList<>();
+        return indice.buscar(consulta);
+    }
+
+    /**
+     * @param libroId id del libro
+     * @return porcentaje del libro indexado (0 si aún no empezó)
+     */
+    public synchronized int porcentajeIndexado(String libroId) {
+        IndiceTexto indice = indices.get(libroId);
+        if (indice == null || indice.totalPaginas() == 0) return indice == null ? 0 : 100;
+        return indice.paginasIndexadas() * 100 / indice.totalPaginas();
+    }
+
+    /**
+     * Separa un texto en los términos que usa el índice (minúsculas y sin tildes).
+     * @param texto texto a separar
+     * @return términos en orden
+     */
+    public static List<String> terminos(String texto) {
+        return texto == null ? new ArrayList<>() : IndiceTexto.terminosDe(texto);
+    }
+
+    /**
+     * Obtiene las estadísticas de términos de un libro ya indexado, sin ponerlo en cola.
+     * @param libroId id del libro
+     * @param rutaPdf ruta del PDF
+     * @return estadísticas, o {@code null} si no hay un índice completo para la versión actual del PDF
+     */
+    public Estadisticas estadisticas(String libroId, String rutaPdf) {
+        IndiceTexto indice = indiceVigente(libroId, rutaPdf);
+        if (indice == null) return null;
+        synchronized (this) {
+            return new Estadisticas(indice.longitud(), indice.frecuencias());
+        }
+    }
+
+    /**
+     * Busca las páginas de un libro ya indexado que contienen alguno de los términos.
+     * @param libroId id del libro
+     * @param rutaPdf ruta del PDF
+     * @param terminos términos normalizados
+     * @param maximo número máximo de páginas
+     * @return páginas con más apariciones primero, con su fragmento; vacía si no hay índice
+     */
+    public List<Coincidencia> paginasCon(String libroId, String rutaPdf, List<String> terminos, int maximo) {
+        IndiceTexto indice = indiceVigente(libroId, rutaPdf);
+        if (indice == null) return new ArrayList<>();
+        synchronized (this) {
+            return indice.paginasConTerminos(terminos, maximo);
+        }
+    }
+
+    /**
+     * Devuelve el índice completo de un libro para la versión actual del PDF: el que está en
+     * memoria o, si no, el guardado en disco (sin conservarlo en memoria, para que buscar en
+     * todo el catálogo no cargue todos los índices a la vez).
+     */
+    private IndiceTexto indiceVigente(String libroId, String rutaPdf) {
+        BasicFileAttributes atributos;
+        try {
+            atributos = Files.readAttributes(Path.of(rutaPdf), BasicFileAttributes.class);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        long version = atributos.lastModifiedTime().toMillis();
+        synchronized (this) {
+            IndiceTexto actual = indices.get(libroId);
+            if (actual != null && actual.estaCompleto() && actual.esVigente(version, atributos.size())) return actual;
+        }
+        IndiceTexto guardado = leerGuardado(archivoIndice(libroId));
+        return guardado != null && guardado.esVigente(version, atributos.size()) ? guardado : null;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // PRIORIDAD DEL VISOR
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Avisa de que el visor empieza a renderizar una página.
+     */
+    public void inicioRenderizado() {
+        synchronized (turno) {
+            renderizados++;
+        }
+    }
+
+    /**
+     * Avisa de que el visor terminó de renderizar una página.
+     */
+    public void finRenderizado() {
+        synchronized (turno) {
+            renderizados--;
+            finUltimoRenderizado = System.currentTimeMillis();
+            turno.notifyAll();
+        }
+    }
+
+    /**
+     * Espera a que no haya renderizados en curso ni recientes.
+     */
+    private void esperarTurno() {
+        synchronized (turno) {
+            while (true) {
+                long espera = renderizados > 0 ? PAUSA_TRAS_RENDERIZADO_MS
+                        : finUltimoRenderizado + PAUSA_TRAS_RENDERIZADO_MS - System.currentTimeMillis();
+                if (espera <= 0) return;
+                try {
+                    turno.wait(espera);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
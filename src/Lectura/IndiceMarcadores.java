@@ -0,0 +1,357 @@
+package Lectura;
+
+import Lectura.ModeloLectura.Marcador;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Índice de marcadores por (usuario, libro), ordenados por página.
+ *
+ * <p>Cada par (usuario, libro) tiene un conjunto ordenado por página (y por id, para admitir
+ * varios marcadores en la misma página) y un mapa id → marcador permite localizar cualquier
+ * marcador directamente. Así, listar es lineal en los marcadores del par, contar es O(1) y
+ * eliminar o buscar el marcador siguiente/anterior a una página es O(log n).</p>
+ *
+ * <p>La persistencia es incremental: {@code marcadores.dat} es una instantánea en
+ * {@link CodecBinario} y cada alta o baja se anexa a un diario ({@code marcadores.dat.diario}).
+ * Al cargar se lee la instantánea y se reproduce el diario; cuando el diario crece más que
+ * la instantánea se reescribe esta y se vacía el diario. Si la última entrada quedó a medias,
+ * se recorta del diario al reproducirlo. Como en {@link CacheLectura}, si
+ * otro proceso modifica los archivos se vuelven a cargar.</p>
+ */
+final class IndiceMarcadores {
+
+    private static final int MAGIA_DIARIO = 0x4C59424A; // "LYBJ"
+    private static final int VERSION_DIARIO = 1;
+    private static final byte ALTA = 1;
+    private static final byte BAJA = 2;
+    /** Entradas mínimas del diario antes de considerar reescribir la instantánea. */
+    private static final int MINIMO_PARA_COMPACTAR = 256;
+
+    private static final Comparator<Marcador> POR_PAGINA = Comparator
+            .comparingInt(Marcador::getPagina)
+            .thenComparing(Marcador::getId);
+
+    private final Path instantanea;
+    private final Path diario;
+    private final Supplier<List<Marcador>> cargador;
+    private final Predicate<List<Marcador>> guardador;
+
+    private boolean cargado;
+    private final Map<String, NavigableSet<Marcador>> porLibroUsuario = new HashMap<>();
+    private final Map<String, Marcador> porId = new HashMap<>();
+    private int entradasDiario;
+    private FileTime versionInstantanea, versionDiario;
+    private long tamanoInstantanea = -1, tamanoDiario = -1;
+
+    /**
+     * @param archivo ruta de la instantánea
+     * @param cargador lee la instantánea completa
+     * @param guardador reescribe la instantánea; devuelve {@code true} si tuvo éxito
+     */
+    IndiceMarcadores(String archivo, Supplier<List<Marcador>> cargador, Predicate<List<Marcador>> guardador) {
+        this.instantanea = Path.of(archivo);
+        this.diario = Path.of(archivo + ".diario");
+        this.cargador = cargador;
+        this.guardador = guardador;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // CONSULTAS
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * @return marcadores del usuario en el libro, ordenados por página
+     */
+    synchronized List<Marcador> delLibro(String usuarioId, String libroId) {
+        asegurarVigente();
+        NavigableSet<Marcador> marcadores = porLibroUsuario.get(clave(usuarioId, libroId));
+        return marcadores == null ? new ArrayList<>() : new ArrayList<>(marcadores);
+    }
+
+    synchronized int contar(String usuarioId, String libroId) {
+        asegurarVigente();
+        NavigableSet<Marcador> marcadores = porLibroUsuario.get(clave(usuarioId, libroId));
+        return marcadores == null ? 0 : marcadores.size();
+    }
+
+    /**
+     * @return primer marcador en una página posterior a {@code pagina}, o {@code null}
+     */
+    synchronized Marcador siguiente(String usuarioId, String libroId, int pagina) {
+        asegurarVigente();
+        NavigableSet<Marcador> marcadores = porLibroUsuario.get(clave(usuarioId, libroId));
+        return marcadores == null ? null : marcadores.higher(sonda(pagina, "\uffff"));
+    }
+
+    /**
+     * @return último marcador en una página anterior a {@code pagina}, o {@code null}
+     */
+    synchronized Marcador anterior(String usuarioId, String libroId, int pagina) {
+        asegurarVigente();
+        NavigableSet<Marcador> marcadores = porLibroUsuario.get(clave(usuarioId, libroId));
+        return marcadores == null ? null : marcadores.lower(sonda(pagina, ""));
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // MODIFICACIONES
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Agrega un marcador y lo anexa al diario.
+     * @return {@code true} si se guardó
+     */
+    synchronized boolean agregar(Marcador m) {
+        asegurarVigente();
+        if (!anexar(ALTA, m)) return false;
+        indexar(m);
+        compactarSiConviene();
+        return true;
+    }
+
+    /**
+     * Elimina un marcador por id.
+     * @return marcador eliminado, o {@code null} si no existe
+     * @throws IOException si no se pudo guardar la baja
+     */
+    synchronized Marcador eliminar(String marcadorId) throws IOException {
+        asegurarVigente();
+        Marcador m = porId.get(marcadorId);
+        if (m == null) return null;
+        if (!anexar(BAJA, m)) throw new IOException("No se pudo guardar el diario de marcadores");
+        desindexar(m);
+        compactarSiConviene();
+        return m;
+    }
+
+    /**
+     * Elimina todos los marcadores del usuario en el libro.
+     * @return cantidad de marcadores eliminados
+     */
+    synchronized int eliminarTodos(String usuarioId, String libroId) {
+        asegurarVigente();
+        NavigableSet<Marcador> marcadores = porLibroUsuario.get(clave(usuarioId, libroId));
+        if (marcadores == null) return 0;
+        int eliminados = 0;
+        for (Marcador m : new ArrayList<>(marcadores)) {
+            if (!anexar(BAJA, m)) break;
+            desindexar(m);
+            eliminados++;
+        }
+        compactarSiConviene();
+        return eliminados;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // ÍNDICES
+    // ───────────────────────────────────────────────────────────────
+
+    private void indexar(Marcador m) {
+        Marcador anterior = porId.put(m.getId(), m);
+        if (anterior != null) quitarDelPar(anterior);
+        porLibroUsuario.computeIfAbsent(clave(m.getUsuarioId(), m.getLibroId()), k -> new TreeSet<>(POR_PAGINA)).add(m);
+    }
+
+    private void desindexar(Marcador m) {
+        porId.remove(m.getId());
+        quitarDelPar(m);
+    }
+
+    private void quitarDelPar(Marcador m) {
+        String k = clave(m.getUsuarioId(), m.getLibroId());
+        NavigableSet<Marcador> marcadores = porLibroUsuario.get(k);
+        if (marcadores == null) return;
+        marcadores.remove(m);
+        if (marcadores.isEmpty()) porLibroUsuario.remove(k);
+    }
+
+    private static Marcador sonda(int pagina, String id) {
+        Marcador m = new Marcador();
+        m.setPagina(pagina);
+        m.setId(id);
+        return m;
+    }
+
+    private static String clave(String usuarioId, String libroId) {
+        return usuarioId + "\u0000" + libroId;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // PERSISTENCIA
+    // ───────────────────────────────────────────────────────────────
+
+    private void asegurarVigente() {
+        BasicFileAttributes ai = atributos(instantanea);
+        BasicFileAttributes ad = atributos(diario);
+        if (cargado && coincide(ai, versionInstantanea, tamanoInstantanea) && coincide(ad, versionDiario, tamanoDiario)) {
+            return;
+        }
+        porId.clear();
+        porLibroUsuario.clear();
+        entradasDiario = 0;
+        for (Marcador m : cargador.get()) indexar(m);
+        reproducirDiario();
+        cargado = true;
+        // Se relee el sello: la carga puede haber migrado la instantánea al formato binario
+        sellar();
+    }
+
+    private void reproducirDiario() {
+        if (!Files.exists(diario)) return;
+        byte[] datos;
+        try {
+            datos = Files.readAllBytes(diario);
+        } catch (IOException e) {
+            System.err.println("⚠️  Error al leer el diario de marcadores: " + e.getMessage());
+            return;
+        }
+        ByteArrayInputStream bytes = new ByteArrayInputStream(datos);
+        DataInputStream in = new DataInputStream(bytes);
+        // Fin de la última entrada completa
+        long completo = 0;
+        try {
+            if (in.readInt() != MAGIA_DIARIO || in.readUnsignedByte() != VERSION_DIARIO) {
+                System.err.println("⚠️  Diario de marcadores no reconocido: " + diario);
+                return;
+            }
+            completo = datos.length - bytes.available();
+            while (bytes.available() > 0) {
+                byte op = in.readByte();
+                Marcador m = leerMarcador(in);
+                if (op == ALTA) indexar(m);
+                else if (op == BAJA) {
+                    Marcador actual = porId.get(m.getId());
+                    if (actual != null) desindexar(actual);
+                }
+                entradasDiario++;
+                completo = datos.length - bytes.available();
+            }
+        } catch (EOFException e) {
+            // Última entrada incompleta (escritura interrumpida): se quita del archivo para que
+            // las entradas que se anexen después no queden detrás de ella
+            recortarDiario(completo);
+        } catch (IOException e) {
+            System.err.println("⚠️  Error al leer el diario de marcadores: " + e.getMessage());
+        }
+    }
+
+    private void recortarDiario(long longitud) {
+        try (FileChannel canal = FileChannel.open(diario, StandardOpenOption.WRITE)) {
+            canal.truncate(longitud);
+            canal.force(false);
+        } catch (IOException e) {
+            System.err.println("⚠️  No se pudo reparar el diario de marcadores: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Anexa una entrada al diario (creándolo con su cabecera si no existe).
+     */
+    private boolean anexar(byte op, Marcador m) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            if (!Files.exists(diario) || Files.size(diario) == 0) {
+                out.writeInt(MAGIA_DIARIO);
+                out.writeByte(VERSION_DIARIO);
+            }
+            out.writeByte(op);
+            escribirMarcador(out, m);
+            if (diario.getParent() != null) Files.createDirectories(diario.getParent());
+            // Una sola escritura por entrada: si se interrumpe, solo queda incompleta la última
+            try (OutputStream archivo = Files.newOutputStream(diario, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                bytes.writeTo(archivo);
+            }
+            entradasDiario++;
+            sellar();
+            return true;
+        } catch (IOException e) {
+            System.err.println("❌ Error al guardar marcadores: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void compactarSiConviene() {
+        if (entradasDiario < MINIMO_PARA_COMPACTAR || entradasDiario < porId.size()) return;
+        List<Marcador> todos = new ArrayList<>(porId.values());
+        if (!guardador.test(todos)) return;
+        try {
+            Files.deleteIfExists(diario);
+            entradasDiario = 0;
+        } catch (IOException e) {
+            // Si no se puede borrar, reproducirlo sobre la instantánea nueva da el mismo resultado
+            System.err.println("⚠️  No se pudo vaciar el diario de marcadores: " + e.getMessage());
+        }
+        sellar();
+    }
+
+    private static void escribirMarcador(DataOutputStream out, Marcador m) throws IOException {
+        out.writeUTF(texto(m.getId()));
+        out.writeUTF(texto(m.getUsuarioId()));
+        out.writeUTF(texto(m.getLibroId()));
+        out.writeInt(m.getPagina());
+        out.writeUTF(texto(m.getDescripcion()));
+        out.writeUTF(texto(m.getFechaCreacion()));
+    }
+
+    private static String texto(String s) {
+        return s == null ? "" : s;
+    }
+
+    private static Marcador leerMarcador(DataInputStream in) throws IOException {
+        Marcador m = new Marcador();
+        m.setId(in.readUTF());
+        m.setUsuarioId(in.readUTF());
+        m.setLibroId(in.readUTF());
+        m.setPagina(in.readInt());
+        m.setDescripcion(in.readUTF());
+        m.setFechaCreacion(in.readUTF());
+        return m;
+    }
+
+    private void sellar() {
+        BasicFileAttributes ai = atributos(instantanea);
+        BasicFileAttributes ad = atributos(diario);
+        versionInstantanea = ai == null ? null : ai.lastModifiedTime();
+        tamanoInstantanea = ai == null ? -1 : ai.size();
+        versionDiario = ad == null ? null : ad.lastModifiedTime();
+        tamanoDiario = ad == null ? -1 : ad.size();
+    }
+
+    private static boolean coincide(BasicFileAttributes a, FileTime version, long tamano) {
+        return a == null ? version == null : a.lastModifiedTime().equals(version) && a.size() == tamano;
+    }
+
+    private static BasicFileAttributes atributos(Path ruta) {
+        try {
+            return Files.readAttributes(ruta, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("⚠️  No se pudo consultar " + ruta + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package Lectura;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice invertido del texto de un libro PDF.
+ *
+ * <p>Guarda el texto de cada página y, para cada término, la lista de apariciones
+ * (página, posición del término dentro de la página). Los términos se comparan en
+ * minúsculas y sin tildes. Una consulta de varias palabras se busca como frase: las
+ * palabras deben aparecer seguidas.</p>
+ *
+ * <p>Formato del archivo:</p>
+ * <pre>
+ * int     MAGIA ("LYBT")
+ * byte    versión
+ * long    fecha de modificación y long tamaño del PDF indexado
+ * varint  número de páginas, seguido del texto de cada página (varint longitud + UTF-8)
+ * varint  número de términos; por término: texto, varint apariciones y cada aparición
+ *         como varint (diferencia de página, posición)
+ * </pre>
+ *
+ * <p>No es seguro para hilos; {@link IndexadorTexto} sincroniza el acceso.</p>
+ */
+final class IndiceTexto {
+
+    /** "LYBT" en ASCII. */
+    private static final int MAGIA = 0x4C594254;
+    private static final int VERSION = 1;
+    /** Caracteres de contexto a cada lado de una coincidencia en los fragmentos. */
+    private static final int CONTEXTO = 60;
+
+    /** Minúsculas sin tildes para los caracteres latinos; el resto solo se pasa a minúsculas. */
+    private static final char[] PLEGADO = new char[0x250];
+
+    static {
+        for (char c = 0; c < PLEGADO.length; c++) {
+            String base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            PLEGADO[c] = Character.toLowerCase(base.charAt(0));
+        }
+    }
+
+    /**
+     * Apariciones de un término: pares (página, posición) en orden de inserción.
+     */
+    private static final class Apariciones {
+        int[] datos = new int[4];
+        int cantidad;
+
+        void agregar(int pagina, int posicion) {
+            if (cantidad + 2 > datos.length) datos = Arrays.copyOf(datos, datos.length * 2);
+            datos[cantidad++] = pagina;
+            datos[cantidad++] = posicion;
+        }
+    }
+
+    private final long versionOrigen;
+    private final long tamanoOrigen;
+    private final String[] paginas;
+    private int paginasIndexadas;
+    /** Número total de términos indexados (longitud del documento). */
+    private int longitud;
+    private final Map<String, Apariciones> terminos = new HashMap<>();
+
+    /**
+     * @param totalPaginas páginas del documento
+     * @param versionOrigen fecha de modificación del PDF
+     * @param tamanoOrigen tamaño del PDF
+     */
+    IndiceTexto(int totalPaginas, long versionOrigen, long tamanoOrigen) {
+        this.paginas = new String[totalPaginas];
+        this.versionOrigen = versionOrigen;
+        this.tamanoOrigen = tamanoOrigen;
+    }
+
+    /**
+     * @return {@code true} si el índice corresponde a esa versión del PDF
+     */
+    boolean esVigente(long version, long tamano) {
+        return versionOrigen == version && tamanoOrigen == tamano;
+    }
+
+    int totalPaginas() {
+        return paginas.length;
+    }
+
+    int paginasIndexadas() {
+        return paginasIndexadas;
+    }
+
+    boolean estaCompleto() {
+        return paginasIndexadas == paginas.length;
+    }
+
+    boolean estaIndexada(int pagina) {
+        return paginas[pagina - 1] != null;
+    }
+
+    /**
+     * @param pagina número de página (desde 1)
+     * @return texto de la página, o {@code null} si aún no se indexó
+     */
+    String textoPagina(int pagina) {
+        return paginas[pagina - 1];
+    }
+
+    /**
+     * Agrega el texto de una página al índice.
+     * @param pagina número de página (desde 1)
+     * @param texto texto extraído
+     */
+    void agregarPagina(int pagina, String texto) {
+        if (paginas[pagina - 1] != null) return;
+        paginas[pagina - 1] = texto;
+        paginasIndexadas++;
+        int[] posicion = {0};
+        recorrerTerminos(texto, (termino, inicio, fin) ->
+                terminos.computeIfAbsent(termino, k -> new Apariciones()).agregar(pagina, posicion[0]++));
+        longitud += posicion[0];
+    }
+
+    /**
+     * @return número total de términos del documento
+     */
+    int longitud() {
+        return longitud;
+    }
+
+    /**
+     * @return veces que aparece cada término en todo el documento
+     */
+    Map<String, Integer> frecuencias() {
+        Map<String, Integer> frecuencias = new HashMap<>(terminos.size() * 2);
+        for (Map.Entry<String, Apariciones> e : terminos.entrySet()) {
+            frecuencias.put(e.getKey(), e.getValue().cantidad / 2);
+        }
+        return frecuencias;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // BÚSQUEDA
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Busca una palabra o frase.
+     * @param consulta texto buscado
+     * @return una coincidencia por página, ordenadas por página
+     */
+    List<IndexadorTexto.Coincidencia> buscar(String consulta) {
+        List<String> palabras = terminosDe(consulta);
+        List<IndexadorTexto.Coincidencia> resultado = new ArrayList<>();
+        if (palabras.isEmpty()) return resultado;
+
+        Apariciones primera = terminos.get(palabras.get(0));
+        if (primera == null) return resultado;
+        // Para las demás palabras basta saber si existe (página, posición) exacta
+        List<Set<Long>> siguientes = new ArrayList<>();
+        for (int i = 1; i < palabras.size(); i++) {
+            Apariciones a = terminos.get(palabras.get(i));
+            if (a == null) return resultado;
+            Set<Long> pares = new HashSet<>(a.cantidad);
+            for (int j = 0; j < a.cantidad; j += 2) pares.add(par(a.datos[j], a.datos[j + 1]));
+            siguientes.add(pares);
+        }
+
+        // Apariciones por página, conservando la posición de la primera
+        Map<Integer, int[]> porPagina = new HashMap<>();
+        for (int j = 0; j < primera.cantidad; j += 2) {
+            int pagina = primera.datos[j], posicion = primera.datos[j + 1];
+            boolean frase = true;
+            for (int i = 0; i < siguientes.size() && frase; i++) {
+                frase = siguientes.get(i).contains(par(pagina, posicion + i + 1));
+            }
+            if (!frase) continue;
+            int[] info = porPagina.get(pagina);
+            if (info == null) porPagina.put(pagina, new int[]{posicion, 1});
+            else {
+                info[0] = Math.min(info[0], posicion);
+                info[1]++;
+            }
+        }
+
+        List<Integer> ordenadas = new ArrayList<>(porPagina.keySet());
+        ordenadas.sort(null);
+        for (int pagina : ordenadas) {
+            int[] info = porPagina.get(pagina);
+            resultado.add(new IndexadorTexto.Coincidencia(pagina,
+                    fragmento(paginas[pagina - 1], info[0], palabras.size()), info[1]));
+        }
+        return resultado;
+    }
+
+    /**
+     * Busca las páginas que contienen alguno de los términos (sin exigir que formen frase).
+     * @param palabras términos ya normalizados
+     * @param maximo número máximo de páginas
+     * @return páginas con más apariciones primero; el fragmento rodea la primera aparición
+     */
+    List<IndexadorTexto.Coincidencia> paginasConTerminos(List<String> palabras, int maximo) {
+        // página -> {apariciones, posición de la primera}
+        Map<Integer, int[]> porPagina = new HashMap<>();
+        for (String palabra : new HashSet<>(palabras)) {
+            Apariciones a = terminos.get(palabra);
+            if (a == null) continue;
+            for (int j = 0; j < a.cantidad; j += 2) {
+                int[] info = porPagina.computeIfAbsent(a.datos[j], k -> new int[]{0, Integer.MAX_VALUE});
+                info[0]++;
+                info[1] = Math.min(info[1], a.datos[j + 1]);
+            }
+        }
+        List<Map.Entry<Integer, int[]>> ordenadas = new ArrayList<>(porPagina.entrySet());
+        ordenadas.sort((x, y) -> x.getValue()[0] != y.getValue()[0]
+                ? Integer.compare(y.getValue()[0], x.getValue()[0])
+                : Integer.compare(x.getKey(), y.getKey()));
+        List<IndexadorTexto.Coincidencia> resultado = new ArrayList<>();
+        for (Map.Entry<Integer, int[]> e : ordenadas.subList(0, Math.min(maximo, ordenadas.size()))) {
+            resultado.add(new IndexadorTexto.Coincidencia(e.getKey(),
+                    fragmento(paginas[e.getKey() - 1], e.getValue()[1], 1), e.getValue()[0]));
+        }
+        return resultado;
+    }
+
+    /**
+     * Extrae el texto alrededor de los términos que empiezan en una posición.
+     */
+    private static String fragmento(String texto, int posicion, int palabras) {
+        int[] limites = {-1, -1};
+        int[] actual = {0};
+        recorrerTerminos(texto, (termino, inicio, fin) -> {
+            if (actual[0] == posicion) limites[0] = inicio;
+            if (actual[0] == posicion + palabras - 1) limites[1] = fin;
+            actual[0]++;
+        });
+        if (limites[0] < 0 || limites[1] < 0) return "";
+        int desde = Math.max(0, limites[0] - CONTEXTO);
+        int hasta = Math.min(texto.length(), limites[1] + CONTEXTO);
+        String fragmento = texto.substring(desde, hasta).replaceAll("\\s+", " ").trim();
+        return (desde > 0 ? "…" : "") + fragmento + (hasta < texto.length() ? "…" : "");
+    }
+
+    private static long par(int pagina, int posicion) {
+        return ((long) pagina << 32) | (posicion & 0xFFFFFFFFL);
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // TÉRMINOS
+    // ───────────────────────────────────────────────────────────────
+
+    private interface OyenteTermino {
+        void termino(String termino, int inicio, int fin);
+    }
+
+    /**
+     * @return términos normalizados de un texto, en orden
+     */
+    static List<String> terminosDe(String texto) {
+        List<String> resultado = new ArrayList<>();
+        recorrerTerminos(texto, (termino, inicio, fin) -> resultado.add(termino));
+        return resultado;
+    }
+
+    /**
+     * Recorre las secuencias de letras y dígitos de un texto, normalizadas.
+     */
+    private static void recorrerTerminos(String texto, OyenteTermino oyente) {
+        StringBuilder termino = new StringBuilder(16);
+        int inicio = -1;
+        for (int i = 0; i <= texto.length(); i++) {
+            char c = i < texto.length() ? texto.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (inicio < 0) inicio = i;
+                termino.append(c < PLEGADO.length ? PLEGADO[c] : Character.toLowerCase(c));
+            } else if (inicio >= 0) {
+                oyente.termino(termino.toString(), inicio, i);
+                termino.setLength(0);
+                inicio = -1;
+            }
+        }
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // PERSISTENCIA
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Guarda el índice. El archivo se reemplaza de forma atómica.
+     * @param ruta destino
+     * @throws IOException si falla la escritura
+     */
+    void guardar(Path ruta) throws IOException {
+        Files.createDirectories(ruta.toAbsolutePath().getParent());
+        Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            out.writeInt(MAGIA);
+            out.writeByte(VERSION);
+            out.writeLong(versionOrigen);
+            out.writeLong(tamanoOrigen);
+            CodecBinario.escribirVarint(out, paginas.length);
+            for (String texto : paginas) {
+                // Las páginas sin indexar se guardan como texto vacío
+                escribirTexto(out, texto == null ? "" : texto);
+            }
+            CodecBinario.escribirVarint(out, terminos.size());
+            for (Map.Entry<String, Apariciones> e : terminos.entrySet()) {
+                escribirTexto(out, e.getKey());
+                Apariciones a = e.getValue();
+                CodecBinario.escribirVarint(out, a.cantidad / 2);
+                int paginaAnterior = 0;
+                for (int j = 0; j < a.cantidad; j += 2) {
+                    CodecBinario.escribirVarint(out, a.datos[j] - paginaAnterior);
+                    CodecBinario.escribirVarint(out, a.datos[j + 1]);
+                    paginaAnterior = a.datos[j];
+                }
+            }
+        }
+        Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Lee un índice guardado.
+     * @param ruta archivo del índice
+     * @return índice leído (completo)
+     * @throws IOException si falla la lectura o el archivo no es válido
+     */
+    static IndiceTexto leer(Path ruta) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(ruta)))) {
+            if (in.readInt() != MAGIA) throw new IOException("El archivo no es un índice de texto");
+            int version = in.readUnsignedByte();
+            if (version != VERSION) throw new IOException("Versión de índice no soportada: " + version);
+            long versionOrigen = in.readLong();
+            long tamanoOrigen = in.readLong();
+            IndiceTexto indice = new IndiceTexto(CodecBinario.longitud(in), versionOrigen, tamanoOrigen);
+            for (int i = 0; i < indice.paginas.length; i++) {
+                indice.paginas[i] = leerTexto(in);
+            }
+            indice.paginasIndexadas = indice.paginas.length;
+            int cantidadTerminos = CodecBinario.longitud(in);
+            for (int t = 0; t < cantidadTerminos; t++) {
+                String termino = leerTexto(in);
+                int cantidad = CodecBinario.longitud(in);
+                Apariciones a = new Apariciones();
+                a.datos = new int[Math.max(2, cantidad * 2)];
+                int pagina = 0;
+                for (int j = 0; j < cantidad; j++) {
+                    pagina += CodecBinario.longitud(in);
+                    a.agregar(pagina, CodecBinario.longitud(in));
+                }
+                indice.terminos.put(termino, a);
+                indice.longitud += cantidad;
+            }
+            return indice;
+        }
+    }
+
+    private static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        CodecBinario.escribirVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String leerTexto(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[CodecBinario.longitud(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,214 @@
+package Lectura;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import recursos.HilosVirtuales;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Miniaturas de las páginas de un libro PDF para la barra lateral del visor.
+ *
+ * <p>Cada miniatura se renderiza a baja resolución ({@value #ANCHO} px de ancho) y se guarda
+ * en disco en {@value #DIRECTORIO_POR_DEFECTO}{@code /<libro>/<versión del PDF>/<página>.png},
+ * así que al volver a abrir el libro solo se leen los PNG. Las versiones anteriores del
+ * mismo libro se borran al abrir una nueva. En memoria se conservan las
+ * {@value #MAXIMO_EN_MEMORIA} últimas usadas.</p>
+ *
+ * <p>Las cargas se hacen en un grupo de hilos compartido y se piden solo para las páginas
+ * visibles; un futuro cancelado antes de empezar no llega a renderizar. El renderizado usa un
+ * documento propio, abierto al necesitarlo por primera vez, para no compartir el del visor
+ * entre hilos (PDFBox no es seguro para hilos), y las páginas se renderizan de una en una.</p>
+ */
+final class MiniaturasPaginas {
+
+    /** Ancho de las miniaturas en píxeles; el alto depende de la página. */
+    static final int ANCHO = 100;
+    static final String DIRECTORIO_POR_DEFECTO = "datos/miniaturas_paginas";
+    private static final int MAXIMO_EN_MEMORIA = 200;
+
+    /** Leer PNG y renderizar usa CPU: se limita a la mitad de los núcleos. */
+    private static final ExecutorService EJECUTOR = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), HilosVirtuales.hilosDaemon("miniaturas-paginas"));
+
+    private final Path pdf;
+    private final Path carpeta;
+    private final LinkedHashMap<Integer, ImageIcon> memoria = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ImageIcon> masAntigua) {
+            return size() > MAXIMO_EN_MEMORIA;
+        }
+    };
+
+    /** Protege el documento, aparte de la caché, para no bloquear el EDT mientras se renderiza. */
+    private final Object bloqueoDocumento = new Object();
+    /** Documento propio para renderizar; se abre al primer fallo de caché. */
+    private PDDocument documento;
+    private PDFRenderer renderer;
+    private volatile boolean cerrado;
+
+    private MiniaturasPaginas(Path pdf, Path carpeta) {
+        this.pdf = pdf;
+        this.carpeta = carpeta;
+    }
+
+    /**
+     * Prepara las miniaturas de un libro y borra las de versiones anteriores del PDF.
+     * @param directorio directorio raíz de la caché en disco
+     * @param libroId id del libro
+     * @param rutaPdf ruta del PDF
+     * @return miniaturas del libro
+     * @throws IOException si no se puede leer el PDF
+     */
+    static MiniaturasPaginas abrir(Path directorio, String libroId, String rutaPdf) throws IOException {
+        Path pdf = Path.of(rutaPdf);
+        BasicFileAttributes atributos = Files.readAttributes(pdf, BasicFileAttributes.class);
+        String version = atributos.lastModifiedTime().toMillis() + "-" + atributos.size();
+        Path carpetaLibro = directorio.resolve(libroId.replaceAll("[^A-Za-z0-9_.-]", "_"));
+        limpiarVersionesAnteriores(carpetaLibro, version);
+        return new MiniaturasPaginas(pdf, carpetaLibro.resolve(version));
+    }
+
+    /**
+     * @param pagina número de página (desde 1)
+     * @return miniatura si ya está en memoria, o {@code null}
+     */
+    synchronized ImageIcon enMemoria(int pagina) {
+        return memoria.get(pagina);
+    }
+
+    /**
+     * Obtiene una miniatura en segundo plano.
+     * @param pagina número de página (desde 1)
+     * @return futuro con la miniatura, o con {@code null} si no se pudo renderizar
+     */
+    CompletableFuture<ImageIcon> cargar(int pagina) {
+        return CompletableFuture.supplyAsync(() -> obtener(pagina), EJECUTOR);
+    }
+
+    /**
+     * Obtiene una miniatura de memoria, de disco o renderizándola.
+     * @param pagina número de página (desde 1)
+     * @return miniatura, o {@code null} si no se pudo renderizar
+     */
+    ImageIcon obtener(int pagina) {
+        ImageIcon icono = enMemoria(pagina);
+        if (icono != null) return icono;
+
+        Path archivo = carpeta.resolve(pagina + ".png");
+        BufferedImage imagen = leerDeDisco(archivo);
+        if (imagen == null) {
+            try {
+                imagen = renderizar(pagina);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("⚠️  No se pudo renderizar la miniatura de la página " + pagina + ": " + e.getMessage());
+                return null;
+            }
+            if (imagen == null) return null;
+            guardarEnDisco(archivo, imagen);
+        }
+        icono = new ImageIcon(imagen);
+        synchronized (this) {
+            if (!cerrado) memoria.put(pagina, icono);
+        }
+        return icono;
+    }
+
+    /**
+     * Libera el documento usado para renderizar. Las cargas pendientes terminan sin imagen.
+     */
+    void cerrar() {
+        cerrado = true;
+        synchronized (this) {
+            memoria.clear();
+        }
+        synchronized (bloqueoDocumento) {
+            if (documento == null) return;
+            try {
+                documento.close();
+            } catch (IOException e) {
+                System.err.println("⚠️  Error al cerrar el documento de miniaturas: " + e.getMessage());
+            }
+            documento = null;
+            renderer = null;
+        }
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // RENDERIZADO
+    // ───────────────────────────────────────────────────────────────
+
+    private BufferedImage renderizar(int pagina) throws IOException {
+        synchronized (bloqueoDocumento) {
+            if (cerrado) return null;
+            if (documento == null) {
+                documento = CargadorPdf.abrir(pdf);
+                renderer = new PDFRenderer(documento);
+            }
+            PDRectangle caja = documento.getPage(pagina - 1).getCropBox();
+            float escala = ANCHO / Math.max(1f, caja.getWidth());
+            return renderer.renderImage(pagina - 1, escala, ImageType.RGB);
+        }
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // CACHÉ EN DISCO
+    // ───────────────────────────────────────────────────────────────
+
+    private static BufferedImage leerDeDisco(Path archivo) {
+        if (!Files.isRegularFile(archivo)) return null;
+        try {
+            return ImageIO.read(archivo.toFile());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void guardarEnDisco(Path archivo, BufferedImage imagen) {
+        try {
+            Files.createDirectories(carpeta);
+            Path temporal = Files.createTempFile(carpeta, "miniatura", ".tmp");
+            try {
+                ImageIO.write(imagen, "png", temporal.toFile());
+                Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️  No se pudo guardar la miniatura " + archivo + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Borra las carpetas de miniaturas de otras versiones del PDF.
+     */
+    private static void limpiarVersionesAnteriores(Path carpetaLibro, String version) {
+        if (!Files.isDirectory(carpetaLibro)) return;
+        try (DirectoryStream<Path> versiones = Files.newDirectoryStream(carpetaLibro)) {
+            for (Path carpeta : versiones) {
+                if (carpeta.getFileName().toString().equals(version)) continue;
+                try (DirectoryStream<Path> archivos = Files.newDirectoryStream(carpeta)) {
+                    for (Path p : archivos) Files.deleteIfExists(p);
+                }
+                Files.deleteIfExists(carpeta);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️  No se pudieron limpiar miniaturas antiguas: " + e.getMessage());
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package Lectura;
 
 import recursos.LecturaException;
+import repository.BitacoraPrestamos;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -19,13 +22,16 @@ public class ModeloLectura {
     private static final String ARCHIVO_LIBROS = "datos/libros.dat";
 
     /** Ruta del archivo donde se guarda el progreso de lectura */
-    private static final String ARCHIVO_PROGRESO = "datos/progreso_lectura.dat";
+    static final String ARCHIVO_PROGRESO = "datos/progreso_lectura.dat";
 
-    /** Ruta del archivo donde se guardan los préstamos */
+    /** Ruta del archivo donde se guardaban los préstamos (se importa a la bitácora) */
     private static final String ARCHIVO_PRESTAMOS = "datos/prestamos.dat";
 
+    /** Indica si ya se importó {@link #ARCHIVO_PRESTAMOS} a la bitácora de préstamos */
+    private static boolean prestamosMigrados;
+
     /** Ruta del archivo donde se guardan los marcadores */
-    private static final String ARCHIVO_MARCADORES = "datos/marcadores.dat";
+    static final String ARCHIVO_MARCADORES = "datos/marcadores.dat";
 
     // ───────────────────────────────────────────────────────────────
     // CLASES INTERNAS
@@ -145,6 +151,7 @@ public class ModeloLectura {
         }
 
         public String getUltimaActualizacion() { return ultimaActualizacion; }
+        void setUltimaActualizacion(String ultimaActualizacion) { this.ultimaActualizacion = ultimaActualizacion; }
     }
 
     /**
@@ -233,6 +240,7 @@ public class ModeloLectura {
         public String getDescripcion() { return descripcion; }
         public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
         public String getFechaCreacion() { return fechaCreacion; }
+        void setFechaCreacion(String fechaCreacion) { this.fechaCreacion = fechaCreacion; }
 
         @Override
         public int compareTo(Marcador otro) {
@@ -257,13 +265,11 @@ public class ModeloLectura {
      * @throws LecturaException.LibroNoEncontradoException si no existe el libro
      */
     public static Libro obtenerLibroPorId(String libroId) throws LecturaException.LibroNoEncontradoException {
-        List<Libro> libros = cargarLibros();
-        for (Libro libro : libros) {
-            if (libro.getId().equals(libroId)) {
-                return libro;
-            }
+        Libro libro = LIBROS.primero(libroId);
+        if (libro == null) {
+            throw new LecturaException.LibroNoEncontradoException(libroId);
         }
-        throw new LecturaException.LibroNoEncontradoException(libroId);
+        return libro;
     }
 
     /**
@@ -271,17 +277,8 @@ public class ModeloLectura {
      *
      * @return Lista de libros
      */
-    @SuppressWarnings("unchecked")
     public static List<Libro> cargarLibros() {
-        crearDirectorioSiNoExiste();
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(ARCHIVO_LIBROS))) {
-            return (List<Libro>) ois.readObject();
-        } catch (FileNotFoundException e) {
-            return new ArrayList<>();
-        } catch (Exception e) {
-            System.err.println("⚠️  Error al cargar libros: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return LIBROS.todos();
     }
 
     /**
@@ -290,12 +287,7 @@ public class ModeloLectura {
      * @param libros Lista de libros a guardar
      */
     public static void guardarLibros(List<Libro> libros) {
-        crearDirectorioSiNoExiste();
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(ARCHIVO_LIBROS))) {
-            oos.writeObject(libros);
-        } catch (IOException e) {
-            System.err.println("❌ Error al guardar libros: " + e.getMessage());
-        }
+        LIBROS.reemplazar(libros);
     }
     
     // ───────────────────────────────────────────────────────────────
@@ -310,13 +302,8 @@ public class ModeloLectura {
      * @return Página actual leída, 0 si no existe progreso
      */
     public static int obtenerProgreso(String usuarioId, String libroId) {
-        List<ProgresoLectura> progresos = cargarProgresos();
-        for (ProgresoLectura progreso : progresos) {
-            if (progreso.getUsuarioId().equals(usuarioId) && progreso.getLibroId().equals(libroId)) {
-                return progreso.getPaginaActual();
-            }
-        }
-        return 0;
+        ProgresoLectura progreso = PROGRESOS.primero(clave(usuarioId, libroId));
+        return progreso == null ? 0 : progreso.getPaginaActual();
     }
 
     /**
@@ -331,69 +318,70 @@ public class ModeloLectura {
     public static boolean guardarProgreso(String usuarioId, String libroId, int paginaActual)
             throws LecturaException.ErrorGuardadoException {
         try {
-            List<ProgresoLectura> progresos = cargarProgresos();
-            boolean encontrado = false;
-            for (ProgresoLectura progreso : progresos) {
-                if (progreso.getUsuarioId().equals(usuarioId) && progreso.getLibroId().equals(libroId)) {
+            return PROGRESOS.modificar(progresos -> {
+                ProgresoLectura progreso = PROGRESOS.primero(clave(usuarioId, libroId));
+                if (progreso != null) {
                     progreso.setPaginaActual(paginaActual);
-                    encontrado = true;
-                    break;
+                } else {
+                    progresos.add(new ProgresoLectura(usuarioId, libroId, paginaActual));
                 }
-            }
-            if (!encontrado) {
-                progresos.add(new ProgresoLectura(usuarioId, libroId, paginaActual));
-            }
-            return guardarProgresos(progresos);
+                return true;
+            });
         } catch (Exception e) {
             throw new LecturaException.ErrorGuardadoException("progreso", e);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private static List<ProgresoLectura> cargarProgresos() {
-        crearDirectorioSiNoExiste();
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(ARCHIVO_PROGRESO))) {
-            return (List<ProgresoLectura>) ois.readObject();
-        } catch (FileNotFoundException e) {
-            return new ArrayList<>();
-        } catch (Exception e) {
-            System.err.println("⚠️  Error al cargar progresos: " + e.getMessage());
-            return new ArrayList<>();
-        }
-    }
 
-    private static boolean guardarProgresos(List<ProgresoLectura> progresos) {
-        crearDirectorioSiNoExiste();
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(ARCHIVO_PROGRESO))) {
-            oos.writeObject(progresos);
-            return true;
-        } catch (IOException e) {
-            System.err.println("❌ Error al guardar progresos: " + e.getMessage());
-            return false;
-        }
-    }
 
     // ───────────────────────────────────────────────────────────────
     // MÉTODOS DE PERSISTENCIA - PRÉSTAMOS
     // ───────────────────────────────────────────────────────────────
 
     /**
-     * Verifica si un usuario puede leer un libro (préstamo activo).
+     * Verifica si un usuario puede leer un libro (préstamo activo en la bitácora).
      *
      * @param usuarioId ID del usuario
      * @param libroId   ID del libro
      * @return true si el préstamo está activo
      */
     public static boolean puedeLeer(String usuarioId, String libroId) {
-        List<Prestamo> prestamos = cargarPrestamos();
-        for (Prestamo prestamo : prestamos) {
-            if (prestamo.getUsuarioId().equals(usuarioId) &&
-                prestamo.getLibroId().equals(libroId) &&
-                prestamo.getEstado().equals("activo")) {
-                return true;
+        return bitacora().tienePrestamoActivo(usuarioId, libroId);
+    }
+
+    /**
+     * Bitácora de préstamos compartida. La primera vez importa los préstamos del antiguo
+     * {@code prestamos.dat} y lo renombra para no volver a importarlo.
+     */
+    private static BitacoraPrestamos bitacora() {
+        synchronized (ModeloLectura.class) {
+            if (!prestamosMigrados) {
+                prestamosMigrados = true;
+                File antiguo = new File(ARCHIVO_PRESTAMOS);
+                if (antiguo.exists()) {
+                    BitacoraPrestamos bitacora = BitacoraPrestamos.obtenerInstancia();
+                    try {
+                        for (Prestamo p : cargarPrestamos()) {
+                            if (bitacora.obtener(p.getUsuarioId(), p.getLibroId()) == null) {
+                                registrar(bitacora, p);
+                            }
+                        }
+                        if (!antiguo.renameTo(new File(ARCHIVO_PRESTAMOS + ".migrado"))) {
+                            System.err.println("⚠️  No se pudo renombrar " + ARCHIVO_PRESTAMOS);
+                        }
+                    } catch (UncheckedIOException e) {
+                        // Se conserva prestamos.dat para completar la importación en el próximo arranque
+                        System.err.println("⚠️  No se pudieron importar los préstamos: " + e.getMessage());
+                    }
+                }
             }
         }
-        return false;
+        return BitacoraPrestamos.obtenerInstancia();
+    }
+
+    private static void registrar(BitacoraPrestamos bitacora, Prestamo p) {
+        bitacora.registrar(p.getUsuarioId(), p.getLibroId(), BitacoraPrestamos.Estado.desdeTexto(p.getEstado()),
+                p.getFechaPrestamo(), p.getFechaVencimiento());
     }
 
     @SuppressWarnings("unchecked")
@@ -409,12 +397,16 @@ public class ModeloLectura {
         }
     }
 
+    /**
+     * Registra los préstamos indicados en la bitácora de préstamos.
+     *
+     * @param prestamos préstamos a registrar
+     */
     public static void guardarPrestamos(List<Prestamo> prestamos) {
         crearDirectorioSiNoExiste();
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(ARCHIVO_PRESTAMOS))) {
-            oos.writeObject(prestamos);
-        } catch (IOException e) {
-            System.err.println("❌ Error al guardar préstamos: " + e.getMessage());
+        BitacoraPrestamos bitacora = bitacora();
+        for (Prestamo p : prestamos) {
+            registrar(bitacora, p);
         }
     }
 
@@ -437,10 +429,8 @@ public class ModeloLectura {
         try {
 //Yared: Aquí se agregan los marcadores y se podría hacer con manejo de archivos.
 // También se puede tomar como referencia la parte de arriba con los archivos .dat pero sería con .txt supongo 
-            List<Marcador> marcadores = cargarMarcadores();
             Marcador nuevoMarcador = new Marcador(usuarioId, libroId, pagina, descripcion);
-            marcadores.add(nuevoMarcador);
-            if (guardarMarcadores(marcadores)) {
+            if (MARCADORES.agregar(nuevoMarcador)) {
                 return nuevoMarcador;
             } else {
                 throw new LecturaException.ErrorGuardadoException("marcador",
@@ -459,15 +449,31 @@ public class ModeloLectura {
      * @return Lista de marcadores ordenados por página
      */
     public static List<Marcador> obtenerMarcadores(String usuarioId, String libroId) {
-        List<Marcador> todosMarcadores = cargarMarcadores();
-        List<Marcador> resultado = new ArrayList<>();
-        for (Marcador marcador : todosMarcadores) {
-            if (marcador.getUsuarioId().equals(usuarioId) && marcador.getLibroId().equals(libroId)) {
-                resultado.add(marcador);
-            }
-        }
-        Collections.sort(resultado);
-        return resultado;
+        return MARCADORES.delLibro(usuarioId, libroId);
+    }
+
+    /**
+     * Obtiene el primer marcador situado después de una página.
+     *
+     * @param usuarioId ID del usuario
+     * @param libroId   ID del libro
+     * @param pagina    página de referencia
+     * @return marcador siguiente, o {@code null} si no hay ninguno después de esa página
+     */
+    public static Marcador siguienteMarcador(String usuarioId, String libroId, int pagina) {
+        return MARCADORES.siguiente(usuarioId, libroId, pagina);
+    }
+
+    /**
+     * Obtiene el último marcador situado antes de una página.
+     *
+     * @param usuarioId ID del usuario
+     * @param libroId   ID del libro
+     * @param pagina    página de referencia
+     * @return marcador anterior, o {@code null} si no hay ninguno antes de esa página
+     */
+    public static Marcador anteriorMarcador(String usuarioId, String libroId, int pagina) {
+        return MARCADORES.anterior(usuarioId, libroId, pagina);
     }
 
     /**
@@ -479,23 +485,15 @@ public class ModeloLectura {
      */
     public static boolean eliminarMarcador(String marcadorId)
             throws LecturaException.MarcadorNoEncontradoException {
-        List<Marcador> marcadores = cargarMarcadores();
-        boolean eliminado = false;
-        Iterator<Marcador> iterator = marcadores.iterator();
-        while (iterator.hasNext()) {
-            Marcador marcador = iterator.next();
-            if (marcador.getId().equals(marcadorId)) {
-                iterator.remove();
-                eliminado = true;
-                break;
+        try {
+            if (MARCADORES.eliminar(marcadorId) == null) {
+                throw new LecturaException.MarcadorNoEncontradoException();
             }
+            return true;
+        } catch (IOException e) {
+            System.err.println("❌ Error al eliminar marcador: " + e.getMessage());
+            return false;
         }
-
-        if (!eliminado) {
-            throw new LecturaException.MarcadorNoEncontradoException();
-        }
-
-        return guardarMarcadores(marcadores);
     }
 
     /**
@@ -506,23 +504,7 @@ public class ModeloLectura {
      * @return la cantidad de marcadores eliminados
      */
     public static int eliminarTodosMarcadores(String usuarioId, String libroId) {
-        List<Marcador> marcadores = cargarMarcadores();
-        int eliminados = 0;
-
-        Iterator<Marcador> iterator = marcadores.iterator();
-        while (iterator.hasNext()) {
-            Marcador marcador = iterator.next();
-            if (marcador.getUsuarioId().equals(usuarioId) && marcador.getLibroId().equals(libroId)) {
-                iterator.remove();
-                eliminados++;
-            }
-        }
-
-        if (eliminados > 0) {
-            guardarMarcadores(marcadores);
-        }
-
-        return eliminados;
+        return MARCADORES.eliminarTodos(usuarioId, libroId);
     }
 
     /**
@@ -533,40 +515,148 @@ public class ModeloLectura {
      * @return número de marcadores existentes
      */
     public static int contarMarcadores(String usuarioId, String libroId) {
-        return obtenerMarcadores(usuarioId, libroId).size();
+        return MARCADORES.contar(usuarioId, libroId);
     }
 
+    // ───────────────────────────────────────────────────────────────
+    // FORMATO BINARIO
+    // ───────────────────────────────────────────────────────────────
+
+    // Los campos nuevos deben añadirse al final de cada esquema para que los archivos
+    // existentes se sigan leyendo (los campos que falten se leen como null/0/false).
+
+    private static final CodecBinario.Esquema<Libro> ESQUEMA_LIBRO = new CodecBinario.Esquema<Libro>() {
+        @Override
+        public void escribir(Libro l, CodecBinario.Escritor out) {
+            out.texto(l.getId());
+            out.texto(l.getTitulo());
+            out.texto(l.getAutor());
+            out.texto(l.getCategoria());
+            out.texto(l.getIsbn());
+            out.texto(l.getDescripcion());
+            out.texto(l.getFormato());
+            out.texto(l.getRutaArchivo());
+            out.entero(l.getTotalPaginas());
+            out.booleano(l.isDisponible());
+        }
+
+        @Override
+        public Libro leer(CodecBinario.Lector in) {
+            Libro l = new Libro();
+            l.setId(in.texto());
+            l.setTitulo(in.texto());
+            l.setAutor(in.texto());
+            l.setCategoria(in.texto());
+            l.setIsbn(in.texto());
+            l.setDescripcion(in.texto());
+            l.setFormato(in.texto());
+            l.setRutaArchivo(in.texto());
+            l.setTotalPaginas(in.entero());
+            l.setDisponible(in.booleano());
+            return l;
+        }
+    };
+
+    private static final CodecBinario.Esquema<ProgresoLectura> ESQUEMA_PROGRESO = new CodecBinario.Esquema<ProgresoLectura>() {
+        @Override
+        public void escribir(ProgresoLectura p, CodecBinario.Escritor out) {
+            out.texto(p.getUsuarioId());
+            out.texto(p.getLibroId());
+            out.entero(p.getPaginaActual());
+            out.texto(p.getUltimaActualizacion());
+        }
+
+        @Override
+        public ProgresoLectura leer(CodecBinario.Lector in) {
+            ProgresoLectura p = new ProgresoLectura();
+            p.setUsuarioId(in.texto());
+            p.setLibroId(in.texto());
+            p.setPaginaActual(in.entero());
+            p.setUltimaActualizacion(in.texto());
+            return p;
+        }
+    };
+
+    static final CodecBinario.Esquema<Marcador> ESQUEMA_MARCADOR = new CodecBinario.Esquema<Marcador>() {
+        @Override
+        public void escribir(Marcador m, CodecBinario.Escritor out) {
+            out.texto(m.getId());
+            out.texto(m.getUsuarioId());
+            out.texto(m.getLibroId());
+            out.entero(m.getPagina());
+            out.texto(m.getDescripcion());
+            out.texto(m.getFechaCreacion());
+        }
+
+        @Override
+        public Marcador leer(CodecBinario.Lector in) {
+            Marcador m = new Marcador();
+            m.setId(in.texto());
+            m.setUsuarioId(in.texto());
+            m.setLibroId(in.texto());
+            m.setPagina(in.entero());
+            m.setDescripcion(in.texto());
+            m.setFechaCreacion(in.texto());
+            return m;
+        }
+    };
+
+    /** Cachés de los archivos de datos, indexadas por id de libro o por usuario + libro */
+    private static final CacheLectura<Libro> LIBROS = new CacheLectura<>(ARCHIVO_LIBROS, Libro::getId,
+            () -> cargarLista(ARCHIVO_LIBROS, CodecBinario.TIPO_LIBROS, ESQUEMA_LIBRO, "libros"),
+            l -> guardarLista(ARCHIVO_LIBROS, CodecBinario.TIPO_LIBROS, l, ESQUEMA_LIBRO, "libros"));
+    private static final CacheLectura<ProgresoLectura> PROGRESOS = new CacheLectura<>(ARCHIVO_PROGRESO,
+            p -> clave(p.getUsuarioId(), p.getLibroId()),
+            () -> cargarLista(ARCHIVO_PROGRESO, CodecBinario.TIPO_PROGRESO, ESQUEMA_PROGRESO, "progresos"),
+            l -> guardarLista(ARCHIVO_PROGRESO, CodecBinario.TIPO_PROGRESO, l, ESQUEMA_PROGRESO, "progresos"));
+    /** Marcadores ordenados por página para cada usuario + libro, con diario de cambios */
+    private static final IndiceMarcadores MARCADORES = new IndiceMarcadores(ARCHIVO_MARCADORES,
+            () -> cargarLista(ARCHIVO_MARCADORES, CodecBinario.TIPO_MARCADORES, ESQUEMA_MARCADOR, "marcadores"),
+            l -> guardarLista(ARCHIVO_MARCADORES, CodecBinario.TIPO_MARCADORES, l, ESQUEMA_MARCADOR, "marcadores"));
+
     /**
-     * Carga la lista de marcadores desde almacenamiento.
+     * Carga una lista de registros en formato binario. Si el archivo aún está en el formato
+     * anterior (serialización de Java), se lee una vez y se reescribe en el formato binario.
      *
-     * @return lista de marcadores
+     * @param archivo ruta del archivo
+     * @param tipo tipo de contenido del archivo
+     * @param esquema esquema de los registros
+     * @param nombre nombre de los datos para los mensajes de error
+     * @return registros leídos, o lista vacía si no existe o no se pudo leer
      */
     @SuppressWarnings("unchecked")
-    private static List<Marcador> cargarMarcadores() {
+    private static <T> List<T> cargarLista(String archivo, int tipo, CodecBinario.Esquema<T> esquema, String nombre) {
         crearDirectorioSiNoExiste();
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(ARCHIVO_MARCADORES))) {
-            return (List<Marcador>) ois.readObject();
-        } catch (FileNotFoundException e) {
-            return new ArrayList<>();
+        Path ruta = Path.of(archivo);
+        if (!Files.exists(ruta)) return new ArrayList<>();
+        try {
+            if (CodecBinario.esFormatoBinario(ruta)) {
+                return CodecBinario.leer(ruta, tipo, esquema);
+            }
+            List<T> registros;
+            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(archivo))) {
+                registros = new ArrayList<>((List<T>) ois.readObject());
+            }
+            CodecBinario.escribir(ruta, tipo, registros, esquema);
+            return registros;
         } catch (Exception e) {
-            System.err.println("⚠️  Error al cargar marcadores: " + e.getMessage());
+            System.err.println("⚠️  Error al cargar " + nombre + ": " + e.getMessage());
             return new ArrayList<>();
         }
     }
 
-    /**
-     * Guarda la lista de marcadores en almacenamiento.
-     *
-     * @param marcadores lista de marcadores a guardar
-     * @return true si se guardaron correctamente
-     */
-    private static boolean guardarMarcadores(List<Marcador> marcadores) {
+    private static String clave(String usuarioId, String libroId) {
+        return usuarioId + "\u0000" + libroId;
+    }
+
+    private static <T> boolean guardarLista(String archivo, int tipo, List<T> registros,
+                                            CodecBinario.Esquema<T> esquema, String nombre) {
         crearDirectorioSiNoExiste();
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(ARCHIVO_MARCADORES))) {
-            oos.writeObject(marcadores);
+        try {
+            CodecBinario.escribir(Path.of(archivo), tipo, registros, esquema);
             return true;
         } catch (IOException e) {
-            System.err.println("❌ Error al guardar marcadores: " + e.getMessage());
+            System.err.println("❌ Error al guardar " + nombre + ": " + e.getMessage());
             return false;
         }
     }
@@ -656,7 +746,9 @@ public class ModeloLectura {
             new File(ARCHIVO_LIBROS).delete();
             new File(ARCHIVO_PROGRESO).delete();
             new File(ARCHIVO_PRESTAMOS).delete();
+            bitacora().vaciar();
             new File(ARCHIVO_MARCADORES).delete();
+            new File(ARCHIVO_MARCADORES + ".diario").delete();
             System.out.println("✓ Todos los datos han sido limpiados");
         } catch (Exception e) {
             System.err.println("❌ Error al limpiar datos: " + e.getMessage());
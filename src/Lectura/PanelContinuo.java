@@ -0,0 +1,350 @@
+package Lectura;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import recursos.HilosVirtuales;
+
+import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeListener;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Vista de lectura continua: todas las páginas del documento una debajo de otra.
+ *
+ * <p>El panel tiene el alto de todo el documento, pero solo se renderizan las páginas que
+ * cruzan la parte visible más un margen de precarga de {@value #PRECARGA_PX} px por arriba y
+ * por abajo; el resto se pinta como un rectángulo vacío. Las posiciones de las páginas se
+ * calculan con su tamaño, sin renderizarlas.</p>
+ *
+ * <p>Las imágenes renderizadas se guardan en una caché LRU limitada por bytes (propiedad
+ * {@code lybsys.lector.cacheMB}, {@value #CACHE_MB_POR_DEFECTO} MB por defecto), de la que
+ * nunca se expulsan las páginas visibles. Las páginas que salen de la vista solo quedan en
+ * esa caché y las que aún no empezaron a renderizarse se cancelan.</p>
+ *
+ * <p>La página de la parte superior se calcula al moverse la vista ({@link JViewport}), no al
+ * pintar, para que quien la recibe pueda actualizar otros componentes o guardar el progreso.</p>
+ *
+ * <p>Se renderiza en un único hilo en segundo plano. El documento es el mismo del visor y
+ * PDFBox no es seguro para hilos, así que el acceso se sincroniza con el propio documento.</p>
+ */
+final class PanelContinuo extends JPanel implements Scrollable {
+
+    /** Separación vertical entre páginas. */
+    private static final int SEPARACION = 12;
+    /** Distancia fuera de la vista en la que las páginas ya se renderizan. */
+    private static final int PRECARGA_PX = 800;
+    private static final long CACHE_MB_POR_DEFECTO = 96;
+
+    private static final ExecutorService EJECUTOR =
+            Executors.newSingleThreadExecutor(HilosVirtuales.hilosDaemon("lector-continuo"));
+
+    private PDDocument documento;
+    private PDFRenderer renderer;
+    private float zoom = 1.0f;
+    private boolean modoNoche;
+    private final UnaryOperator<BufferedImage> filtroNoche;
+    /** Se llama con la página de la parte superior de la vista cuando cambia por desplazamiento. */
+    private final IntConsumer alCambiarPagina;
+
+    /** Posición vertical, ancho y alto de cada página al zoom actual. */
+    private int[] superiores = new int[0];
+    private int[] anchos = new int[0];
+    private int[] altos = new int[0];
+    private int anchoMaximo;
+    private int altoTotal;
+
+    /** Aumenta al cambiar documento, zoom o modo para descartar renderizados antiguos. */
+    private int generacion;
+    private final long limiteBytes = Long.getLong("lybsys.lector.cacheMB", CACHE_MB_POR_DEFECTO) << 20;
+    private long bytesEnCache;
+    private final LinkedHashMap<Integer, BufferedImage> cache = new LinkedHashMap<>(32, 0.75f, true);
+    private final Map<Integer, Future<?>> pendientes = new HashMap<>();
+    private int primeraVisible = -1, ultimaVisible = -1;
+    private int paginaSuperior = -1;
+    /** Actualiza la página superior cada vez que la vista se desplaza o cambia de tamaño. */
+    private final ChangeListener alMoverVista = e -> actualizarPaginaSuperior();
+
+    /**
+     * @param filtroNoche transformación que se aplica a cada página en modo noche
+     * @param alCambiarPagina recibe la página (desde 1) que queda en la parte superior de la vista
+     */
+    PanelContinuo(UnaryOperator<BufferedImage> filtroNoche, IntConsumer alCambiarPagina) {
+        this.filtroNoche = filtroNoche;
+        this.alCambiarPagina = alCambiarPagina;
+        setBackground(Color.GRAY);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (getParent() instanceof JViewport) {
+            JViewport vista = (JViewport) getParent();
+            // Por si no se llamó a removeNotify al quitar el panel de la vista
+            vista.removeChangeListener(alMoverVista);
+            vista.addChangeListener(alMoverVista);
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        if (getParent() instanceof JViewport) ((JViewport) getParent()).removeChangeListener(alMoverVista);
+        super.removeNotify();
+    }
+
+    /**
+     * Muestra un documento, o ninguno con {@code null}. Descarta la caché y las páginas pendientes.
+     */
+    void establecerDocumento(PDDocument documento) {
+        this.documento = documento;
+        this.renderer = documento != null ? new PDFRenderer(documento) : null;
+        paginaSuperior = -1;
+        reiniciar();
+    }
+
+    void establecerZoom(float zoom) {
+        if (zoom == this.zoom) return;
+        int pagina = paginaSuperior;
+        this.zoom = zoom;
+        reiniciar();
+        if (pagina > 0) mostrarPagina(pagina);
+    }
+
+    void establecerModoNoche(boolean modoNoche) {
+        if (modoNoche == this.modoNoche) return;
+        this.modoNoche = modoNoche;
+        vaciarCache();
+        repaint();
+    }
+
+    /**
+     * Desplaza la vista hasta el principio de una página.
+     * @param pagina número de página (desde 1)
+     */
+    void mostrarPagina(int pagina) {
+        if (pagina < 1 || pagina > superiores.length) return;
+        paginaSuperior = pagina;
+        if (getParent() instanceof JViewport) {
+            JViewport vista = (JViewport) getParent();
+            // Recién cambiado el documento o el zoom todavía no se ha aplicado el nuevo tamaño
+            if (getHeight() != altoTotal) setSize(getPreferredSize());
+            int y = Math.min(superiores[pagina - 1] - SEPARACION / 2, Math.max(0, altoTotal - vista.getHeight()));
+            vista.setViewPosition(new Point(vista.getViewPosition().x, Math.max(0, y)));
+        }
+    }
+
+    /**
+     * Vuelve a calcular la posición de las páginas y descarta lo renderizado.
+     */
+    private void reiniciar() {
+        vaciarCache();
+        int total = documento != null ? documento.getNumberOfPages() : 0;
+        superiores = new int[total];
+        anchos = new int[total];
+        altos = new int[total];
+        anchoMaximo = 0;
+        int y = SEPARACION;
+        if (documento != null) {
+            // PDFBox no admite accesos concurrentes: el ejecutor puede estar renderizando
+            synchronized (documento) {
+                for (int i = 0; i < total; i++) {
+                    PDPage pagina = documento.getPage(i);
+                    PDRectangle caja = pagina.getCropBox();
+                    boolean girada = pagina.getRotation() % 180 != 0;
+                    anchos[i] = (int) Math.ceil((girada ? caja.getHeight() : caja.getWidth()) * zoom);
+                    altos[i] = (int) Math.ceil((girada ? caja.getWidth() : caja.getHeight()) * zoom);
+                    superiores[i] = y;
+                    y += altos[i] + SEPARACION;
+                    anchoMaximo = Math.max(anchoMaximo, anchos[i]);
+                }
+            }
+        }
+        altoTotal = y;
+        revalidate();
+        repaint();
+    }
+
+    private void vaciarCache() {
+        generacion++;
+        for (Future<?> tarea : pendientes.values()) tarea.cancel(false);
+        pendientes.clear();
+        cache.clear();
+        bytesEnCache = 0;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // PINTADO
+    // ───────────────────────────────────────────────────────────────
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (superiores.length == 0) return;
+        Rectangle visible = getVisibleRect();
+        primeraVisible = paginaEn(visible.y);
+        ultimaVisible = paginaEn(visible.y + visible.height);
+
+        Rectangle recorte = g.getClipBounds() != null ? g.getClipBounds() : visible;
+        for (int i = paginaEn(recorte.y); i <= paginaEn(recorte.y + recorte.height); i++) {
+            int x = (getWidth() - anchos[i]) / 2;
+            BufferedImage imagen = cache.get(i + 1);
+            if (imagen != null) {
+                g.drawImage(imagen, x, superiores[i], anchos[i], altos[i], null);
+            } else {
+                g.setColor(Color.WHITE);
+                g.fillRect(x, superiores[i], anchos[i], altos[i]);
+            }
+        }
+
+        solicitarPaginas(paginaEn(visible.y - PRECARGA_PX), paginaEn(visible.y + visible.height + PRECARGA_PX));
+    }
+
+    /**
+     * @return índice (desde 0) de la página que ocupa o precede a la coordenada vertical
+     */
+    private int paginaEn(int y) {
+        int i = Arrays.binarySearch(superiores, y);
+        if (i < 0) i = -i - 2;
+        return Math.max(0, Math.min(superiores.length - 1, i));
+    }
+
+    private void actualizarPaginaSuperior() {
+        if (superiores.length == 0) return;
+        int pagina = paginaEn(getVisibleRect().y + SEPARACION) + 1;
+        if (pagina != paginaSuperior) {
+            paginaSuperior = pagina;
+            alCambiarPagina.accept(pagina);
+        }
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // RENDERIZADO Y CACHÉ
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Pide las páginas del rango (índices desde 0) que faltan y cancela las pendientes fuera de él.
+     */
+    private void solicitarPaginas(int desde, int hasta) {
+        Iterator<Map.Entry<Integer, Future<?>>> it = pendientes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Future<?>> pendiente = it.next();
+            int indice = pendiente.getKey() - 1;
+            if (indice < desde || indice > hasta) {
+                pendiente.getValue().cancel(false);
+                it.remove();
+            }
+        }
+        // Primero las visibles y después las de precarga
+        for (int i = primeraVisible; i <= ultimaVisible; i++) solicitar(i + 1);
+        for (int i = desde; i <= hasta; i++) solicitar(i + 1);
+    }
+
+    private void solicitar(int pagina) {
+        if (cache.containsKey(pagina) || pendientes.containsKey(pagina)) return;
+        PDDocument origen = documento;
+        PDFRenderer rendererOrigen = renderer;
+        float escala = zoom;
+        boolean noche = modoNoche;
+        int generacionSolicitud = generacion;
+        pendientes.put(pagina, EJECUTOR.submit(() -> {
+            BufferedImage imagen;
+            IndexadorTexto.obtenerInstancia().inicioRenderizado();
+            try {
+                long inicio = System.nanoTime();
+                synchronized (origen) {
+                    imagen = rendererOrigen.renderImage(pagina - 1, escala);
+                }
+                PrecalentadorPdf.registrarPrimerRenderizado(System.nanoTime() - inicio);
+            } catch (Exception e) {
+                System.err.println("⚠️  No se pudo renderizar la página " + pagina + ": " + e.getMessage());
+                // Se libera la entrada para que la página se vuelva a pedir al pintar
+                SwingUtilities.invokeLater(() -> {
+                    if (generacionSolicitud == generacion) pendientes.remove(pagina);
+                });
+                return;
+            } finally {
+                IndexadorTexto.obtenerInstancia().finRenderizado();
+            }
+            BufferedImage resultado = noche ? filtroNoche.apply(imagen) : imagen;
+            SwingUtilities.invokeLater(() -> {
+                if (generacionSolicitud != generacion) return;
+                pendientes.remove(pagina);
+                guardarEnCache(pagina, resultado);
+                repaint(0, superiores[pagina - 1], getWidth(), altos[pagina - 1]);
+            });
+        }));
+    }
+
+    private void guardarEnCache(int pagina, BufferedImage imagen) {
+        BufferedImage anterior = cache.put(pagina, imagen);
+        if (anterior != null) bytesEnCache -= bytes(anterior);
+        bytesEnCache += bytes(imagen);
+        Iterator<Map.Entry<Integer, BufferedImage>> it = cache.entrySet().iterator();
+        while (bytesEnCache > limiteBytes && it.hasNext()) {
+            Map.Entry<Integer, BufferedImage> masAntigua = it.next();
+            int indice = masAntigua.getKey() - 1;
+            if (indice >= primeraVisible && indice <= ultimaVisible) continue;
+            bytesEnCache -= bytes(masAntigua.getValue());
+            it.remove();
+        }
+    }
+
+    private static long bytes(BufferedImage imagen) {
+        return 4L * imagen.getWidth() * imagen.getHeight();
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // SCROLLABLE
+    // ───────────────────────────────────────────────────────────────
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(anchoMaximo + 2 * SEPARACION, altoTotal);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visible, int orientacion, int direccion) {
+        return orientacion == SwingConstants.VERTICAL ? 24 : 16;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visible, int orientacion, int direccion) {
+        return orientacion == SwingConstants.VERTICAL ? Math.max(24, visible.height - 48) : visible.width;
+    }
+
+    /** Ocupa todo el ancho de la vista cuando las páginas caben, para centrarlas. */
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return getParent() instanceof JViewport && getParent().getWidth() > getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
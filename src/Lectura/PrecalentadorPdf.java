@@ -0,0 +1,152 @@
+package Lectura;
+
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.FontMapper;
+import org.apache.pdfbox.pdmodel.font.FontMappers;
+import org.apache.pdfbox.pdmodel.font.PDTrueTypeFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.font.encoding.WinAnsiEncoding;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import recursos.HilosVirtuales;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Inicialización anticipada de PDFBox al arrancar la aplicación.
+ *
+ * <p>La primera página que se renderiza paga la carga de clases del renderizador, la
+ * búsqueda de fuentes del sistema que hace {@link FontMappers} (que recorre los directorios
+ * de fuentes o lee su caché) y la preparación de Java2D. Para que ese coste no lo note el
+ * usuario al abrir su primer libro, {@link #iniciar()} lo adelanta en un hilo en segundo plano:
+ * consulta el mapeador de fuentes y renderiza fuera de pantalla un documento pequeño generado
+ * en memoria con lo que suelen tener los libros: fuentes TrueType incrustadas (simples y
+ * Type0), imágenes JPEG y sin pérdida con transparencia, texto, trazos y rellenos. El
+ * documento se guarda y se vuelve a leer antes de renderizarlo para recorrer también el
+ * analizador, como al abrir un libro.</p>
+ *
+ * <p>Se puede desactivar con {@code -Dlybsys.pdf.precalentar=false}. Tanto el precalentamiento
+ * como el primer renderizado del visor ({@link #registrarPrimerRenderizado(long)}) escriben su
+ * duración en la salida estándar, para comparar el primer renderizado con y sin él.</p>
+ */
+public final class PrecalentadorPdf {
+
+    private static final AtomicBoolean iniciado = new AtomicBoolean();
+    private static final AtomicBoolean primerRenderizado = new AtomicBoolean();
+    private static volatile boolean terminado;
+
+    private PrecalentadorPdf() {
+    }
+
+    /**
+     * Lanza el precalentamiento en segundo plano (solo la primera vez que se llama).
+     */
+    public static void iniciar() {
+        if (!Boolean.parseBoolean(System.getProperty("lybsys.pdf.precalentar", "true"))) return;
+        if (!iniciado.compareAndSet(false, true)) return;
+        Thread hilo = HilosVirtuales.hilosDaemon("precalentador-pdf").newThread(PrecalentadorPdf::precalentar);
+        hilo.start();
+    }
+
+    /**
+     * Registra la duración de un renderizado del visor; solo se informa el primero.
+     * @param nanos duración del renderizado en nanosegundos
+     */
+    static void registrarPrimerRenderizado(long nanos) {
+        if (!primerRenderizado.compareAndSet(false, true)) return;
+        System.out.printf("Primer renderizado del visor: %.1f ms (%s)%n", nanos / 1e6,
+                terminado ? "con precalentamiento" : iniciado.get() ? "precalentamiento sin terminar" : "sin precalentamiento");
+    }
+
+    private static void precalentar() {
+        long inicio = System.nanoTime();
+        try {
+            // Fuerza la carga de la lista de fuentes del sistema
+            FontMapper mapeador = FontMappers.instance();
+            mapeador.getFontBoxFont("Helvetica", null);
+            TrueTypeFont trueType = mapeador.getTrueTypeFont("Times-Roman", null).getFont();
+            long fuentes = System.nanoTime();
+
+            try (PDDocument documento = Loader.loadPDF(documentoSintetico(trueType))) {
+                new PDFRenderer(documento).renderImage(0, 1.0f);
+            }
+            long fin = System.nanoTime();
+            terminado = true;
+            System.out.printf("Precalentamiento PDF: fuentes %.1f ms, renderizado %.1f ms, total %.1f ms%n",
+                    (fuentes - inicio) / 1e6, (fin - fuentes) / 1e6, (fin - inicio) / 1e6);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️  No se pudo precalentar PDFBox: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Crea en memoria una página pequeña con los elementos más habituales de un libro.
+     * @param trueType fuente del sistema que se incrusta
+     * @return el documento guardado
+     */
+    private static byte[] documentoSintetico(TrueTypeFont trueType) throws IOException {
+        BufferedImage imagen = new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = imagen.createGraphics();
+        g.setColor(new Color(40, 90, 160, 180));
+        g.fillOval(0, 0, 32, 32);
+        g.dispose();
+
+        try (PDDocument documento = new PDDocument()) {
+            PDPage pagina = new PDPage(new PDRectangle(200, 120));
+            documento.addPage(pagina);
+            try (PDPageContentStream contenido = new PDPageContentStream(documento, pagina)) {
+                dibujar(documento, contenido, trueType, imagen);
+            }
+            ByteArrayOutputStream salida = new ByteArrayOutputStream();
+            documento.save(salida);
+            return salida.toByteArray();
+        }
+    }
+
+    private static void dibujar(PDDocument documento, PDPageContentStream contenido,
+                                TrueTypeFont trueType, BufferedImage imagen) throws IOException {
+        contenido.setNonStrokingColor(new Color(230, 230, 240));
+        contenido.addRect(10, 10, 180, 100);
+        contenido.fill();
+        contenido.setStrokingColor(Color.DARK_GRAY);
+        contenido.setLineWidth(1.5f);
+        contenido.moveTo(15, 60);
+        contenido.curveTo(60, 100, 140, 20, 185, 60);
+        contenido.stroke();
+
+        PDExtendedGraphicsState transparencia = new PDExtendedGraphicsState();
+        transparencia.setNonStrokingAlphaConstant(0.6f);
+        contenido.saveGraphicsState();
+        contenido.setGraphicsStateParameters(transparencia);
+        contenido.drawImage(JPEGFactory.createFromImage(documento, imagen), 150, 75, 32, 32);
+        contenido.drawImage(LosslessFactory.createFromImage(documento, imagen), 150, 15, 32, 32);
+        contenido.restoreGraphicsState();
+
+        contenido.beginText();
+        contenido.setNonStrokingColor(Color.BLACK);
+        contenido.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+        contenido.newLineAtOffset(20, 85);
+        contenido.showText("LybSys");
+        contenido.setFont(PDTrueTypeFont.load(documento, trueType, WinAnsiEncoding.INSTANCE), 10);
+        contenido.newLineAtOffset(0, -25);
+        contenido.showText("Precalentamiento");
+        contenido.setFont(PDType0Font.load(documento, trueType, true), 10);
+        contenido.newLineAtOffset(0, -25);
+        contenido.showText("Lectura");
+        contenido.endText();
+    }
+}
@@ -1,24 +1,46 @@
 package Lectura;
 
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.swing.AbstractListModel;
+import javax.swing.BorderFactory;
 import javax.swing.DefaultListModel;
 import javax.swing.ImageIcon;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListCellRenderer;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import javax.swing.table.DefaultTableModel;
 
-import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.rendering.PDFRenderer;
 
 import recursos.LecturaException;
+import repository.BitacoraPrestamos;
+import repository.EjecutorRepositorios;
 
 /**
  * Vista principal del módulo de lectura de libros digitales.
@@ -76,6 +98,47 @@ public class VistaLectura extends javax.swing.JFrame {
 
     /** Modelo que administra la lista de libros disponibles. */
     private DefaultListModel<String> modeloLibros;
+
+    /** Campo de búsqueda de texto dentro del libro. */
+    private JTextField txtBuscarTexto;
+
+    /** Consulta de la última búsqueda y sus coincidencias, para recorrerlas. */
+    private String ultimaConsulta;
+    private List<IndexadorTexto.Coincidencia> coincidencias = List.of();
+    /** Si el texto del libro ya estaba indexado por completo al buscar; si no, se repite la búsqueda. */
+    private boolean coincidenciasCompletas;
+
+    /** Margen alrededor de cada miniatura y alto reservado para su número de página. */
+    private static final int MARGEN_MINIATURA = 8, ALTO_NUMERO_MINIATURA = 18;
+    /** Páginas fuera de la vista cuyas miniaturas se siguen cargando al desplazarse. */
+    private static final int PAGINAS_PRECARGA_MINIATURAS = 4;
+
+    /** Miniaturas de las páginas del libro abierto ({@code null} si no hay libro). */
+    private MiniaturasPaginas miniaturas;
+    private JList<Integer> listaMiniaturas;
+    private ModeloPaginas modeloPaginas;
+    /** Se muestra mientras una miniatura se carga. */
+    private ImageIcon miniaturaPendiente;
+    /** Cargas de miniaturas pendientes, por página; se cancelan al salir de la vista. */
+    private final Map<Integer, CompletableFuture<ImageIcon>> cargasMiniaturas = new HashMap<>();
+    /** Evita que seleccionar la miniatura de la página actual vuelva a navegar. */
+    private boolean sincronizandoMiniaturas;
+
+    /** Indica si se muestran todas las páginas seguidas en lugar de una sola. */
+    private boolean modoContinuo = false;
+    /** Vista de lectura continua; reemplaza a {@code labelImagen} en el visor. */
+    private PanelContinuo panelContinuo;
+    private JButton btnModoContinuo;
+
+    /** Espera desde el último cambio de página hasta guardar el progreso. */
+    private static final int RETARDO_GUARDADO_PROGRESO_MS = 1000;
+    /** Guarda el progreso cuando la página deja de cambiar, no en cada página recorrida. */
+    private Timer guardadoProgreso;
+
+    /** Marcadores mostrados en la tabla, en el mismo orden que sus filas. */
+    private List<Lectura.ModeloLectura.Marcador> marcadoresMostrados = List.of();
+    /** Descarta los marcadores leídos en segundo plano si mientras tanto se pidió otra carga. */
+    private int generacionMarcadores;
     
     /**
     * Constructor principal de la vista de lectura.
@@ -98,6 +161,261 @@ public class VistaLectura extends javax.swing.JFrame {
 
         // Configurar lista de libros
         configurarListaLibros();
+
+        // Configurar búsqueda en el texto del libro
+        configurarBusqueda();
+
+        // Configurar barra lateral de miniaturas
+        configurarMiniaturas();
+
+        // Configurar modo de lectura continua
+        configurarModoContinuo();
+
+        // Guardar el progreso con retardo
+        guardadoProgreso = new Timer(RETARDO_GUARDADO_PROGRESO_MS, e -> controlador.guardarProgresoEnSegundoPlano(paginaActual));
+        guardadoProgreso.setRepeats(false);
+    }
+
+    /**
+     * Agrega a la barra superior el botón que alterna entre una página y lectura continua.
+     * En lectura continua la página actual es la que queda arriba en el visor.
+     */
+    private void configurarModoContinuo() {
+        panelContinuo = new PanelContinuo(this::aplicarModoNoche, pagina -> {
+            paginaActual = pagina;
+            actualizarIndicadoresPagina();
+        });
+        btnModoContinuo = new JButton("Modo Continuo");
+        btnModoContinuo.addActionListener(e -> alternarModoContinuo());
+        panelSuperior.add(btnModoContinuo);
+    }
+
+    /**
+     * Cambia entre mostrar una página y todas las páginas seguidas, conservando la página actual.
+     */
+    private void alternarModoContinuo() {
+        modoContinuo = !modoContinuo;
+        btnModoContinuo.setText(modoContinuo ? "Modo Pagina" : "Modo Continuo");
+        if (modoContinuo) {
+            labelImagen.setIcon(null);
+            paginaEnCache = null;
+            panelContinuo.establecerDocumento(documento);
+            scrollImagen.setViewportView(panelContinuo);
+            scrollImagen.validate();
+        } else {
+            panelContinuo.establecerDocumento(null);
+            scrollImagen.setViewportView(labelImagen);
+        }
+        if (documento != null) actualizarPagina();
+        mostrarMensajeEstado(modoContinuo ? "Lectura continua activada" : "Lectura por pagina activada");
+    }
+
+    /**
+     * Agrega a la izquierda del visor la lista de miniaturas de las páginas. Solo se piden
+     * las miniaturas de las celdas que se pintan, es decir, las visibles; al desplazarse se
+     * cancelan las que quedaron lejos de la vista.
+     */
+    private void configurarMiniaturas() {
+        modeloPaginas = new ModeloPaginas();
+        listaMiniaturas = new JList<>(modeloPaginas);
+        listaMiniaturas.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        listaMiniaturas.setCellRenderer(new CeldaMiniatura());
+        listaMiniaturas.setFixedCellWidth(MiniaturasPaginas.ANCHO + 2 * MARGEN_MINIATURA);
+        listaMiniaturas.setFixedCellHeight(MiniaturasPaginas.ANCHO + ALTO_NUMERO_MINIATURA + 2 * MARGEN_MINIATURA);
+        listaMiniaturas.addListSelectionListener(e -> {
+            if (e.getValueIsAdjusting() || sincronizandoMiniaturas) return;
+            Integer pagina = listaMiniaturas.getSelectedValue();
+            if (pagina != null && pagina != paginaActual) irAPagina(pagina);
+        });
+
+        JScrollPane scrollMiniaturas = new JScrollPane(listaMiniaturas,
+                JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED, JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        scrollMiniaturas.getVerticalScrollBar().setUnitIncrement(16);
+        scrollMiniaturas.getViewport().addChangeListener(e -> cancelarMiniaturasLejanas());
+        panelContenido.add(scrollMiniaturas, BorderLayout.LINE_START);
+    }
+
+    /**
+     * Prepara las miniaturas del libro recién cargado, con celdas del alto de la primera página.
+     */
+    private void abrirMiniaturas(String rutaArchivo) {
+        try {
+            miniaturas = MiniaturasPaginas.abrir(Path.of(MiniaturasPaginas.DIRECTORIO_POR_DEFECTO), bookId, rutaArchivo);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudieron preparar las miniaturas", e);
+            miniaturas = null;
+        }
+
+        int alto = MiniaturasPaginas.ANCHO;
+        if (totalPaginas > 0) {
+            PDRectangle caja = documento.getPage(0).getCropBox();
+            alto = Math.round(MiniaturasPaginas.ANCHO * caja.getHeight() / Math.max(1f, caja.getWidth()));
+        }
+        BufferedImage vacia = new BufferedImage(MiniaturasPaginas.ANCHO, alto, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = vacia.createGraphics();
+        g.setColor(new Color(235, 235, 235));
+        g.fillRect(0, 0, vacia.getWidth(), vacia.getHeight());
+        g.dispose();
+        miniaturaPendiente = new ImageIcon(vacia);
+
+        listaMiniaturas.setFixedCellHeight(alto + ALTO_NUMERO_MINIATURA + 2 * MARGEN_MINIATURA);
+        modeloPaginas.establecer(miniaturas != null ? totalPaginas : 0);
+    }
+
+    /**
+     * Devuelve la miniatura de una página si ya está en memoria y, si no, pide su carga en
+     * segundo plano (una sola vez por página); al llegar se vuelve a pintar su celda.
+     *
+     * @param pagina número de página (desde 1)
+     * @return miniatura, o {@code null} si se está cargando
+     */
+    private ImageIcon miniatura(int pagina) {
+        if (miniaturas == null) return null;
+        ImageIcon icono = miniaturas.enMemoria(pagina);
+        if (icono != null || cargasMiniaturas.containsKey(pagina)) return icono;
+
+        MiniaturasPaginas origen = miniaturas;
+        CompletableFuture<ImageIcon> carga = origen.cargar(pagina);
+        cargasMiniaturas.put(pagina, carga);
+        carga.whenComplete((cargada, ex) -> SwingUtilities.invokeLater(() -> {
+            // Si falla, la carga se queda registrada para no reintentarla en cada repintado
+            if (origen != miniaturas || carga.isCancelled() || cargada == null) return;
+            cargasMiniaturas.remove(pagina);
+            Rectangle celda = listaMiniaturas.getCellBounds(pagina - 1, pagina - 1);
+            if (celda != null) listaMiniaturas.repaint(celda);
+        }));
+        return null;
+    }
+
+    /**
+     * Cancela las cargas de miniaturas que quedaron lejos de la parte visible de la lista.
+     * Las que aún no empezaron no se llegan a renderizar.
+     */
+    private void cancelarMiniaturasLejanas() {
+        int primera = listaMiniaturas.getFirstVisibleIndex();
+        int ultima = listaMiniaturas.getLastVisibleIndex();
+        if (primera < 0) return;
+        Iterator<Map.Entry<Integer, CompletableFuture<ImageIcon>>> it = cargasMiniaturas.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, CompletableFuture<ImageIcon>> carga = it.next();
+            int indice = carga.getKey() - 1;
+            if (indice < primera - PAGINAS_PRECARGA_MINIATURAS || indice > ultima + PAGINAS_PRECARGA_MINIATURAS) {
+                carga.getValue().cancel(false);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Selecciona y muestra la miniatura de la página actual sin volver a navegar.
+     */
+    private void sincronizarMiniatura() {
+        if (paginaActual > modeloPaginas.getSize()) return;
+        sincronizandoMiniaturas = true;
+        try {
+            listaMiniaturas.setSelectedIndex(paginaActual - 1);
+            listaMiniaturas.ensureIndexIsVisible(paginaActual - 1);
+        } finally {
+            sincronizandoMiniaturas = false;
+        }
+    }
+
+    /**
+     * Números de página del libro abierto (1..total).
+     */
+    private static final class ModeloPaginas extends AbstractListModel<Integer> {
+        private int total;
+
+        void establecer(int nuevoTotal) {
+            int anterior = total;
+            total = 0;
+            if (anterior > 0) fireIntervalRemoved(this, 0, anterior - 1);
+            total = nuevoTotal;
+            if (total > 0) fireIntervalAdded(this, 0, total - 1);
+        }
+
+        @Override
+        public int getSize() {
+            return total;
+        }
+
+        @Override
+        public Integer getElementAt(int indice) {
+            return indice + 1;
+        }
+    }
+
+    /**
+     * Celda de la lista de miniaturas: la imagen de la página con su número debajo.
+     */
+    private final class CeldaMiniatura extends JLabel implements ListCellRenderer<Integer> {
+        CeldaMiniatura() {
+            setOpaque(true);
+            setHorizontalAlignment(SwingConstants.CENTER);
+            setHorizontalTextPosition(SwingConstants.CENTER);
+            setVerticalTextPosition(SwingConstants.BOTTOM);
+            setBorder(BorderFactory.createEmptyBorder(MARGEN_MINIATURA, MARGEN_MINIATURA, MARGEN_MINIATURA, MARGEN_MINIATURA));
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Integer> lista, Integer pagina,
+                                                      int indice, boolean seleccionada, boolean conFoco) {
+            ImageIcon icono = miniatura(pagina);
+            setIcon(icono != null ? icono : miniaturaPendiente);
+            setText(String.valueOf(pagina));
+            setBackground(seleccionada ? lista.getSelectionBackground() : lista.getBackground());
+            setForeground(seleccionada ? lista.getSelectionForeground() : lista.getForeground());
+            return this;
+        }
+    }
+
+    /**
+     * Agrega a la barra superior el campo y el botón de búsqueda de texto.
+     * Cada búsqueda con la misma consulta avanza a la siguiente coincidencia.
+     */
+    private void configurarBusqueda() {
+        txtBuscarTexto = new JTextField(15);
+        txtBuscarTexto.setToolTipText("Buscar texto en el libro");
+        JButton btnBuscarTexto = new JButton("Buscar");
+        btnBuscarTexto.addActionListener(e -> buscarSiguienteCoincidencia());
+        txtBuscarTexto.addActionListener(e -> buscarSiguienteCoincidencia());
+        panelSuperior.add(new JLabel("  "));
+        panelSuperior.add(txtBuscarTexto);
+        panelSuperior.add(btnBuscarTexto);
+    }
+
+    /**
+     * Busca el texto del campo de búsqueda y va a la primera coincidencia posterior a la
+     * página actual (volviendo al principio al llegar al final).
+     */
+    private void buscarSiguienteCoincidencia() {
+        String consulta = txtBuscarTexto.getText().trim();
+        if (consulta.isEmpty() || controlador == null) return;
+
+        // Mientras se indexa, cada búsqueda se repite para incluir las páginas nuevas
+        if (!consulta.equals(ultimaConsulta) || !coincidenciasCompletas) {
+            coincidenciasCompletas = controlador.porcentajeIndexado() >= 100;
+            coincidencias = controlador.buscarEnLibro(consulta);
+            ultimaConsulta = consulta;
+        }
+        if (coincidencias.isEmpty()) {
+            int porcentaje = controlador.porcentajeIndexado();
+            mostrarMensajeEstado(porcentaje < 100
+                    ? "Sin resultados por ahora (texto indexado: " + porcentaje + "%)"
+                    : "Sin resultados para \"" + consulta + "\"");
+            return;
+        }
+
+        int indice = 0;
+        for (int i = 0; i < coincidencias.size(); i++) {
+            if (coincidencias.get(i).getPagina() > paginaActual) {
+                indice = i;
+                break;
+            }
+        }
+        IndexadorTexto.Coincidencia coincidencia = coincidencias.get(indice);
+        controlador.irACoincidencia(coincidencia);
+        mostrarMensajeEstado("Coincidencia " + (indice + 1) + " de " + coincidencias.size() + " - " + coincidencia);
     }
     
     /**
@@ -148,22 +466,38 @@ public class VistaLectura extends javax.swing.JFrame {
 
     /**
      * Carga en la lista los libros que el usuario tiene permiso para leer.
+     * Los archivos de libros y préstamos se leen en segundo plano; al terminar se
+     * rellena la lista y se selecciona el libro abierto.
      *
      * @param userId identificador del usuario que inició sesión
      */
     public void cargarLibrosDisponibles(String userId) {
-        modeloLibros.clear();
-        List<Lectura.ModeloLectura.Libro> libros = Lectura.ModeloLectura.cargarLibros();
+        EjecutorRepositorios.enEdt(EjecutorRepositorios.enviarLectura(BitacoraPrestamos.RUTA_POR_DEFECTO, () -> {
+            List<String> disponibles = new ArrayList<>();
+            for (Lectura.ModeloLectura.Libro libro : Lectura.ModeloLectura.cargarLibros()) {
+                if (Lectura.ModeloLectura.puedeLeer(userId, libro.getId())) {
+                    disponibles.add(libro.getId() + " - " + libro.getTitulo());
+                }
+            }
+            return disponibles;
+        }), disponibles -> {
+            modeloLibros.clear();
+            for (String elemento : disponibles) {
+                modeloLibros.addElement(elemento);
+            }
 
-        for (Lectura.ModeloLectura.Libro libro : libros) {
-            if (Lectura.ModeloLectura.puedeLeer(userId, libro.getId())) {
-                modeloLibros.addElement(libro.getId() + " - " + libro.getTitulo());
+            if (modeloLibros.isEmpty()) {
+                modeloLibros.addElement("(Sin libros disponibles)");
             }
-        }
 
-        if (modeloLibros.isEmpty()) {
-            modeloLibros.addElement("(Sin libros disponibles)");
-        }
+            // Seleccionar libro actual en la lista
+            for (int i = 0; i < modeloLibros.size(); i++) {
+                if (modeloLibros.get(i).startsWith(bookId + " -")) {
+                    listaLibros.setSelectedIndex(i);
+                    break;
+                }
+            }
+        }, e -> logger.log(Level.WARNING, "Error al cargar libros disponibles", e));
     }
 
     /**
@@ -215,21 +549,40 @@ public class VistaLectura extends javax.swing.JFrame {
 
     /**
      * Cierra de forma segura el documento PDF actualmente abierto,
-     * liberando recursos y eliminando la caché visual.
+     * guardando el progreso pendiente, liberando recursos y eliminando la caché visual.
      */
     private void cerrarDocumentoActual() {
+        guardarProgresoPendiente();
         try {
             if (documento != null) {
-                documento.close();
+                panelContinuo.establecerDocumento(null);
+                // Espera a que termine el renderizado en curso de la lectura continua
+                synchronized (documento) {
+                    documento.close();
+                }
                 documento = null;
             }
             paginaEnCache = null;
             labelImagen.setIcon(null);
+            cerrarMiniaturas();
         } catch (IOException e) {
             logger.log(Level.WARNING, "Error al cerrar documento", e);
         }
     }
 
+    /**
+     * Cancela las cargas de miniaturas pendientes y libera el documento que usan.
+     */
+    private void cerrarMiniaturas() {
+        for (CompletableFuture<ImageIcon> carga : cargasMiniaturas.values()) carga.cancel(false);
+        cargasMiniaturas.clear();
+        if (miniaturas != null) {
+            miniaturas.cerrar();
+            miniaturas = null;
+        }
+        modeloPaginas.establecer(0);
+    }
+
     /**
     * Establece el controlador responsable de la lógica de lectura.
     *
@@ -251,39 +604,46 @@ public class VistaLectura extends javax.swing.JFrame {
     public void cargarLibro(String bookId, String userId, String rutaArchivo, String formato) {
         this.bookId = bookId;
         this.userId = userId;
+        ultimaConsulta = null;
+        coincidencias = List.of();
 
         try {
-            File archivoPDF = new File(rutaArchivo);
-            documento = Loader.loadPDF(archivoPDF);
+            documento = CargadorPdf.abrir(Path.of(rutaArchivo));
             renderer = new PDFRenderer(documento);
             totalPaginas = documento.getNumberOfPages();
+            if (modoContinuo) panelContinuo.establecerDocumento(documento);
+            cerrarMiniaturas();
+            abrirMiniaturas(rutaArchivo);
 
-            int paginaGuardada = Lectura.ModeloLectura.obtenerProgreso(userId, bookId);
-
-            if (paginaGuardada > 0) {
-                paginaActual = paginaGuardada;
-                mostrarMensajeEstado("Reanudando desde pagina " + paginaGuardada);
-            } else {
-                paginaActual = 1;
-                mostrarMensajeEstado("Iniciando lectura del libro");
-            }
+            paginaActual = 1;
 
-            // Cargar libros disponibles
+            // Cargar libros disponibles (y seleccionar el actual al terminar)
             cargarLibrosDisponibles(userId);
 
-            // Seleccionar libro actual en la lista
-            for (int i = 0; i < modeloLibros.size(); i++) {
-                if (modeloLibros.get(i).startsWith(bookId + " -")) {
-                    listaLibros.setSelectedIndex(i);
-                    break;
-                }
-            }
-
             // Cargar marcadores
             actualizarListaMarcadores();
-            actualizarContadorMarcadores();
 
-            actualizarPagina();
+            // La primera página se muestra al conocer el progreso guardado, para no
+            // programar el guardado de la página 1 encima de él
+            PDDocument abierto = documento;
+            EjecutorRepositorios.enEdt(EjecutorRepositorios.enviarLectura(Lectura.ModeloLectura.ARCHIVO_PROGRESO,
+                    () -> Lectura.ModeloLectura.obtenerProgreso(userId, bookId)), paginaGuardada -> {
+                if (documento != abierto) return;
+
+                if (paginaGuardada > 0) {
+                    paginaActual = paginaGuardada;
+                    mostrarMensajeEstado("Reanudando desde pagina " + paginaGuardada);
+                } else {
+                    paginaActual = 1;
+                    mostrarMensajeEstado("Iniciando lectura del libro");
+                }
+                actualizarPagina();
+            }, e -> {
+                logger.log(Level.WARNING, "No se pudo leer el progreso de lectura", e);
+                if (documento != abierto) return;
+                mostrarMensajeEstado("Iniciando lectura del libro");
+                actualizarPagina();
+            });
             setLocationRelativeTo(null);
 
         } catch (IOException e) {
@@ -302,13 +662,31 @@ public class VistaLectura extends javax.swing.JFrame {
     }
 
     /**
-    * Actualiza la tabla de marcadores tomando los datos desde el controlador,
-    * y habilita/deshabilita los botones según corresponda.
+    * Actualiza la tabla de marcadores del libro abierto y habilita/deshabilita los
+    * botones según corresponda. Los marcadores se leen en segundo plano; si mientras
+    * tanto se pide otra carga, el resultado anterior se descarta.
     */
     public void actualizarListaMarcadores() {
-        modeloMarcadores.setRowCount(0);
+        String usuarioId = controlador.getUsuarioIdActual();
+        String libroId = controlador.getLibroIdActual();
+        int generacion = ++generacionMarcadores;
+
+        EjecutorRepositorios.enEdt(EjecutorRepositorios.enviarLectura(Lectura.ModeloLectura.ARCHIVO_MARCADORES,
+                () -> usuarioId == null || libroId == null
+                        ? List.<Lectura.ModeloLectura.Marcador>of()
+                        : Lectura.ModeloLectura.obtenerMarcadores(usuarioId, libroId)), marcadores -> {
+            if (generacion == generacionMarcadores) mostrarMarcadores(marcadores);
+        }, e -> logger.log(Level.WARNING, "No se pudieron cargar los marcadores", e));
+    }
 
-        List<Lectura.ModeloLectura.Marcador> marcadores = controlador.obtenerMarcadores();
+    /**
+     * Rellena la tabla con los marcadores indicados.
+     *
+     * @param marcadores marcadores del libro abierto
+     */
+    private void mostrarMarcadores(List<Lectura.ModeloLectura.Marcador> marcadores) {
+        marcadoresMostrados = marcadores;
+        modeloMarcadores.setRowCount(0);
 
         for (Lectura.ModeloLectura.Marcador marcador : marcadores) {
             Object[] fila = {
@@ -366,14 +744,29 @@ public class VistaLectura extends javax.swing.JFrame {
     /**
     * Renderiza la página actual del PDF, aplicando zoom, modo noche
     * y utilizando caché cuando sea posible. También actualiza progreso,
-    * barras e información visual.
+    * barras e información visual. En lectura continua solo desplaza la
+    * vista hasta la página.
     */
     private void actualizarPagina() {
         try {
-            if (paginaCacheada == paginaActual && zoomCacheado == zoom && paginaEnCache != null && !modoNoche) {
+            if (modoContinuo) {
+                panelContinuo.establecerZoom(zoom);
+                panelContinuo.establecerModoNoche(modoNoche);
+                panelContinuo.mostrarPagina(paginaActual);
+            } else if (paginaCacheada == paginaActual && zoomCacheado == zoom && paginaEnCache != null && !modoNoche) {
                 labelImagen.setIcon(new ImageIcon(paginaEnCache));
             } else {
-                BufferedImage imagen = renderer.renderImage(paginaActual - 1, zoom);
+                BufferedImage imagen;
+                IndexadorTexto.obtenerInstancia().inicioRenderizado();
+                try {
+                    long inicio = System.nanoTime();
+                    synchronized (documento) {
+                        imagen = renderer.renderImage(paginaActual - 1, zoom);
+                    }
+                    PrecalentadorPdf.registrarPrimerRenderizado(System.nanoTime() - inicio);
+                } finally {
+                    IndexadorTexto.obtenerInstancia().finRenderizado();
+                }
 
                 if (modoNoche) {
                     imagen = aplicarModoNoche(imagen);
@@ -386,16 +779,7 @@ public class VistaLectura extends javax.swing.JFrame {
                 labelImagen.setIcon(new ImageIcon(imagen));
             }
 
-            labelPagina.setText("Pagina " + paginaActual + " / " + totalPaginas);
-
-            int porcentaje = (int) ((paginaActual * 100.0) / totalPaginas);
-            progressBar.setValue(porcentaje);
-            progressBar.setString(porcentaje + "%");
-
-            btnAnterior.setEnabled(paginaActual > 1);
-            btnSiguiente.setEnabled(paginaActual < totalPaginas);
-
-            controlador.guardarProgreso(paginaActual);
+            actualizarIndicadoresPagina();
 
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error al renderizar pagina", e);
@@ -408,6 +792,34 @@ public class VistaLectura extends javax.swing.JFrame {
         }
     }
 
+    /**
+    * Actualiza el número de página, la barra de progreso, los botones de
+    * navegación y la miniatura seleccionada, y programa el guardado del progreso.
+    */
+    private void actualizarIndicadoresPagina() {
+        labelPagina.setText("Pagina " + paginaActual + " / " + totalPaginas);
+        sincronizarMiniatura();
+
+        int porcentaje = (int) ((paginaActual * 100.0) / totalPaginas);
+        progressBar.setValue(porcentaje);
+        progressBar.setString(porcentaje + "%");
+
+        btnAnterior.setEnabled(paginaActual > 1);
+        btnSiguiente.setEnabled(paginaActual < totalPaginas);
+
+        guardadoProgreso.restart();
+    }
+
+    /**
+     * Guarda en el momento el progreso pendiente, p.ej. antes de cambiar de libro o cerrar.
+     */
+    private void guardarProgresoPendiente() {
+        if (guardadoProgreso.isRunning()) {
+            guardadoProgreso.stop();
+            controlador.guardarProgresoEnSegundoPlano(paginaActual);
+        }
+    }
+
     /**
     * Aplica inversión de colores a una imagen para simular el modo noche.
     *
@@ -828,7 +1240,7 @@ public class VistaLectura extends javax.swing.JFrame {
             return;
         }
 
-        List<Lectura.ModeloLectura.Marcador> marcadores = controlador.obtenerMarcadores();
+        List<Lectura.ModeloLectura.Marcador> marcadores = marcadoresMostrados;
         if (filaSeleccionada < marcadores.size()) {
             Lectura.ModeloLectura.Marcador marcador = marcadores.get(filaSeleccionada);
             controlador.eliminarMarcador(marcador.getId());
@@ -16,6 +16,7 @@ import java.util.Random;
 import javax.swing.ImageIcon;
 import javax.swing.JOptionPane;
 
+import Auth.ServicioAutenticacion;
 import Auth.SessionManager;
 
 /**
@@ -131,17 +132,28 @@ public class ControladorLogin {
             return;
         }
 
-        String nombreUsuario = modelo.autenticarUsuario(correo, password);
-        if (!nombreUsuario.equals("")) {
+        ServicioAutenticacion.Resultado resultado = modelo.intentarAutenticacion(correo, password);
+        if (resultado.esExitoso()) {
             JOptionPane.showMessageDialog(vista, 
                     "¡Bienvenido! Has iniciado sesión correctamente.", 
                     "Login Exitoso", 
                     JOptionPane.INFORMATION_MESSAGE);
-            SessionManager.agregarUsuarioActual(nombreUsuario);
+            SessionManager.agregarUsuarioActual(resultado.getNombre());
             vista.dispose(); 
             new barraLateral().setVisible(true); 
         } else {
-            vista.mostrarError("Credenciales incorrectas.");
+            switch (resultado.getEstado()) {
+                case CUENTA_BLOQUEADA:
+                    vista.mostrarError("Cuenta bloqueada por intentos fallidos. Espera "
+                            + resultado.getSegundosEspera() + " s.");
+                    break;
+                case LIMITE_EXCEDIDO:
+                    vista.mostrarError("Demasiados intentos. Espera "
+                            + resultado.getSegundosEspera() + " s.");
+                    break;
+                default:
+                    vista.mostrarError("Credenciales incorrectas.");
+            }
             generarYMostrarCaptcha();
         }
     }
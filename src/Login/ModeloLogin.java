@@ -1,9 +1,9 @@
 package Login;
 
 import java.util.Random;
-import java.util.regex.Pattern;
 import Registro.ModeloRegistro;
-import Auth.SessionManager;
+import Registro.MotorValidacion;
+import Auth.ServicioAutenticacion;
 
 /**
  * Modelo del módulo de autenticación (Login).
@@ -17,11 +17,27 @@ import Auth.SessionManager;
  */
 public class ModeloLogin {
 
-    /** Expresión regular para validar el formato estándar de un correo electrónico. */
-    private static final String EMAIL_REGEX = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$";
     /** Almacena el código del captcha generado actualmente para su posterior validación. */
     private String captchaActual;
     private ModeloRegistro modeloRegistro = new ModeloRegistro();
+    /** Identificador del cliente (equipo o kiosco) usado para limitar intentos de acceso. */
+    private final String idCliente;
+
+    /**
+     * Crea el modelo identificando al cliente por el nombre del equipo local.
+     */
+    public ModeloLogin() {
+        this(System.getProperty("lybsys.cliente", "local"));
+    }
+
+    /**
+     * Crea el modelo para un cliente específico (p.ej. un kiosco de la biblioteca).
+     *
+     * @param idCliente identificador del cliente que realiza los intentos de acceso
+     */
+    public ModeloLogin(String idCliente) {
+        this.idCliente = idCliente;
+    }
 
     /**
      * Verifica si un correo electrónico cumple con el formato válido y pertenece
@@ -30,7 +46,7 @@ public class ModeloLogin {
      * @return true si el correo tiene formato válido y termina en @unmsm.edu.pe, false en caso contrario.
      */
     public boolean validarFormatoCorreo(String correo) {
-        return correo != null && Pattern.matches(EMAIL_REGEX, correo);
+        return MotorValidacion.correoValido(correo);
     }
 
     public boolean validarCorreoInstitucional(String correo) {
@@ -78,31 +94,32 @@ public class ModeloLogin {
     }
 
     /**
-     * Simula la autenticación del usuario contra una base de datos.
+     * Autentica al usuario contra la base de usuarios.
      * <p>
-     * Actualmente este método es un stub (simulación) que siempre retorna éxito.
-     * Debe ser conectado posteriormente a un servicio de autenticación real.
+     * Delega en {@link ServicioAutenticacion}, que verifica las credenciales en memoria
+     * y aplica limitación de intentos y bloqueo temporal de cuenta.
      * </p>
      * * @param correo El correo institucional validado.
      * @param password La contraseña ingresada.
-     * @return true si las credenciales son correctas.
+     * @return el nombre del usuario si las credenciales son correctas, o cadena vacía.
      */
     public String autenticarUsuario(String correo, String password) {
-        String nombre;
-        String correoInsti;
-        String contra;
-
-        String datos = SessionManager.buscarUsuarioCorreo(correo);
-        if (datos == null) { return ""; }
-        String[] datosSeparados = datos.split(" ");
-        nombre = datosSeparados[0];
-        correoInsti = datosSeparados[1];
-        contra = datosSeparados[2];
-
-        boolean contenido = validarFormatoCorreo(correo) && validarPasswordNoVacia(password);
+        return intentarAutenticacion(correo, password).getNombre();
+    }
 
-        if (correoInsti.equals(correo) && contra.equals(password) && contenido) { return nombre; }
-        else { return "";}
+    /**
+     * Realiza un intento de autenticación y devuelve el resultado detallado
+     * (éxito, credenciales inválidas, cuenta bloqueada o límite de intentos excedido).
+     *
+     * @param correo El correo institucional validado.
+     * @param password La contraseña ingresada.
+     * @return resultado del intento
+     */
+    public ServicioAutenticacion.Resultado intentarAutenticacion(String correo, String password) {
+        if (!validarFormatoCorreo(correo) || !validarPasswordNoVacia(password)) {
+            return ServicioAutenticacion.Resultado.fallido();
+        }
+        return ServicioAutenticacion.obtenerInstancia().autenticar(correo, password, idCliente);
     }
 
     public boolean verificarCorreo(String correo) {
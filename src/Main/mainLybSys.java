@@ -1,7 +1,10 @@
 package Main;
 import Login.*; 
+import Lectura.PrecalentadorPdf;
 public class mainLybSys {
     public static void main(String[] args) {
+        // Inicializa fuentes y renderizado de PDFBox mientras el usuario inicia sesión
+        PrecalentadorPdf.iniciar();
         ModeloLogin modelo = new ModeloLogin();
         VistaLogin vista = new VistaLogin();
         new ControladorLogin(modelo, vista);
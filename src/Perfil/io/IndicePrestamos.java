@@ -0,0 +1,210 @@
+package Perfil.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice del CSV de préstamos por correo del usuario.
+ *
+ * <p>Guarda, para cada correo (en minúsculas), la posición en bytes y la longitud de cada
+ * una de sus filas, de modo que cargar el perfil de un usuario lee solo sus filas en lugar de
+ * recorrer todo el historial. El índice se construye con una sola pasada sobre los bytes del
+ * archivo (los separadores, comillas y saltos de línea son ASCII, así que se pueden reconocer
+ * sin decodificar UTF-8), se actualiza al anexar préstamos con {@link #anexar} y se reconstruye
+ * si el archivo cambia por otra vía (fecha de modificación o tamaño distintos).</p>
+ */
+class IndicePrestamos {
+
+    /** Columna del correo en el CSV de préstamos. */
+    private static final int COLUMNA_CORREO = 6;
+
+    private static final Map<Path, IndicePrestamos> INSTANCIAS = new ConcurrentHashMap<>();
+
+    private final Path ruta;
+    private final Map<String, Posiciones> porCorreo = new HashMap<>();
+    private FileTime version;
+    private long tamano = -1;
+
+    private IndicePrestamos(Path ruta) {
+        this.ruta = ruta;
+    }
+
+    /**
+     * Obtiene el índice asociado a un archivo de préstamos.
+     * @param ruta ruta del CSV
+     * @return índice compartido para esa ruta
+     */
+    static IndicePrestamos para(Path ruta) {
+        return INSTANCIAS.computeIfAbsent(ruta.toAbsolutePath().normalize(), IndicePrestamos::new);
+    }
+
+    /**
+     * Lee las filas de un usuario accediendo directamente a sus posiciones.
+     * @param correo correo del usuario (no distingue mayúsculas)
+     * @return texto de cada fila del usuario, en orden de aparición
+     * @throws IOException si falla la lectura
+     */
+    synchronized List<String> filasDe(String correo) throws IOException {
+        asegurarVigente();
+        Posiciones pos = porCorreo.get(clave(correo));
+        List<String> filas = new ArrayList<>();
+        if (pos == null) return filas;
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            for (int i = 0; i < pos.cantidad; i++) {
+                ByteBuffer bytes = ByteBuffer.allocate(pos.longitudes[i]);
+                while (bytes.hasRemaining() && canal.read(bytes, pos.inicios[i] + bytes.position()) > 0) {
+                    // lectura posicional hasta completar la fila
+                }
+                filas.add(new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8));
+            }
+        }
+        return filas;
+    }
+
+    /**
+     * Anexa una fila al final del archivo y la registra en el índice.
+     * @param fila texto de la fila, sin salto de línea
+     * @param correo correo del usuario de la fila
+     * @throws IOException si falla la escritura
+     */
+    synchronized void anexar(String fila, String correo) throws IOException {
+        boolean vigente = estaVigente();
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long inicio = canal.size();
+            byte[] prefijo = inicio > 0 && !terminaEnSaltoDeLinea(canal, inicio) ? new byte[]{'\n'} : new byte[0];
+            byte[] cuerpo = fila.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer bytes = ByteBuffer.allocate(prefijo.length + cuerpo.length + 1);
+            bytes.put(prefijo).put(cuerpo).put((byte) '\n').flip();
+            while (bytes.hasRemaining()) canal.write(bytes, inicio + bytes.position());
+
+            if (vigente) {
+                porCorreo.computeIfAbsent(clave(correo), k -> new Posiciones())
+                        .agregar(inicio + prefijo.length, cuerpo.length);
+            }
+        }
+        if (vigente) {
+            version = Files.getLastModifiedTime(ruta);
+            tamano = Files.size(ruta);
+        }
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // CONSTRUCCIÓN DEL ÍNDICE
+    // ───────────────────────────────────────────────────────────────
+
+    private boolean estaVigente() throws IOException {
+        return version != null && Files.exists(ruta)
+                && Files.getLastModifiedTime(ruta).equals(version) && Files.size(ruta) == tamano;
+    }
+
+    private void asegurarVigente() throws IOException {
+        if (estaVigente()) return;
+        porCorreo.clear();
+        version = null;
+        if (!Files.exists(ruta)) return;
+
+        FileTime versionLeida = Files.getLastModifiedTime(ruta);
+        byte[] contenido = Files.readAllBytes(ruta);
+        indexar(contenido);
+        version = versionLeida;
+        tamano = contenido.length;
+    }
+
+    /**
+     * Recorre el archivo registro a registro (respetando comillas) y anota la posición de
+     * cada fila bajo el correo de su séptima columna. La primera fila es la cabecera.
+     */
+    private void indexar(byte[] b) {
+        int inicioFila = 0;
+        int columna = 0;
+        int inicioCampo = 0;
+        int inicioCorreo = -1, finCorreo = -1;
+        boolean enComillas = false;
+        boolean cabecera = true;
+
+        for (int i = 0; i <= b.length; i++) {
+            byte c = i < b.length ? b[i] : (byte) '\n';
+            if (enComillas) {
+                if (c == '"') enComillas = false; // una comilla doble "" vuelve a abrir en la siguiente
+                continue;
+            }
+            if (c == '"') {
+                enComillas = true;
+            } else if (c == ',' || c == '\n' || c == '\r') {
+                if (columna == COLUMNA_CORREO) {
+                    inicioCorreo = inicioCampo;
+                    finCorreo = i;
+                }
+                columna++;
+                inicioCampo = i + 1;
+                if (c != ',') {
+                    if (!cabecera && inicioCorreo >= 0) {
+                        String correo = campo(b, inicioCorreo, finCorreo);
+                        porCorreo.computeIfAbsent(clave(correo), k -> new Posiciones())
+                                .agregar(inicioFila, i - inicioFila);
+                    }
+                    if (i > inicioFila) cabecera = false;
+                    // \r\n: el \n se trata como una fila vacía y se ignora
+                    inicioFila = i + 1;
+                    columna = 0;
+                    inicioCorreo = -1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Texto de un campo sin espacios ni comillas envolventes, con las comillas dobles resueltas.
+     */
+    private static String campo(byte[] b, int inicio, int fin) {
+        while (inicio < fin && (b[inicio] == ' ' || b[inicio] == '\t')) inicio++;
+        while (fin > inicio && (b[fin - 1] == ' ' || b[fin - 1] == '\t')) fin--;
+        String s = new String(b, inicio, fin - inicio, StandardCharsets.UTF_8);
+        if (s.length() >= 2 && s.startsWith("\"") && s.endsWith("\"")) {
+            s = s.substring(1, s.length() - 1).replace("\"\"", "\"");
+        }
+        return s;
+    }
+
+    private static String clave(String correo) {
+        return correo == null ? "" : correo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean terminaEnSaltoDeLinea(FileChannel canal, long tamano) throws IOException {
+        ByteBuffer ultimo = ByteBuffer.allocate(1);
+        return canal.read(ultimo, tamano - 1) == 1 && (ultimo.get(0) == '\n' || ultimo.get(0) == '\r');
+    }
+
+    /**
+     * Posiciones (inicio y longitud en bytes) de las filas de un usuario.
+     */
+    private static final class Posiciones {
+        private long[] inicios = new long[4];
+        private int[] longitudes = new int[4];
+        private int cantidad;
+
+        void agregar(long inicio, int longitud) {
+            if (cantidad == inicios.length) {
+                inicios = Arrays.copyOf(inicios, cantidad * 2);
+                longitudes = Arrays.copyOf(longitudes, cantidad * 2);
+            }
+            inicios[cantidad] = inicio;
+            longitudes[cantidad] = longitud;
+            cantidad++;
+        }
+    }
+}
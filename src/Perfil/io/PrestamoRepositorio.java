@@ -1,14 +1,14 @@
 package Perfil.io;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.io.StringReader;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 import Perfil.perfil_modelo.Prestamo;
+import repository.BitacoraPrestamos;
+import repository.LectorCsv;
 
 public class PrestamoRepositorio {
 
@@ -16,105 +16,103 @@ public class PrestamoRepositorio {
         return cargarDesdeArchivo(ruta, ",");
     }
     
+    /**
+     * Carga los préstamos de un usuario leyendo solo sus filas, a través de {@link IndicePrestamos}.
+     * @param ruta Ruta del csv
+     * @param correoUsuario Correo del usuario (no distingue mayúsculas)
+     * @return préstamos del usuario en el orden del archivo
+     * @throws IOException si falla la lectura
+     */
     public static List<Prestamo> cargarPrestamosPorCorreo(String ruta, String correoUsuario) throws IOException {
-    List<Prestamo> out = new ArrayList<>();
-    Path p = Path.of(ruta);
-
-    try (BufferedReader br = Files.newBufferedReader(p, StandardCharsets.UTF_8)) {
-        String linea;
-        boolean primera = true;
-
-        String regex = ",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)";
-
-        while ((linea = br.readLine()) != null) {
-            if (linea.isBlank()) continue;
-            if (primera) { primera = false; continue; }
+        List<Prestamo> out = new ArrayList<>();
 
-            String[] cols = linea.split(regex, -1);
-            if (cols.length < 7) {
-                System.err.println("Línea omitida (columnas insuficientes): " + linea);
-                continue;
+        for (String linea : IndicePrestamos.para(Path.of(ruta)).filasDe(correoUsuario)) {
+            try (LectorCsv fila = new LectorCsv(new StringReader(linea), ',')) {
+                if (!fila.siguiente()) continue;
+                if (fila.columnas() < 7) {
+                    System.err.println("Línea omitida (columnas insuficientes): " + fila.texto());
+                    continue;
+                }
+                agregarFila(fila, out);
             }
-            for (int i = 0; i < cols.length; i++) cols[i] = unquote(cols[i].trim());
+        }
+        return out;
+    }
 
-            String correoFila = cols[6];
-            if (!correoFila.equalsIgnoreCase(correoUsuario)) {
-                continue;
+    /**
+     * Carga los préstamos del perfil de un usuario con el estado y el vencimiento vigentes en
+     * la {@link BitacoraPrestamos}. El csv solo aporta los datos de presentación (título y
+     * portada); las filas que no corresponden al préstamo vigente del usuario en la bitácora
+     * (préstamos anteriores o datos antiguos) se muestran tal como están en el archivo.
+     * @param ruta Ruta del csv
+     * @param correoUsuario Correo del usuario (no distingue mayúsculas)
+     * @param idUsuario Id del usuario en la bitácora
+     * @return préstamos del usuario en el orden del archivo
+     * @throws IOException si falla la lectura
+     */
+    public static List<Prestamo> cargarPrestamosPorCorreo(String ruta, String correoUsuario, String idUsuario) throws IOException {
+        List<Prestamo> filas = cargarPrestamosPorCorreo(ruta, correoUsuario);
+        BitacoraPrestamos bitacora = BitacoraPrestamos.obtenerInstancia();
+        List<Prestamo> out = new ArrayList<>(filas.size());
+        for (Prestamo p : filas) {
+            BitacoraPrestamos.Registro r = bitacora.obtener(idUsuario, String.valueOf(p.getBookId()));
+            if (r != null && r.getId() == p.getLoanId()) {
+                p = new Prestamo(p.getLoanId(), p.getBookId(), p.getTitulo(), textoEstado(r.getEstado()),
+                        r.getFechaVencimiento(), p.getPortada());
             }
+            out.add(p);
+        }
+        return out;
+    }
 
-            try {
-                int loanId = Integer.parseInt(cols[0]);
-                int bookId = Integer.parseInt(cols[1]);
-                String titulo = cols[2];
-                String estado = cols[3];
-                String fechaVencimiento = cols[4];
-                String portada = cols[5].isEmpty() ? null : cols[5];
-
-                out.add(new Prestamo(loanId, bookId, titulo, estado, fechaVencimiento, portada));
-            } catch (NumberFormatException nfe) {
-                System.err.println("Línea omitida (IDs no numéricos): " + linea);
-            }
+    /**
+     * Texto con el que el perfil muestra un estado de la bitácora.
+     * @param estado estado del préstamo
+     * @return texto para el csv y la vista de perfil
+     */
+    public static String textoEstado(BitacoraPrestamos.Estado estado) {
+        switch (estado) {
+            case ACTIVO: return "En curso";
+            case EN_COLA: return "En cola";
+            case VENCIDO: return "Vencido";
+            default: return "Devuelto";
         }
     }
-    return out;
-}
 
     public static List<Prestamo> cargarDesdeArchivo(String ruta, String delimitador) throws IOException {
+        if (delimitador.length() != 1) {
+            throw new IllegalArgumentException("El delimitador debe ser un único carácter: " + delimitador);
+        }
         List<Prestamo> out = new ArrayList<>();
-        Path p = Path.of(ruta);
-
-        try (BufferedReader br = Files.newBufferedReader(p, StandardCharsets.UTF_8)) {
-            String linea;
-            boolean primera = true;
-
-            String regex = delimitador.equals(",")
-                    ? ",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)"
-                    : java.util.regex.Pattern.quote(delimitador);
-
-            while ((linea = br.readLine()) != null) {
-                if (linea.isBlank()) continue;
-                if (primera) {
-                    primera = false;
-                    continue;
-                }
-                String[] cols = linea.split(regex, -1);
 
-                if (cols.length < 6) {
-                    System.err.println("Línea omitida (columnas insuficientes): " + linea);
-                    continue;
-                }
-
-                for (int i = 0; i < cols.length; i++) {
-                    cols[i] = unquote(cols[i].trim());
-                }
-
-                try {
-                    int loanId = Integer.parseInt(cols[0]);
-                    int bookId = Integer.parseInt(cols[1]);
-                    String titulo = cols[2];
-                    String estado = cols[3];
-                    String fechaVencimiento = cols[4]; // yyyy-MM-dd
-                    String portada = cols[5].isEmpty() ? null : cols[5];
-
-                    out.add(new Prestamo(loanId, bookId, titulo, estado, fechaVencimiento, portada));
-                } catch (NumberFormatException nfe) {
-                    System.err.println("Línea omitida (IDs no numéricos): " + linea);
-                }
+        LectorCsv.leer(Path.of(ruta), delimitador.charAt(0), true, fila -> {
+            if (fila.columnas() < 6) {
+                System.err.println("Línea omitida (columnas insuficientes): " + fila.texto());
+                return;
             }
-        }
+            agregarFila(fila, out);
+        });
         return out;
     }
 
     /**
-     * Corrige comillas dobles al extraer texto del csv.
-     * @param s Texto a corregir
-     * @return {@code String} Texto sin comillas
+     * Convierte la fila actual en un {@link Prestamo} y la añade a la lista.
+     * @param fila fila del csv (loanId, bookId, titulo, estado, fechaVencimiento, portada, ...)
+     * @param out lista destino
      */
-    private static String unquote(String s) {
-        if (s.length() >= 2 && s.startsWith("\"") && s.endsWith("\"")) {
-            return s.substring(1, s.length() - 1);
+    private static void agregarFila(LectorCsv fila, List<Prestamo> out) {
+        try {
+            int loanId = fila.entero(0);
+            int bookId = fila.entero(1);
+            String titulo = fila.campo(2);
+            String estado = fila.campo(3);
+            String fechaVencimiento = fila.campo(4); // yyyy-MM-dd
+            String portada = fila.vacio(5) ? null : fila.campo(5);
+
+            out.add(new Prestamo(loanId, bookId, titulo, estado, fechaVencimiento, portada));
+        } catch (NumberFormatException nfe) {
+            System.err.println("Línea omitida (IDs no numéricos): " + fila.texto());
         }
-        return s;
     }
 
     /**
@@ -129,14 +127,10 @@ public class PrestamoRepositorio {
      * @param correoUsuario Correo del usuario
      */
     public static void agregarPrestamo(String ruta, int loanId, int bookId, String titulo, String estado, String fechaVencimiento, String portada, String correoUsuario) {
-        Path p = Path.of(ruta);
-
-        try (var bw = Files.newBufferedWriter(p, StandardCharsets.UTF_8, java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND)) {
-
-            String linea = String.join(",", csv(loanId), csv(bookId), csv(titulo), csv(estado), csv(fechaVencimiento), csv(portada == null ? "" : portada), csv(correoUsuario));
+        String linea = String.join(",", csv(loanId), csv(bookId), csv(titulo), csv(estado), csv(fechaVencimiento), csv(portada == null ? "" : portada), csv(correoUsuario));
 
-            bw.write(linea);
-            bw.newLine();
+        try {
+            IndicePrestamos.para(Path.of(ruta)).anexar(linea, correoUsuario);
         }
         catch (IOException e) {
             System.err.println("No se pudo leer el archivo csv");
@@ -153,7 +147,7 @@ public class PrestamoRepositorio {
 
         String s = o.toString();
         boolean necesitaComillas =
-                s.contains(",") || s.contains("\"") || s.contains("\n");
+                s.contains(",") || s.contains("\"") || s.contains("\n") || s.contains("\r");
 
         if (s.contains("\"")) {
             s = s.replace("\"", "\"\"");
@@ -1,29 +1,25 @@
 package Perfil.io;
 
-import java.io.BufferedReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import Perfil.perfil_modelo.Usuario;
+import repository.LectorCsv;
 
 public class UsuarioRepositorio {
 
     public static List<Usuario> cargarUsuarios(String rutaCsv) throws Exception {
         List<Usuario> usuarios = new ArrayList<>();
 
-        try (BufferedReader br = Files.newBufferedReader(Path.of(rutaCsv), StandardCharsets.UTF_8)) {
-            String linea = br.readLine();
-            if (linea == null) throw new IllegalArgumentException("CSV vacío: " + rutaCsv);
+        try (LectorCsv csv = new LectorCsv(Files.newBufferedReader(Path.of(rutaCsv), StandardCharsets.UTF_8), ',')) {
+            if (!csv.siguiente()) throw new IllegalArgumentException("CSV vacío: " + rutaCsv);
 
-            while ((linea = br.readLine()) != null) {
-                if (linea.isBlank()) continue;
-                String[] c = linea.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-                String nombre = unquote(c[0].trim());
-                String correo = unquote(c[1].trim());
-                String avatar = c.length > 2 ? unquote(c[2].trim()) : null;
-                if (avatar != null && avatar.isBlank()) avatar = null;
+            while (csv.siguiente()) {
+                String nombre = csv.campo(0);
+                String correo = csv.campo(1);
+                String avatar = csv.vacio(2) ? null : csv.campo(2);
 
                 usuarios.add(new Usuario(nombre, correo, avatar));
             }
@@ -39,11 +35,5 @@ public class UsuarioRepositorio {
         }
         throw new IllegalArgumentException("No se encontró usuario con correo: " + correoBuscado);
     }
-
-    private static String unquote(String s) {
-        return (s.length() >= 2 && s.startsWith("\"") && s.endsWith("\""))
-                ? s.substring(1, s.length() - 1)
-                : s;
-    }
 }
 
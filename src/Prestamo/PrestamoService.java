@@ -23,7 +23,16 @@ public class PrestamoService {
      * Crea el servicio y los DAOs en memoria usados para pruebas locales.
      */
     public PrestamoService() {
-        this.libroDAO = new LibroDAO();
+        this(new LibroDAO());
+    }
+
+    /**
+     * Crea el servicio sobre un inventario de libros ya poblado.
+     *
+     * @param libroDAO DAO de libros e inventario a utilizar
+     */
+    public PrestamoService(LibroDAO libroDAO) {
+        this.libroDAO = libroDAO;
         this.prestamoDAO = new PrestamoDAO(libroDAO);
     }
 
@@ -49,6 +58,19 @@ public class PrestamoService {
         return EstadoPrestamo.EN_COLA;
     }
 
+    /**
+     * Registra la devolución de un libro prestado por el usuario.
+     *
+     * @param userId id del usuario
+     * @param bookId id del libro
+     * @return {@code true} si el usuario tenía el libro y se devolvió
+     */
+    public boolean devolverLibro(String userId, String bookId) {
+        if (userId == null || !usuarioTieneLibro(userId, bookId)) return false;
+        prestamoDAO.registrarDevolucion(userId, bookId);
+        return true;
+    }
+
     /**
      * Indica si el usuario ya tiene el libro prestado.
      *
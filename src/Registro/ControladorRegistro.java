@@ -75,32 +75,28 @@ public class ControladorRegistro {
      *
      * <p>Este método actúa como retroalimentación inmediata para el usuario.</p>
      *
-     * @see ModeloRegistro#calcularProgresoContrasena(java.lang.String)
-     * @see ModeloRegistro#contrasenaCoincide(java.lang.String, java.lang.String)
+     * @see ModeloRegistro#evaluarContrasena(char[])
      */
     private void actualizarEstadoContrasena() {
         char[] contrasenaChars = vistaRegistro.getTxtContrasena().getPassword();
         char[] confirmacionChars = vistaRegistro.getTxtConfirmacionContrasena().getPassword();
 
-        String contrasenaTexto = new String(contrasenaChars);
-        String confirmacionTexto = new String(confirmacionChars);
-
-        int progreso = modeloRegistro.calcularProgresoContrasena(contrasenaTexto);
+        MotorValidacion.EvaluacionContrasena evaluacion = modeloRegistro.evaluarContrasena(contrasenaChars);
+        int progreso = evaluacion.getProgreso();
         vistaRegistro.getBarraProgreso().setValue(progreso);
 
         // Actualizar colores de requisitos
         vistaRegistro.getLblRequisitoLetra().setForeground(
-                modeloRegistro.contieneLetra(contrasenaTexto) ? Color.GREEN : Color.BLACK);
+                evaluacion.contieneLetra() ? Color.GREEN : Color.BLACK);
         vistaRegistro.getLblRequisitoEspecial().setForeground(
-                modeloRegistro.contieneCaracterEspecial(contrasenaTexto) ? Color.GREEN : Color.BLACK);
+                evaluacion.contieneCaracterEspecial() ? Color.GREEN : Color.BLACK);
         vistaRegistro.getLblRequisitoNumero().setForeground(
-                modeloRegistro.contieneNumero(contrasenaTexto) ? Color.GREEN : Color.BLACK);
+                evaluacion.contieneNumero() ? Color.GREEN : Color.BLACK);
         vistaRegistro.getLblRequisitoLongitud().setForeground(
-                modeloRegistro.cumpleLongitudMinima(contrasenaTexto) ? Color.GREEN : Color.BLACK);
+                evaluacion.cumpleLongitudMinima() ? Color.GREEN : Color.BLACK);
 
         // Barra dorada cuando todo es correcto
-        if (progreso == 100 &&
-            modeloRegistro.contrasenaCoincide(contrasenaTexto, confirmacionTexto)) {
+        if (progreso == 100 && Arrays.equals(contrasenaChars, confirmacionChars)) {
             vistaRegistro.getBarraProgreso().setForeground(new Color(212, 175, 55));
         } else {
             vistaRegistro.getBarraProgreso().setForeground(new Color(20, 125, 255));
@@ -85,7 +85,7 @@ public class ModeloRegistro {
      * @return {@code true} si contiene letras, {@code false} en caso contrario
      */
     public boolean contieneLetra(String contrasena) {
-        return contrasena != null && contrasena.matches(".*[A-Za-z].*");
+        return MotorValidacion.evaluarContrasena(contrasena).contieneLetra();
     }
 
     /**
@@ -95,7 +95,7 @@ public class ModeloRegistro {
      * @return {@code true} si contiene números, {@code false} en caso contrario
      */
     public boolean contieneNumero(String contrasena) {
-        return contrasena != null && contrasena.matches(".*\\d.*");
+        return MotorValidacion.evaluarContrasena(contrasena).contieneNumero();
     }
 
     /**
@@ -109,7 +109,7 @@ public class ModeloRegistro {
      *         {@code false} en caso contrario
      */
     public boolean contieneCaracterEspecial(String contrasena) {
-        return contrasena != null && contrasena.matches(".*[^A-Za-z0-9].*");
+        return MotorValidacion.evaluarContrasena(contrasena).contieneCaracterEspecial();
     }
 
     /**
@@ -121,7 +121,7 @@ public class ModeloRegistro {
      *         {@code false} en caso contrario
      */
     public boolean cumpleLongitudMinima(String contrasena) {
-        return contrasena != null && contrasena.length() >= 8;
+        return contrasena != null && contrasena.length() >= MotorValidacion.LONGITUD_MINIMA;
     }
 
     // ───────────────────────────────────────────────────────────────
@@ -148,13 +148,19 @@ public class ModeloRegistro {
      * @return un valor entero entre 0 y 100 indicando el progreso total
      */
     public int calcularProgresoContrasena(String contrasena) {
-        int progreso = 0;
-
-        if (contieneLetra(contrasena)) progreso += 25;
-        if (contieneNumero(contrasena)) progreso += 25;
-        if (contieneCaracterEspecial(contrasena)) progreso += 25;
-        if (cumpleLongitudMinima(contrasena)) progreso += 25;
+        return MotorValidacion.evaluarContrasena(contrasena).getProgreso();
+    }
 
-        return progreso;
+    /**
+     * Evalúa en una sola pasada todos los requisitos de la contraseña.
+     *
+     * <p>Pensado para la retroalimentación en tiempo real: permite obtener los cuatro
+     * indicadores y el progreso con un único recorrido del texto.</p>
+     *
+     * @param contrasena caracteres de la contraseña evaluada
+     * @return evaluación con los indicadores y el progreso
+     */
+    public MotorValidacion.EvaluacionContrasena evaluarContrasena(char[] contrasena) {
+        return MotorValidacion.evaluarContrasena(contrasena);
     }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package Registro;
+
+import java.nio.CharBuffer;
+import java.util.regex.Pattern;
+
+/**
+ * Motor de reglas de validación compartido por los módulos de Registro y Login.
+ *
+ * <p>Las expresiones regulares se compilan una sola vez al cargar la clase y los
+ * requisitos de la contraseña se evalúan recorriendo el texto una única vez, de modo
+ * que la retroalimentación por tecla en {@link VistaRegistro} no crea patrones ni
+ * cadenas intermedias.</p>
+ */
+public final class MotorValidacion {
+
+    /** Patrón precompilado para el formato estándar de un correo electrónico. */
+    private static final Pattern PATRON_CORREO = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
+
+    /** Longitud mínima para que una contraseña se considere segura. */
+    public static final int LONGITUD_MINIMA = 8;
+
+    private MotorValidacion() {
+    }
+
+    /**
+     * Resultado de evaluar los requisitos de una contraseña en una sola pasada.
+     */
+    public static final class EvaluacionContrasena {
+        private final boolean letra;
+        private final boolean numero;
+        private final boolean especial;
+        private final boolean longitud;
+
+        private EvaluacionContrasena(boolean letra, boolean numero, boolean especial, boolean longitud) {
+            this.letra = letra;
+            this.numero = numero;
+            this.especial = especial;
+            this.longitud = longitud;
+        }
+
+        /** @return {@code true} si contiene al menos una letra (A-Z, a-z) */
+        public boolean contieneLetra() { return letra; }
+        /** @return {@code true} si contiene al menos un dígito (0-9) */
+        public boolean contieneNumero() { return numero; }
+        /** @return {@code true} si contiene al menos un carácter que no es letra ni número */
+        public boolean contieneCaracterEspecial() { return especial; }
+        /** @return {@code true} si alcanza la longitud mínima */
+        public boolean cumpleLongitudMinima() { return longitud; }
+
+        /**
+         * Porcentaje de requisitos cumplidos; cada uno aporta un 25%.
+         * @return valor entre 0 y 100
+         */
+        public int getProgreso() {
+            int progreso = 0;
+            if (letra) progreso += 25;
+            if (numero) progreso += 25;
+            if (especial) progreso += 25;
+            if (longitud) progreso += 25;
+            return progreso;
+        }
+    }
+
+    /** Evaluación de una contraseña nula o vacía. */
+    private static final EvaluacionContrasena VACIA = new EvaluacionContrasena(false, false, false, false);
+
+    /**
+     * Verifica el formato de un correo con el patrón precompilado.
+     *
+     * @param correo correo a validar
+     * @return {@code true} si el correo tiene un formato válido
+     */
+    public static boolean correoValido(String correo) {
+        return correo != null && PATRON_CORREO.matcher(correo).matches();
+    }
+
+    /**
+     * Evalúa todos los requisitos de la contraseña recorriéndola una sola vez.
+     *
+     * @param contrasena contraseña a evaluar (puede ser {@code null})
+     * @return evaluación con los indicadores de cada requisito
+     */
+    public static EvaluacionContrasena evaluarContrasena(CharSequence contrasena) {
+        if (contrasena == null) return VACIA;
+        int n = contrasena.length();
+        boolean letra = false, numero = false, especial = false;
+        for (int i = 0; i < n && !(letra && numero && especial); i++) {
+            char c = contrasena.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) letra = true;
+            else if (c >= '0' && c <= '9') numero = true;
+            else especial = true;
+        }
+        return new EvaluacionContrasena(letra, numero, especial, n >= LONGITUD_MINIMA);
+    }
+
+    /**
+     * Evalúa la contraseña directamente desde el arreglo del campo de contraseña,
+     * sin crear una {@link String} que quede en memoria.
+     *
+     * @param contrasena caracteres de la contraseña (puede ser {@code null})
+     * @return evaluación con los indicadores de cada requisito
+     */
+    public static EvaluacionContrasena evaluarContrasena(char[] contrasena) {
+        return contrasena == null ? VACIA : evaluarContrasena(CharBuffer.wrap(contrasena));
+    }
+}
@@ -0,0 +1,81 @@
+package Resena;
+
+/**
+ * Resumen de calificaciones de un libro: número de reseñas, suma de calificaciones y
+ * distribución por estrellas (1 a 5).
+ *
+ * <p>Lo mantiene {@link AlmacenResenas} de forma incremental al agregar, editar o eliminar
+ * reseñas, de modo que el promedio y la distribución se consultan sin recorrer las reseñas.
+ * Las instancias que se entregan fuera del paquete son copias.</p>
+ */
+public class AgregadoCalificaciones {
+
+    /** Agregado de un libro sin reseñas. */
+    public static final AgregadoCalificaciones VACIO = new AgregadoCalificaciones();
+
+    private int cantidad;
+    private long suma;
+    private final int[] histograma = new int[5];
+
+    AgregadoCalificaciones() {
+    }
+
+    AgregadoCalificaciones(int[] histograma) {
+        for (int i = 0; i < 5; i++) {
+            this.histograma[i] = histograma[i];
+            this.cantidad += histograma[i];
+            this.suma += (long) (i + 1) * histograma[i];
+        }
+    }
+
+    /** @return número de reseñas del libro */
+    public int getCantidad() { return cantidad; }
+    /** @return suma de todas las calificaciones */
+    public long getSuma() { return suma; }
+
+    /**
+     * @return calificación promedio (0.0 si no hay reseñas)
+     */
+    public double getPromedio() {
+        return cantidad == 0 ? 0.0 : (double) suma / cantidad;
+    }
+
+    /**
+     * Número de reseñas con una calificación dada.
+     * @param estrellas calificación de 1 a 5
+     * @return cantidad de reseñas con esa calificación
+     */
+    public int getCantidadConEstrellas(int estrellas) {
+        if (estrellas < 1 || estrellas > 5) throw new IllegalArgumentException("Calificación debe estar entre 1 y 5");
+        return histograma[estrellas - 1];
+    }
+
+    /**
+     * Registra una calificación.
+     * @param calificacion calificación de 1 a 5
+     */
+    void sumar(int calificacion) {
+        if (calificacion < 1 || calificacion > 5) return;
+        cantidad++;
+        suma += calificacion;
+        histograma[calificacion - 1]++;
+    }
+
+    /**
+     * Retira una calificación registrada previamente.
+     * @param calificacion calificación de 1 a 5
+     */
+    void restar(int calificacion) {
+        if (calificacion < 1 || calificacion > 5) return;
+        cantidad--;
+        suma -= calificacion;
+        histograma[calificacion - 1]--;
+    }
+
+    /**
+     * @return copia independiente de este agregado
+     */
+    AgregadoCalificaciones copia() {
+        return new AgregadoCalificaciones(histograma);
+    }
+}
@@ -0,0 +1,590 @@
+package Resena;
+
+import recursos.HilosVirtuales;
+import repository.LectorCsv;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Almacén indexado de reseñas sobre un CSV de solo anexado.
+ *
+ * <p>El archivo se interpreta como un registro: cada fila es la versión más reciente de la
+ * reseña con ese id, de modo que una edición anexa una fila nueva con el mismo id y una
+ * eliminación anexa una lápida (fila con calificación 0). En memoria se mantienen índices
+ * por id, por (libro, usuario) y, por libro, conjuntos ordenados por fecha y por calificación
+ * que permiten paginar con cursor sin ordenar; se construyen la primera vez que se usan y
+ * reconstruidos solo si otro proceso modifica el archivo. Cuando las filas obsoletas superan
+ * a las vigentes, el archivo se compacta en segundo plano (archivo temporal + reemplazo).</p>
+ *
+ * <p>También mantiene un {@link AgregadoCalificaciones} por libro, que se guarda junto al CSV
+ * ({@code <archivo>.calificaciones.csv}) con la fecha y el tamaño del CSV del que proviene.
+ * Si al arrancar coinciden con los del CSV actual, el promedio y la distribución se responden
+ * desde ese archivo sin leer las reseñas.</p>
+ *
+ * <p>Hay una única instancia por archivo en todo el proceso ({@link #para(Path)}), compartida
+ * por todos los {@link RepositorioResenas} que apunten a él.</p>
+ */
+class AlmacenResenas {
+
+    static final String CABECERA = "id,bookId,userId,rating,text,date";
+    /** Filas obsoletas mínimas antes de considerar una compactación. */
+    private static final int MINIMO_PARA_COMPACTAR = 64;
+
+    private static final Map<Path, AlmacenResenas> INSTANCIAS = new ConcurrentHashMap<>();
+    private static final ExecutorService COMPACTADOR =
+            Executors.newSingleThreadExecutor(HilosVirtuales.hilosDaemon("compactacion-resenas"));
+
+    private final Path csvPath;
+    private final Path agregadosPath;
+
+    private boolean cargado;
+    private FileTime versionArchivo;
+    private long tamanoArchivo;
+
+    private final Map<Integer, Resena> porId = new HashMap<>();
+    private final Map<String, ResenasLibro> porLibro = new HashMap<>();
+    private final Map<String, Resena> porLibroUsuario = new HashMap<>();
+    private int siguienteId = 1;
+    /** Filas del archivo que ya no representan una reseña vigente. */
+    private int filasObsoletas;
+    /** Número de escrituras realizadas; la compactación lo usa para detectar cambios concurrentes. */
+    private long escrituras;
+    private boolean compactando;
+
+    private final Map<String, AgregadoCalificaciones> agregados = new HashMap<>();
+    /** Los agregados provienen del archivo persistido y las reseñas aún no se han leído. */
+    private boolean agregadosDesdeDisco;
+    private boolean guardadoPendiente;
+
+    private AlmacenResenas(Path csvPath) {
+        this.csvPath = csvPath;
+        this.agregadosPath = csvPath.resolveSibling(csvPath.getFileName() + ".calificaciones.csv");
+    }
+
+    /**
+     * Obtiene el almacén asociado a un archivo de reseñas.
+     * @param csvPath ruta del CSV
+     * @return almacén compartido para esa ruta
+     */
+    static AlmacenResenas para(Path csvPath) {
+        return INSTANCIAS.computeIfAbsent(csvPath.toAbsolutePath().normalize(), AlmacenResenas::new);
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // CONSULTAS
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * @return todas las reseñas vigentes
+     * @throws IOException si falla la lectura inicial
+     */
+    synchronized List<Resena> todas() throws IOException {
+        asegurarCargado();
+        return new ArrayList<>(porId.values());
+    }
+
+    /**
+     * @param idLibro id del libro
+     * @return reseñas vigentes del libro, de la más reciente a la más antigua
+     * @throws IOException si falla la lectura inicial
+     */
+    synchronized List<Resena> delLibro(String idLibro) throws IOException {
+        asegurarCargado();
+        ResenasLibro delLibro = porLibro.get(idLibro);
+        return delLibro == null ? new ArrayList<>() : new ArrayList<>(delLibro.porFecha);
+    }
+
+    /**
+     * Devuelve una página de reseñas de un libro en el orden pedido, a partir de un cursor.
+     * El coste es proporcional al tamaño de la página, no al número de reseñas del libro.
+     *
+     * @param idLibro id del libro
+     * @param orden criterio de orden
+     * @param cursor cursor devuelto por la página anterior, o {@code null} para la primera
+     * @param limite número máximo de reseñas
+     * @return página de reseñas
+     * @throws IOException si falla la lectura inicial
+     */
+    synchronized PaginaResenas pagina(String idLibro, OrdenResenas orden, String cursor, int limite) throws IOException {
+        asegurarCargado();
+        ResenasLibro delLibro = porLibro.get(idLibro);
+        if (delLibro == null || limite <= 0) return new PaginaResenas(new ArrayList<>(), null);
+
+        NavigableSet<Resena> conjunto = delLibro.en(orden);
+        if (cursor != null) conjunto = conjunto.tailSet(desdeCursor(idLibro, cursor), false);
+
+        List<Resena> resenas = new ArrayList<>(Math.min(limite, conjunto.size()));
+        Iterator<Resena> it = conjunto.iterator();
+        while (it.hasNext() && resenas.size() < limite) resenas.add(it.next());
+        String siguiente = it.hasNext() ? aCursor(resenas.get(resenas.size() - 1)) : null;
+        return new PaginaResenas(resenas, siguiente);
+    }
+
+    /**
+     * Devuelve una página de reseñas por desplazamiento (más recientes primero).
+     * Recorre solo las reseñas anteriores a la página, sin ordenar.
+     *
+     * @param idLibro id del libro
+     * @param desde posición de la primera reseña (base 0)
+     * @param limite número máximo de reseñas
+     * @return reseñas de la página
+     * @throws IOException si falla la lectura inicial
+     */
+    synchronized List<Resena> rango(String idLibro, int desde, int limite) throws IOException {
+        asegurarCargado();
+        List<Resena> out = new ArrayList<>();
+        ResenasLibro delLibro = porLibro.get(idLibro);
+        if (delLibro == null) return out;
+        Iterator<Resena> it = delLibro.porFecha.iterator();
+        for (int i = 0; i < desde && it.hasNext(); i++) it.next();
+        while (it.hasNext() && out.size() < limite) out.add(it.next());
+        return out;
+    }
+
+    /**
+     * @param idResena id de la reseña
+     * @return la reseña vigente con ese id, o {@code null}
+     * @throws IOException si falla la lectura inicial
+     */
+    synchronized Resena porId(int idResena) throws IOException {
+        asegurarCargado();
+        return porId.get(idResena);
+    }
+
+    /**
+     * @param idLibro id del libro
+     * @param idUsuario id del usuario
+     * @return reseña del usuario sobre el libro, o {@code null}
+     * @throws IOException si falla la lectura inicial
+     */
+    synchronized Resena deUsuario(String idLibro, String idUsuario) throws IOException {
+        asegurarCargado();
+        return porLibroUsuario.get(clave(idLibro, idUsuario));
+    }
+
+    /**
+     * Agregado de calificaciones de un libro. Si las reseñas aún no se han leído, se intenta
+     * responder desde el archivo de agregados persistido.
+     * @param idLibro id del libro
+     * @return copia del agregado (vacío si el libro no tiene reseñas)
+     * @throws IOException si falla la lectura
+     */
+    synchronized AgregadoCalificaciones agregado(String idLibro) throws IOException {
+        if (cargado || !agregadosVigentesEnDisco()) {
+            asegurarCargado();
+        }
+        AgregadoCalificaciones a = agregados.get(idLibro);
+        return a == null ? AgregadoCalificaciones.VACIO : a.copia();
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // ESCRITURAS (una fila anexada por operación)
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Inserta una reseña nueva asignándole el siguiente id.
+     * @param resena datos de la reseña (se ignora su id)
+     * @return reseña almacenada
+     * @throws IOException si falla la escritura
+     */
+    synchronized Resena insertar(Resena resena) throws IOException {
+        asegurarCargado();
+        if (porLibroUsuario.containsKey(clave(resena.getIdLibro(), resena.getIdUsuario()))) {
+            throw new IllegalStateException("El usuario ya escribió una reseña para este libro");
+        }
+        Resena nueva = new Resena(siguienteId, resena.getIdLibro(), resena.getIdUsuario(),
+                resena.getCalificacion(), resena.getTexto(), resena.getFecha());
+        anexar(nueva);
+        aplicar(nueva);
+        return nueva;
+    }
+
+    /**
+     * Reemplaza una reseña existente por una nueva versión.
+     * @param nueva nueva versión (mismo id)
+     * @return la reseña anterior
+     * @throws IOException si falla la escritura
+     */
+    synchronized Resena reemplazar(Resena nueva) throws IOException {
+        asegurarCargado();
+        Resena anterior = porId.get(nueva.getId());
+        if (anterior == null) throw new IllegalArgumentException("Reseña no encontrada: " + nueva.getId());
+        anexar(nueva);
+        aplicar(nueva);
+        filasObsoletas++;
+        programarCompactacion();
+        return anterior;
+    }
+
+    /**
+     * Elimina una reseña anexando una lápida.
+     * @param idResena id de la reseña
+     * @return la reseña eliminada, o {@code null} si no existía
+     * @throws IOException si falla la escritura
+     */
+    synchronized Resena eliminar(int idResena) throws IOException {
+        asegurarCargado();
+        Resena anterior = porId.get(idResena);
+        if (anterior == null) return null;
+        Resena lapida = new Resena(idResena, anterior.getIdLibro(), anterior.getIdUsuario(), 0, "", Resena.fechaActualISO());
+        anexar(lapida);
+        quitar(anterior);
+        filasObsoletas += 2;
+        programarCompactacion();
+        return anterior;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // CARGA E ÍNDICES
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Construye los índices si aún no existen o si el archivo cambió fuera de este almacén.
+     */
+    private void asegurarCargado() throws IOException {
+        if (!Files.exists(csvPath)) {
+            if (!cargado || versionArchivo != null) reiniciar();
+            cargado = true;
+            versionArchivo = null;
+            return;
+        }
+        if (cargado && Files.getLastModifiedTime(csvPath).equals(versionArchivo) && Files.size(csvPath) == tamanoArchivo) {
+            return;
+        }
+        reiniciar();
+        int filas = 0;
+        try (LectorCsv csv = new LectorCsv(Files.newBufferedReader(csvPath, StandardCharsets.UTF_8), ',')) {
+            csv.siguiente(); // cabecera
+            while (csv.siguiente()) {
+                Resena r = parsear(csv);
+                if (r == null) {
+                    System.err.println("Reseña omitida; error parse: " + csv.texto());
+                    continue;
+                }
+                filas++;
+                siguienteId = Math.max(siguienteId, r.getId() + 1);
+                Resena anterior = porId.get(r.getId());
+                if (anterior != null) quitar(anterior);
+                if (r.getCalificacion() > 0) aplicar(r);
+            }
+        }
+        filasObsoletas = filas - porId.size();
+        registrarVersion();
+        cargado = true;
+        programarGuardadoAgregados();
+        programarCompactacion();
+    }
+
+    private void reiniciar() {
+        porId.clear();
+        porLibro.clear();
+        porLibroUsuario.clear();
+        agregados.clear();
+        agregadosDesdeDisco = false;
+        siguienteId = 1;
+        filasObsoletas = 0;
+    }
+
+    private void aplicar(Resena r) {
+        Resena anterior = porId.put(r.getId(), r);
+        if (anterior != null) {
+            porLibroUsuario.remove(clave(anterior.getIdLibro(), anterior.getIdUsuario()));
+            agregados.get(anterior.getIdLibro()).restar(anterior.getCalificacion());
+            porLibro.get(anterior.getIdLibro()).quitar(anterior);
+        }
+        agregados.computeIfAbsent(r.getIdLibro(), k -> new AgregadoCalificaciones()).sumar(r.getCalificacion());
+        porLibro.computeIfAbsent(r.getIdLibro(), k -> new ResenasLibro()).agregar(r);
+        porLibroUsuario.put(clave(r.getIdLibro(), r.getIdUsuario()), r);
+        siguienteId = Math.max(siguienteId, r.getId() + 1);
+    }
+
+    private void quitar(Resena r) {
+        porId.remove(r.getId());
+        AgregadoCalificaciones a = agregados.get(r.getIdLibro());
+        if (a != null) {
+            a.restar(r.getCalificacion());
+            if (a.getCantidad() == 0) agregados.remove(r.getIdLibro());
+        }
+        ResenasLibro delLibro = porLibro.get(r.getIdLibro());
+        if (delLibro != null) {
+            delLibro.quitar(r);
+            if (delLibro.porFecha.isEmpty()) porLibro.remove(r.getIdLibro());
+        }
+        porLibroUsuario.remove(clave(r.getIdLibro(), r.getIdUsuario()));
+    }
+
+    private static String clave(String idLibro, String idUsuario) {
+        return idLibro + '\u0000' + idUsuario;
+    }
+
+    /**
+     * El cursor guarda la clave de orden de la última reseña entregada (id, calificación
+     * y fecha), así sigue siendo válido aunque esa reseña se edite o elimine.
+     */
+    private static String aCursor(Resena r) {
+        return r.getId() + "|" + r.getCalificacion() + "|" + r.getFecha();
+    }
+
+    private static Resena desdeCursor(String idLibro, String cursor) {
+        String[] partes = cursor.split("\\|", 3);
+        try {
+            return new Resena(Integer.parseInt(partes[0]), idLibro, "", Integer.parseInt(partes[1]), "", partes[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+
+    /**
+     * Reseñas vigentes de un libro en dos órdenes: por fecha (recientes primero) y por
+     * calificación (mayor primero). Los empates se resuelven por id para que el orden sea total.
+     */
+    private static final class ResenasLibro {
+        private static final Comparator<Resena> POR_FECHA = Comparator
+                .comparing(Resena::getFecha, Comparator.reverseOrder())
+                .thenComparing(Resena::getId, Comparator.reverseOrder());
+        private static final Comparator<Resena> POR_CALIFICACION = Comparator
+                .comparing(Resena::getCalificacion, Comparator.reverseOrder())
+                .thenComparing(POR_FECHA);
+
+        private final NavigableSet<Resena> porFecha = new TreeSet<>(POR_FECHA);
+        private final NavigableSet<Resena> porCalificacion = new TreeSet<>(POR_CALIFICACION);
+
+        void agregar(Resena r) {
+            porFecha.add(r);
+            porCalificacion.add(r);
+        }
+
+        void quitar(Resena r) {
+            porFecha.remove(r);
+            porCalificacion.remove(r);
+        }
+
+        NavigableSet<Resena> en(OrdenResenas orden) {
+            switch (orden) {
+                case ANTIGUAS: return porFecha.descendingSet();
+                case MEJOR_VALORADAS: return porCalificacion;
+                case PEOR_VALORADAS: return porCalificacion.descendingSet();
+                default: return porFecha;
+            }
+        }
+    }
+
+    private void registrarVersion() throws IOException {
+        versionArchivo = Files.getLastModifiedTime(csvPath);
+        tamanoArchivo = Files.size(csvPath);
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // PERSISTENCIA
+    // ───────────────────────────────────────────────────────────────
+
+    private void anexar(Resena r) throws IOException {
+        if (csvPath.getParent() != null) Files.createDirectories(csvPath.getParent());
+        boolean nuevo = !Files.exists(csvPath) || Files.size(csvPath) == 0;
+        boolean cerrarLinea = !nuevo && !terminaEnSaltoDeLinea();
+        try (BufferedWriter bw = Files.newBufferedWriter(csvPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (nuevo) {
+                bw.write(CABECERA);
+                bw.newLine();
+            } else if (cerrarLinea) {
+                bw.newLine();
+            }
+            bw.write(linea(r));
+            bw.newLine();
+        }
+        escrituras++;
+        registrarVersion();
+        programarGuardadoAgregados();
+    }
+
+    private boolean terminaEnSaltoDeLinea() throws IOException {
+        try (SeekableByteChannel canal = Files.newByteChannel(csvPath)) {
+            canal.position(canal.size() - 1);
+            ByteBuffer ultimo = ByteBuffer.allocate(1);
+            return canal.read(ultimo) == 1 && ultimo.get(0) == '\n';
+        }
+    }
+
+    /**
+     * Programa la compactación si las filas obsoletas superan a las vigentes.
+     */
+    private void programarCompactacion() {
+        if (compactando || filasObsoletas < MINIMO_PARA_COMPACTAR || filasObsoletas <= porId.size()) return;
+        compactando = true;
+        COMPACTADOR.execute(this::compactar);
+    }
+
+    /**
+     * Reescribe el archivo solo con las reseñas vigentes. La escritura del temporal se hace
+     * fuera del candado; si entretanto hubo otra escritura, se descarta y se reintenta luego.
+     */
+    private void compactar() {
+        List<Resena> vigentes;
+        long escriturasAlInicio;
+        synchronized (this) {
+            vigentes = new ArrayList<>(porId.values());
+            escriturasAlInicio = escrituras;
+        }
+        Path temporal = csvPath.resolveSibling(csvPath.getFileName() + ".tmp");
+        try {
+            escribir(temporal, vigentes);
+            synchronized (this) {
+                if (escrituras == escriturasAlInicio) {
+                    Files.move(temporal, csvPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    filasObsoletas = 0;
+                    registrarVersion();
+                    programarGuardadoAgregados();
+                } else {
+                    Files.deleteIfExists(temporal);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudo compactar " + csvPath + ": " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                compactando = false;
+            }
+        }
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // AGREGADOS PERSISTIDOS
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Carga los agregados persistidos si corresponden al CSV actual.
+     * @return {@code true} si los agregados en memoria reflejan el CSV actual
+     */
+    private boolean agregadosVigentesEnDisco() throws IOException {
+        if (!Files.exists(csvPath) || !Files.exists(agregadosPath)) return false;
+        String origenActual = origen(Files.getLastModifiedTime(csvPath), Files.size(csvPath));
+        if (agregadosDesdeDisco) {
+            if (origenActual.equals(origen(versionArchivo, tamanoArchivo))) return true;
+            reiniciar();
+        }
+        Map<String, AgregadoCalificaciones> leidos = new HashMap<>();
+        try (LectorCsv csv = new LectorCsv(Files.newBufferedReader(agregadosPath, StandardCharsets.UTF_8), ',')) {
+            if (!csv.siguiente() || !origenActual.equals(csv.texto())) return false;
+            csv.siguiente(); // cabecera
+            while (csv.siguiente()) {
+                if (csv.columnas() < 6) return false;
+                int[] histograma = new int[5];
+                for (int i = 0; i < 5; i++) histograma[i] = csv.entero(i + 1);
+                leidos.put(csv.campo(0), new AgregadoCalificaciones(histograma));
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        agregados.clear();
+        agregados.putAll(leidos);
+        versionArchivo = Files.getLastModifiedTime(csvPath);
+        tamanoArchivo = Files.size(csvPath);
+        agregadosDesdeDisco = true;
+        return true;
+    }
+
+    private static String origen(FileTime modificado, long tamano) {
+        return "origen," + (modificado == null ? 0 : modificado.toMillis()) + "," + tamano;
+    }
+
+    /**
+     * Programa en segundo plano la escritura de los agregados; varias escrituras seguidas
+     * de reseñas se agrupan en un solo guardado.
+     */
+    private void programarGuardadoAgregados() {
+        if (guardadoPendiente) return;
+        guardadoPendiente = true;
+        COMPACTADOR.execute(this::guardarAgregados);
+    }
+
+    private void guardarAgregados() {
+        Map<String, AgregadoCalificaciones> copia = new HashMap<>();
+        String origen;
+        synchronized (this) {
+            guardadoPendiente = false;
+            for (Map.Entry<String, AgregadoCalificaciones> e : agregados.entrySet()) {
+                copia.put(e.getKey(), e.getValue().copia());
+            }
+            origen = origen(versionArchivo, tamanoArchivo);
+        }
+        Path temporal = agregadosPath.resolveSibling(agregadosPath.getFileName() + ".tmp");
+        try (BufferedWriter bw = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+            bw.write(origen);
+            bw.newLine();
+            bw.write("bookId,stars1,stars2,stars3,stars4,stars5");
+            bw.newLine();
+            for (Map.Entry<String, AgregadoCalificaciones> e : copia.entrySet()) {
+                StringBuilder sb = new StringBuilder(comillas(e.getKey()));
+                for (int estrellas = 1; estrellas <= 5; estrellas++) {
+                    sb.append(',').append(e.getValue().getCantidadConEstrellas(estrellas));
+                }
+                bw.write(sb.toString());
+                bw.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudieron guardar las calificaciones: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temporal, agregadosPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("No se pudieron guardar las calificaciones: " + e.getMessage());
+        }
+    }
+
+    private static void escribir(Path destino, Collection<Resena> resenas) throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(destino, StandardCharsets.UTF_8)) {
+            bw.write(CABECERA);
+            bw.newLine();
+            List<Resena> ordenadas = new ArrayList<>(resenas);
+            ordenadas.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+            for (Resena r : ordenadas) {
+                bw.write(linea(r));
+                bw.newLine();
+            }
+        }
+    }
+
+    static String linea(Resena r) {
+        return String.format("%d,%s,%s,%d,%s,%s",
+                r.getId(), comillas(r.getIdLibro()), comillas(r.getIdUsuario()), r.getCalificacion(),
+                comillas(r.getTexto()), comillas(r.getFecha()));
+    }
+
+    private static Resena parsear(LectorCsv fila) {
+        if (fila.columnas() < 6) return null;
+        try {
+            return new Resena(fila.entero(0), fila.campo(1), fila.campo(2), fila.entero(3), fila.campo(4), fila.campo(5));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static String comillas(String s) {
+        if (s == null) return "";
+        String safe = s.replace("\"", "\"\"");
+        return "\"" + safe + "\"";
+    }
+}
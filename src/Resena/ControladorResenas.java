@@ -1,5 +1,6 @@
 package Resena;
 
+import Auth.Sesion;
 import Catalogo.ControladorPrestamo;
 
 import java.io.IOException;
@@ -15,6 +16,7 @@ import java.util.Optional;
 public class ControladorResenas {
     private final RepositorioResenas repositorio;
     private final ControladorPrestamo controladorPrestamos;
+    private final Sesion sesion;
 
     /**
      * Crea el controlador con un repositorio apuntando al CSV dado.    
@@ -22,8 +24,28 @@ public class ControladorResenas {
      * @param controladorPrestamos controlador de préstamos para validar acceso
      */
     public ControladorResenas(String csvPath, ControladorPrestamo controladorPrestamos) {
+        this(csvPath, controladorPrestamos, null);
+    }
+
+    /**
+     * Crea el controlador para una sesión concreta: las reseñas se crean, editan y
+     * eliminan en nombre del usuario de esa sesión.
+     * @param csvPath ruta al CSV donde se almacenan las reseñas
+     * @param controladorPrestamos controlador de préstamos para validar acceso
+     * @param sesion sesión del usuario; si es {@code null} se usa el usuario actual
+     */
+    public ControladorResenas(String csvPath, ControladorPrestamo controladorPrestamos, Sesion sesion) {
         this.repositorio = new RepositorioResenas(csvPath);
         this.controladorPrestamos = controladorPrestamos;
+        this.sesion = sesion;
+    }
+
+    /**
+     * Id del usuario en cuyo nombre opera el controlador.
+     * @return id del usuario de la sesión, o el usuario actual si no hay sesión
+     */
+    private String idUsuario() {
+        return sesion != null ? sesion.getUsuario() : controladorPrestamos.obtenerIdUsuarioActual();
     }
 
     /**
@@ -35,10 +57,22 @@ public class ControladorResenas {
      * @throws IOException si falla la lectura
      */
     public List<Resena> obtenerResenas(String idLibro, int pagina, int tamanoPagina) throws IOException {
-        List<Resena> todas = repositorio.cargarPorLibro(idLibro);
         int desde = Math.max(0, (pagina - 1) * tamanoPagina);
-        int hasta = Math.min(todas.size(), desde + tamanoPagina);
-        return todas.subList(desde, hasta);
+        return repositorio.cargarRangoPorLibro(idLibro, desde, tamanoPagina);
+    }
+
+    /**
+     * Obtiene una página de reseñas con paginación por cursor; el coste depende solo
+     * del tamaño de la página.
+     * @param idLibro id del libro
+     * @param orden criterio de orden
+     * @param cursor cursor devuelto por la página anterior, o {@code null} para la primera
+     * @param tamanoPagina número de reseñas por página
+     * @return página de reseñas
+     * @throws IOException si falla la lectura
+     */
+    public PaginaResenas obtenerPaginaResenas(String idLibro, OrdenResenas orden, String cursor, int tamanoPagina) throws IOException {
+        return repositorio.cargarPagina(idLibro, orden, cursor, tamanoPagina);
     }
 
     /**
@@ -51,6 +85,16 @@ public class ControladorResenas {
         return repositorio.obtenerPromedioCalificacion(idLibro);
     }
 
+    /**
+     * Obtiene el resumen de calificaciones del libro (cantidad, promedio y distribución por estrellas).
+     * @param idLibro id del libro
+     * @return agregado de calificaciones
+     * @throws IOException si falla la lectura
+     */
+    public AgregadoCalificaciones obtenerAgregado(String idLibro) throws IOException {
+        return repositorio.obtenerAgregado(idLibro);
+    }
+
     /**
      * Busca la reseña del usuario actual para el libro dado.
      * @param idLibro id del libro
@@ -58,8 +102,7 @@ public class ControladorResenas {
      * @throws IOException si falla la lectura
      */
     public Optional<Resena> buscarResenaUsuario(String idLibro) throws IOException {
-        String idUsuario = controladorPrestamos.obtenerIdUsuarioActual();
-        return repositorio.buscarPorLibroYUsuario(idLibro, idUsuario);
+        return repositorio.buscarPorLibroYUsuario(idLibro, idUsuario());
     }
 
     /**
@@ -71,12 +114,12 @@ public class ControladorResenas {
      * @throws IOException si falla la escritura
      */
     public Resena enviarResena(String idLibro, int calificacion, String texto) throws IOException {
-        String idUsuario = controladorPrestamos.obtenerIdUsuarioActual();
+        String idUsuario = idUsuario();
         if (calificacion < 1 || calificacion > 5) throw new IllegalArgumentException("Calificación debe estar entre 1 y 5");
         if (texto != null) {
             if (texto.length() < 10 || texto.length() > 500) throw new IllegalArgumentException("Texto debe ser entre 10 y 500 caracteres");
         }
-        if (!controladorPrestamos.usuarioTieneLibro(idLibro)) {
+        if (!controladorPrestamos.usuarioTieneLibro(idUsuario, idLibro)) {
             throw new IllegalStateException("Solo puedes reseñar si completaste el préstamo del libro");
         }
         Resena r = new Resena(0, idLibro, idUsuario, calificacion, texto == null ? "" : texto, Resena.fechaActualISO());
@@ -94,9 +137,9 @@ public class ControladorResenas {
     public Resena actualizarResena(int idResena, int calificacion, String texto) throws IOException {
         if (calificacion < 1 || calificacion > 5) throw new IllegalArgumentException("Calificación debe estar entre 1 y 5");
         if (texto != null && (texto.length() < 10 || texto.length() > 500)) throw new IllegalArgumentException("Texto debe ser entre 10 y 500 caracteres");
-        Optional<Resena> r = repositorio.cargarTodas().stream().filter(rr -> rr.getId() == idResena).findFirst();
+        Optional<Resena> r = repositorio.buscarPorId(idResena);
         if (r.isEmpty()) throw new IllegalArgumentException("Reseña no encontrada");
-        if (!r.get().getIdUsuario().equals(controladorPrestamos.obtenerIdUsuarioActual())) throw new IllegalStateException("No puedes editar una reseña que no es tuya");
+        if (!r.get().getIdUsuario().equals(idUsuario())) throw new IllegalStateException("No puedes editar una reseña que no es tuya");
         return repositorio.actualizarResena(idResena, calificacion, texto);
     }
 
@@ -107,9 +150,18 @@ public class ControladorResenas {
      * @throws IOException si falla la escritura
      */
     public boolean eliminarResena(int idResena) throws IOException {
-        Optional<Resena> r = repositorio.cargarTodas().stream().filter(rr -> rr.getId() == idResena).findFirst();
+        Optional<Resena> r = repositorio.buscarPorId(idResena);
         if (r.isEmpty()) throw new IllegalArgumentException("Reseña no encontrada");
-        if (!r.get().getIdUsuario().equals(controladorPrestamos.obtenerIdUsuarioActual())) throw new IllegalStateException("No puedes eliminar una reseña que no es tuya");
+        if (!r.get().getIdUsuario().equals(idUsuario())) throw new IllegalStateException("No puedes eliminar una reseña que no es tuya");
         return repositorio.eliminarResena(idResena);
     }
+
+    /**
+     * Indica si el usuario de la sesión puede reseñar el libro (tiene el préstamo).
+     * @param idLibro id del libro
+     * @return true si el usuario tiene el libro
+     */
+    public boolean puedeResenar(String idLibro) {
+        return controladorPrestamos.usuarioTieneLibro(idUsuario(), idLibro);
+    }
 }
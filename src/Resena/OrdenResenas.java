@@ -0,0 +1,26 @@
+package Resena;
+
+/**
+ * Criterios de orden disponibles al paginar las reseñas de un libro.
+ */
+public enum OrdenResenas {
+    /** Más recientes primero (por fecha y, a igual fecha, por id descendente). */
+    RECIENTES("Más recientes"),
+    /** Más antiguas primero. */
+    ANTIGUAS("Más antiguas"),
+    /** Mayor calificación primero; a igual calificación, las más recientes. */
+    MEJOR_VALORADAS("Mejor valoradas"),
+    /** Menor calificación primero; a igual calificación, las más antiguas. */
+    PEOR_VALORADAS("Peor valoradas");
+
+    private final String etiqueta;
+
+    OrdenResenas(String etiqueta) {
+        this.etiqueta = etiqueta;
+    }
+
+    @Override
+    public String toString() {
+        return etiqueta;
+    }
+}
@@ -0,0 +1,27 @@
+package Resena;
+
+import java.util.List;
+
+/**
+ * Página de reseñas obtenida con paginación por cursor.
+ *
+ * <p>El cursor identifica la última reseña entregada (su posición en el orden pedido), de
+ * modo que la página siguiente continúa justo después aunque entretanto se hayan agregado
+ * o eliminado reseñas.</p>
+ */
+public class PaginaResenas {
+    private final List<Resena> resenas;
+    private final String cursorSiguiente;
+
+    PaginaResenas(List<Resena> resenas, String cursorSiguiente) {
+        this.resenas = resenas;
+        this.cursorSiguiente = cursorSiguiente;
+    }
+
+    /** @return reseñas de la página */
+    public List<Resena> getResenas() { return resenas; }
+    /** @return cursor para pedir la página siguiente, o {@code null} si no hay más */
+    public String getCursorSiguiente() { return cursorSiguiente; }
+    /** @return {@code true} si existen más reseñas después de esta página */
+    public boolean hayMas() { return cursorSiguiente != null; }
+}
@@ -1,66 +1,39 @@
 package Resena;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Repositorio que maneja la persistencia de las reseñas en CSV.
  *
  * Implementa operaciones básicas de carga y almacenado: cargar todas, por libro, búsqueda por par
  * (libro, usuario), agregar, actualizar y eliminar una reseña. Utiliza un CSV con cabecera
- * [id,bookId,userId,rating,text,date].
+ * [id,bookId,userId,rating,text,date]. Las lecturas usan los índices en memoria de
+ * {@link AlmacenResenas} y cada escritura anexa una sola fila al archivo.
  */
 public class RepositorioResenas {
-    private final Path csvPath;
+    /** Ruta del CSV de reseñas usado por la aplicación. */
+    public static final String RUTA_POR_DEFECTO = "datos/reviews.csv";
+
+    private final AlmacenResenas almacen;
 
     /**
      * Construye un repositorio que opera sobre un CSV en la ruta indicada.
      * @param csvPath ruta al archivo CSV de reseñas
      */
     public RepositorioResenas(String csvPath) {
-        this.csvPath = Path.of(csvPath);
+        this.almacen = AlmacenResenas.para(Path.of(csvPath));
     }
 
     /**
-     * Carga todas las reseñas desde el CSV.
+     * Carga todas las reseñas vigentes.
      * @return lista de reseñas cargadas
      * @throws IOException si hay problemas de E/S
      */
     public List<Resena> cargarTodas() throws IOException {
-        List<Resena> out = new ArrayList<>();
-        if (!Files.exists(csvPath)) return out;
-
-        try (BufferedReader br = Files.newBufferedReader(csvPath, StandardCharsets.UTF_8)) {
-            String linea = br.readLine(); // header
-            if (linea == null) return out;
-            String regex = ",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)";
-            while ((linea = br.readLine()) != null) {
-                if (linea.isBlank()) continue;
-                String[] cols = linea.split(regex, -1);
-                for (int i = 0; i < cols.length; i++) cols[i] = descomillas(cols[i].trim());
-                try {
-                    int id = Integer.parseInt(cols[0]);
-                    String idLibro = cols[1];
-                    String idUsuario = cols[2];
-                    int calificacion = Integer.parseInt(cols[3]);
-                    String texto = cols[4];
-                    String fecha = cols[5];
-                    out.add(new Resena(id, idLibro, idUsuario, calificacion, texto, fecha));
-                } catch (Exception ex) {
-                    System.err.println("Reseña omitida; error parse: " + linea);
-                }
-            }
-        }
-        return out;
+        return almacen.todas();
     }
 
     /**
@@ -71,9 +44,43 @@ public class RepositorioResenas {
      * @throws IOException si ocurre un problema de lectura
      */
     public List<Resena> cargarPorLibro(String idLibro) throws IOException {
-        return cargarTodas().stream().filter(r -> r.getIdLibro().equals(idLibro))
-                .sorted(Comparator.comparing(Resena::getFecha).reversed())
-                .collect(Collectors.toList());
+        return almacen.delLibro(idLibro);
+    }
+
+    /**
+     * Carga un tramo de las reseñas de un libro (más recientes primero) sin ordenar ni copiar
+     * las demás.
+     * @param idLibro id del libro
+     * @param desde posición de la primera reseña (base 0)
+     * @param limite número máximo de reseñas
+     * @return reseñas del tramo
+     * @throws IOException si ocurre un problema de lectura
+     */
+    public List<Resena> cargarRangoPorLibro(String idLibro, int desde, int limite) throws IOException {
+        return almacen.rango(idLibro, desde, limite);
+    }
+
+    /**
+     * Carga una página de reseñas de un libro con paginación por cursor.
+     * @param idLibro id del libro
+     * @param orden criterio de orden
+     * @param cursor cursor de la página anterior, o {@code null} para la primera
+     * @param limite número máximo de reseñas
+     * @return página de reseñas con el cursor de la siguiente
+     * @throws IOException si ocurre un problema de lectura
+     */
+    public PaginaResenas cargarPagina(String idLibro, OrdenResenas orden, String cursor, int limite) throws IOException {
+        return almacen.pagina(idLibro, orden, cursor, limite);
+    }
+
+    /**
+     * Busca una reseña por su id.
+     * @param idResena id de la reseña
+     * @return Optional con la reseña si existe
+     * @throws IOException si ocurre un problema de lectura
+     */
+    public Optional<Resena> buscarPorId(int idResena) throws IOException {
+        return Optional.ofNullable(almacen.porId(idResena));
     }
 
     /**
@@ -84,7 +91,7 @@ public class RepositorioResenas {
      * @throws IOException si ocurre un problema de lectura
      */
     public Optional<Resena> buscarPorLibroYUsuario(String idLibro, String idUsuario) throws IOException {
-        return cargarTodas().stream().filter(r -> r.getIdLibro().equals(idLibro) && r.getIdUsuario().equals(idUsuario)).findFirst();
+        return Optional.ofNullable(almacen.deUsuario(idLibro, idUsuario));
     }
 
     /**
@@ -94,15 +101,8 @@ public class RepositorioResenas {
      * @throws IOException si ocurre un error de escritura
      */
     public Resena agregarResena(Resena resena) throws IOException {
-        List<Resena> all = cargarTodas();
-        Optional<Resena> existing = all.stream().filter(r -> r.getIdLibro().equals(resena.getIdLibro()) && r.getIdUsuario().equals(resena.getIdUsuario())).findAny();
-        if (existing.isPresent()) throw new IllegalStateException("El usuario ya escribió una reseña para este libro");
-
-        int siguienteId = all.stream().mapToInt(Resena::getId).max().orElse(0) + 1;
-        Resena nueva = new Resena(siguienteId, resena.getIdLibro(), resena.getIdUsuario(), resena.getCalificacion(), resena.getTexto(), Resena.fechaActualISO());
-        all.add(nueva);
-        guardarTodas(all);
-        return nueva;
+        return almacen.insertar(new Resena(0, resena.getIdLibro(), resena.getIdUsuario(),
+                resena.getCalificacion(), resena.getTexto(), Resena.fechaActualISO()));
     }
 
     /**
@@ -114,20 +114,11 @@ public class RepositorioResenas {
      * @throws IOException si ocurre un error de escritura
      */
     public Resena actualizarResena(int idResena, int calificacion, String texto) throws IOException {
-        List<Resena> all = cargarTodas();
-        boolean encontrado = false;
-        for (int i = 0; i < all.size(); i++) {
-            Resena r = all.get(i);
-            if (r.getId() == idResena) {
-                Resena actualizado = new Resena(r.getId(), r.getIdLibro(), r.getIdUsuario(), calificacion, texto, Resena.fechaActualISO());
-                all.set(i, actualizado);
-                encontrado = true;
-                break;
-            }
-        }
-        if (!encontrado) throw new IllegalArgumentException("Reseña no encontrada: " + idResena);
-        guardarTodas(all);
-        return all.stream().filter(r -> r.getId() == idResena).findFirst().get();
+        Resena r = almacen.porId(idResena);
+        if (r == null) throw new IllegalArgumentException("Reseña no encontrada: " + idResena);
+        Resena actualizado = new Resena(r.getId(), r.getIdLibro(), r.getIdUsuario(), calificacion, texto, Resena.fechaActualISO());
+        almacen.reemplazar(actualizado);
+        return actualizado;
     }
 
     /**
@@ -137,49 +128,26 @@ public class RepositorioResenas {
      * @throws IOException si ocurre un error de escritura
      */
     public boolean eliminarResena(int idResena) throws IOException {
-        List<Resena> all = cargarTodas();
-        boolean removed = all.removeIf(r -> r.getId() == idResena);
-        if (removed) guardarTodas(all);
-        return removed;
+        return almacen.eliminar(idResena) != null;
     }
 
     /**
-     * Calcula la calificación promedio de un libro a partir de sus reseñas.
+     * Obtiene la calificación promedio de un libro desde su agregado de calificaciones.
      * @param idLibro id del libro
      * @return promedio de calificación (0.0 si no hay reseñas)
      * @throws IOException si ocurre un problema de lectura
      */
     public double obtenerPromedioCalificacion(String idLibro) throws IOException {
-        List<Resena> forBook = cargarPorLibro(idLibro);
-        if (forBook.isEmpty()) return 0.0;
-        double sum = forBook.stream().mapToInt(Resena::getCalificacion).sum();
-        return sum / forBook.size();
+        return almacen.agregado(idLibro).getPromedio();
     }
 
     /**
-     * Guarda la lista de reseñas en el CSV (sobrescribe todo).
+     * Obtiene el resumen de calificaciones (cantidad, promedio y distribución) de un libro.
+     * @param idLibro id del libro
+     * @return agregado de calificaciones del libro
+     * @throws IOException si ocurre un problema de lectura
      */
-    private void guardarTodas(List<Resena> all) throws IOException {
-        Files.createDirectories(csvPath.getParent());
-        try (BufferedWriter bw = Files.newBufferedWriter(csvPath, StandardCharsets.UTF_8)) {
-            bw.write("id,bookId,userId,rating,text,date");
-            bw.newLine();
-            for (Resena r : all) {
-                bw.write(String.format("%d,%s,%s,%d,%s,%s",
-                        r.getId(), comillas(r.getIdLibro()), comillas(r.getIdUsuario()), r.getCalificacion(), comillas(r.getTexto()), comillas(r.getFecha())));
-                bw.newLine();
-            }
-        }
-    }
-
-    private static String descomillas(String s) {
-        if (s.length() >= 2 && s.startsWith("\"") && s.endsWith("\"")) return s.substring(1, s.length() - 1);
-        return s;
-    }
-
-    private static String comillas(String s) {
-        if (s == null) return "";
-        String safe = s.replace("\"", "\"\"");
-        return "\"" + safe + "\"";
+    public AgregadoCalificaciones obtenerAgregado(String idLibro) throws IOException {
+        return almacen.agregado(idLibro);
     }
 }
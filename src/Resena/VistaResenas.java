@@ -1,13 +1,14 @@
 package Resena;
 
+import Auth.SessionManager;
 import Catalogo.ControladorCatalogo;
 import Catalogo.ControladorPrestamo;
+import repository.EjecutorRepositorios;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
 import java.awt.*;
-import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,13 +19,16 @@ import java.util.Optional;
  * y botones para editar/eliminar la reseña propia.
  */
 public class VistaResenas extends JPanel {
+    /** Ruta del CSV de reseñas. */
+    private static final String RUTA_RESENAS = RepositorioResenas.RUTA_POR_DEFECTO;
+
     private final String idLibro;
     private final ControladorResenas controlador;
     private final ControladorPrestamo controladorPrestamos;
 
     private final JPanel listaResenas = new JPanel();
-    private int pagina = 1;
     private final int tamanoPagina = 5;
+    private final JComboBox<OrdenResenas> cbOrden = new JComboBox<>(OrdenResenas.values());
 
     // controles del formulario
     private final ComponenteEstrellas estrellasInput;
@@ -37,6 +41,10 @@ public class VistaResenas extends JPanel {
     private final JLabel lblPromedio;
     private final ComponenteEstrellas estrellasPromedio;
     private Resena resenaUsuario = null;
+    /** Botón "Ver más..." mostrado al final de la lista, o {@code null} si no hay más páginas. */
+    private JButton btnVerMas;
+    /** Descarta las páginas pedidas antes del último reinicio de la lista. */
+    private int generacionResenas;
 
     /**
      * Crea la vista de reseñas para un libro.
@@ -47,7 +55,7 @@ public class VistaResenas extends JPanel {
     public VistaResenas(String idLibro, ControladorCatalogo catalogController, ControladorPrestamo controladorPrestamos) {
         this.idLibro = idLibro;
         this.controladorPrestamos = controladorPrestamos;
-        this.controlador = new ControladorResenas("datos/reviews.csv", controladorPrestamos);
+        this.controlador = new ControladorResenas(RUTA_RESENAS, controladorPrestamos, SessionManager.obtenerSesionActual());
 
         setLayout(new GridLayout(1, 2, 15, 0)); 
         setBorder(BorderFactory.createTitledBorder("Comentarios y Valoraciones"));
@@ -128,6 +136,12 @@ public class VistaResenas extends JPanel {
         
         panelDerecho.add(listScroll, BorderLayout.CENTER);
 
+        JPanel panelOrden = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+        cbOrden.setFont(new Font("Arial", Font.PLAIN, 11));
+        cbOrden.addActionListener(e -> cargarPaginaResenas(null));
+        panelOrden.add(cbOrden);
+        panelDerecho.add(panelOrden, BorderLayout.NORTH);
+
         add(panelIzquierdo); 
         add(panelDerecho);   
 
@@ -136,64 +150,83 @@ public class VistaResenas extends JPanel {
 
     /**
      * Refresca la vista: recalcula promedio, carga la reseña del usuario actual y lista de reseñas.
+     * La lectura del CSV se hace en segundo plano y la vista se actualiza en el EDT.
      */
     private void refresh() {
-        SwingUtilities.invokeLater(() -> {
-            try {
-                double promedio = controlador.obtenerPromedio(idLibro);
-                lblPromedio.setText(String.format("%.1f / 5.0", promedio));
-                estrellasPromedio.setValor((int) Math.round(promedio));
-
-                Optional<Resena> ur = controlador.buscarResenaUsuario(idLibro);
-                resenaUsuario = ur.orElse(null);
-                
-                // Lógica de visualización de botones actualizada
-                if (resenaUsuario != null) {
-                    estrellasInput.setValor(resenaUsuario.getCalificacion());
-                    txtResena.setText(resenaUsuario.getTexto());
-                    btnEnviar.setText("Modificar");
-                    btnEliminar.setVisible(true); // Mostrar botón eliminar
-                } else {
-                    estrellasInput.setValor(0);
-                    txtResena.setText("");
-                    btnEnviar.setText("Enviar Reseña");
-                    btnEliminar.setVisible(false); // Ocultar botón eliminar
-                }
-
-                boolean permitido = controladorPrestamos.usuarioTieneLibro(idLibro);
-                
-                estrellasInput.setVisible(permitido);
-                txtResena.setEnabled(permitido);
-                btnEnviar.setEnabled(permitido);
-                
-                if (!permitido) {
-                    txtResena.setToolTipText("Debes prestar o leer el libro para opinar");
-                    txtResena.setText("Debes leer el libro para opinar."); 
-                    btnEliminar.setVisible(false);
-                } else {
-                    txtResena.setToolTipText(null);
-                    if(resenaUsuario == null && txtResena.getText().startsWith("Debes")) txtResena.setText("");
-                }
-
-                cargarPaginaResenas(1);
-
-            } catch (IOException ex) {
-                JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        EjecutorRepositorios.enEdt(EjecutorRepositorios.enviarLectura(RUTA_RESENAS, () -> new EstadoResenas(
+                controlador.obtenerAgregado(idLibro),
+                controlador.buscarResenaUsuario(idLibro),
+                controlador.puedeResenar(idLibro)
+        )), datos -> {
+            double promedio = datos.agregado.getPromedio();
+            lblPromedio.setText(String.format("%.1f / 5.0 (%d)", promedio, datos.agregado.getCantidad()));
+            lblPromedio.setToolTipText(distribucion(datos.agregado));
+            estrellasPromedio.setValor((int) Math.round(promedio));
+
+            resenaUsuario = datos.resenaUsuario.orElse(null);
+
+            // Lógica de visualización de botones actualizada
+            if (resenaUsuario != null) {
+                estrellasInput.setValor(resenaUsuario.getCalificacion());
+                txtResena.setText(resenaUsuario.getTexto());
+                btnEnviar.setText("Modificar");
+                btnEliminar.setVisible(true); // Mostrar botón eliminar
+            } else {
+                estrellasInput.setValor(0);
+                txtResena.setText("");
+                btnEnviar.setText("Enviar Reseña");
+                btnEliminar.setVisible(false); // Ocultar botón eliminar
+            }
+
+            boolean permitido = datos.permitido;
+
+            estrellasInput.setVisible(permitido);
+            txtResena.setEnabled(permitido);
+            btnEnviar.setEnabled(permitido);
+
+            if (!permitido) {
+                txtResena.setToolTipText("Debes prestar o leer el libro para opinar");
+                txtResena.setText("Debes leer el libro para opinar.");
+                btnEliminar.setVisible(false);
+            } else {
+                txtResena.setToolTipText(null);
+                if(resenaUsuario == null && txtResena.getText().startsWith("Debes")) txtResena.setText("");
             }
-        });
+
+            cargarPaginaResenas(null);
+        }, this::mostrarError);
     }
 
     /**
-     * Carga una página de reseñas (paginación simple) y actualiza la lista.
-     * @param paginaCargar página que cargar (1-based)
-     * @throws IOException si ocurre un error en la lectura
+     * Carga en segundo plano una página de reseñas en el orden elegido.
+     * Sin cursor se reinicia la lista; con cursor la página se añade al final.
+     * Las respuestas pedidas antes del último reinicio se descartan.
+     * @param cursor cursor de la página anterior, o {@code null} para la primera
      */
-    private void cargarPaginaResenas(int paginaCargar) throws IOException {
-        this.pagina = paginaCargar;
-        listaResenas.removeAll();
-        
-        List<Resena> todas = controlador.obtenerResenas(idLibro, 1, Integer.MAX_VALUE);
-        if (todas.isEmpty()) {
+    private void cargarPaginaResenas(String cursor) {
+        OrdenResenas orden = (OrdenResenas) cbOrden.getSelectedItem();
+        int generacion = cursor == null ? ++generacionResenas : generacionResenas;
+        EjecutorRepositorios.enEdt(EjecutorRepositorios.enviarLectura(RUTA_RESENAS,
+                () -> controlador.obtenerPaginaResenas(idLibro, orden, cursor, tamanoPagina)), pagina -> {
+            if (generacion != generacionResenas) return;
+            mostrarPaginaResenas(cursor == null, pagina);
+        }, this::mostrarError);
+    }
+
+    /**
+     * Muestra una página de reseñas ya cargada.
+     * @param reiniciar si true, se vacía la lista antes de añadir la página
+     * @param pagina página de reseñas
+     */
+    private void mostrarPaginaResenas(boolean reiniciar, PaginaResenas pagina) {
+        if (reiniciar) {
+            listaResenas.removeAll();
+        } else if (btnVerMas != null) {
+            listaResenas.remove(btnVerMas);
+        }
+        btnVerMas = null;
+
+        if (reiniciar && pagina.getResenas().isEmpty()) {
             JLabel lblVacio = new JLabel("<html><center>Sé el primero en<br>opinar sobre este libro.</center></html>");
             lblVacio.setHorizontalAlignment(SwingConstants.CENTER);
             lblVacio.setForeground(Color.GRAY);
@@ -203,29 +236,49 @@ public class VistaResenas extends JPanel {
             listaResenas.add(centro);
         }
 
-        List<Resena> resenas = controlador.obtenerResenas(idLibro, pagina, tamanoPagina);
-        for (Resena r : resenas) {
+        for (Resena r : pagina.getResenas()) {
             listaResenas.add(crearTarjetaResena(r));
             listaResenas.add(Box.createVerticalStrut(8));
         }
 
-        if (pagina * tamanoPagina < todas.size()) {
+        if (pagina.hayMas()) {
             JButton btnMas = new JButton("Ver más...");
             btnMas.setAlignmentX(Component.CENTER_ALIGNMENT);
             btnMas.addActionListener(e -> {
-                try {
-                    cargarPaginaResenas(this.pagina + 1);
-                } catch (IOException ex) {
-                    ex.printStackTrace();
-                }
+                btnMas.setEnabled(false);
+                cargarPaginaResenas(pagina.getCursorSiguiente());
             });
             listaResenas.add(btnMas);
+            btnVerMas = btnMas;
         }
 
         listaResenas.revalidate();
         listaResenas.repaint();
     }
 
+    /**
+     * Texto con la distribución de calificaciones por estrellas (de 5 a 1).
+     * @param agregado agregado de calificaciones del libro
+     * @return texto HTML para el tooltip
+     */
+    private static String distribucion(AgregadoCalificaciones agregado) {
+        if (agregado.getCantidad() == 0) return null;
+        StringBuilder sb = new StringBuilder("<html>");
+        for (int estrellas = 5; estrellas >= 1; estrellas--) {
+            sb.append(estrellas).append(" ★: ").append(agregado.getCantidadConEstrellas(estrellas));
+            if (estrellas > 1) sb.append("<br>");
+        }
+        return sb.append("</html>").toString();
+    }
+
+    /**
+     * Muestra un error de lectura/escritura de reseñas.
+     * @param ex causa del error
+     */
+    private void mostrarError(Throwable ex) {
+        JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
     /**
      * Crea una tarjeta visual para una reseña con información del autor, fecha, calificación y texto.
      * Si el usuario actual es el autor, incluye botones de editar y eliminar.
@@ -285,20 +338,14 @@ public class VistaResenas extends JPanel {
             return;
         }
 
-        SwingUtilities.invokeLater(() -> {
-            try {
-                if (resenaUsuario == null) {
-                    controlador.enviarResena(idLibro, calificacion, texto);
-                    JOptionPane.showMessageDialog(this, "Reseña enviada", "Éxito", JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    controlador.actualizarResena(resenaUsuario.getId(), calificacion, texto);
-                    JOptionPane.showMessageDialog(this, "Reseña actualizada", "Éxito", JOptionPane.INFORMATION_MESSAGE);
-                }
-                refresh();
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
-        });
+        Resena existente = resenaUsuario;
+        EjecutorRepositorios.enEdt(EjecutorRepositorios.enviar(RUTA_RESENAS, () -> existente == null
+                ? controlador.enviarResena(idLibro, calificacion, texto)
+                : controlador.actualizarResena(existente.getId(), calificacion, texto)), r -> {
+            String mensaje = existente == null ? "Reseña enviada" : "Reseña actualizada";
+            JOptionPane.showMessageDialog(this, mensaje, "Éxito", JOptionPane.INFORMATION_MESSAGE);
+            refresh();
+        }, this::mostrarError);
     }
 
     // Nueva función para manejar la eliminación desde el botón del formulario
@@ -307,14 +354,27 @@ public class VistaResenas extends JPanel {
 
         int ok = JOptionPane.showConfirmDialog(this, "¿Estás seguro de que deseas eliminar tu reseña?", "Confirmar Eliminación", JOptionPane.YES_NO_OPTION);
         if (ok == JOptionPane.YES_OPTION) {
-            try {
-                controlador.eliminarResena(resenaUsuario.getId());
+            int idResena = resenaUsuario.getId();
+            EjecutorRepositorios.enEdt(EjecutorRepositorios.enviar(RUTA_RESENAS, () -> controlador.eliminarResena(idResena)), eliminada -> {
                 resenaUsuario = null; // Limpiar referencia local
                 refresh(); // Esto ocultará el botón eliminar y reseteará el formulario
                 JOptionPane.showMessageDialog(this, "Reseña eliminada correctamente.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
-            } catch (IOException ex) {
-                JOptionPane.showMessageDialog(this, "Error al eliminar: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            }, ex -> JOptionPane.showMessageDialog(this, "Error al eliminar: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+        }
+    }
+
+    /**
+     * Datos de cabecera leídos en segundo plano por {@link #refresh()}.
+     */
+    private static final class EstadoResenas {
+        private final AgregadoCalificaciones agregado;
+        private final Optional<Resena> resenaUsuario;
+        private final boolean permitido;
+
+        EstadoResenas(AgregadoCalificaciones agregado, Optional<Resena> resenaUsuario, boolean permitido) {
+            this.agregado = agregado;
+            this.resenaUsuario = resenaUsuario;
+            this.permitido = permitido;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,127 @@
+package Servidor;
+
+import Catalogo.Libro;
+import Resena.PaginaResenas;
+import Resena.Resena;
+
+import java.util.List;
+
+/**
+ * Serialización mínima a JSON de los modelos expuestos por {@link ServidorHttp}.
+ *
+ * <p>Se escribe directamente sobre un {@link StringBuilder} para no añadir dependencias
+ * externas al proyecto.</p>
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Serializa un libro del catálogo.
+     * @param sb destino
+     * @param l libro
+     * @return el mismo {@code sb}
+     */
+    static StringBuilder libro(StringBuilder sb, Libro l) {
+        sb.append('{');
+        campo(sb, "id", l.getId()).append(',');
+        campo(sb, "titulo", l.getTitulo()).append(',');
+        campo(sb, "autores", l.getAutores()).append(',');
+        campo(sb, "categoria", l.getCategoria()).append(',');
+        campo(sb, "isbn", l.getIsbn()).append(',');
+        campo(sb, "formato", l.getFormato()).append(',');
+        sb.append("\"totalCopias\":").append(l.getTotalCopias()).append(',');
+        sb.append("\"copiasDisponibles\":").append(l.getCopiasDisponibles()).append(',');
+        sb.append("\"disponible\":").append(l.isDisponible());
+        return sb.append('}');
+    }
+
+    /**
+     * Serializa una lista de libros como arreglo JSON.
+     * @param libros libros a serializar
+     * @return texto JSON
+     */
+    static String libros(List<Libro> libros) {
+        StringBuilder sb = new StringBuilder(libros.size() * 256).append('[');
+        for (int i = 0; i < libros.size(); i++) {
+            if (i > 0) sb.append(',');
+            libro(sb, libros.get(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Serializa una reseña.
+     * @param sb destino
+     * @param r reseña
+     * @return el mismo {@code sb}
+     */
+    static StringBuilder resena(StringBuilder sb, Resena r) {
+        sb.append('{');
+        sb.append("\"id\":").append(r.getId()).append(',');
+        campo(sb, "idLibro", r.getIdLibro()).append(',');
+        campo(sb, "idUsuario", r.getIdUsuario()).append(',');
+        sb.append("\"calificacion\":").append(r.getCalificacion()).append(',');
+        campo(sb, "texto", r.getTexto()).append(',');
+        campo(sb, "fecha", r.getFecha());
+        return sb.append('}');
+    }
+
+    /**
+     * Serializa una lista de reseñas como arreglo JSON.
+     * @param resenas reseñas a serializar
+     * @return texto JSON
+     */
+    static String resenas(List<Resena> resenas) {
+        StringBuilder sb = new StringBuilder(resenas.size() * 192).append('[');
+        for (int i = 0; i < resenas.size(); i++) {
+            if (i > 0) sb.append(',');
+            resena(sb, resenas.get(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Serializa una página de reseñas: {@code {"resenas":[...],"siguiente":cursor|null}}.
+     * @param pagina página a serializar
+     * @return texto JSON
+     */
+    static String paginaResenas(PaginaResenas pagina) {
+        StringBuilder sb = new StringBuilder("{\"resenas\":").append(resenas(pagina.getResenas())).append(',');
+        return campo(sb, "siguiente", pagina.getCursorSiguiente()).append('}').toString();
+    }
+
+    /**
+     * Objeto JSON con un único campo de texto, p.ej. {@code {"error":"..."}}.
+     * @param nombre nombre del campo
+     * @param valor valor del campo
+     * @return texto JSON
+     */
+    static String objeto(String nombre, String valor) {
+        return campo(new StringBuilder("{"), nombre, valor).append('}').toString();
+    }
+
+    /**
+     * Escribe {@code "nombre":"valor"} escapando el valor.
+     */
+    static StringBuilder campo(StringBuilder sb, String nombre, String valor) {
+        sb.append('"').append(nombre).append("\":");
+        if (valor == null) return sb.append("null");
+        sb.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"');
+    }
+}
@@ -0,0 +1,147 @@
+package Servidor;
+
+import Auth.Sesion;
+import Catalogo.ControladorCatalogo;
+import Catalogo.ControladorPrestamo;
+import Catalogo.Libro;
+import Prestamo.PrestamoService;
+import Resena.ControladorResenas;
+import Resena.OrdenResenas;
+import Resena.PaginaResenas;
+import Resena.RepositorioResenas;
+import Resena.Resena;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Fachada sin interfaz gráfica sobre el catálogo, los préstamos y las reseñas.
+ *
+ * <p>Reúne en un solo punto la lógica que antes solo era accesible desde las vistas Swing
+ * ({@code vistaCatalogo}, {@code VerDetalleLibro}, {@code VistaResenas}) para poder
+ * atender a varios clientes a la vez y medirla de forma independiente. Todas las
+ * operaciones reciben el usuario explícitamente (vía {@link Sesion}), sin depender del
+ * usuario actual de la aplicación de escritorio.</p>
+ */
+public class ServicioBiblioteca {
+
+    private final ControladorCatalogo catalogo;
+    private final ControladorPrestamo controladorPrestamo;
+    private final String rutaResenas;
+
+    /**
+     * Crea el servicio con el catálogo en memoria y el CSV de reseñas por defecto.
+     */
+    public ServicioBiblioteca() {
+        this(new ControladorCatalogo(), RepositorioResenas.RUTA_POR_DEFECTO);
+    }
+
+    /**
+     * Crea el servicio sobre un catálogo y un CSV de reseñas concretos.
+     *
+     * @param catalogo controlador del catálogo
+     * @param rutaResenas ruta del CSV de reseñas
+     */
+    public ServicioBiblioteca(ControladorCatalogo catalogo, String rutaResenas) {
+        this.catalogo = catalogo;
+        this.controladorPrestamo = ControladorPrestamo.obtenerInstancia();
+        this.rutaResenas = rutaResenas;
+        controladorPrestamo.atenderVencimientos(catalogo);
+    }
+
+    /**
+     * Busca libros en el catálogo con paginación, sin alterar el estado del controlador.
+     *
+     * @param titulo texto a buscar en los metadatos y en el texto de los PDF (nullable)
+     * @param categoria categoría a filtrar (nullable o "Todos" para no filtrar)
+     * @param soloDisponibles si true, solo libros con copias disponibles
+     * @param pagina página (base 1)
+     * @param tamPagina elementos por página
+     * @return libros de la página solicitada
+     */
+    public List<Libro> buscar(String titulo, String categoria, boolean soloDisponibles, int pagina, int tamPagina) {
+        List<Libro> filtrados = catalogo.filtrar(titulo, categoria, soloDisponibles);
+        int desde = Math.max(0, (pagina - 1) * tamPagina);
+        if (desde >= filtrados.size()) return List.of();
+        return filtrados.subList(desde, Math.min(desde + tamPagina, filtrados.size()));
+    }
+
+    /**
+     * Obtiene un libro por su id.
+     *
+     * @param idLibro id del libro
+     * @return Optional con el libro si existe
+     */
+    public Optional<Libro> obtenerLibro(String idLibro) {
+        return catalogo.obtenerPorId(idLibro);
+    }
+
+    /**
+     * Solicita un libro para el usuario de la sesión: lo presta si hay copias o lo
+     * pone en cola. Pasa por {@link ControladorPrestamo}, que registra el préstamo en la
+     * bitácora compartida, de modo que la aplicación de escritorio ve el mismo estado.
+     *
+     * @param sesion sesión del usuario
+     * @param idLibro id del libro
+     * @return resultado de la solicitud
+     */
+    public synchronized PrestamoService.EstadoPrestamo pedirPrestamo(Sesion sesion, String idLibro) {
+        if (sesion == null) return PrestamoService.EstadoPrestamo.ERROR_NO_AUTENTICADO;
+        String idUsuario = sesion.getUsuario();
+        if (controladorPrestamo.usuarioTieneLibro(idUsuario, idLibro)) return PrestamoService.EstadoPrestamo.LEER;
+        if (controladorPrestamo.pedirPrestamo(idUsuario, idLibro, catalogo)) return PrestamoService.EstadoPrestamo.PRESTADO;
+        controladorPrestamo.agregarACola(idUsuario, idLibro);
+        return PrestamoService.EstadoPrestamo.EN_COLA;
+    }
+
+    /**
+     * Devuelve un libro prestado por el usuario de la sesión.
+     *
+     * @param sesion sesión del usuario
+     * @param idLibro id del libro
+     * @return true si el usuario tenía el libro y se devolvió
+     */
+    public synchronized boolean devolverLibro(Sesion sesion, String idLibro) {
+        return sesion != null && controladorPrestamo.devolverLibro(sesion.getUsuario(), idLibro, catalogo);
+    }
+
+    /**
+     * Obtiene una página de reseñas de un libro con paginación por cursor.
+     *
+     * @param idLibro id del libro
+     * @param orden criterio de orden
+     * @param cursor cursor devuelto por la página anterior, o {@code null} para la primera
+     * @param tamPagina reseñas por página
+     * @return página de reseñas con el cursor de la siguiente
+     * @throws IOException si falla la lectura
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public PaginaResenas obtenerPaginaResenas(String idLibro, OrdenResenas orden, String cursor, int tamPagina) throws IOException {
+        return resenas(null).obtenerPaginaResenas(idLibro, orden, cursor, tamPagina);
+    }
+
+    /**
+     * Publica una reseña en nombre del usuario de la sesión.
+     *
+     * @param sesion sesión del usuario
+     * @param idLibro id del libro
+     * @param calificacion calificación 1..5
+     * @param texto texto de la reseña
+     * @return reseña persistida
+     * @throws IOException si falla la escritura
+     */
+    public Resena enviarResena(Sesion sesion, String idLibro, int calificacion, String texto) throws IOException {
+        if (sesion == null) throw new IllegalStateException("Debes iniciar sesión para reseñar");
+        synchronized (this) {
+            return resenas(sesion).enviarResena(idLibro, calificacion, texto);
+        }
+    }
+
+    /**
+     * Controlador de reseñas que opera en nombre de la sesión dada.
+     */
+    private ControladorResenas resenas(Sesion sesion) {
+        return new ControladorResenas(rutaResenas, controladorPrestamo, sesion);
+    }
+}
@@ -0,0 +1,337 @@
+package Servidor;
+
+import Auth.ServicioAutenticacion;
+import Auth.Sesion;
+import Auth.SessionManager;
+import Catalogo.Libro;
+import Prestamo.PrestamoService;
+import Resena.OrdenResenas;
+import Resena.Resena;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import recursos.HilosVirtuales;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * API HTTP local (JSON) sobre {@link ServicioBiblioteca}.
+ *
+ * <p>Usa el {@link HttpServer} embebido del JDK y atiende cada petición en un hilo virtual
+ * cuando la JVM lo permite (ver {@link HilosVirtuales}). Escucha solo en la interfaz de
+ * loopback. Las operaciones de préstamo y reseña requieren la cabecera
+ * {@code Authorization: Bearer <token>} obtenida en {@code POST /api/sesiones}.</p>
+ *
+ * <ul>
+ *   <li>{@code GET /api/libros?q=&categoria=&disponibles=&pagina=&tam=}</li>
+ *   <li>{@code GET /api/libros/{id}}</li>
+ *   <li>{@code POST /api/sesiones} (correo, password) y {@code DELETE /api/sesiones}</li>
+ *   <li>{@code POST /api/prestamos} (libro) y {@code POST /api/devoluciones} (libro)</li>
+ *   <li>{@code GET /api/resenas?libro=&orden=&cursor=&tam=} y {@code POST /api/resenas} (libro, calificacion, texto);
+ *       el listado devuelve {@code {"resenas":[...],"siguiente":cursor}} y la página siguiente se pide
+ *       con ese cursor ({@code null} si no hay más)</li>
+ * </ul>
+ *
+ * <p>Los parámetros de las peticiones POST se envían como
+ * {@code application/x-www-form-urlencoded}. Una petición mal formada (parámetro ausente o
+ * codificación no válida) recibe un 400 y cualquier otro fallo un 500; la conexión se cierra
+ * siempre.</p>
+ */
+public class ServidorHttp {
+
+    /** Puerto por defecto; se puede cambiar con {@code -Dlybsys.http.puerto}. */
+    private static final int PUERTO_POR_DEFECTO = 8080;
+    /** Tamaño de página máximo aceptado en los listados. */
+    private static final int TAM_PAGINA_MAXIMO = 100;
+
+    private final ServicioBiblioteca servicio;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+
+    /**
+     * Crea el servidor sobre el servicio indicado, sin iniciarlo.
+     *
+     * @param servicio fachada de negocio
+     * @param puerto puerto local (0 para uno libre)
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public ServidorHttp(ServicioBiblioteca servicio, int puerto) throws IOException {
+        this.servicio = servicio;
+        this.servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", puerto), 0);
+        this.ejecutor = HilosVirtuales.crearEjecutor("http");
+        servidor.setExecutor(ejecutor);
+        servidor.createContext("/api/libros", protegido(this::libros));
+        servidor.createContext("/api/sesiones", protegido(this::sesiones));
+        servidor.createContext("/api/prestamos", protegido(this::prestamos));
+        servidor.createContext("/api/devoluciones", protegido(this::devoluciones));
+        servidor.createContext("/api/resenas", protegido(this::resenas));
+    }
+
+    /**
+     * Inicia el servidor.
+     */
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Detiene el servidor y su ejecutor.
+     */
+    public void detener() {
+        servidor.stop(0);
+        ejecutor.shutdown();
+    }
+
+    /**
+     * @return puerto en el que escucha el servidor
+     */
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Inicia la API sin interfaz gráfica.
+     * @param args no se usan
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public static void main(String[] args) throws IOException {
+        int puerto = Integer.getInteger("lybsys.http.puerto", PUERTO_POR_DEFECTO);
+        ServidorHttp servidor = new ServidorHttp(new ServicioBiblioteca(), puerto);
+        servidor.iniciar();
+        System.out.println("API de LybSys escuchando en http://127.0.0.1:" + servidor.getPuerto() + "/api");
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // MANEJADORES
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Envuelve un manejador para que toda petición reciba respuesta: 400 si los datos de
+     * entrada no son válidos, 500 ante cualquier otro error, y cierra siempre el intercambio.
+     */
+    private static HttpHandler protegido(HttpHandler manejador) {
+        return ex -> {
+            try {
+                manejador.handle(ex);
+            } catch (IllegalArgumentException e) {
+                responderError(ex, 400, e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("⚠️  Error al atender " + ex.getRequestMethod() + " " + ex.getRequestURI() + ": " + e);
+                responderError(ex, 500, "Error interno del servidor");
+            } finally {
+                ex.close();
+            }
+        };
+    }
+
+    /**
+     * Responde un error si todavía no se enviaron las cabeceras de la respuesta.
+     */
+    private static void responderError(HttpExchange ex, int codigo, String mensaje) {
+        if (ex.getResponseCode() != -1) return;
+        try {
+            responder(ex, codigo, Json.objeto("error", mensaje));
+        } catch (IOException e) {
+            System.err.println("⚠️  No se pudo enviar la respuesta de error: " + e.getMessage());
+        }
+    }
+
+    private void libros(HttpExchange ex) throws IOException {
+        if (!metodo(ex, "GET")) return;
+        String ruta = ex.getRequestURI().getPath();
+        String prefijo = "/api/libros/";
+        if (ruta.startsWith(prefijo) && ruta.length() > prefijo.length()) {
+            Optional<Libro> libro = servicio.obtenerLibro(ruta.substring(prefijo.length()));
+            if (libro.isEmpty()) {
+                responder(ex, 404, Json.objeto("error", "Libro no encontrado"));
+            } else {
+                responder(ex, 200, Json.libro(new StringBuilder(), libro.get()).toString());
+            }
+            return;
+        }
+        Map<String, String> p = parametros(ex.getRequestURI().getRawQuery());
+        responder(ex, 200, Json.libros(servicio.buscar(p.get("q"), p.get("categoria"),
+                Boolean.parseBoolean(p.get("disponibles")), entero(p, "pagina", 1), tamPagina(p))));
+    }
+
+    private void sesiones(HttpExchange ex) throws IOException {
+        String metodo = ex.getRequestMethod();
+        if ("DELETE".equals(metodo)) {
+            String token = token(ex);
+            if (token != null) SessionManager.cerrarSesion(token);
+            responder(ex, 204, null);
+            return;
+        }
+        if (!metodo(ex, "POST")) return;
+        Map<String, String> p = parametros(cuerpo(ex));
+        String cliente = ex.getRemoteAddress().getAddress().getHostAddress();
+        ServicioAutenticacion.Resultado r = ServicioAutenticacion.obtenerInstancia()
+                .autenticar(p.get("correo"), p.get("password"), cliente);
+        switch (r.getEstado()) {
+            case EXITO:
+                Sesion sesion = SessionManager.iniciarSesion(r.getNombre());
+                StringBuilder sb = new StringBuilder("{");
+                Json.campo(sb, "token", sesion.getToken()).append(',');
+                Json.campo(sb, "usuario", sesion.getUsuario()).append('}');
+                responder(ex, 201, sb.toString());
+                break;
+            case CREDENCIALES_INVALIDAS:
+                responder(ex, 401, Json.objeto("error", "Credenciales incorrectas"));
+                break;
+            default:
+                ex.getResponseHeaders().set("Retry-After", String.valueOf(r.getSegundosEspera()));
+                responder(ex, 429, Json.objeto("error", r.getEstado().name()));
+        }
+    }
+
+    private void prestamos(HttpExchange ex) throws IOException {
+        if (!metodo(ex, "POST")) return;
+        Sesion sesion = sesion(ex);
+        if (sesion == null) return;
+        String libro = requerido(parametros(cuerpo(ex)), "libro");
+        if (servicio.obtenerLibro(libro).isEmpty()) {
+            responder(ex, 404, Json.objeto("error", "Libro no encontrado"));
+            return;
+        }
+        PrestamoService.EstadoPrestamo estado = servicio.pedirPrestamo(sesion, libro);
+        responder(ex, estado == PrestamoService.EstadoPrestamo.EN_COLA ? 202 : 200,
+                Json.objeto("estado", estado.name()));
+    }
+
+    private void devoluciones(HttpExchange ex) throws IOException {
+        if (!metodo(ex, "POST")) return;
+        Sesion sesion = sesion(ex);
+        if (sesion == null) return;
+        String libro = requerido(parametros(cuerpo(ex)), "libro");
+        if (servicio.devolverLibro(sesion, libro)) {
+            responder(ex, 200, Json.objeto("estado", "DEVUELTO"));
+        } else {
+            responder(ex, 409, Json.objeto("error", "El usuario no tiene el libro"));
+        }
+    }
+
+    private void resenas(HttpExchange ex) throws IOException {
+        try {
+            if ("GET".equals(ex.getRequestMethod())) {
+                Map<String, String> p = parametros(ex.getRequestURI().getRawQuery());
+                String libro = requerido(p, "libro");
+                responder(ex, 200, Json.paginaResenas(servicio.obtenerPaginaResenas(libro, orden(p), p.get("cursor"), tamPagina(p))));
+                return;
+            }
+            if (!metodo(ex, "POST")) return;
+            Sesion sesion = sesion(ex);
+            if (sesion == null) return;
+            Map<String, String> p = parametros(cuerpo(ex));
+            Resena r = servicio.enviarResena(sesion, requerido(p, "libro"), entero(p, "calificacion", 0), p.get("texto"));
+            responder(ex, 201, Json.resena(new StringBuilder(), r).toString());
+        } catch (IllegalStateException e) {
+            responder(ex, 403, Json.objeto("error", e.getMessage()));
+        }
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // UTILIDADES
+    // ───────────────────────────────────────────────────────────────
+
+    private static boolean metodo(HttpExchange ex, String esperado) throws IOException {
+        if (esperado.equals(ex.getRequestMethod())) return true;
+        ex.getResponseHeaders().set("Allow", esperado);
+        responder(ex, 405, Json.objeto("error", "Método no permitido"));
+        return false;
+    }
+
+    /**
+     * Resuelve la sesión del token Bearer; responde 401 y devuelve null si no es válida.
+     */
+    private static Sesion sesion(HttpExchange ex) throws IOException {
+        String token = token(ex);
+        Optional<Sesion> sesion = token == null ? Optional.empty() : SessionManager.obtenerSesion(token);
+        if (sesion.isEmpty()) {
+            responder(ex, 401, Json.objeto("error", "Sesión inválida o expirada"));
+            return null;
+        }
+        return sesion.get();
+    }
+
+    private static String token(HttpExchange ex) {
+        String cabecera = ex.getRequestHeaders().getFirst("Authorization");
+        if (cabecera == null || !cabecera.startsWith("Bearer ")) return null;
+        return cabecera.substring("Bearer ".length()).trim();
+    }
+
+    private static String cuerpo(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> parametros(String texto) {
+        Map<String, String> out = new HashMap<>();
+        if (texto == null || texto.isEmpty()) return out;
+        for (String par : texto.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual <= 0) continue;
+            out.put(URLDecoder.decode(par.substring(0, igual), StandardCharsets.UTF_8),
+                    URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+
+    /**
+     * @throws IllegalArgumentException si falta el parámetro o está vacío
+     */
+    private static String requerido(Map<String, String> p, String nombre) {
+        String valor = p.get(nombre);
+        if (valor == null || valor.isBlank()) throw new IllegalArgumentException("Falta el parámetro " + nombre);
+        return valor;
+    }
+
+    private static int entero(Map<String, String> p, String nombre, int porDefecto) {
+        try {
+            return p.containsKey(nombre) ? Integer.parseInt(p.get(nombre)) : porDefecto;
+        } catch (NumberFormatException e) {
+            return porDefecto;
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException si el orden no es uno de {@link OrdenResenas}
+     */
+    private static OrdenResenas orden(Map<String, String> p) {
+        String orden = p.get("orden");
+        if (orden == null || orden.isBlank()) return OrdenResenas.RECIENTES;
+        try {
+            return OrdenResenas.valueOf(orden.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Orden no válido: " + orden);
+        }
+    }
+
+    private static int tamPagina(Map<String, String> p) {
+        return Math.max(1, Math.min(TAM_PAGINA_MAXIMO, entero(p, "tam", 10)));
+    }
+
+    private static void responder(HttpExchange ex, int codigo, String json) throws IOException {
+        if (json == null) {
+            ex.sendResponseHeaders(codigo, -1);
+            ex.close();
+            return;
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(codigo, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
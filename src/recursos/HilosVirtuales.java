@@ -0,0 +1,66 @@
+package recursos;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fábrica de ejecutores para tareas bloqueantes (E/S de archivos, peticiones HTTP).
+ *
+ * <p>Si la JVM soporta hilos virtuales (Java 21 o superior) se usa un ejecutor con un
+ * hilo virtual por tarea, de modo que miles de operaciones bloqueantes concurrentes no
+ * requieran un hilo de plataforma cada una. En JVMs anteriores se recurre a un
+ * ejecutor con hilos daemon reutilizables.</p>
+ */
+public final class HilosVirtuales {
+
+    private HilosVirtuales() {
+    }
+
+    /**
+     * Crea un ejecutor de un hilo virtual por tarea, o un ejecutor con hilos daemon
+     * reutilizables si la JVM no soporta hilos virtuales.
+     *
+     * @param nombre prefijo del nombre de los hilos (solo en el modo alternativo)
+     * @return ejecutor para tareas bloqueantes
+     */
+    public static ExecutorService crearEjecutor(String nombre) {
+        try {
+            Method fabrica = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) fabrica.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(hilosDaemon(nombre));
+        }
+    }
+
+    /**
+     * Indica si la JVM actual soporta hilos virtuales.
+     *
+     * @return {@code true} si hay soporte de hilos virtuales
+     */
+    public static boolean soportados() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Fábrica de hilos daemon con nombre numerado.
+     *
+     * @param nombre prefijo del nombre de los hilos
+     * @return fábrica de hilos
+     */
+    public static ThreadFactory hilosDaemon(String nombre) {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread hilo = new Thread(r, nombre + "-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+}
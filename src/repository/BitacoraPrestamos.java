@@ -0,0 +1,555 @@
+package repository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Bitácora única de préstamos y colas de espera.
+ *
+ * <p>Reúne el estado que antes mantenían por separado {@link PrestamoDAO},
+ * {@code Catalogo.ControladorPrestamo} y {@code Lectura.ModeloLectura}: cada par
+ * (usuario, libro) tiene un único {@link Registro} con su estado actual. Los cambios se
+ * anexan a un CSV ({@value #RUTA_POR_DEFECTO}) que se reproduce al arrancar (la última fila
+ * de cada par es la vigente) y se fuerzan a disco antes de confirmar la operación. Si no se
+ * pueden escribir, la operación lanza {@link UncheckedIOException} y los índices en memoria no
+ * cambian, de modo que la bitácora nunca informa de cambios que no están en el archivo.</p>
+ *
+ * <p>En memoria se mantienen índices por par, por usuario (libros activos), por libro
+ * (préstamos activos y cola en orden de llegada) y por estado, de modo que consultas como
+ * {@link #tienePrestamoActivo(String, String)} o {@link #contarEnCola(String)} no recorren
+ * los préstamos. La bitácora es la dueña del archivo: se lee una sola vez por proceso. Si no
+ * se puede leer, no se da por cargada: cada consulta u operación lanza
+ * {@link UncheckedIOException} en lugar de trabajar sobre una bitácora vacía.</p>
+ */
+public class BitacoraPrestamos {
+
+    /** Ruta del archivo de la bitácora. */
+    public static final String RUTA_POR_DEFECTO = "datos/bitacora_prestamos.csv";
+    static final String CABECERA = "id,estado,userId,bookId,fechaPrestamo,fechaVencimiento";
+    /** Días de préstamo por defecto. */
+    public static final int DIAS_PRESTAMO = 14;
+    /** Filas obsoletas mínimas antes de compactar el archivo al cargarlo. */
+    private static final int MINIMO_PARA_COMPACTAR = 64;
+
+    private static BitacoraPrestamos instancia;
+
+    /**
+     * Estado de un préstamo dentro de la bitácora.
+     */
+    public enum Estado {
+        ACTIVO, EN_COLA, DEVUELTO, VENCIDO;
+
+        /**
+         * Interpreta los textos usados por los módulos anteriores ("activo", "vencido", ...).
+         * @param texto estado en texto libre
+         * @return estado correspondiente ({@link #DEVUELTO} si no se reconoce)
+         */
+        public static Estado desdeTexto(String texto) {
+            if (texto == null) return DEVUELTO;
+            switch (texto.trim().toLowerCase(Locale.ROOT)) {
+                case "activo":
+                case "en curso":
+                case "prestado":
+                    return ACTIVO;
+                case "en_cola":
+                case "en cola":
+                    return EN_COLA;
+                case "vencido":
+                    return VENCIDO;
+                default:
+                    return DEVUELTO;
+            }
+        }
+    }
+
+    /**
+     * Estado vigente de un préstamo (inmutable).
+     */
+    public static final class Registro {
+        private final int id;
+        private final Estado estado;
+        private final String idUsuario;
+        private final String idLibro;
+        private final String fechaPrestamo;
+        private final String fechaVencimiento;
+
+        Registro(int id, Estado estado, String idUsuario, String idLibro, String fechaPrestamo, String fechaVencimiento) {
+            this.id = id;
+            this.estado = estado;
+            this.idUsuario = idUsuario;
+            this.idLibro = idLibro;
+            this.fechaPrestamo = fechaPrestamo;
+            this.fechaVencimiento = fechaVencimiento;
+        }
+
+        public int getId() { return id; }
+        public Estado getEstado() { return estado; }
+        public String getIdUsuario() { return idUsuario; }
+        public String getIdLibro() { return idLibro; }
+        public String getFechaPrestamo() { return fechaPrestamo; }
+        public String getFechaVencimiento() { return fechaVencimiento; }
+    }
+
+    private final Path ruta;
+    private boolean cargado;
+    private int siguienteId = 1;
+    private int filasObsoletas;
+
+    private final Map<String, Registro> porClave = new HashMap<>();
+    private final Map<String, Set<String>> activosPorUsuario = new HashMap<>();
+    private final Map<String, Set<String>> activosPorLibro = new HashMap<>();
+    private final Map<String, LinkedHashSet<String>> colaPorLibro = new HashMap<>();
+    private final Map<Estado, Set<String>> porEstado = new EnumMap<>(Estado.class);
+    private final List<Consumer<Registro>> oyentes = new CopyOnWriteArrayList<>();
+
+    /**
+     * Crea una bitácora sobre un archivo concreto.
+     * @param ruta ruta del CSV de la bitácora
+     */
+    public BitacoraPrestamos(Path ruta) {
+        this.ruta = ruta;
+        for (Estado e : Estado.values()) porEstado.put(e, new LinkedHashSet<>());
+    }
+
+    /**
+     * Obtiene la bitácora compartida sobre {@link #RUTA_POR_DEFECTO}.
+     * @return instancia única
+     */
+    public static synchronized BitacoraPrestamos obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new BitacoraPrestamos(Path.of(RUTA_POR_DEFECTO));
+        }
+        return instancia;
+    }
+
+    /**
+     * @return fecha de vencimiento (yyyy-MM-dd) de un préstamo que empieza hoy
+     */
+    public static String vencimientoPorDefecto() {
+        return LocalDate.now().plusDays(DIAS_PRESTAMO).toString();
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // CONSULTAS
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * @param idUsuario id del usuario
+     * @param idLibro id del libro
+     * @return registro vigente del par, o {@code null} si nunca hubo préstamo ni cola
+     */
+    public synchronized Registro obtener(String idUsuario, String idLibro) {
+        asegurarCargado();
+        return porClave.get(clave(idUsuario, idLibro));
+    }
+
+    /**
+     * @param idUsuario id del usuario
+     * @param idLibro id del libro
+     * @return {@code true} si el usuario tiene el libro prestado
+     */
+    public synchronized boolean tienePrestamoActivo(String idUsuario, String idLibro) {
+        asegurarCargado();
+        Set<String> libros = activosPorUsuario.get(idUsuario);
+        return libros != null && libros.contains(idLibro);
+    }
+
+    /**
+     * @param idUsuario id del usuario
+     * @return ids de los libros prestados al usuario, en orden de préstamo
+     */
+    public synchronized List<String> librosActivos(String idUsuario) {
+        asegurarCargado();
+        Set<String> libros = activosPorUsuario.get(idUsuario);
+        return libros == null ? new ArrayList<>() : new ArrayList<>(libros);
+    }
+
+    /**
+     * @param idLibro id del libro
+     * @return número de préstamos activos del libro
+     */
+    public synchronized int contarActivos(String idLibro) {
+        asegurarCargado();
+        Set<String> usuarios = activosPorLibro.get(idLibro);
+        return usuarios == null ? 0 : usuarios.size();
+    }
+
+    /**
+     * @param idLibro id del libro
+     * @return número de usuarios en la cola de espera del libro
+     */
+    public synchronized int contarEnCola(String idLibro) {
+        asegurarCargado();
+        Set<String> cola = colaPorLibro.get(idLibro);
+        return cola == null ? 0 : cola.size();
+    }
+
+    /**
+     * @param idUsuario id del usuario
+     * @param idLibro id del libro
+     * @return posición (base 1) del usuario en la cola del libro, o 0 si no está en ella
+     */
+    public synchronized int posicionEnCola(String idUsuario, String idLibro) {
+        asegurarCargado();
+        Set<String> cola = colaPorLibro.get(idLibro);
+        if (cola == null || !cola.contains(idUsuario)) return 0;
+        int posicion = 1;
+        for (String u : cola) {
+            if (u.equals(idUsuario)) return posicion;
+            posicion++;
+        }
+        return 0;
+    }
+
+    /**
+     * @param idLibro id del libro
+     * @return primer usuario de la cola del libro, o {@code null} si está vacía
+     */
+    public synchronized String primeroEnCola(String idLibro) {
+        asegurarCargado();
+        Set<String> cola = colaPorLibro.get(idLibro);
+        return cola == null || cola.isEmpty() ? null : cola.iterator().next();
+    }
+
+    /**
+     * @param estado estado a consultar
+     * @return registros vigentes en ese estado
+     */
+    public synchronized List<Registro> registros(Estado estado) {
+        asegurarCargado();
+        List<Registro> out = new ArrayList<>();
+        for (String k : porEstado.get(estado)) out.add(porClave.get(k));
+        return out;
+    }
+
+    /**
+     * @return {@code true} si la bitácora no tiene ningún registro
+     */
+    public synchronized boolean estaVacia() {
+        asegurarCargado();
+        return porClave.isEmpty();
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // OPERACIONES
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Registra un préstamo activo (si el usuario estaba en la cola, sale de ella).
+     * @param idUsuario id del usuario
+     * @param idLibro id del libro
+     * @param fechaVencimiento fecha de vencimiento (yyyy-MM-dd o fecha-hora ISO)
+     * @return registro del préstamo
+     * @throws UncheckedIOException si no se puede escribir en la bitácora
+     */
+    public synchronized Registro registrarPrestamo(String idUsuario, String idLibro, String fechaVencimiento) {
+        return registrar(idUsuario, idLibro, Estado.ACTIVO, ahora(), fechaVencimiento);
+    }
+
+    /**
+     * Registra la devolución de un préstamo activo. Los préstamos vencidos ya devolvieron
+     * su copia al vencer.
+     * @param idUsuario id del usuario
+     * @param idLibro id del libro
+     * @return {@code true} si el usuario tenía el libro
+     * @throws UncheckedIOException si no se puede escribir en la bitácora
+     */
+    public synchronized boolean registrarDevolucion(String idUsuario, String idLibro) {
+        Registro actual = obtener(idUsuario, idLibro);
+        if (actual == null || actual.estado != Estado.ACTIVO) return false;
+        registrar(idUsuario, idLibro, Estado.DEVUELTO, actual.fechaPrestamo, actual.fechaVencimiento);
+        return true;
+    }
+
+    /**
+     * Marca como vencido un préstamo activo.
+     * @param idUsuario id del usuario
+     * @param idLibro id del libro
+     * @return {@code true} si el préstamo estaba activo
+     * @throws UncheckedIOException si no se puede escribir en la bitácora
+     */
+    public synchronized boolean marcarVencido(String idUsuario, String idLibro) {
+        Registro actual = obtener(idUsuario, idLibro);
+        if (actual == null || actual.estado != Estado.ACTIVO) return false;
+        registrar(idUsuario, idLibro, Estado.VENCIDO, actual.fechaPrestamo, actual.fechaVencimiento);
+        return true;
+    }
+
+    /**
+     * Marca como vencido un préstamo solo si sigue siendo el mismo préstamo activo
+     * (mismo id y misma fecha de vencimiento), es decir, si no se devolvió ni se renovó.
+     * @param idUsuario id del usuario
+     * @param idLibro id del libro
+     * @param id id del préstamo
+     * @param fechaVencimiento fecha de vencimiento con la que se programó
+     * @return {@code true} si el préstamo se marcó como vencido
+     * @throws UncheckedIOException si no se puede escribir en la bitácora
+     */
+    public synchronized boolean marcarVencido(String idUsuario, String idLibro, int id, String fechaVencimiento) {
+        Registro actual = obtener(idUsuario, idLibro);
+        if (actual == null || actual.id != id || !Objects.equals(actual.fechaVencimiento, fechaVencimiento)) return false;
+        return marcarVencido(idUsuario, idLibro);
+    }
+
+    /**
+     * Registra una acción a ejecutar tras cada cambio de estado (con el lock de la bitácora
+     * tomado, por lo que debe ser breve y no bloquear).
+     * @param oyente acción que recibe el registro nuevo
+     */
+    public void agregarOyente(Consumer<Registro> oyente) {
+        oyentes.add(oyente);
+    }
+
+    /**
+     * Añade al usuario al final de la cola del libro, salvo que ya lo tenga o ya esté en ella.
+     * @param idUsuario id del usuario
+     * @param idLibro id del libro
+     * @return posición (base 1) del usuario en la cola, o 0 si ya tiene el libro
+     * @throws UncheckedIOException si no se puede escribir en la bitácora
+     */
+    public synchronized int ponerEnCola(String idUsuario, String idLibro) {
+        Registro actual = obtener(idUsuario, idLibro);
+        if (actual != null && actual.estado == Estado.ACTIVO) return 0;
+        if (actual == null || actual.estado != Estado.EN_COLA) {
+            registrar(idUsuario, idLibro, Estado.EN_COLA, ahora(), null);
+        }
+        return posicionEnCola(idUsuario, idLibro);
+    }
+
+    /**
+     * Registra un par con un estado y unas fechas concretas (importación de datos existentes).
+     * No escribe nada si el registro vigente ya coincide.
+     *
+     * @param idUsuario id del usuario
+     * @param idLibro id del libro
+     * @param estado estado a registrar
+     * @param fechaPrestamo fecha del préstamo (nullable: ahora)
+     * @param fechaVencimiento fecha de vencimiento (nullable)
+     * @return registro vigente del par
+     * @throws UncheckedIOException si no se puede escribir en la bitácora
+     */
+    public synchronized Registro registrar(String idUsuario, String idLibro, Estado estado,
+                                           String fechaPrestamo, String fechaVencimiento) {
+        if (idUsuario == null || idLibro == null) throw new IllegalArgumentException("Usuario y libro son obligatorios");
+        asegurarCargado();
+        Registro actual = porClave.get(clave(idUsuario, idLibro));
+        String desde = fechaPrestamo == null ? ahora() : fechaPrestamo;
+        if (actual != null && actual.estado == estado
+                && Objects.equals(actual.fechaVencimiento, fechaVencimiento)) {
+            return actual;
+        }
+        // Un par que vuelve a prestarse o encolarse tras cerrarse (devuelto o vencido) es un préstamo nuevo
+        boolean continua = actual != null && (actual.estado == Estado.ACTIVO || actual.estado == Estado.EN_COLA);
+        // El id solo se consume al aplicar, así que un fallo al escribir no deja huecos
+        int id = continua ? actual.id : siguienteId;
+        Registro nuevo = new Registro(id, estado, idUsuario, idLibro, desde, fechaVencimiento);
+        anexar(nuevo);
+        aplicar(nuevo);
+        for (Consumer<Registro> oyente : oyentes) oyente.accept(nuevo);
+        return nuevo;
+    }
+
+    /**
+     * Borra la bitácora (archivo e índices).
+     */
+    public synchronized void vaciar() {
+        try {
+            Files.deleteIfExists(ruta);
+        } catch (IOException e) {
+            System.err.println("No se pudo borrar la bitácora de préstamos: " + e.getMessage());
+        }
+        reiniciar();
+        cargado = true;
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // ÍNDICES
+    // ───────────────────────────────────────────────────────────────
+
+    private void aplicar(Registro r) {
+        String k = clave(r.idUsuario, r.idLibro);
+        Registro anterior = porClave.put(k, r);
+        if (anterior != null) {
+            filasObsoletas++;
+            porEstado.get(anterior.estado).remove(k);
+            if (anterior.estado == Estado.ACTIVO) {
+                quitarDe(activosPorUsuario, r.idUsuario, r.idLibro);
+                quitarDe(activosPorLibro, r.idLibro, r.idUsuario);
+            } else if (anterior.estado == Estado.EN_COLA) {
+                quitarDe(colaPorLibro, r.idLibro, r.idUsuario);
+            }
+        }
+        porEstado.get(r.estado).add(k);
+        if (r.estado == Estado.ACTIVO) {
+            activosPorUsuario.computeIfAbsent(r.idUsuario, x -> new LinkedHashSet<>()).add(r.idLibro);
+            activosPorLibro.computeIfAbsent(r.idLibro, x -> new LinkedHashSet<>()).add(r.idUsuario);
+        } else if (r.estado == Estado.EN_COLA) {
+            colaPorLibro.computeIfAbsent(r.idLibro, x -> new LinkedHashSet<>()).add(r.idUsuario);
+        }
+        siguienteId = Math.max(siguienteId, r.id + 1);
+    }
+
+    private static void quitarDe(Map<String, ? extends Set<String>> indice, String clave, String valor) {
+        Set<String> valores = indice.get(clave);
+        if (valores == null) return;
+        valores.remove(valor);
+        if (valores.isEmpty()) indice.remove(clave);
+    }
+
+    private void reiniciar() {
+        porClave.clear();
+        activosPorUsuario.clear();
+        activosPorLibro.clear();
+        colaPorLibro.clear();
+        for (Set<String> s : porEstado.values()) s.clear();
+        siguienteId = 1;
+        filasObsoletas = 0;
+    }
+
+    private static String clave(String idUsuario, String idLibro) {
+        return idUsuario + "\u0000" + idLibro;
+    }
+
+    private static String ahora() {
+        return LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // PERSISTENCIA
+    // ───────────────────────────────────────────────────────────────
+
+    /**
+     * Reproduce el archivo la primera vez que se usa la bitácora.
+     * @throws UncheckedIOException si no se puede leer; la bitácora sigue sin cargar
+     */
+    private void asegurarCargado() {
+        if (cargado) return;
+        reiniciar();
+        if (!Files.exists(ruta)) return;
+        try {
+            LectorCsv.leer(ruta, ',', true, fila -> {
+                if (fila.columnas() < 4) return;
+                try {
+                    aplicar(new Registro(fila.entero(0), Estado.valueOf(fila.campo(1)), fila.campo(2), fila.campo(3),
+                            fila.vacio(4) ? null : fila.campo(4), fila.vacio(5) ? null : fila.campo(5)));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Línea omitida en la bitácora de préstamos: " + fila.texto());
+                }
+            });
+        } catch (IOException e) {
+            // Con índices vacíos se reutilizarían ids y se duplicarían préstamos
+            reiniciar();
+            throw new UncheckedIOException("No se pudo leer la bitácora de préstamos: " + e.getMessage(), e);
+        }
+        cargado = true;
+        if (filasObsoletas >= MINIMO_PARA_COMPACTAR && filasObsoletas > porClave.size()) {
+            compactar();
+        }
+    }
+
+    /**
+     * Anexa un registro y lo fuerza a disco. Se llama antes de tocar los índices.
+     * @throws UncheckedIOException si no se puede escribir
+     */
+    private void anexar(Registro r) {
+        try {
+            if (ruta.getParent() != null) Files.createDirectories(ruta.getParent());
+            try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long tamano = canal.size();
+                StringBuilder sb = new StringBuilder();
+                if (tamano == 0) {
+                    sb.append(CABECERA).append('\n');
+                } else {
+                    ByteBuffer ultimo = ByteBuffer.allocate(1);
+                    if (canal.read(ultimo, tamano - 1) == 1 && ultimo.get(0) != '\n') sb.append('\n');
+                }
+                sb.append(linea(r)).append('\n');
+                ByteBuffer bytes = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+                try {
+                    while (bytes.hasRemaining()) canal.write(bytes, tamano + bytes.position());
+                    canal.force(false);
+                } catch (IOException e) {
+                    // No se deja una fila a medias que se reproduciría al arrancar
+                    try {
+                        canal.truncate(tamano);
+                    } catch (IOException ignorada) {
+                        e.addSuppressed(ignorada);
+                    }
+                    throw e;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir en la bitácora de préstamos: " + e.getMessage(), e);
+        }
+    }
+
+    private void compactar() {
+        Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+        List<Registro> vigentes = new ArrayList<>(porClave.values());
+        vigentes.sort((a, b) -> Integer.compare(a.id, b.id));
+        // Las colas se escriben al final, en su orden actual, para que al reproducirlas se conserve
+        Map<String, Registro> enCola = new LinkedHashMap<>();
+        for (Map.Entry<String, LinkedHashSet<String>> e : colaPorLibro.entrySet()) {
+            for (String u : e.getValue()) enCola.put(clave(u, e.getKey()), porClave.get(clave(u, e.getKey())));
+        }
+        try (BufferedWriter bw = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+            bw.write(CABECERA);
+            bw.newLine();
+            for (Registro r : vigentes) {
+                if (r.estado == Estado.EN_COLA) continue;
+                bw.write(linea(r));
+                bw.newLine();
+            }
+            for (Registro r : enCola.values()) {
+                bw.write(linea(r));
+                bw.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudo compactar la bitácora de préstamos: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            filasObsoletas = 0;
+        } catch (IOException e) {
+            System.err.println("No se pudo compactar la bitácora de préstamos: " + e.getMessage());
+        }
+    }
+
+    private static String linea(Registro r) {
+        return String.join(",", String.valueOf(r.id), r.estado.name(), comillas(r.idUsuario), comillas(r.idLibro),
+                comillas(r.fechaPrestamo), comillas(r.fechaVencimiento));
+    }
+
+    private static String comillas(String s) {
+        if (s == null) return "";
+        if (s.contains(",") || s.contains("\"") || s.contains("\n") || s.contains("\r")) {
+            return "\"" + s.replace("\"", "\"\"") + "\"";
+        }
+        return s;
+    }
+}
@@ -0,0 +1,131 @@
+package repository;
+
+import recursos.HilosVirtuales;
+
+import javax.swing.SwingUtilities;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Capa de ejecución para las operaciones bloqueantes de los repositorios basados en archivos
+ * ({@code RepositorioResenas}, {@code PrestamoRepositorio}, {@code UsuarioRepositorio},
+ * {@code ModeloLectura}).
+ *
+ * <p>Cada llamada se ejecuta fuera del hilo de eventos de Swing, en un hilo virtual cuando la
+ * JVM lo permite, y devuelve un {@link CompletableFuture}. Cada archivo tiene un cerrojo de
+ * lectura/escritura equitativo: las operaciones que lo modifican ({@link #enviar}) son
+ * exclusivas, y las de solo lectura ({@link #enviarLectura}) se ejecutan a la vez entre sí,
+ * hasta {@code -Dlybsys.io.concurrenciaPorArchivo} (4 por defecto), para que muchas peticiones
+ * concurrentes no saturen el disco.</p>
+ */
+public final class EjecutorRepositorios {
+
+    /**
+     * Operación de repositorio que puede lanzar excepciones de E/S.
+     * @param <T> tipo del resultado
+     */
+    @FunctionalInterface
+    public interface Tarea<T> {
+        T ejecutar() throws Exception;
+    }
+
+    /** Lecturas simultáneas permitidas sobre un mismo archivo. */
+    private static final int CONCURRENCIA_POR_ARCHIVO =
+            Math.max(1, Integer.getInteger("lybsys.io.concurrenciaPorArchivo", 4));
+
+    private static final ExecutorService EJECUTOR = HilosVirtuales.crearEjecutor("repositorio");
+    private static final Map<Path, ControlArchivo> CONTROLES = new ConcurrentHashMap<>();
+
+    /**
+     * Cerrojo de lectura/escritura de un archivo y límite de lecturas simultáneas.
+     */
+    private static final class ControlArchivo {
+        final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock(true);
+        final Semaphore lecturas = new Semaphore(CONCURRENCIA_POR_ARCHIVO, true);
+    }
+
+    private EjecutorRepositorios() {
+    }
+
+    /**
+     * Ejecuta en segundo plano una operación que modifica un archivo, en exclusiva: no
+     * coincide con ninguna otra operación sobre el mismo archivo.
+     *
+     * @param rutaArchivo archivo al que accede la operación
+     * @param tarea operación a ejecutar
+     * @param <T> tipo del resultado
+     * @return futuro con el resultado; se completa con excepción si la tarea falla
+     */
+    public static <T> CompletableFuture<T> enviar(String rutaArchivo, Tarea<T> tarea) {
+        ControlArchivo control = control(rutaArchivo);
+        return ejecutar(control.cerrojo.writeLock(), null, tarea);
+    }
+
+    /**
+     * Ejecuta en segundo plano una operación que solo lee un archivo. Puede coincidir con
+     * otras lecturas del mismo archivo, hasta el límite configurado, pero no con escrituras.
+     *
+     * @param rutaArchivo archivo al que accede la operación
+     * @param tarea operación a ejecutar
+     * @param <T> tipo del resultado
+     * @return futuro con el resultado; se completa con excepción si la tarea falla
+     */
+    public static <T> CompletableFuture<T> enviarLectura(String rutaArchivo, Tarea<T> tarea) {
+        ControlArchivo control = control(rutaArchivo);
+        return ejecutar(control.cerrojo.readLock(), control.lecturas, tarea);
+    }
+
+    private static <T> CompletableFuture<T> ejecutar(Lock cerrojo, Semaphore limite, Tarea<T> tarea) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                if (limite != null) limite.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            cerrojo.lock();
+            try {
+                return tarea.ejecutar();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                cerrojo.unlock();
+                if (limite != null) limite.release();
+            }
+        }, EJECUTOR);
+    }
+
+    /**
+     * Entrega el resultado de un futuro en el hilo de eventos de Swing.
+     *
+     * @param futuro operación en curso
+     * @param exito acción con el resultado, ejecutada en el EDT
+     * @param error acción con la causa del fallo, ejecutada en el EDT
+     * @param <T> tipo del resultado
+     */
+    public static <T> void enEdt(CompletableFuture<T> futuro, Consumer<? super T> exito, Consumer<Throwable> error) {
+        futuro.whenComplete((valor, ex) -> SwingUtilities.invokeLater(() -> {
+            if (ex == null) {
+                exito.accept(valor);
+            } else {
+                error.accept(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            }
+        }));
+    }
+
+    private static ControlArchivo control(String rutaArchivo) {
+        return CONTROLES.computeIfAbsent(normalizar(rutaArchivo), k -> new ControlArchivo());
+    }
+
+    private static Path normalizar(String ruta) {
+        return Path.of(ruta.replace('\\', '/')).toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,325 @@
+package repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Lector de CSV en streaming compatible con RFC 4180, compartido por los repositorios CSV.
+ *
+ * <p>Recorre el texto con una máquina de estados sobre un búfer de caracteres: admite campos
+ * entre comillas con comillas escapadas ({@code ""}), separadores y saltos de línea dentro de
+ * comillas, y finales de línea {@code \n}, {@code \r\n} o {@code \r}. Los caracteres de la fila
+ * actual se copian a un único arreglo reutilizado y cada campo se guarda como un par de
+ * posiciones, de modo que solo se crea una {@link String} cuando se pide un campo con
+ * {@link #campo(int)}; {@link #entero(int)} y {@link #igualIgnorandoMayusculas(int, String)}
+ * no crean objetos.</p>
+ *
+ * <p>Por compatibilidad con los archivos existentes, se ignoran los espacios alrededor de los
+ * campos (fuera de las comillas) y las líneas en blanco.</p>
+ *
+ * <pre>
+ * LectorCsv.leer(ruta, ',', true, fila -> {
+ *     int id = fila.entero(0);
+ *     String titulo = fila.campo(2);
+ * });
+ * </pre>
+ */
+public final class LectorCsv implements Closeable {
+
+    /**
+     * Acción a ejecutar por cada fila leída. La fila solo es válida durante la llamada.
+     */
+    @FunctionalInterface
+    public interface ManejadorFila {
+        void procesar(LectorCsv fila) throws IOException;
+    }
+
+    private static final int TAM_BUFFER = 8192;
+
+    private final Reader lector;
+    private final char separador;
+    private final char[] buffer = new char[TAM_BUFFER];
+    private int posicion;
+    private int limite;
+    private boolean finDeArchivo;
+
+    /** Caracteres de la fila actual (sin comillas envolventes ni escapes). */
+    private char[] datos = new char[256];
+    private int longitudDatos;
+    /** Inicio y fin de cada campo dentro de {@link #datos}. */
+    private int[] inicios = new int[16];
+    private int[] fines = new int[16];
+    private int columnas;
+    private long numeroFila;
+
+    /**
+     * Crea un lector sobre un {@link Reader} ya abierto.
+     * @param lector fuente de caracteres
+     * @param separador separador de campos (normalmente {@code ','})
+     */
+    public LectorCsv(Reader lector, char separador) {
+        this.lector = lector;
+        this.separador = separador;
+    }
+
+    /**
+     * Lee un archivo CSV en UTF-8 e invoca el manejador por cada fila.
+     *
+     * @param ruta archivo a leer
+     * @param separador separador de campos
+     * @param saltarCabecera si true, la primera fila no se entrega al manejador
+     * @param manejador acción por fila
+     * @throws IOException si falla la lectura o el manejador
+     */
+    public static void leer(Path ruta, char separador, boolean saltarCabecera, ManejadorFila manejador) throws IOException {
+        try (LectorCsv csv = new LectorCsv(Files.newBufferedReader(ruta, StandardCharsets.UTF_8), separador)) {
+            if (saltarCabecera && !csv.siguiente()) return;
+            while (csv.siguiente()) {
+                manejador.procesar(csv);
+            }
+        }
+    }
+
+    /**
+     * Avanza a la siguiente fila no vacía.
+     * @return {@code false} si no hay más filas
+     * @throws IOException si falla la lectura
+     */
+    public boolean siguiente() throws IOException {
+        while (leerFila()) {
+            if (columnas > 1 || fines[0] > inicios[0]) {
+                numeroFila++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return número de campos de la fila actual */
+    public int columnas() {
+        return columnas;
+    }
+
+    /** @return número de la fila actual (1 = primera fila no vacía, incluida la cabecera) */
+    public long numeroFila() {
+        return numeroFila;
+    }
+
+    /**
+     * @param i índice del campo (base 0)
+     * @return valor del campo, o cadena vacía si la fila no tiene ese campo
+     */
+    public String campo(int i) {
+        if (i >= columnas) return "";
+        return new String(datos, inicios[i], fines[i] - inicios[i]);
+    }
+
+    /**
+     * @param i índice del campo (base 0)
+     * @return {@code true} si el campo no existe o está vacío
+     */
+    public boolean vacio(int i) {
+        return i >= columnas || fines[i] == inicios[i];
+    }
+
+    /**
+     * Interpreta un campo como entero decimal sin crear cadenas intermedias.
+     * @param i índice del campo (base 0)
+     * @return valor entero
+     * @throws NumberFormatException si el campo no es un entero válido
+     */
+    public int entero(int i) {
+        if (i >= columnas || fines[i] == inicios[i]) throw new NumberFormatException("Campo vacío");
+        int p = inicios[i];
+        int fin = fines[i];
+        boolean negativo = datos[p] == '-';
+        if (negativo || datos[p] == '+') p++;
+        if (p == fin) throw new NumberFormatException(campo(i));
+        long valor = 0;
+        for (; p < fin; p++) {
+            int d = datos[p] - '0';
+            if (d < 0 || d > 9) throw new NumberFormatException(campo(i));
+            valor = valor * 10 + d;
+            if (valor > (long) Integer.MAX_VALUE + 1) throw new NumberFormatException(campo(i));
+        }
+        if (negativo) valor = -valor;
+        if (valor > Integer.MAX_VALUE) throw new NumberFormatException(campo(i));
+        return (int) valor;
+    }
+
+    /**
+     * Compara un campo con un texto sin distinguir mayúsculas, sin crear cadenas.
+     * @param i índice del campo (base 0)
+     * @param texto texto a comparar
+     * @return {@code true} si son iguales ignorando mayúsculas
+     */
+    public boolean igualIgnorandoMayusculas(int i, String texto) {
+        if (i >= columnas || texto == null) return false;
+        int longitud = fines[i] - inicios[i];
+        if (longitud != texto.length()) return false;
+        return regionIgual(i, texto);
+    }
+
+    /**
+     * Reconstruye la fila actual (para mensajes de error).
+     * @return campos unidos por el separador
+     */
+    public String texto() {
+        StringBuilder sb = new StringBuilder(longitudDatos + columnas);
+        for (int i = 0; i < columnas; i++) {
+            if (i > 0) sb.append(separador);
+            sb.append(datos, inicios[i], fines[i] - inicios[i]);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lector.close();
+    }
+
+    // ───────────────────────────────────────────────────────────────
+    // MÁQUINA DE ESTADOS
+    // ───────────────────────────────────────────────────────────────
+
+    private static final int INICIO_CAMPO = 0;
+    private static final int SIN_COMILLAS = 1;
+    private static final int EN_COMILLAS = 2;
+    private static final int COMILLA_EN_COMILLAS = 3;
+    private static final int TRAS_COMILLAS = 4;
+
+    /**
+     * Lee una fila completa en {@link #datos}.
+     * @return {@code false} si se llegó al final sin leer nada
+     */
+    private boolean leerFila() throws IOException {
+        longitudDatos = 0;
+        columnas = 0;
+        int estado = INICIO_CAMPO;
+        int inicio = 0;
+        int finSinEspacios = 0;
+        boolean leyoAlgo = false;
+
+        while (true) {
+            if (posicion >= limite && !rellenar()) {
+                if (!leyoAlgo) return false;
+                if (estado == INICIO_CAMPO) cerrarCampo(longitudDatos, longitudDatos);
+                else cerrarCampo(inicio, estado == SIN_COMILLAS ? finSinEspacios : longitudDatos);
+                return true;
+            }
+            char c = buffer[posicion++];
+            leyoAlgo = true;
+
+            switch (estado) {
+                case INICIO_CAMPO:
+                    if (c == '"') {
+                        estado = EN_COMILLAS;
+                        inicio = longitudDatos;
+                    } else if (c == separador) {
+                        cerrarCampo(longitudDatos, longitudDatos);
+                    } else if (c == '\n' || c == '\r') {
+                        if (c == '\r') saltarLf();
+                        cerrarCampo(longitudDatos, longitudDatos);
+                        return true;
+                    } else if (c != ' ' && c != '\t') {
+                        estado = SIN_COMILLAS;
+                        inicio = longitudDatos;
+                        agregar(c);
+                        finSinEspacios = longitudDatos;
+                    }
+                    break;
+                case SIN_COMILLAS:
+                    if (c == separador) {
+                        cerrarCampo(inicio, finSinEspacios);
+                        estado = INICIO_CAMPO;
+                    } else if (c == '\n' || c == '\r') {
+                        if (c == '\r') saltarLf();
+                        cerrarCampo(inicio, finSinEspacios);
+                        return true;
+                    } else {
+                        agregar(c);
+                        if (c != ' ' && c != '\t') finSinEspacios = longitudDatos;
+                    }
+                    break;
+                case EN_COMILLAS:
+                    if (c == '"') estado = COMILLA_EN_COMILLAS;
+                    else agregar(c);
+                    break;
+                case COMILLA_EN_COMILLAS:
+                    if (c == '"') {
+                        agregar('"');
+                        estado = EN_COMILLAS;
+                    } else {
+                        // Era la comilla de cierre: el carácter se vuelve a leer tras ella
+                        estado = TRAS_COMILLAS;
+                        posicion--;
+                    }
+                    break;
+                case TRAS_COMILLAS:
+                    if (c == separador) {
+                        cerrarCampo(inicio, longitudDatos);
+                        estado = INICIO_CAMPO;
+                    } else if (c == '\n' || c == '\r') {
+                        if (c == '\r') saltarLf();
+                        cerrarCampo(inicio, longitudDatos);
+                        return true;
+                    } else if (c != ' ' && c != '\t') {
+                        // Texto tras la comilla de cierre: se conserva, como hacen los lectores tolerantes
+                        agregar(c);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+    }
+
+    private boolean rellenar() throws IOException {
+        if (finDeArchivo) return false;
+        int n = lector.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            finDeArchivo = true;
+            return false;
+        }
+        posicion = 0;
+        limite = n;
+        return true;
+    }
+
+    private void saltarLf() throws IOException {
+        if (posicion >= limite && !rellenar()) return;
+        if (buffer[posicion] == '\n') posicion++;
+    }
+
+    private void agregar(char c) {
+        if (longitudDatos == datos.length) datos = Arrays.copyOf(datos, datos.length * 2);
+        datos[longitudDatos++] = c;
+    }
+
+    private void cerrarCampo(int inicio, int fin) {
+        if (columnas == inicios.length) {
+            inicios = Arrays.copyOf(inicios, columnas * 2);
+            fines = Arrays.copyOf(fines, columnas * 2);
+        }
+        inicios[columnas] = inicio;
+        fines[columnas] = fin;
+        columnas++;
+    }
+
+    private boolean regionIgual(int i, String texto) {
+        for (int k = 0, p = inicios[i]; p < fines[i]; k++, p++) {
+            char a = datos[p];
+            char b = texto.charAt(k);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)
+                    && Character.toUpperCase(a) != Character.toUpperCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
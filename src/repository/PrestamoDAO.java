@@ -1,19 +1,17 @@
 package repository;
 
-import java.util.*;
+import java.io.UncheckedIOException;
 
 /**
- * DAO en memoria para préstamos y colas de espera.
+ * DAO de préstamos y colas de espera sobre la {@link BitacoraPrestamos}.
  *
- * Guarda un conjunto de préstamos activos y colas por libro. Está pensado
- * para pruebas locales sin persistencia externa.
+ * El inventario de copias lo gestiona el {@link LibroDAO}; los préstamos y las
+ * colas se registran en la bitácora compartida, de modo que el resto de módulos
+ * ve el mismo estado.
  */
 public class PrestamoDAO {
-    // Conjunto de préstamos activos representados como "userId:bookId"
-    private final Set<String> prestamosActivos = new HashSet<>();
-    // Colas por libro
-    private final Map<String, Queue<String>> colas = new HashMap<>();
     private final LibroDAO libroDAO;
+    private final BitacoraPrestamos bitacora;
 
     /**
      * Crea el DAO usando el {@link LibroDAO} proporcionado para gestionar inventario.
@@ -21,11 +19,18 @@ public class PrestamoDAO {
      * @param libroDAO instancia de {@link LibroDAO}
      */
     public PrestamoDAO(LibroDAO libroDAO) {
-        this.libroDAO = libroDAO;
+        this(libroDAO, BitacoraPrestamos.obtenerInstancia());
     }
 
-    private String key(String userId, String bookId) {
-        return userId + ":" + bookId;
+    /**
+     * Crea el DAO sobre una bitácora concreta.
+     *
+     * @param libroDAO instancia de {@link LibroDAO}
+     * @param bitacora bitácora donde se registran préstamos y colas
+     */
+    public PrestamoDAO(LibroDAO libroDAO, BitacoraPrestamos bitacora) {
+        this.libroDAO = libroDAO;
+        this.bitacora = bitacora;
     }
 
     /**
@@ -36,7 +41,7 @@ public class PrestamoDAO {
      * @return {@code true} si existe un préstamo activo
      */
     public boolean usuarioTienePrestamo(String userId, String bookId) {
-        return prestamosActivos.contains(key(userId, bookId));
+        return bitacora.tienePrestamoActivo(userId, bookId);
     }
 
     /**
@@ -46,7 +51,7 @@ public class PrestamoDAO {
      * @return tamaño de la cola
      */
     public int contarEnCola(String bookId) {
-        return colas.getOrDefault(bookId, new LinkedList<>()).size();
+        return bitacora.contarEnCola(bookId);
     }
 
     /**
@@ -55,10 +60,17 @@ public class PrestamoDAO {
      * @param userId id del usuario
      * @param bookId id del libro
      * @return {@code true} si el préstamo fue registrado (había copias)
+     * @throws UncheckedIOException si no se puede escribir en la bitácora
      */
     public boolean registrarPrestamo(String userId, String bookId) {
         if (libroDAO.disminuirCopia(bookId)) {
-            prestamosActivos.add(key(userId, bookId));
+            try {
+                bitacora.registrarPrestamo(userId, bookId, BitacoraPrestamos.vencimientoPorDefecto());
+            } catch (UncheckedIOException e) {
+                // El préstamo no quedó registrado: se devuelve la copia
+                libroDAO.aumentarCopia(bookId);
+                throw e;
+            }
             return true;
         }
         return false;
@@ -71,8 +83,9 @@ public class PrestamoDAO {
      * @param bookId id del libro
      */
     public void registrarDevolucion(String userId, String bookId) {
-        prestamosActivos.remove(key(userId, bookId));
-        libroDAO.aumentarCopia(bookId);
+        if (bitacora.registrarDevolucion(userId, bookId)) {
+            libroDAO.aumentarCopia(bookId);
+        }
         // si hay cola, no la procesamos automáticamente aquí (simplificar)
     }
 
@@ -83,6 +96,6 @@ public class PrestamoDAO {
      * @param bookId id del libro
      */
     public void ponerEnCola(String userId, String bookId) {
-        colas.computeIfAbsent(bookId, k -> new LinkedList<>()).add(userId);
+        bitacora.ponerEnCola(userId, bookId);
     }
 }
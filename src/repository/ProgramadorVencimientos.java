@@ -0,0 +1,171 @@
+package repository;
+
+import recursos.HilosVirtuales;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vence automáticamente los préstamos de la {@link BitacoraPrestamos} al llegar su fecha.
+ *
+ * <p>Los préstamos activos se programan en una {@link RuedaTemporizacion} (inserción O(1)
+ * aunque haya millones de vencimientos pendientes): todos al iniciar y luego cada préstamo
+ * nuevo que registra la bitácora. Un hilo en segundo plano avanza la rueda una vez por tick
+ * y procesa en lote lo vencido: marca los préstamos como {@link BitacoraPrestamos.Estado#VENCIDO}
+ * y avisa a los {@link OyenteVencimientos}, que devuelven las copias al inventario y atienden
+ * las colas de espera.</p>
+ *
+ * <p>Las devoluciones y renovaciones no se quitan de la rueda: al vencer, cada entrada se
+ * compara con el registro vigente y se descarta si ya no es el mismo préstamo activo.</p>
+ *
+ * <p>Un préstamo con fecha {@code yyyy-MM-dd} vence al terminar ese día; con fecha-hora ISO,
+ * en ese instante. La duración del tick se configura con la propiedad
+ * {@code lybsys.vencimientos.tickMs} (por defecto, un minuto).</p>
+ */
+public class ProgramadorVencimientos {
+
+    /**
+     * Recibe cada lote de préstamos vencidos (ya marcados como vencidos en la bitácora).
+     */
+    public interface OyenteVencimientos {
+        void vencidos(List<BitacoraPrestamos.Registro> lote);
+    }
+
+    private static ProgramadorVencimientos instancia;
+
+    private final BitacoraPrestamos bitacora;
+    private final long milisPorTick;
+    private final RuedaTemporizacion<BitacoraPrestamos.Registro> rueda;
+    private final List<OyenteVencimientos> oyentes = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService ejecutor;
+
+    /**
+     * Crea un programador sobre una bitácora concreta.
+     * @param bitacora bitácora de préstamos
+     * @param milisPorTick resolución de los vencimientos en milisegundos
+     */
+    public ProgramadorVencimientos(BitacoraPrestamos bitacora, long milisPorTick) {
+        this.bitacora = bitacora;
+        this.milisPorTick = milisPorTick;
+        this.rueda = new RuedaTemporizacion<>(milisPorTick, System.currentTimeMillis());
+    }
+
+    /**
+     * Obtiene el programador de la bitácora compartida.
+     * @return instancia única
+     */
+    public static synchronized ProgramadorVencimientos obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new ProgramadorVencimientos(BitacoraPrestamos.obtenerInstancia(),
+                    Long.getLong("lybsys.vencimientos.tickMs", 60_000L));
+        }
+        return instancia;
+    }
+
+    /**
+     * Programa los préstamos activos y arranca el hilo de vencimientos. Las llamadas
+     * posteriores no hacen nada.
+     */
+    public void iniciar() {
+        synchronized (this) {
+            if (ejecutor != null) return;
+            ejecutor = Executors.newSingleThreadScheduledExecutor(HilosVirtuales.hilosDaemon("vencimientos-prestamos"));
+        }
+        // Se escucha antes de leer los activos para no perder préstamos registrados entretanto
+        bitacora.agregarOyente(r -> {
+            if (r.getEstado() == BitacoraPrestamos.Estado.ACTIVO) programar(r);
+        });
+        for (BitacoraPrestamos.Registro r : bitacora.registros(BitacoraPrestamos.Estado.ACTIVO)) {
+            programar(r);
+        }
+        ejecutor.scheduleWithFixedDelay(this::procesarSeguro, 0, milisPorTick, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra un oyente de lotes vencidos.
+     * @param oyente oyente a registrar
+     */
+    public void agregarOyente(OyenteVencimientos oyente) {
+        oyentes.add(oyente);
+    }
+
+    /**
+     * @return número de vencimientos pendientes en la rueda (incluye préstamos ya devueltos)
+     */
+    public synchronized int pendientes() {
+        return rueda.tamano();
+    }
+
+    /**
+     * Procesa los vencimientos hasta el instante actual.
+     * @return préstamos que vencieron en este lote
+     */
+    public List<BitacoraPrestamos.Registro> procesar() {
+        List<BitacoraPrestamos.Registro> candidatos;
+        synchronized (this) {
+            candidatos = rueda.avanzar(System.currentTimeMillis());
+        }
+        if (candidatos.isEmpty()) return candidatos;
+
+        List<BitacoraPrestamos.Registro> lote = new ArrayList<>();
+        for (BitacoraPrestamos.Registro r : candidatos) {
+            try {
+                if (bitacora.marcarVencido(r.getIdUsuario(), r.getIdLibro(), r.getId(), r.getFechaVencimiento())) {
+                    lote.add(bitacora.obtener(r.getIdUsuario(), r.getIdLibro()));
+                }
+            } catch (UncheckedIOException e) {
+                // No quedó escrito: se reintenta en el siguiente tick
+                System.err.println("Error al vencer el préstamo " + r.getId() + ": " + e.getMessage());
+                programar(r);
+            }
+        }
+        if (!lote.isEmpty()) {
+            for (OyenteVencimientos oyente : oyentes) {
+                oyente.vencidos(lote);
+            }
+        }
+        return lote;
+    }
+
+    private void procesarSeguro() {
+        try {
+            procesar();
+        } catch (RuntimeException e) {
+            System.err.println("Error al procesar vencimientos de préstamos: " + e.getMessage());
+        }
+    }
+
+    private void programar(BitacoraPrestamos.Registro r) {
+        long instante = instanteVencimiento(r.getFechaVencimiento());
+        if (instante < 0) return;
+        synchronized (this) {
+            rueda.programar(r, instante);
+        }
+    }
+
+    /**
+     * @param fecha fecha de vencimiento ({@code yyyy-MM-dd} o fecha-hora ISO)
+     * @return instante de vencimiento en epoch ms, o -1 si no hay fecha válida
+     */
+    static long instanteVencimiento(String fecha) {
+        if (fecha == null || fecha.isBlank()) return -1;
+        try {
+            LocalDateTime vence = fecha.length() <= 10
+                    ? LocalDate.parse(fecha).plusDays(1).atStartOfDay()
+                    : LocalDateTime.parse(fecha);
+            return vence.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            System.err.println("Fecha de vencimiento no válida: " + fecha);
+            return -1;
+        }
+    }
+}
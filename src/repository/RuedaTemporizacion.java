@@ -0,0 +1,136 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rueda de temporización jerárquica (hashed hierarchical timing wheel).
+ *
+ * <p>El tiempo se divide en ticks de duración fija. Hay {@value #NIVELES} niveles de
+ * {@value #RANURAS} ranuras: el nivel 0 cubre los próximos 64 ticks, el nivel 1 los próximos
+ * 64² y así sucesivamente. Programar un elemento es O(1) (se calcula nivel y ranura a partir
+ * de la distancia a su vencimiento); al avanzar, cuando el nivel inferior da la vuelta se
+ * redistribuye la ranura correspondiente del nivel superior en los niveles inferiores.
+ * Los vencimientos más allá del último nivel se dejan en su ranura más lejana y se
+ * reubican cada vez que pasan por ella.</p>
+ *
+ * <p>No es segura para hilos; quien la usa debe sincronizar el acceso.</p>
+ *
+ * @param <T> tipo de los elementos programados
+ */
+final class RuedaTemporizacion<T> {
+
+    private static final int BITS = 6;
+    private static final int RANURAS = 1 << BITS;
+    private static final int MASCARA = RANURAS - 1;
+    private static final int NIVELES = 4;
+    /** Distancia máxima (en ticks) representable sin recolocar: 64^4 - 1. */
+    private static final long ALCANCE = (1L << (BITS * NIVELES)) - 1;
+
+    private static final class Entrada<T> {
+        final T valor;
+        final long tick;
+
+        Entrada(T valor, long tick) {
+            this.valor = valor;
+            this.tick = tick;
+        }
+    }
+
+    private final long milisPorTick;
+    @SuppressWarnings("unchecked")
+    private final List<Entrada<T>>[][] ranuras = (List<Entrada<T>>[][]) new List<?>[NIVELES][RANURAS];
+    /** Elementos ya vencidos al programarlos; se entregan en el siguiente avance. */
+    private List<T> pendientes = new ArrayList<>();
+    private long tickActual;
+    private int tamano;
+
+    /**
+     * @param milisPorTick duración de un tick en milisegundos
+     * @param inicioMillis instante inicial (epoch ms)
+     */
+    RuedaTemporizacion(long milisPorTick, long inicioMillis) {
+        if (milisPorTick <= 0) throw new IllegalArgumentException("El tick debe ser positivo");
+        this.milisPorTick = milisPorTick;
+        this.tickActual = inicioMillis / milisPorTick;
+    }
+
+    /**
+     * Programa un elemento para que venza en un instante dado.
+     * @param valor elemento
+     * @param vencimientoMillis instante de vencimiento (epoch ms); si ya pasó, vence en el próximo avance
+     */
+    void programar(T valor, long vencimientoMillis) {
+        // Se redondea hacia arriba: un elemento no vence antes de su instante
+        long tick = Math.floorDiv(vencimientoMillis + milisPorTick - 1, milisPorTick);
+        tamano++;
+        colocar(new Entrada<>(valor, tick));
+    }
+
+    /**
+     * Avanza la rueda hasta un instante y devuelve los elementos vencidos hasta él.
+     * @param ahoraMillis instante actual (epoch ms)
+     * @return elementos vencidos, en orden aproximado de vencimiento
+     */
+    List<T> avanzar(long ahoraMillis) {
+        long destino = ahoraMillis / milisPorTick;
+        List<T> vencidos = pendientes;
+        pendientes = new ArrayList<>();
+        while (tickActual < destino) {
+            if (tamano == vencidos.size()) {
+                // La rueda quedó vacía: no hace falta recorrer los ticks restantes
+                tickActual = destino;
+                break;
+            }
+            tickActual++;
+            // Redistribuir primero los niveles superiores que empiezan una vuelta en este tick
+            for (int nivel = NIVELES - 1; nivel >= 1; nivel--) {
+                if ((tickActual & ((1L << (BITS * nivel)) - 1)) == 0) {
+                    int indice = (int) ((tickActual >>> (BITS * nivel)) & MASCARA);
+                    List<Entrada<T>> ranura = ranuras[nivel][indice];
+                    if (ranura != null) {
+                        ranuras[nivel][indice] = null;
+                        for (Entrada<T> e : ranura) colocar(e);
+                    }
+                }
+            }
+            int indice = (int) (tickActual & MASCARA);
+            List<Entrada<T>> ranura = ranuras[0][indice];
+            if (ranura != null) {
+                ranuras[0][indice] = null;
+                for (Entrada<T> e : ranura) vencidos.add(e.valor);
+            }
+            vencidos.addAll(pendientes);
+            pendientes.clear();
+        }
+        tamano -= vencidos.size();
+        return vencidos;
+    }
+
+    /**
+     * @return número de elementos programados que aún no se han entregado
+     */
+    int tamano() {
+        return tamano;
+    }
+
+    private void colocar(Entrada<T> e) {
+        long distancia = e.tick - tickActual;
+        if (distancia <= 0) {
+            pendientes.add(e.valor);
+            return;
+        }
+        long posicion = distancia > ALCANCE ? tickActual + ALCANCE : e.tick;
+        int nivel = 0;
+        while (nivel < NIVELES - 1 && (posicion - tickActual) >= (1L << (BITS * (nivel + 1)))) {
+            nivel++;
+        }
+        int indice = (int) ((posicion >>> (BITS * nivel)) & MASCARA);
+        List<Entrada<T>> ranura = ranuras[nivel][indice];
+        if (ranura == null) {
+            ranura = new ArrayList<>();
+            ranuras[nivel][indice] = ranura;
+        }
+        ranura.add(e);
+    }
+}